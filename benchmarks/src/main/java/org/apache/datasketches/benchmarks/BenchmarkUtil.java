@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Common constants and data generators for the benchmark suites.
+ */
+final class BenchmarkUtil {
+  static final String HEAP = "heap";
+  static final String DIRECT = "direct";
+
+  /** Number of items presented to a sketch by each update benchmark invocation. */
+  static final int BATCH = 1 << 16;
+
+  private static final long SEED = 12345L;
+
+  private BenchmarkUtil() { }
+
+  /**
+   * Returns true if the given memory mode is <i>direct</i>.
+   * @param memory either <i>heap</i> or <i>direct</i>
+   * @return true if the given memory mode is <i>direct</i>
+   */
+  static boolean isDirect(final String memory) {
+    if (HEAP.equals(memory)) { return false; }
+    if (DIRECT.equals(memory)) { return true; }
+    throw new IllegalArgumentException("Unknown memory mode: " + memory);
+  }
+
+  /**
+   * Returns distinct long items starting at the given offset.
+   * @param n the number of items
+   * @param offset the value of the first item
+   * @return distinct long items
+   */
+  static long[] sequentialLongs(final int n, final long offset) {
+    final long[] items = new long[n];
+    for (int i = 0; i < n; i++) { items[i] = offset + i; }
+    return items;
+  }
+
+  /**
+   * Returns long items drawn from a Zipf-like distribution, which is typical for heavy hitter inputs.
+   * @param n the number of items
+   * @param numDistinct the size of the item domain
+   * @return skewed long items
+   */
+  static long[] skewedLongs(final int n, final int numDistinct) {
+    final Random rand = new Random(SEED);
+    final long[] items = new long[n];
+    for (int i = 0; i < n; i++) {
+      items[i] = (long) Math.floor(Math.pow(numDistinct, rand.nextDouble()));
+    }
+    return items;
+  }
+
+  /**
+   * Returns uniformly distributed random doubles in the range [0, 1).
+   * @param n the number of items
+   * @return random doubles
+   */
+  static double[] randomDoubles(final int n) {
+    final Random rand = new Random(SEED);
+    final double[] items = new double[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextDouble(); }
+    return items;
+  }
+
+  /**
+   * Returns uniformly distributed random floats in the range [0, 1).
+   * @param n the number of items
+   * @return random floats
+   */
+  static float[] randomFloats(final int n) {
+    final Random rand = new Random(SEED);
+    final float[] items = new float[n];
+    for (int i = 0; i < n; i++) { items[i] = rand.nextFloat(); }
+    return items;
+  }
+
+  /**
+   * Returns evenly spaced normalized ranks in the open interval (0, 1).
+   * @param n the number of ranks
+   * @return normalized ranks
+   */
+  static double[] evenlySpacedRanks(final int n) {
+    final double[] ranks = new double[n];
+    for (int i = 0; i < n; i++) { ranks[i] = (i + 1.0) / (n + 1.0); }
+    return ranks;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.filters.bloomfilter.BloomFilter;
+import org.apache.datasketches.filters.bloomfilter.BloomFilterBuilder;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the BloomFilter, on the heap and in WritableMemory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BloomFilterBenchmark {
+  // all filters must share a seed to be compatible for union
+  private static final long SEED = 9001L;
+
+  @Param({"1000000", "100000000"})
+  long numBits;
+
+  @Param({"3", "7"})
+  int numHashes;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private long[] items;
+  private long[] probes;
+  private BloomFilter updateFilter;
+  private BloomFilter filterA;
+  private BloomFilter filterB;
+  private BloomFilter blockedFilter;
+  private boolean[] results;
+  private Memory mem;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.sequentialLongs(BATCH, 0);
+    probes = BenchmarkUtil.sequentialLongs(BATCH, BATCH / 2);
+    updateFilter = newFilter();
+    filterA = newFilter();
+    filterB = newFilter();
+    for (int i = 0; i < items.length; i++) {
+      filterA.update(items[i]);
+      filterB.update(probes[i]);
+    }
+    blockedFilter = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, SEED);
+    for (int i = 0; i < items.length; i++) { blockedFilter.update(items[i]); }
+    results = new boolean[BATCH];
+    mem = alloc.copyOf(filterA.toByteArray());
+  }
+
+  private BloomFilter newFilter() {
+    if (alloc.isDirect()) {
+      final WritableMemory wmem = alloc.allocate(BloomFilter.getSerializedSizeBytes(numBits));
+      return BloomFilterBuilder.initializeBySize(numBits, numHashes, SEED, wmem);
+    }
+    return BloomFilterBuilder.createBySize(numBits, numHashes, SEED);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update() {
+    for (int i = 0; i < items.length; i++) { updateFilter.update(items[i]); }
+    return updateFilter.getBitsUsed();
+  }
+
+  @Benchmark
+  public long merge() {
+    final BloomFilter target = BloomFilterBuilder.createBySize(numBits, numHashes, SEED);
+    target.union(filterA);
+    target.union(filterB);
+    return target.getBitsUsed();
+  }
+
+  @Benchmark
+  public long mergeParallel() {
+    final BloomFilter target = BloomFilterBuilder.createBySize(numBits, numHashes, SEED);
+    target.union(filterA, ForkJoinPool.commonPool());
+    target.union(filterB, ForkJoinPool.commonPool());
+    return target.getBitsUsed();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return filterA.toByteArray();
+  }
+
+  @Benchmark
+  public long deserialize() {
+    final BloomFilter bf = alloc.isDirect() ? BloomFilter.wrap(mem) : BloomFilter.heapify(mem);
+    return bf.getBitsUsed();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int query() {
+    int count = 0;
+    for (int i = 0; i < probes.length; i++) {
+      if (filterA.query(probes[i])) { count++; }
+    }
+    return count;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public boolean[] queryBatch() {
+    filterA.query(probes, results);
+    return results;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int queryBlocked() {
+    int count = 0;
+    for (int i = 0; i < probes.length; i++) {
+      if (blockedFilter.query(probes[i])) { count++; }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.filters.bloomfilter.BloomFilter;
+import org.apache.datasketches.filters.bloomfilter.BloomFilterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the concurrent BloomFilter with several writer threads updating one shared filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentBloomFilterBenchmark {
+  private static final long SEED = 9001L;
+
+  /**
+   * The shared filter, common to all writer threads.
+   */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    @Param({"1000000", "100000000"})
+    long numBits;
+
+    @Param({"3", "7"})
+    int numHashes;
+
+    BloomFilter filter;
+    final AtomicLong nextBase = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+      filter = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, SEED);
+    }
+  }
+
+  /**
+   * The items of one writer thread.
+   */
+  @State(Scope.Thread)
+  public static class Writer {
+    long base;
+
+    @Setup(Level.Trial)
+    public void setup(final Shared shared) {
+      base = shared.nextBase.getAndAdd(1L << 40);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update(final Shared shared, final Writer writer) {
+    final BloomFilter filter = shared.filter;
+    final long base = writer.base;
+    for (int i = 0; i < BATCH; i++) { filter.update(base + i); }
+    writer.base += BATCH;
+    return writer.base;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int query(final Shared shared, final Writer writer) {
+    final BloomFilter filter = shared.filter;
+    int count = 0;
+    for (int i = 0; i < BATCH; i++) {
+      if (filter.query(writer.base - i)) { count++; }
+    }
+    return count;
+  }
+}
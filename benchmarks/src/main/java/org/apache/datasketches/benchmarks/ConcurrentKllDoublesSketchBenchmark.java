@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.kll.ConcurrentKllDoublesBuffer;
+import org.apache.datasketches.kll.ConcurrentKllDoublesSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the ConcurrentKllDoublesSketch with several writer threads feeding one shared sketch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentKllDoublesSketchBenchmark {
+
+  /**
+   * The shared sketch, common to all writer threads.
+   */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    @Param({"200"})
+    int k;
+
+    ConcurrentKllDoublesSketch sketch;
+    final AtomicLong nextBase = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+      sketch = new ConcurrentKllDoublesSketch(k);
+    }
+  }
+
+  /**
+   * The local buffer and the items of one writer thread.
+   */
+  @State(Scope.Thread)
+  public static class Writer {
+    ConcurrentKllDoublesBuffer buffer;
+    long base;
+
+    @Setup(Level.Trial)
+    public void setup(final Shared shared) {
+      buffer = shared.sketch.newLocalBuffer();
+      base = shared.nextBase.getAndAdd(1L << 40);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update(final Writer writer) {
+    final ConcurrentKllDoublesBuffer buffer = writer.buffer;
+    final long base = writer.base;
+    for (int i = 0; i < BATCH; i++) { buffer.update((double) (base + i)); }
+    writer.base += BATCH;
+    return writer.base;
+  }
+
+  @Benchmark
+  public double query(final Shared shared) {
+    return shared.sketch.isEmpty() ? 0 : shared.sketch.getQuantile(0.99);
+  }
+}
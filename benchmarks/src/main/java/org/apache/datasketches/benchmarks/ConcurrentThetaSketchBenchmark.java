@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.theta.ConcurrentWaitStrategy;
+import org.apache.datasketches.theta.UpdateSketch;
+import org.apache.datasketches.theta.UpdateSketchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the concurrent theta sketch with several writer threads feeding one shared sketch,
+ * for each propagation wait strategy, with and without local double buffering.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentThetaSketchBenchmark {
+
+  /**
+   * The shared sketch and builder, common to all writer threads.
+   */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    @Param({"SPIN", "SPIN_YIELD", "PARK"})
+    ConcurrentWaitStrategy waitStrategy;
+
+    @Param({"false", "true"})
+    boolean doubleBuffering;
+
+    UpdateSketchBuilder bldr;
+    UpdateSketch sketch;
+    final AtomicLong nextBase = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+      bldr = new UpdateSketchBuilder().setLogNominalEntries(12)
+          .setPropagationWaitStrategy(waitStrategy).setLocalDoubleBuffering(doubleBuffering);
+      bldr.setMaxNumLocalThreads(4);
+      sketch = bldr.buildShared();
+    }
+  }
+
+  /**
+   * The local buffer and the items of one writer thread.
+   */
+  @State(Scope.Thread)
+  public static class Writer {
+    UpdateSketch buffer;
+    long base;
+
+    @Setup(Level.Trial)
+    public void setup(final Shared shared) {
+      buffer = shared.bldr.buildLocal(shared.sketch);
+      base = shared.nextBase.getAndAdd(1L << 40);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update(final Writer writer) {
+    final UpdateSketch buffer = writer.buffer;
+    final long base = writer.base;
+    for (int i = 0; i < BATCH; i++) { buffer.update(base + i); }
+    writer.base += BATCH;
+    return writer.base;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.cpc.CpcSketch;
+import org.apache.datasketches.cpc.CpcUnion;
+import org.apache.datasketches.cpc.CpcWrapper;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the CpcSketch and CpcUnion.
+ *
+ * <p>The <i>direct</i> variant updates a Direct sketch and merges into a Direct union, both over
+ * off-heap updatable images, and measures deserialization and queries through the read-only
+ * CpcWrapper over an off-heap compressed image.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpcSketchBenchmark {
+
+  @Param({"11", "16"})
+  int lgK;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private long[] items;
+  private CpcSketch updateSketch;
+  private CpcSketch sketchA;
+  private CpcSketch sketchB;
+  private Memory compactMem;
+  private WritableMemory unionMem;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.sequentialLongs(BATCH, 0);
+    updateSketch = alloc.isDirect()
+        ? new CpcSketch(lgK, ThetaUtil.DEFAULT_UPDATE_SEED,
+            alloc.allocate(CpcSketch.getMaxUpdatableSerializationBytes(lgK)))
+        : new CpcSketch(lgK);
+    unionMem = alloc.isDirect() ? alloc.allocate(CpcUnion.getMaxSerializationBytes(lgK)) : null;
+    sketchA = new CpcSketch(lgK);
+    sketchB = new CpcSketch(lgK);
+    for (int i = 0; i < (4 << lgK); i++) {
+      sketchA.update(i);
+      sketchB.update(i + (2L << lgK));
+    }
+    compactMem = alloc.copyOf(sketchA.toByteArray());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double update() {
+    updateSketch.reset();
+    for (int i = 0; i < items.length; i++) { updateSketch.update(items[i]); }
+    return updateSketch.getEstimate();
+  }
+
+  @Benchmark
+  public double merge() {
+    final CpcUnion union = alloc.isDirect()
+        ? new CpcUnion(lgK, ThetaUtil.DEFAULT_UPDATE_SEED, unionMem)
+        : new CpcUnion(lgK);
+    union.update(sketchA);
+    union.update(sketchB);
+    return union.getResult().getEstimate();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.toByteArray();
+  }
+
+  @Benchmark
+  public double deserialize() {
+    return alloc.isDirect()
+        ? new CpcWrapper(compactMem).getEstimate()
+        : CpcSketch.heapify(compactMem).getEstimate();
+  }
+
+  @Benchmark
+  public double query() {
+    if (alloc.isDirect()) {
+      final CpcWrapper wrapper = new CpcWrapper(compactMem);
+      return wrapper.getEstimate() + wrapper.getUpperBound(2) + wrapper.getLowerBound(2);
+    }
+    return sketchA.getEstimate() + sketchA.getUpperBound(2) + sketchA.getLowerBound(2);
+  }
+}
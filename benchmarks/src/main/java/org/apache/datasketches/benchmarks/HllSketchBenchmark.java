@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the HllSketch in each of its target types and for the HLL Union.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HllSketchBenchmark {
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"HLL_4", "HLL_6", "HLL_8"})
+  TgtHllType tgtHllType;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private long[] items;
+  private HllSketch updateSketch;
+  private HllSketch sketchA;
+  private HllSketch sketchB;
+  private Union union;
+  private Memory updatableMem;
+  private Memory compactMem;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.sequentialLongs(BATCH, 0);
+    updateSketch = newSketch();
+    sketchA = newSketch();
+    sketchB = newSketch();
+    for (int i = 0; i < (4 << lgK); i++) {
+      sketchA.update(i);
+      sketchB.update(i + (2L << lgK));
+    }
+    updatableMem = alloc.copyOf(sketchA.toUpdatableByteArray());
+    compactMem = alloc.copyOf(sketchA.toCompactByteArray());
+    union = alloc.isDirect()
+        ? new Union(lgK, alloc.allocate(Union.getMaxSerializationBytes(lgK)))
+        : new Union(lgK);
+  }
+
+  private HllSketch newSketch() {
+    if (alloc.isDirect()) {
+      final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, tgtHllType);
+      return new HllSketch(lgK, tgtHllType, alloc.allocate(bytes));
+    }
+    return new HllSketch(lgK, tgtHllType);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double update() {
+    updateSketch.reset();
+    for (int i = 0; i < items.length; i++) { updateSketch.update(items[i]); }
+    return updateSketch.getEstimate();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double updateBatch() {
+    updateSketch.reset();
+    updateSketch.updateBatch(items, 0, items.length);
+    return updateSketch.getEstimate();
+  }
+
+  @Benchmark
+  public double merge() {
+    union.reset();
+    union.update(sketchA);
+    union.update(sketchB);
+    return union.getResult(tgtHllType).getEstimate();
+  }
+
+  @Benchmark
+  public double mergeParallel() {
+    union.reset();
+    union.update(sketchA, ForkJoinPool.commonPool());
+    union.update(sketchB, ForkJoinPool.commonPool());
+    return union.getResult(tgtHllType).getEstimate();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.toCompactByteArray();
+  }
+
+  @Benchmark
+  public double deserialize() {
+    final HllSketch sk = alloc.isDirect()
+        ? HllSketch.wrap(updatableMem)
+        : HllSketch.heapify(compactMem);
+    return sk.getEstimate();
+  }
+
+  @Benchmark
+  public double query() {
+    return sketchA.getEstimate() + sketchA.getUpperBound(2) + sketchA.getLowerBound(2);
+  }
+}
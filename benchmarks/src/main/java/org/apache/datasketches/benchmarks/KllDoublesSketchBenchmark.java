@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+import static org.apache.datasketches.kll.KllSketch.SketchType.DOUBLES_SKETCH;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.kll.KllDoublesSketchSortedView;
+import org.apache.datasketches.kll.KllSketch;
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the KllDoublesSketch, on the heap and in WritableMemory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KllDoublesSketchBenchmark {
+  private static final MemoryRequestServer memReqSvr = new DefaultMemoryRequestServer();
+
+  @Param({"200", "1000"})
+  int k;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private double[] items;
+  private double[] ranks;
+  private KllDoublesSketch updateSketch;
+  private KllDoublesSketch sketchA;
+  private KllDoublesSketch sketchB;
+  private Memory compactMem;
+  private double[] probes;
+  private double[] sortedProbes;
+  private KllDoublesSketchSortedView plainView;
+  private KllDoublesSketchSortedView indexedView;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.randomDoubles(BATCH);
+    ranks = BenchmarkUtil.evenlySpacedRanks(100);
+    updateSketch = newSketch();
+    sketchA = newSketch();
+    sketchB = newSketch();
+    for (int i = 0; i < items.length; i++) {
+      sketchA.update(items[i]);
+      sketchB.update(1.0 - items[i]);
+    }
+    compactMem = alloc.copyOf(sketchA.toByteArray());
+    probes = BenchmarkUtil.randomDoubles(BATCH);
+    sortedProbes = probes.clone();
+    Arrays.sort(sortedProbes);
+    plainView = new KllDoublesSketchSortedView(sketchA);
+    indexedView = new KllDoublesSketchSortedView(sketchA);
+    indexedView.buildSearchIndex();
+  }
+
+  private KllDoublesSketch newSketch() {
+    if (alloc.isDirect()) {
+      final int bytes = KllSketch.getMaxSerializedSizeBytes(k, 1L << 20, DOUBLES_SKETCH, true);
+      return KllDoublesSketch.newDirectInstance(k, alloc.allocate(bytes), memReqSvr);
+    }
+    return KllDoublesSketch.newHeapInstance(k);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update() {
+    updateSketch.reset();
+    for (int i = 0; i < items.length; i++) { updateSketch.update(items[i]); }
+    return updateSketch.getN();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long updateVector() {
+    updateSketch.reset();
+    updateSketch.update(items, 0, items.length);
+    return updateSketch.getN();
+  }
+
+  @Benchmark
+  public long merge() {
+    final KllDoublesSketch target = newSketch();
+    target.merge(sketchA);
+    target.merge(sketchB);
+    return target.getN();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.toByteArray();
+  }
+
+  @Benchmark
+  public double deserialize() {
+    final KllDoublesSketch sk = alloc.isDirect()
+        ? KllDoublesSketch.wrap(compactMem)
+        : KllDoublesSketch.heapify(compactMem);
+    return sk.getQuantile(0.5);
+  }
+
+  @Benchmark
+  public double[] query() {
+    return sketchA.getQuantiles(ranks);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double rank() {
+    double sum = 0;
+    for (int i = 0; i < probes.length; i++) { sum += plainView.getRank(probes[i], INCLUSIVE); }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double rankIndexed() {
+    double sum = 0;
+    for (int i = 0; i < probes.length; i++) { sum += indexedView.getRank(probes[i], INCLUSIVE); }
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double[] ranksSorted() {
+    return plainView.getRanks(sortedProbes, INCLUSIVE);
+  }
+}
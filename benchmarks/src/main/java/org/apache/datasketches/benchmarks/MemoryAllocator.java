@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableHandle;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * Allocates the WritableMemory used by a benchmark. In the <i>heap</i> mode the memory is backed
+ * by a heap array. In the <i>direct</i> mode the memory is allocated off-heap and released by
+ * {@link #close()}.
+ */
+final class MemoryAllocator implements AutoCloseable {
+  private final boolean direct;
+  private final List<WritableHandle> handles = new ArrayList<>();
+
+  MemoryAllocator(final String memory) {
+    direct = BenchmarkUtil.isDirect(memory);
+  }
+
+  boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * Returns a zeroed WritableMemory of the given capacity.
+   * @param capacityBytes the capacity in bytes
+   * @return a zeroed WritableMemory
+   */
+  WritableMemory allocate(final long capacityBytes) {
+    final WritableMemory wmem;
+    if (direct) {
+      final WritableHandle handle = WritableMemory.allocateDirect(capacityBytes);
+      handles.add(handle);
+      wmem = handle.getWritable();
+    } else {
+      wmem = WritableMemory.allocate(Math.toIntExact(capacityBytes));
+    }
+    wmem.clear();
+    return wmem;
+  }
+
+  /**
+   * Returns a copy of the given serialized image in a Memory of this allocator's mode.
+   * @param bytes the serialized image
+   * @return a Memory containing a copy of the given bytes
+   */
+  Memory copyOf(final byte[] bytes) {
+    final WritableMemory wmem = allocate(bytes.length);
+    wmem.putByteArray(0, bytes, 0, bytes.length);
+    return wmem;
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (final WritableHandle handle : handles) { handle.close(); }
+    handles.clear();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.req.ReqSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the ReqSketch.
+ *
+ * <p>The REQ sketch is heap only, so the <i>direct</i> variant measures heapifying
+ * the serialized image from off-heap Memory.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReqSketchBenchmark {
+
+  @Param({"12", "50"})
+  int k;
+
+  @Param({"true", "false"})
+  boolean hra;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private float[] items;
+  private double[] ranks;
+  private ReqSketch updateSketch;
+  private ReqSketch sketchA;
+  private ReqSketch sketchB;
+  private Memory mem;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.randomFloats(BATCH);
+    ranks = BenchmarkUtil.evenlySpacedRanks(100);
+    updateSketch = newSketch();
+    sketchA = newSketch();
+    sketchB = newSketch();
+    for (int i = 0; i < items.length; i++) {
+      sketchA.update(items[i]);
+      sketchB.update(1.0f - items[i]);
+    }
+    mem = alloc.copyOf(sketchA.toByteArray());
+  }
+
+  private ReqSketch newSketch() {
+    return ReqSketch.builder().setK(k).setHighRankAccuracy(hra).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update() {
+    updateSketch.reset();
+    for (int i = 0; i < items.length; i++) { updateSketch.update(items[i]); }
+    return updateSketch.getN();
+  }
+
+  @Benchmark
+  public long merge() {
+    final ReqSketch target = newSketch();
+    target.merge(sketchA);
+    target.merge(sketchB);
+    return target.getN();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.toByteArray();
+  }
+
+  @Benchmark
+  public float deserialize() {
+    return ReqSketch.heapify(mem).getQuantile(0.5);
+  }
+
+  @Benchmark
+  public float[] query() {
+    return sketchA.getQuantiles(ranks);
+  }
+}
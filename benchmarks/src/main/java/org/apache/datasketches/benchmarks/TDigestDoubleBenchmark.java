@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tdigest.TDigestDouble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the TDigestDouble.
+ *
+ * <p>The t-digest is heap only, so the <i>direct</i> variant measures heapifying
+ * the serialized image from off-heap Memory.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TDigestDoubleBenchmark {
+
+  @Param({"100", "200"})
+  short k;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private double[] items;
+  private double[] ranks;
+  private TDigestDouble sketchA;
+  private TDigestDouble sketchB;
+  private Memory mem;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    items = BenchmarkUtil.randomDoubles(BATCH);
+    ranks = BenchmarkUtil.evenlySpacedRanks(100);
+    sketchA = new TDigestDouble(k);
+    sketchB = new TDigestDouble(k);
+    for (int i = 0; i < items.length; i++) {
+      sketchA.update(items[i]);
+      sketchB.update(1.0 - items[i]);
+    }
+    mem = alloc.copyOf(sketchA.toByteArray());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long update() {
+    final TDigestDouble td = new TDigestDouble(k);
+    for (int i = 0; i < items.length; i++) { td.update(items[i]); }
+    return td.getTotalWeight();
+  }
+
+  @Benchmark
+  public long merge() {
+    final TDigestDouble target = new TDigestDouble(k);
+    target.merge(sketchA);
+    target.merge(sketchB);
+    return target.getTotalWeight();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.toByteArray();
+  }
+
+  @Benchmark
+  public double deserialize() {
+    return TDigestDouble.heapify(mem).getQuantile(0.5);
+  }
+
+  @Benchmark
+  public double query() {
+    double sum = 0;
+    for (int i = 0; i < ranks.length; i++) { sum += sketchA.getQuantile(ranks[i]); }
+    return sum;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.benchmarks;
+
+import static org.apache.datasketches.benchmarks.BenchmarkUtil.BATCH;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.theta.CompactSketch;
+import org.apache.datasketches.theta.SetOperation;
+import org.apache.datasketches.theta.Sketch;
+import org.apache.datasketches.theta.Union;
+import org.apache.datasketches.theta.UpdateSketch;
+import org.apache.datasketches.theta.UpdateSketchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the theta UpdateSketch (QuickSelect family) and theta Union.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThetaSketchBenchmark {
+  //the number of compact sketches merged by mergeMany and mergeAll
+  static final int MANY = 128;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({BenchmarkUtil.HEAP, BenchmarkUtil.DIRECT})
+  String memory;
+
+  private long[] items;
+  private UpdateSketch updateSketch;
+  private UpdateSketch sketchA;
+  private CompactSketch compactB;
+  private Union union;
+  private Memory compactMem;
+  private List<Sketch> manySketches;
+  private MemoryAllocator alloc;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    alloc = new MemoryAllocator(memory);
+    final boolean direct = alloc.isDirect();
+    items = BenchmarkUtil.sequentialLongs(BATCH, 0);
+    final UpdateSketchBuilder bldr = UpdateSketch.builder().setLogNominalEntries(lgK);
+    final int maxBytes = Sketch.getMaxUpdateSketchBytes(1 << lgK);
+    updateSketch = direct ? bldr.build(alloc.allocate(maxBytes)) : bldr.build();
+    sketchA = direct ? bldr.build(alloc.allocate(maxBytes)) : bldr.build();
+    final UpdateSketch sketchB = bldr.build();
+    for (int i = 0; i < (4 << lgK); i++) {
+      sketchA.update(i);
+      sketchB.update(i + (2L << lgK));
+    }
+    compactB = sketchB.compact();
+    compactMem = alloc.copyOf(sketchA.compact().toByteArray());
+    manySketches = new ArrayList<>(MANY);
+    for (int j = 0; j < MANY; j++) {
+      final UpdateSketch sk = bldr.build();
+      for (int i = 0; i < (2 << lgK); i++) { sk.update(((long) j << lgK) + i); }
+      manySketches.add(sk.compact());
+    }
+    final int unionBytes = SetOperation.getMaxUnionBytes(1 << lgK);
+    union = direct
+        ? SetOperation.builder().setLogNominalEntries(lgK).buildUnion(alloc.allocate(unionBytes))
+        : SetOperation.builder().setLogNominalEntries(lgK).buildUnion();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    alloc.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public double update() {
+    updateSketch.reset();
+    for (int i = 0; i < items.length; i++) { updateSketch.update(items[i]); }
+    return updateSketch.getEstimate();
+  }
+
+  @Benchmark
+  public double merge() {
+    union.reset();
+    union.union(sketchA);
+    union.union(compactB);
+    return union.getResult().getEstimate();
+  }
+
+  @Benchmark
+  public double mergeMany() {
+    union.reset();
+    for (final Sketch sk : manySketches) { union.union(sk); }
+    return union.getResult().getEstimate();
+  }
+
+  @Benchmark
+  public double mergeAll() {
+    union.reset();
+    union.unionAll(manySketches);
+    return union.getResult().getEstimate();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return sketchA.compact().toByteArray();
+  }
+
+  @Benchmark
+  public double deserialize() {
+    final Sketch sk = alloc.isDirect() ? Sketch.wrap(compactMem) : Sketch.heapify(compactMem);
+    return sk.getEstimate();
+  }
+
+  @Benchmark
+  public double query() {
+    return sketchA.getEstimate() + sketchA.getUpperBound(2) + sketchA.getLowerBound(2);
+  }
+}
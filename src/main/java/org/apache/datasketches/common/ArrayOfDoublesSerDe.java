@@ -94,6 +94,11 @@ public class ArrayOfDoublesSerDe extends ArrayOfItemsSerDe<Double> {
     return numItems * Double.BYTES;
   }
 
+  @Override
+  public int getFixedItemBytes() {
+    return Double.BYTES;
+  }
+
   @Override
   public String toString(final Double item) {
     if (item == null) { return "null"; }
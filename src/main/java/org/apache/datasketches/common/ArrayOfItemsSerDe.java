@@ -100,6 +100,16 @@ public abstract class ArrayOfItemsSerDe<T> {
    */
   public abstract int sizeOf(Memory mem, long offsetBytes, int numItems);
 
+  /**
+   * Returns the serialized size in bytes of every item of type T if that size is fixed,
+   * otherwise zero. A fixed item size is required by sketches that update their serialized
+   * items in place, such as the direct, updatable KllItemsSketch.
+   * @return the fixed serialized size in bytes of every item, or zero if the size varies.
+   */
+  public int getFixedItemBytes() {
+    return 0;
+  }
+
   /**
    * Returns a human readable string of an item.
    * @param item a specific item
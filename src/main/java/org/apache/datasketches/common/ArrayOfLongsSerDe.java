@@ -93,6 +93,11 @@ public class ArrayOfLongsSerDe extends ArrayOfItemsSerDe<Long> {
     return numItems * Long.BYTES;
   }
 
+  @Override
+  public int getFixedItemBytes() {
+    return Long.BYTES;
+  }
+
   @Override
   public String toString(final Long item) {
     if (item == null) { return "null"; }
@@ -92,7 +92,7 @@ final class CompressedState {
     target.hipEstAccum = source.hipEstAccum;
 
     target.csvIsValid = source.pairTable != null;
-    target.windowIsValid = (source.slidingWindow != null);
+    target.windowIsValid = source.hasWindow();
     CpcCompression.compress(source, target);
     return target;
   }
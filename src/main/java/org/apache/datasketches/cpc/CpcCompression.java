@@ -475,7 +475,7 @@ final class CpcCompression {
     final int[] windowBuf = new int[windowBufLen];
     final int pseudoPhase = determinePseudoPhase(srcLgK, source.numCoupons);
     target.cwLengthInts = lowLevelCompressBytes(
-        source.slidingWindow,
+        source.getWindowArray(),
         srcK,
         encodingTablesForHighEntropyByte[pseudoPhase],
         windowBuf);
@@ -532,7 +532,7 @@ final class CpcCompression {
   }
 
   private static void compressSparseFlavor(final CompressedState target, final CpcSketch source) {
-    assert (source.slidingWindow == null); //there is no window to compress
+    assert (!source.hasWindow()); //there is no window to compress
     final PairTable srcPairTable = source.pairTable;
     final int srcNumPairs = srcPairTable.getNumPairs();
     final int[] srcPairArr = PairTable.unwrappingGetItems(srcPairTable, srcNumPairs);
@@ -578,7 +578,7 @@ final class CpcCompression {
     final int srcNumPairs = srcPairTable.getNumPairs();
     final int[] srcPairArr = PairTable.unwrappingGetItems(srcPairTable, srcNumPairs);
     introspectiveInsertionSort(srcPairArr, 0, srcNumPairs - 1);
-    final byte[] srcSlidingWindow = source.slidingWindow;
+    final byte[] srcSlidingWindow = source.getWindowArray();
     final int srcWindowOffset = source.windowOffset;
     final long srcNumCoupons = source.numCoupons;
     assert (srcSlidingWindow != null);
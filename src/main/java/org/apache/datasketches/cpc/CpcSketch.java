@@ -27,11 +27,23 @@ import static org.apache.datasketches.common.Util.zeroPad;
 import static org.apache.datasketches.cpc.CpcUtil.bitMatrixOfSketch;
 import static org.apache.datasketches.cpc.CpcUtil.checkLgK;
 import static org.apache.datasketches.cpc.CpcUtil.countBitsSetInMatrix;
+import static org.apache.datasketches.cpc.PreambleUtil.DIRECT_HIP_ACCUM_DOUBLE;
+import static org.apache.datasketches.cpc.PreambleUtil.DIRECT_KXP_DOUBLE;
+import static org.apache.datasketches.cpc.PreambleUtil.DIRECT_NUM_COUPONS_LONG;
+import static org.apache.datasketches.cpc.PreambleUtil.DIRECT_WINDOW_OFFSET_INT;
+import static org.apache.datasketches.cpc.PreambleUtil.DIRECT_WINDOW_START;
+import static org.apache.datasketches.cpc.PreambleUtil.HIP_FLAG_MASK;
+import static org.apache.datasketches.cpc.PreambleUtil.SUP_VAL_FLAG_MASK;
+import static org.apache.datasketches.cpc.PreambleUtil.WINDOW_FLAG_MASK;
+import static org.apache.datasketches.cpc.PreambleUtil.getDirectMaxLgSizeInts;
+import static org.apache.datasketches.cpc.PreambleUtil.getDirectSerializedBytes;
+import static org.apache.datasketches.cpc.PreambleUtil.getDirectTableStart;
 import static org.apache.datasketches.hash.MurmurHash3.hash;
 
 import java.util.Arrays;
 
 import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
@@ -58,6 +70,15 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  *
  * <p>For additional security this sketch can be configured with a user-specified hash seed.
  *
+ * <p>A sketch can also be kept off-heap, or in any WritableMemory, in an updatable (not
+ * compressed) form of {@link #getMaxUpdatableSerializationBytes(int)} bytes, which holds the
+ * sliding window and the table of surprising values. Such a Direct sketch is created with
+ * {@link #CpcSketch(int, long, WritableMemory)} and later resumed with
+ * {@link #writableWrap(WritableMemory, long)}, so that many sketches can live in one large
+ * off-heap slab. A Direct sketch caches its few scalar fields on the heap and writes them
+ * through to the memory on every change, so only one writable wrap of an image may be used
+ * at a time.
+ *
  * @author Lee Rhodes
  * @author Kevin Lang
  */
@@ -77,9 +98,13 @@ public final class CpcSketch {
   int fiCol; // First Interesting Column. This is part of a speed optimization.
 
   int windowOffset;
-  byte[] slidingWindow; //either null or size K bytes
+  byte[] slidingWindow; //either null or size K bytes, always null if Direct
   PairTable pairTable; //for sparse and surprising values, either null or variable size
 
+  //The following variables are only valid in Direct sketches
+  final WritableMemory wmem;   //the updatable image, null if on the heap
+  WritableMemory windowMem;    //either null or the K bytes of the window in wmem
+
   //The following variables are only valid in HIP varients
   double kxp;                  //used with HIP
   double hipEstAccum;          //used with HIP
@@ -108,13 +133,168 @@ public final class CpcSketch {
     checkLgK(lgK);
     this.lgK = (byte) lgK;
     this.seed = seed;
+    wmem = null;
     kxp = 1 << lgK;
     reset();
   }
 
   /**
-   * Returns a copy of this sketch
-   * @return a copy of this sketch
+   * Constructs a new, empty Direct sketch with log_base2 of k and seed in the given destination
+   * WritableMemory, which must have at least {@link #getMaxUpdatableSerializationBytes(int)}
+   * bytes of capacity. Any previous content of the destination is overwritten.
+   * @param lgK the given log_base2 of k
+   * @param seed the given seed
+   * @param dstMem the destination WritableMemory for the updatable image of this sketch
+   */
+  public CpcSketch(final int lgK, final long seed, final WritableMemory dstMem) {
+    checkLgK(lgK);
+    PreambleUtil.checkCapacity(dstMem.getCapacity(), getDirectSerializedBytes(lgK));
+    this.lgK = (byte) lgK;
+    this.seed = seed;
+    wmem = dstMem;
+    kxp = 1 << lgK;
+    reset();
+  }
+
+  private CpcSketch(final WritableMemory srcMem, final long seed) {
+    PreambleUtil.checkDirectPreamble(srcMem);
+    ThetaUtil.checkSeedHashes(ThetaUtil.computeSeedHash(seed), PreambleUtil.getSeedHash(srcMem));
+    lgK = PreambleUtil.getLgK(srcMem);
+    this.seed = seed;
+    wmem = srcMem;
+    final int flags = PreambleUtil.getFlags(srcMem);
+    mergeFlag = (flags & HIP_FLAG_MASK) == 0;
+    fiCol = PreambleUtil.getFiCol(srcMem);
+    numCoupons = srcMem.getLong(DIRECT_NUM_COUPONS_LONG);
+    windowOffset = srcMem.getInt(DIRECT_WINDOW_OFFSET_INT);
+    kxp = srcMem.getDouble(DIRECT_KXP_DOUBLE);
+    hipEstAccum = srcMem.getDouble(DIRECT_HIP_ACCUM_DOUBLE);
+    if ((flags & WINDOW_FLAG_MASK) != 0) {
+      windowMem = srcMem.writableRegion(DIRECT_WINDOW_START, 1L << lgK);
+    }
+    if ((flags & SUP_VAL_FLAG_MASK) != 0) {
+      pairTable = PairTable.wrapDirect(6 + lgK, getDirectMaxLgSizeInts(lgK), tableRegion(srcMem, lgK));
+    }
+    if ((numCoupons < 0) || (windowOffset < 0) || (windowOffset > 56)
+        || ((numCoupons > 0) && (pairTable == null))) {
+      throw new SketchesArgumentException("Corrupted updatable CPC sketch image.");
+    }
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must contain the updatable image of a Direct sketch
+   * created with {@link #CpcSketch(int, long, WritableMemory)}, for further updates.
+   * @param srcMem the given WritableMemory
+   * @param seed the seed the sketch was created with
+   * @return a Direct sketch that updates the given WritableMemory
+   */
+  public static CpcSketch writableWrap(final WritableMemory srcMem, final long seed) {
+    return new CpcSketch(srcMem, seed);
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must contain the updatable image of a Direct sketch
+   * created with the DEFAULT_UPDATE_SEED, for further updates.
+   * @param srcMem the given WritableMemory
+   * @return a Direct sketch that updates the given WritableMemory
+   */
+  public static CpcSketch writableWrap(final WritableMemory srcMem) {
+    return writableWrap(srcMem, ThetaUtil.DEFAULT_UPDATE_SEED);
+  }
+
+  /**
+   * Returns the number of bytes of the updatable image of a Direct sketch with the given lgK.
+   * The image is sized for its largest state, so it never needs to grow.
+   * @param lgK the given value of lgK.
+   * @return the number of bytes of the updatable image of a Direct sketch.
+   */
+  public static int getMaxUpdatableSerializationBytes(final int lgK) {
+    checkLgK(lgK);
+    return (int) getDirectSerializedBytes(lgK);
+  }
+
+  //copies the given sketch into a new Direct sketch in the given destination
+  static CpcSketch copyToMemory(final CpcSketch source, final WritableMemory dstMem) {
+    final CpcSketch sketch = new CpcSketch(source.lgK, source.seed, dstMem);
+    sketch.numCoupons = source.numCoupons;
+    sketch.mergeFlag = source.mergeFlag;
+    sketch.fiCol = source.fiCol;
+    sketch.windowOffset = source.windowOffset;
+    sketch.kxp = source.kxp;
+    sketch.hipEstAccum = source.hipEstAccum;
+    if (source.hasWindow()) {
+      sketch.windowMem = dstMem.writableRegion(DIRECT_WINDOW_START, 1L << sketch.lgK);
+      sketch.windowMem.putByteArray(0, source.getWindowArray(), 0, 1 << sketch.lgK);
+    }
+    if (source.pairTable != null) {
+      final int numPairs = source.pairTable.getNumPairs();
+      final int[] pairs = PairTable.unwrappingGetItems(source.pairTable, numPairs);
+      sketch.pairTable = PairTable.newDirectInstanceFromPairsArray(pairs, numPairs, sketch.lgK,
+          getDirectMaxLgSizeInts(sketch.lgK), tableRegion(dstMem, sketch.lgK));
+    }
+    sketch.writeDirectState();
+    return sketch;
+  }
+
+  private static WritableMemory tableRegion(final WritableMemory wmem, final int lgK) {
+    final long start = getDirectTableStart(lgK);
+    return wmem.writableRegion(start, getDirectSerializedBytes(lgK) - start);
+  }
+
+  //writes the scalar fields of a Direct sketch through to its image
+  private void writeDirectState() {
+    if (wmem == null) { return; }
+    final int flags = (mergeFlag ? 0 : HIP_FLAG_MASK)
+        | ((pairTable != null) ? SUP_VAL_FLAG_MASK : 0)
+        | ((windowMem != null) ? WINDOW_FLAG_MASK : 0);
+    wmem.putByte(PreambleUtil.getLoFieldOffset(PreambleUtil.LoField.FI_COL), (byte) fiCol);
+    wmem.putByte(PreambleUtil.getLoFieldOffset(PreambleUtil.LoField.FLAGS), (byte) flags);
+    wmem.putLong(DIRECT_NUM_COUPONS_LONG, numCoupons);
+    wmem.putInt(DIRECT_WINDOW_OFFSET_INT, windowOffset);
+    wmem.putDouble(DIRECT_KXP_DOUBLE, kxp);
+    wmem.putDouble(DIRECT_HIP_ACCUM_DOUBLE, hipEstAccum);
+  }
+
+  /**
+   * Returns true if this sketch is Direct, i.e., its state is held in a WritableMemory.
+   * @return true if this sketch is Direct
+   */
+  public boolean hasMemory() {
+    return wmem != null;
+  }
+
+  /**
+   * Returns true if this sketch is Direct and its WritableMemory is off-heap.
+   * @return true if this sketch is Direct and its WritableMemory is off-heap
+   */
+  public boolean isDirect() {
+    return (wmem != null) && wmem.isDirect();
+  }
+
+  boolean hasWindow() {
+    return (slidingWindow != null) || (windowMem != null);
+  }
+
+  //returns the sliding window, which is a copy if this sketch is Direct
+  byte[] getWindowArray() {
+    if (windowMem == null) { return slidingWindow; }
+    final byte[] window = new byte[1 << lgK];
+    windowMem.getByteArray(0, window, 0, window.length);
+    return window;
+  }
+
+  byte getWindowByte(final int row) {
+    return (windowMem == null) ? slidingWindow[row] : windowMem.getByte(row);
+  }
+
+  private void putWindowByte(final int row, final byte bits) {
+    if (windowMem == null) { slidingWindow[row] = bits; }
+    else { windowMem.putByte(row, bits); }
+  }
+
+  /**
+   * Returns a copy of this sketch on the heap
+   * @return a copy of this sketch on the heap
    */
   CpcSketch copy() {
     final CpcSketch copy = new CpcSketch(lgK, seed);
@@ -123,7 +303,8 @@ public final class CpcSketch {
     copy.fiCol = fiCol;
 
     copy.windowOffset = windowOffset;
-    copy.slidingWindow = (slidingWindow == null) ? null : slidingWindow.clone();
+    copy.slidingWindow = (windowMem != null) ? getWindowArray()
+        : (slidingWindow == null) ? null : slidingWindow.clone();
     copy.pairTable = (pairTable == null) ? null : pairTable.copy();
 
     copy.kxp = kxp;
@@ -251,6 +432,9 @@ public final class CpcSketch {
    * @return the given Memory as a CpcSketch on the Java heap.
    */
   public static CpcSketch heapify(final Memory mem, final long seed) {
+    if (!PreambleUtil.isCompressed(mem)) { //the updatable image of a Direct sketch
+      return new CpcSketch((WritableMemory) mem, seed).copy();
+    }
     final CompressedState state = CompressedState.importFromMemory(mem);
     return uncompress(state, seed);
   }
@@ -284,10 +468,15 @@ public final class CpcSketch {
 
     windowOffset = 0;
     slidingWindow = null;
+    windowMem = null;
     pairTable = null;
 
     kxp = 1 << lgK;
     hipEstAccum = 0;
+    if (wmem != null) {
+      PreambleUtil.putDirectFirst8(wmem, lgK, ThetaUtil.computeSeedHash(seed));
+      writeDirectState();
+    }
   }
 
   /**
@@ -435,7 +624,7 @@ public final class CpcSketch {
     if ((f == Flavor.HYBRID) || (f == Flavor.SPARSE)) {
       ordinal = 2 | ( mergeFlag ? 0 : 1 ); //Hybrid is serialized as SPARSE
     } else {
-      ordinal = ((slidingWindow != null) ? 4 : 0)
+      ordinal = (hasWindow() ? 4 : 0)
                | (((pairTable != null) && (pairTable.getNumPairs() > 0)) ? 2 : 0)
                | ( mergeFlag ? 0 : 1 );
     }
@@ -445,7 +634,16 @@ public final class CpcSketch {
   private static void promoteEmptyToSparse(final CpcSketch sketch) {
     assert sketch.numCoupons == 0;
     assert sketch.pairTable == null;
-    sketch.pairTable = new PairTable(2, 6 + sketch.lgK);
+    sketch.pairTable = newPairTable(sketch);
+    sketch.writeDirectState();
+  }
+
+  //returns a new, empty table, which is laid out in the image if the sketch is Direct
+  private static PairTable newPairTable(final CpcSketch sketch) {
+    final int lgK = sketch.lgK;
+    if (sketch.wmem == null) { return new PairTable(2, 6 + lgK); }
+    return PairTable.newDirectInstance(2, 6 + lgK, getDirectMaxLgSizeInts(lgK),
+        tableRegion(sketch.wmem, lgK));
   }
 
   //In terms of flavor, this promotes SPARSE to HYBRID.
@@ -455,35 +653,38 @@ public final class CpcSketch {
     final long c32 = sketch.numCoupons << 5;
     assert ((c32 == (3 * k)) || ((lgK == 4) && (c32 > (3 * k))));
 
-    final byte[] window = new byte[k];
-
-    final PairTable newTable = new PairTable(2, 6 + lgK);
+    // a Direct sketch reuses the space of the old table, so the old pairs are extracted first
     final PairTable oldTable = sketch.pairTable;
+    final int oldNumPairs = oldTable.getNumPairs();
+    final int[] oldPairs = PairTable.unwrappingGetItems(oldTable, oldNumPairs);
 
-    final int[] oldSlots = oldTable.getSlotsArr();
-    final int oldNumSlots = (1 << oldTable.getLgSizeInts());
+    assert (!sketch.hasWindow());
+    if (sketch.wmem == null) {
+      sketch.slidingWindow = new byte[k];
+    } else {
+      sketch.windowMem = sketch.wmem.writableRegion(DIRECT_WINDOW_START, k);
+      sketch.windowMem.clear();
+    }
+    final PairTable newTable = newPairTable(sketch);
 
     assert (sketch.windowOffset == 0);
 
-    for (int i = 0; i < oldNumSlots; i++) {
-      final int rowCol = oldSlots[i];
-      if (rowCol != -1) {
-        final int col = rowCol & 63;
-        if (col < 8) {
-          final int  row = rowCol >>> 6;
-          window[row] |= (1 << col);
-        }
-        else {
-          // cannot use Table.mustInsert(), because it doesn't provide for growth
-          final boolean isNovel = PairTable.maybeInsert(newTable, rowCol);
-          assert (isNovel == true);
-        }
+    for (int i = 0; i < oldNumPairs; i++) {
+      final int rowCol = oldPairs[i];
+      final int col = rowCol & 63;
+      if (col < 8) {
+        final int  row = rowCol >>> 6;
+        sketch.putWindowByte(row, (byte) (sketch.getWindowByte(row) | (1 << col)));
+      }
+      else {
+        // cannot use Table.mustInsert(), because it doesn't provide for growth
+        final boolean isNovel = PairTable.maybeInsert(newTable, rowCol);
+        assert (isNovel == true);
       }
     }
 
-    assert (sketch.slidingWindow == null);
-    sketch.slidingWindow = window;
     sketch.pairTable = newTable;
+    sketch.writeDirectState();
   }
 
   /**
@@ -531,7 +732,7 @@ public final class CpcSketch {
     assert (newOffset == (sketch.windowOffset + 1));
     assert (newOffset == CpcUtil.determineCorrectOffset(sketch.lgK, sketch.numCoupons));
 
-    assert (sketch.slidingWindow != null);
+    assert (sketch.hasWindow());
     assert (sketch.pairTable != null);
     final int k = 1 << sketch.lgK;
 
@@ -544,14 +745,13 @@ public final class CpcSketch {
     sketch.pairTable.clear();
 
     final PairTable table = sketch.pairTable;
-    final byte[] window = sketch.slidingWindow;
     final long maskForClearingWindow = (0XFFL << newOffset) ^ -1L;
     final long maskForFlippingEarlyZone = (1L << newOffset) - 1L;
     long allSurprisesORed = 0;
 
     for (int i = 0; i < k; i++) {
       long pattern = bitMatrix[i];
-      window[i] = (byte) ((pattern >>> newOffset) & 0XFFL);
+      sketch.putWindowByte(i, (byte) ((pattern >>> newOffset) & 0XFFL));
       pattern &= maskForClearingWindow;
       // The following line converts surprising 0's to 1's in the "early zone",
       // (and vice versa, which is essential for this procedure's O(k) time cost).
@@ -596,6 +796,7 @@ public final class CpcSketch {
       updateHIP(sketch, rowCol);
       final long c32post = sketch.numCoupons << 5;
       if (c32post >= (3L * k)) { promoteSparseToWindowed(sketch); } // C >= 3K/32
+      else { sketch.writeDirectState(); }
     }
   }
 
@@ -622,10 +823,10 @@ public final class CpcSketch {
     else if (col < (sketch.windowOffset + 8)) { // track the 8 bits inside the window
       assert (col >= sketch.windowOffset);
       final int row = rowCol >>> 6;
-      final byte oldBits = sketch.slidingWindow[row];
+      final byte oldBits = sketch.getWindowByte(row);
       final byte newBits = (byte) (oldBits | (1 << (col - sketch.windowOffset)));
       if (newBits != oldBits) {
-        sketch.slidingWindow[row] = newBits;
+        sketch.putWindowByte(row, newBits);
         isNovel = true;
       }
     }
@@ -644,6 +845,7 @@ public final class CpcSketch {
         final int w8post = sketch.windowOffset << 3;
         assert c8post < ((27L + w8post) * k); // C < (K * 27/8) + (K * windowOffset)
       }
+      sketch.writeDirectState();
     }
   }
 
@@ -725,7 +927,8 @@ public final class CpcSketch {
     sb.append("  Num Coupons    : ").append(numCoupons).append(LS);
     sb.append("  Num Pairs (SV) : ").append(numPairs).append(LS);
     sb.append("  First Inter Col: ").append(fiCol).append(LS);
-    sb.append("  Valid Window   : ").append(slidingWindow != null).append(LS);
+    sb.append("  Direct         : ").append(wmem != null).append(LS);
+    sb.append("  Valid Window   : ").append(hasWindow()).append(LS);
     sb.append("  Valid PairTable: ").append(pairTable != null).append(LS);
     sb.append("  Window Offset  : ").append(windowOffset).append(LS);
     sb.append("  KxP            : ").append(kxp).append(LS);
@@ -735,12 +938,13 @@ public final class CpcSketch {
       if (pairTable != null) {
         sb.append(pairTable.toString(true));
       }
-      if (slidingWindow != null) {
+      if (hasWindow()) {
+        final byte[] window = getWindowArray();
         sb.append("SlidingWindow  : ").append(LS);
         sb.append("    Index Bits (lsb ->)").append(LS);
-        for (int i = 0; i < slidingWindow.length; i++) {
+        for (int i = 0; i < window.length; i++) {
 
-          final String bits = zeroPad(Integer.toBinaryString(slidingWindow[i] & 0XFF), 8);
+          final String bits = zeroPad(Integer.toBinaryString(window[i] & 0XFF), 8);
           sb.append(String.format("%9d %8s" + LS, i, bits));
         }
       }
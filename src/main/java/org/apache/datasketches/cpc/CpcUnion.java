@@ -23,10 +23,15 @@ import static org.apache.datasketches.common.Util.INVERSE_GOLDEN;
 import static org.apache.datasketches.cpc.CpcUtil.countBitsSetInMatrix;
 import static org.apache.datasketches.cpc.Flavor.EMPTY;
 import static org.apache.datasketches.cpc.Flavor.SPARSE;
+import static org.apache.datasketches.cpc.PreambleUtil.COMPRESSED_FLAG_MASK;
+import static org.apache.datasketches.cpc.PreambleUtil.SER_VER;
+import static org.apache.datasketches.cpc.PreambleUtil.getLoFieldOffset;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /*
@@ -79,6 +84,19 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * bitMatrix back into a sketch, which requires doing some extra work to
  * figure out the values of numCoupons, offset, fiCol, and KxQ.
  *
+ * <p>A Direct union keeps both its accumulator and its bitMatrix in one WritableMemory image.
+ * Because they are mutually exclusive they share the body of the image, which is sized for
+ * the larger of the two. The image is laid out as:
+ *
+ * <pre>
+ * Long adr ||
+ *          ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |    0   |
+ *      0   ||---SEED HASH-----|-Flags--|-MaxLgK-|---lgK--|-FamID--|-SerVer-|---PI---|
+ *
+ *      1   ||----------------------------------Unused-------------------------------|
+ *
+ *      2   ||--Start of the accumulator's updatable sketch image, or of the bitMatrix--|
+ * </pre>
  */
 /**
  * The union (merge) operation for the CPC sketches.
@@ -87,16 +105,25 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Kevin Lang
  */
 public class CpcUnion {
+  //Direct union image
+  private static final byte PRE_INTS = 4;
+  private static final int MAX_LG_K_BYTE = 4;
+  private static final int MATRIX_FLAG_MASK = 32; //the body holds the bitMatrix
+  private static final int HEADER_BYTES = 16;
+
   private final long seed;
   private int lgK;
 
   // Note: at most one of bitMatrix and accumulator will be non-null at any given moment.
+  // A Direct union keeps its bitMatrix in directMatrix instead.
   // accumulator is a sketch object that is employed until it graduates out of Sparse mode.
   // At that point, it is converted into a full-sized bitMatrix, which is mathematically a sketch,
   // but doesn't maintain any of the "extra" fields of our sketch objects, so some additional work
   // is required when getResult is called at the end.
   private long[] bitMatrix;
+  private WritableMemory directMatrix; //the bitMatrix of a Direct union, in its image
   private CpcSketch accumulator; //can only be empty or sparse Flavor
+  private final WritableMemory wmem; //the image of a Direct union, else null
 
   /**
    * Construct this unioning object with the default LgK and the default update seed.
@@ -122,11 +149,126 @@ public class CpcUnion {
     this.seed = seed;
     this.lgK = lgK;
     bitMatrix = null;
+    directMatrix = null;
+    wmem = null;
     // We begin with the accumulator holding an EMPTY_MERGED sketch object.
     // As an optimization the accumulator could start as NULL, but that would require changes elsewhere.
     accumulator = new CpcSketch(lgK);
   }
 
+  /**
+   * Construct a Direct unioning object with LgK and a given seed that accumulates into the given
+   * destination WritableMemory, which must have at least {@link #getMaxSerializationBytes(int)}
+   * bytes of capacity. Any previous content of the destination is overwritten.
+   * @param lgK The given log2 of K.
+   * @param seed The given seed.
+   * @param dstMem the destination WritableMemory for the image of this union.
+   */
+  public CpcUnion(final int lgK, final long seed, final WritableMemory dstMem) {
+    CpcUtil.checkLgK(lgK);
+    PreambleUtil.checkCapacity(dstMem.getCapacity(), getMaxSerializationBytes(lgK));
+    this.seed = seed;
+    this.lgK = lgK;
+    wmem = dstMem;
+    wmem.clear(0, HEADER_BYTES);
+    wmem.putByte(getLoFieldOffset(PreambleUtil.LoField.PRE_INTS), PRE_INTS);
+    wmem.putByte(getLoFieldOffset(PreambleUtil.LoField.SER_VERSION), SER_VER);
+    wmem.putByte(getLoFieldOffset(PreambleUtil.LoField.FAMILY), (byte) Family.CPC.getID());
+    wmem.putByte(MAX_LG_K_BYTE, (byte) lgK);
+    wmem.putShort(getLoFieldOffset(PreambleUtil.LoField.SEED_HASH), ThetaUtil.computeSeedHash(seed));
+    bitMatrix = null;
+    directMatrix = null;
+    accumulator = new CpcSketch(lgK, seed, body());
+    writeState();
+  }
+
+  private CpcUnion(final WritableMemory srcMem, final long seed) {
+    PreambleUtil.checkCapacity(srcMem.getCapacity(), HEADER_BYTES);
+    final int flags = PreambleUtil.getFlags(srcMem);
+    if ((PreambleUtil.getPreInts(srcMem) != PRE_INTS) || (PreambleUtil.getSerVer(srcMem) != SER_VER)
+        || (PreambleUtil.getFamily(srcMem) != Family.CPC) || ((flags & COMPRESSED_FLAG_MASK) != 0)) {
+      throw new SketchesArgumentException("Memory does not contain a CPC union image.");
+    }
+    ThetaUtil.checkSeedHashes(ThetaUtil.computeSeedHash(seed), PreambleUtil.getSeedHash(srcMem));
+    final int maxLgK = srcMem.getByte(MAX_LG_K_BYTE);
+    CpcUtil.checkLgK(maxLgK);
+    PreambleUtil.checkCapacity(srcMem.getCapacity(), getMaxSerializationBytes(maxLgK));
+    this.seed = seed;
+    lgK = PreambleUtil.getLgK(srcMem);
+    if ((lgK < CpcUtil.minLgK) || (lgK > maxLgK)) {
+      throw new SketchesArgumentException("Illegal LgK in CPC union image: " + lgK);
+    }
+    wmem = srcMem;
+    bitMatrix = null;
+    if ((flags & MATRIX_FLAG_MASK) != 0) {
+      directMatrix = body().writableRegion(0, 8L << lgK);
+      accumulator = null;
+    } else {
+      directMatrix = null;
+      accumulator = CpcSketch.writableWrap(body(), seed);
+    }
+    checkUnionState(this);
+  }
+
+  /**
+   * Wraps the given WritableMemory, which must contain the image of a Direct union created with
+   * {@link #CpcUnion(int, long, WritableMemory)}, to continue accumulating into it.
+   * @param srcMem the given WritableMemory
+   * @param seed the seed the union was created with
+   * @return a Direct union that accumulates into the given WritableMemory
+   */
+  public static CpcUnion writableWrap(final WritableMemory srcMem, final long seed) {
+    return new CpcUnion(srcMem, seed);
+  }
+
+  /**
+   * Returns the number of bytes of the image of a Direct union with the given LgK.
+   * @param lgK The given log2 of K.
+   * @return the number of bytes of the image of a Direct union.
+   */
+  public static int getMaxSerializationBytes(final int lgK) {
+    CpcUtil.checkLgK(lgK);
+    final long bodyBytes = Math.max(PreambleUtil.getDirectSerializedBytes(lgK), 8L << lgK);
+    return (int) (HEADER_BYTES + bodyBytes);
+  }
+
+  /**
+   * Returns true if this union accumulates into a WritableMemory.
+   * @return true if this union accumulates into a WritableMemory.
+   */
+  public boolean hasMemory() {
+    return wmem != null;
+  }
+
+  private WritableMemory body() {
+    return wmem.writableRegion(HEADER_BYTES, wmem.getCapacity() - HEADER_BYTES);
+  }
+
+  private void writeState() {
+    if (wmem == null) { return; }
+    wmem.putByte(getLoFieldOffset(PreambleUtil.LoField.LG_K), (byte) lgK);
+    wmem.putByte(getLoFieldOffset(PreambleUtil.LoField.FLAGS),
+        (byte) ((directMatrix != null) ? MATRIX_FLAG_MASK : 0));
+  }
+
+  //switches the union from its accumulator to the given bitMatrix
+  private static void setBitMatrix(final CpcUnion union, final long[] matrix) {
+    union.accumulator = null;
+    if (union.wmem == null) {
+      union.bitMatrix = matrix;
+    } else {
+      union.directMatrix = union.body().writableRegion(0, (long) matrix.length << 3);
+      union.directMatrix.putLongArray(0, matrix, 0, matrix.length);
+    }
+    union.writeState();
+  }
+
+  //makes a copy of the given sketch the union's accumulator
+  private static void setAccumulator(final CpcUnion union, final CpcSketch sketch) {
+    union.accumulator = (union.wmem == null) ? sketch.copy() : CpcSketch.copyToMemory(sketch, union.body());
+    union.writeState();
+  }
+
   /**
    * Update this union with a CpcSketch.
    * @param sketch the given CpcSketch.
@@ -167,19 +309,30 @@ public class CpcUnion {
     if (bitMatrix != null) {
       return countBitsSetInMatrix(bitMatrix);
     }
+    if (directMatrix != null) {
+      return countBitsSetInDirectMatrix(directMatrix);
+    }
     return accumulator.numCoupons;
   }
 
-  //used for testing only
+  //used by getResult and for testing
   static long[] getBitMatrix(final CpcUnion union) {
     checkUnionState(union);
-    return (union.bitMatrix != null)
-        ? union.bitMatrix
-        : CpcUtil.bitMatrixOfSketch(union.accumulator);
+    if (union.bitMatrix != null) { return union.bitMatrix; }
+    if (union.directMatrix == null) { return CpcUtil.bitMatrixOfSketch(union.accumulator); }
+    final long[] matrix = new long[1 << union.lgK];
+    union.directMatrix.getLongArray(0, matrix, 0, matrix.length);
+    return matrix;
+  }
+
+  private static long countBitsSetInDirectMatrix(final Memory matrix) {
+    long count = 0;
+    final long lenBytes = matrix.getCapacity();
+    for (long i = 0; i < lenBytes; i += Long.BYTES) { count += Long.bitCount(matrix.getLong(i)); }
+    return count;
   }
 
   private static void walkTableUpdatingSketch(final CpcSketch dest, final PairTable table) {
-    final int[] slots = table.getSlotsArr();
     final int numSlots = (1 << table.getLgSizeInts());
     assert dest.lgK <= 26;
     final int destMask = (((1 << dest.lgK) - 1) << 6) | 63; //downsamples when destlgK < srcLgK
@@ -194,7 +347,7 @@ public class CpcUnion {
 
     for (int i = 0, j = 0; i < numSlots; i++, j += stride) {
       j &= (numSlots - 1);
-      final int rowCol = slots[j];
+      final int rowCol = table.getSlot(j);
       if (rowCol != -1) {
         dest.rowColUpdate(rowCol & destMask);
       }
@@ -202,11 +355,10 @@ public class CpcUnion {
   }
 
   private static void orTableIntoMatrix(final long[] bitMatrix, final int destLgK, final PairTable table) {
-    final int[] slots = table.getSlotsArr();
     final int numSlots = 1 << table.getLgSizeInts();
     final int destMask = (1 << destLgK) - 1;  // downsamples when destlgK < srcLgK
     for (int i = 0; i < numSlots; i++) {
-      final int rowCol = slots[i];
+      final int rowCol = table.getSlot(i);
       if (rowCol != -1) {
         final int col = rowCol & 63;
         final int row = rowCol >>> 6;
@@ -215,13 +367,46 @@ public class CpcUnion {
     }
   }
 
+  //The Direct union's version of orTableIntoMatrix, which works on the matrix in its image
+  private static void orTableIntoMatrix(final WritableMemory bitMatrix, final int destLgK,
+      final PairTable table) {
+    final int numSlots = 1 << table.getLgSizeInts();
+    final int destMask = (1 << destLgK) - 1;  // downsamples when destlgK < srcLgK
+    for (int i = 0; i < numSlots; i++) {
+      final int rowCol = table.getSlot(i);
+      if (rowCol != -1) {
+        final int col = rowCol & 63;
+        final int row = rowCol >>> 6;
+        final long offsetBytes = (long) (row & destMask) << 3;
+        bitMatrix.putLong(offsetBytes, bitMatrix.getLong(offsetBytes) | (1L << col)); // Set the bit.
+      }
+    }
+  }
+
   private static void orWindowIntoMatrix(final long[] destMatrix, final int destLgK,
-      final byte[] srcWindow, final int srcOffset, final int srcLgK) {
+      final CpcSketch source) {
+    final int srcLgK = source.lgK;
+    final int srcOffset = source.windowOffset;
+    assert (destLgK <= srcLgK);
+    final int destMask = (1 << destLgK) - 1;  // downsamples when destlgK < srcLgK
+    final int srcK = 1 << srcLgK;
+    for (int srcRow = 0; srcRow < srcK; srcRow++) {
+      destMatrix[srcRow & destMask] |= ((source.getWindowByte(srcRow) & 0XFFL) << srcOffset);
+    }
+  }
+
+  //The Direct union's version of orWindowIntoMatrix
+  private static void orWindowIntoMatrix(final WritableMemory destMatrix, final int destLgK,
+      final CpcSketch source) {
+    final int srcLgK = source.lgK;
+    final int srcOffset = source.windowOffset;
     assert (destLgK <= srcLgK);
     final int destMask = (1 << destLgK) - 1;  // downsamples when destlgK < srcLgK
     final int srcK = 1 << srcLgK;
     for (int srcRow = 0; srcRow < srcK; srcRow++) {
-      destMatrix[srcRow & destMask] |= ((srcWindow[srcRow] & 0XFFL) << srcOffset);
+      final long offsetBytes = (long) (srcRow & destMask) << 3;
+      destMatrix.putLong(offsetBytes,
+          destMatrix.getLong(offsetBytes) | ((source.getWindowByte(srcRow) & 0XFFL) << srcOffset));
     }
   }
 
@@ -235,6 +420,21 @@ public class CpcUnion {
     }
   }
 
+  //The Direct union's version of orMatrixIntoMatrix.
+  //The destination may be the same as the source, since the rows below destK are only OR'ed
+  //with themselves, and the rows at or above destK are only read.
+  private static void orMatrixIntoMatrix(final WritableMemory destMatrix, final int destLgK,
+      final Memory srcMatrix, final int srcLgK) {
+    assert (destLgK <= srcLgK);
+    final int destMask = (1 << destLgK) - 1; // downsamples when destlgK < srcLgK
+    final int srcK = 1 << srcLgK;
+    for (int srcRow = 0; srcRow < srcK; srcRow++) {
+      final long offsetBytes = (long) (srcRow & destMask) << 3;
+      destMatrix.putLong(offsetBytes,
+          destMatrix.getLong(offsetBytes) | srcMatrix.getLong((long) srcRow << 3));
+    }
+  }
+
   private static void reduceUnionK(final CpcUnion union, final int newLgK) {
     assert (newLgK < union.lgK);
 
@@ -247,12 +447,22 @@ public class CpcUnion {
       union.lgK = newLgK;
     }
 
+    else if (union.directMatrix != null) { // downsample the Direct union's bit matrix in place
+      orMatrixIntoMatrix(union.directMatrix, newLgK, union.directMatrix, union.lgK);
+      union.directMatrix = union.directMatrix.writableRegion(0, 8L << newLgK);
+      union.lgK = newLgK;
+      union.writeState();
+    }
+
     else { // downsample the union's accumulator
       final CpcSketch oldSketch = union.accumulator;
 
       if (oldSketch.numCoupons == 0) {
-        union.accumulator = new CpcSketch(newLgK, oldSketch.seed);
+        union.accumulator = (union.wmem == null)
+            ? new CpcSketch(newLgK, oldSketch.seed)
+            : new CpcSketch(newLgK, oldSketch.seed, union.body());
         union.lgK = newLgK;
+        union.writeState();
         return;
       }
 
@@ -262,16 +472,18 @@ public class CpcUnion {
       final Flavor finalNewFlavor = newSketch.getFlavor();
       assert (finalNewFlavor != EMPTY); //SV table had to have something in it
 
+      union.lgK = newLgK;
       if (finalNewFlavor == SPARSE) {
-        union.accumulator = newSketch;
-        union.lgK = newLgK;
+        if (union.wmem == null) {
+          union.accumulator = newSketch;
+        } else {
+          setAccumulator(union, newSketch);
+        }
         return;
       }
 
       // the new sketch has graduated beyond sparse, so convert to bitMatrix
-      union.accumulator = null;
-      union.bitMatrix = CpcUtil.bitMatrixOfSketch(newSketch);
-      union.lgK = newLgK;
+      setBitMatrix(union, CpcUtil.bitMatrixOfSketch(newSketch));
     }
   }
 
@@ -291,11 +503,10 @@ public class CpcUnion {
 
     // if source is past SPARSE mode, make sure that union is a bitMatrix.
     if ((sourceFlavorOrd > 1) && (union.accumulator != null)) {
-      union.bitMatrix = CpcUtil.bitMatrixOfSketch(union.accumulator);
-      union.accumulator = null;
+      setBitMatrix(union, CpcUtil.bitMatrixOfSketch(union.accumulator));
     }
 
-    final int state = ((sourceFlavorOrd - 1) << 1) | ((union.bitMatrix != null) ? 1 : 0);
+    final int state = ((sourceFlavorOrd - 1) << 1) | ((union.accumulator == null) ? 1 : 0);
     switch (state) {
       case 0 : { //A: Sparse, bitMatrix == null, accumulator valid
         if (union.accumulator == null) {
@@ -304,33 +515,44 @@ public class CpcUnion {
         }
         if ((union.accumulator.getFlavor() == EMPTY)
             && (union.lgK == source.lgK)) {
-          union.accumulator = source.copy();
+          setAccumulator(union, source);
           break;
         }
         walkTableUpdatingSketch(union.accumulator, source.pairTable);
         // if the accumulator has graduated beyond sparse, switch union to a bitMatrix
         if (union.accumulator.getFlavor().ordinal() > 1) {
-          union.bitMatrix = CpcUtil.bitMatrixOfSketch(union.accumulator);
-          union.accumulator = null;
+          setBitMatrix(union, CpcUtil.bitMatrixOfSketch(union.accumulator));
         }
         break;
       }
       case 1 : { //B: Sparse, bitMatrix valid, accumulator == null
-        orTableIntoMatrix(union.bitMatrix, union.lgK, source.pairTable);
+        if (union.bitMatrix != null) {
+          orTableIntoMatrix(union.bitMatrix, union.lgK, source.pairTable);
+        } else {
+          orTableIntoMatrix(union.directMatrix, union.lgK, source.pairTable);
+        }
         break;
       }
       case 3 :   //C: Hybrid, bitMatrix valid, accumulator == null
       case 5 : { //C: Pinned, bitMatrix valid, accumulator == null
-        orWindowIntoMatrix(union.bitMatrix, union.lgK, source.slidingWindow,
-            source.windowOffset, source.lgK);
-        orTableIntoMatrix(union.bitMatrix, union.lgK, source.pairTable);
+        if (union.bitMatrix != null) {
+          orWindowIntoMatrix(union.bitMatrix, union.lgK, source);
+          orTableIntoMatrix(union.bitMatrix, union.lgK, source.pairTable);
+        } else {
+          orWindowIntoMatrix(union.directMatrix, union.lgK, source);
+          orTableIntoMatrix(union.directMatrix, union.lgK, source.pairTable);
+        }
         break;
       }
       case 7 : { //D: Sliding, bitMatrix valid, accumulator == null
         // SLIDING mode involves inverted logic, so we can't just walk the source sketch.
         // Instead, we convert it to a bitMatrix that can be OR'ed into the destination.
         final long[] sourceMatrix = CpcUtil.bitMatrixOfSketch(source);
-        orMatrixIntoMatrix(union.bitMatrix, union.lgK, sourceMatrix, source.lgK);
+        if (union.bitMatrix != null) {
+          orMatrixIntoMatrix(union.bitMatrix, union.lgK, sourceMatrix, source.lgK);
+        } else {
+          orMatrixIntoMatrix(union.directMatrix, union.lgK, Memory.wrap(sourceMatrix), source.lgK);
+        }
         break;
       }
       default: throw new SketchesStateException("Illegal Union state: " + state);
@@ -353,7 +575,7 @@ public class CpcUnion {
     } // end of case where union contains a sketch
 
     // start of case where union contains a bitMatrix
-    final long[] matrix = union.bitMatrix;
+    final long[] matrix = getBitMatrix(union); //a copy if the union is Direct
     final int lgK = union.lgK;
     final CpcSketch result = new CpcSketch(union.lgK, union.seed);
 
@@ -424,15 +646,16 @@ public class CpcUnion {
       throw new SketchesStateException("union cannot be null");
     }
     final CpcSketch accumulator = union.accumulator;
-    if ( !((accumulator != null) ^ (union.bitMatrix != null)) ) {
+    final boolean bitMatrixValid = (union.bitMatrix != null) || (union.directMatrix != null);
+    if ( !((accumulator != null) ^ bitMatrixValid) ) {
       throw new SketchesStateException(
         "accumulator and bitMatrix cannot be both valid or both null: "
         + "accumValid = " + (accumulator != null)
-        + ", bitMatrixValid = " + (union.bitMatrix != null));
+        + ", bitMatrixValid = " + bitMatrixValid);
     }
     if (accumulator != null) { //must be SPARSE or EMPTY
       if (accumulator.numCoupons > 0) { //SPARSE
-        if ( !((accumulator.slidingWindow == null) && (accumulator.pairTable != null)) ) {
+        if ( !(!accumulator.hasWindow() && (accumulator.pairTable != null)) ) {
           throw new SketchesStateException(
               "Non-empty union accumulator must be SPARSE: " + accumulator.getFlavor());
         }
@@ -94,14 +94,17 @@ final class CpcUtil {
       for (int i = 0; i < k; i++) { // set the window bits, trusting the sketch's current offset.
         matrix[i] |= ((window[i] & 0XFFL) << offset);
       }
+    } else if (sketch.hasWindow()) { // the window of a Direct sketch
+      for (int i = 0; i < k; i++) {
+        matrix[i] |= ((sketch.getWindowByte(i) & 0XFFL) << offset);
+      }
     }
     final PairTable table = sketch.pairTable;
     assert (table != null);
-    final int[] slots = table.getSlotsArr();
     final int numSlots = 1 << table.getLgSizeInts();
 
     for (int i = 0; i < numSlots; i++) {
-      final int rowCol = slots[i];
+      final int rowCol = table.getSlot(i);
       if (rowCol != -1) {
         final int col = rowCol & 63;
         final int row = rowCol >>> 6;
@@ -26,9 +26,14 @@ import java.util.Arrays;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
- * Note: Definition of
+ * A linear probing hash table of rowCol pairs. The slots are held either in an int[] on the
+ * heap or, for Direct sketches, in a region of WritableMemory laid out as the table's
+ * lgSizeInts (int), its numPairs (int), and then the slots of the largest allowed table.
+ *
+ * <p>Note: Definition of
  * <a href="{@docRoot}/resources/dictionary.html#SnowPlow">Snow Plow Effect</a>.
  * @author Lee Rhodes
  * @author Kevin Lang
@@ -40,10 +45,17 @@ final class PairTable {
   private static final int downsizeNumer = 1;
   private static final int downsizeDenom = 4;
 
+  //Direct table region layout
+  private static final int LG_SIZE_INTS_INT = 0;
+  private static final int NUM_PAIRS_INT = 4;
+  static final int SLOTS_START = 8;
+
   private int lgSizeInts;
   private final int validBits;
   private int numPairs;
-  private int[] slotsArr;
+  private int[] slotsArr; //null if Direct
+  private final WritableMemory wmem; //null if on the heap
+  private final int maxLgSizeInts;
 
   PairTable(final int lgSizeInts, final int numValidBits) {
     checkLgSizeInts(lgSizeInts);
@@ -53,6 +65,67 @@ final class PairTable {
     numPairs = 0;
     slotsArr = new int[numSlots];
     for (int i = 0; i < numSlots; i++) { slotsArr[i] = -1; }
+    wmem = null;
+    maxLgSizeInts = 26;
+  }
+
+  private PairTable(final int lgSizeInts, final int numValidBits, final int numPairs,
+      final WritableMemory wmem, final int maxLgSizeInts) {
+    this.lgSizeInts = lgSizeInts;
+    validBits = numValidBits;
+    this.numPairs = numPairs;
+    slotsArr = null;
+    this.wmem = wmem;
+    this.maxLgSizeInts = maxLgSizeInts;
+  }
+
+  /**
+   * Returns the number of bytes of a Direct table region that can grow to the given size.
+   * @param maxLgSizeInts the log2 of the largest number of slots the table may grow to
+   * @return the number of bytes of a Direct table region
+   */
+  static long getDirectBytes(final int maxLgSizeInts) {
+    return SLOTS_START + (4L << maxLgSizeInts);
+  }
+
+  //Factory, initializes an empty table in the given region
+  static PairTable newDirectInstance(final int lgSizeInts, final int numValidBits,
+      final int maxLgSizeInts, final WritableMemory wmem) {
+    checkLgSizeInts(lgSizeInts);
+    checkDirectLgSizeInts(lgSizeInts, maxLgSizeInts);
+    final PairTable table = new PairTable(lgSizeInts, numValidBits, 0, wmem, maxLgSizeInts);
+    table.wmem.putInt(LG_SIZE_INTS_INT, lgSizeInts);
+    table.wmem.putInt(NUM_PAIRS_INT, 0);
+    table.fillEmpty();
+    return table;
+  }
+
+  //Factory, initializes a table in the given region from an array of pairs
+  static PairTable newDirectInstanceFromPairsArray(final int[] pairs, final int numPairs,
+      final int lgK, final int maxLgSizeInts, final WritableMemory wmem) {
+    int lgNumSlots = 2;
+    while ((upsizeDenom * numPairs) > (upsizeNumer * (1 << lgNumSlots))) {
+      lgNumSlots++;
+    }
+    final PairTable table = newDirectInstance(lgNumSlots, 6 + lgK, maxLgSizeInts, wmem);
+    for (int i = 0; i < numPairs; i++) {
+      mustInsert(table, pairs[i]);
+    }
+    table.putNumPairs(numPairs);
+    return table;
+  }
+
+  //Factory, wraps a table previously initialized in the given region
+  static PairTable wrapDirect(final int numValidBits, final int maxLgSizeInts,
+      final WritableMemory wmem) {
+    final int lgSizeInts = wmem.getInt(LG_SIZE_INTS_INT);
+    final int numPairs = wmem.getInt(NUM_PAIRS_INT);
+    checkLgSizeInts(lgSizeInts);
+    checkDirectLgSizeInts(lgSizeInts, maxLgSizeInts);
+    if ((numPairs < 0) || (numPairs >= (1 << lgSizeInts))) {
+      throw new SketchesArgumentException("Illegal PairTable numPairs: " + numPairs);
+    }
+    return new PairTable(lgSizeInts, numValidBits, numPairs, wmem, maxLgSizeInts);
   }
 
   //Factory
@@ -77,18 +150,27 @@ final class PairTable {
   }
 
   PairTable clear() {
-    Arrays.fill(slotsArr, -1);
-    numPairs = 0;
+    fillEmpty();
+    putNumPairs(0);
     return this;
   }
 
+  //Always returns a table on the heap
   PairTable copy() {
     final PairTable copy = new PairTable(lgSizeInts, validBits);
     copy.numPairs = numPairs;
-    copy.slotsArr = slotsArr.clone(); //slotsArr can never be null
+    if (wmem == null) {
+      copy.slotsArr = slotsArr.clone();
+    } else {
+      wmem.getIntArray(SLOTS_START, copy.slotsArr, 0, 1 << lgSizeInts);
+    }
     return copy;
   }
 
+  boolean isDirect() {
+    return wmem != null;
+  }
+
   int getLgSizeInts() {
     return lgSizeInts;
   }
@@ -97,8 +179,34 @@ final class PairTable {
     return numPairs;
   }
 
-  int[] getSlotsArr() {
-    return slotsArr;
+  //the heap path is kept small so that it inlines into the probing loops
+  int getSlot(final int index) {
+    final int[] arr = slotsArr;
+    return (arr != null) ? arr[index] : getDirectSlot(index);
+  }
+
+  private void putSlot(final int index, final int item) {
+    final int[] arr = slotsArr;
+    if (arr != null) { arr[index] = item; }
+    else { putDirectSlot(index, item); }
+  }
+
+  private int getDirectSlot(final int index) {
+    return wmem.getInt(SLOTS_START + ((long) index << 2));
+  }
+
+  private void putDirectSlot(final int index, final int item) {
+    wmem.putInt(SLOTS_START + ((long) index << 2), item);
+  }
+
+  private void putNumPairs(final int numPairs) {
+    this.numPairs = numPairs;
+    if (wmem != null) { wmem.putInt(NUM_PAIRS_INT, numPairs); }
+  }
+
+  private void fillEmpty() {
+    if (wmem == null) { Arrays.fill(slotsArr, -1); }
+    else { wmem.fill(SLOTS_START, 4L << lgSizeInts, (byte) -1); }
   }
 
   int getValidBits() {
@@ -115,10 +223,18 @@ final class PairTable {
     final int newSize = 1 << newLgSizeInts;
     final int oldSize = 1 << lgSizeInts;
     rtAssert(newSize > numPairs);
-    final int[] oldSlotsArr = slotsArr;
-    slotsArr = new int[newSize];
-    Arrays.fill(slotsArr, -1);
+    final int[] oldSlotsArr;
+    if (wmem == null) {
+      oldSlotsArr = slotsArr;
+      slotsArr = new int[newSize];
+    } else {
+      checkDirectLgSizeInts(newLgSizeInts, maxLgSizeInts);
+      oldSlotsArr = new int[oldSize];
+      wmem.getIntArray(SLOTS_START, oldSlotsArr, 0, oldSize);
+      wmem.putInt(LG_SIZE_INTS_INT, newLgSizeInts);
+    }
     lgSizeInts = newLgSizeInts;
+    fillEmpty();
     for (int i = 0; i < oldSize; i++) {
       final int item = oldSlotsArr[i];
       if (item != -1) { mustInsert(this, item); }
@@ -140,17 +256,16 @@ final class PairTable {
     rtAssert(shift > 0);
     int probe = item >>> shift; //extract high tablesize bits
     rtAssert((probe >= 0) && (probe <= mask));
-    final int[] arr = table.slotsArr;
-    int fetched = arr[probe];
+    int fetched = table.getSlot(probe);
     while ((fetched != item) && (fetched != -1)) {
       probe = (probe + 1) & mask;
-      fetched = arr[probe];
+      fetched = table.getSlot(probe);
     }
     //END SHARED CODE
     if (fetched == item) { throw new SketchesStateException("PairTable mustInsert() failed"); }
     else {
       assert (fetched == -1);
-      arr[probe] = item;
+      table.putSlot(probe, item);
       // counts and resizing must be handled by the caller.
     }
   }
@@ -164,18 +279,17 @@ final class PairTable {
     rtAssert(shift > 0);
     int probe = item >>> shift;
     rtAssert((probe >= 0) && (probe <= mask));
-    final int[] arr = table.slotsArr;
-    int fetched = arr[probe];
+    int fetched = table.getSlot(probe);
     while ((fetched != item) && (fetched != -1)) {
       probe = (probe + 1) & mask;
-      fetched = arr[probe];
+      fetched = table.getSlot(probe);
     }
     //END SHARED CODE
     if (fetched == item) { return false; }
     else {
       assert (fetched == -1);
-      arr[probe] = item;
-      table.numPairs += 1;
+      table.putSlot(probe, item);
+      table.putNumPairs(table.numPairs + 1);
       while ((upsizeDenom * table.numPairs) > (upsizeNumer * (1 << table.lgSizeInts))) {
         table.rebuild(table.lgSizeInts + 1);
       }
@@ -192,26 +306,25 @@ final class PairTable {
     rtAssert(shift > 0);
     int probe = item >>> shift;
     rtAssert((probe >= 0) && (probe <= mask));
-    final int[] arr = table.slotsArr;
-    int fetched = arr[probe];
+    int fetched = table.getSlot(probe);
     while ((fetched != item) && (fetched != -1)) {
       probe = (probe + 1) & mask;
-      fetched = arr[probe];
+      fetched = table.getSlot(probe);
     }
     //END SHARED CODE
     if (fetched == -1) { return false; }
     else {
       assert (fetched == item);
       // delete the item
-      arr[probe] = -1;
-      table.numPairs -= 1; assert (table.numPairs >= 0);
+      table.putSlot(probe, -1);
+      table.putNumPairs(table.numPairs - 1); assert (table.numPairs >= 0);
 
       // re-insert all items between the freed slot and the next empty slot
-      probe = (probe + 1) & mask; fetched = arr[probe];
+      probe = (probe + 1) & mask; fetched = table.getSlot(probe);
       while (fetched != -1) {
-        arr[probe] = -1;
+        table.putSlot(probe, -1);
         mustInsert(table, fetched);
-        probe = (probe + 1) & mask; fetched = arr[probe];
+        probe = (probe + 1) & mask; fetched = table.getSlot(probe);
       }
 
       // shrink if necessary
@@ -235,7 +348,6 @@ final class PairTable {
    */
   static int[] unwrappingGetItems(final PairTable table, final int numPairs) {
     if (numPairs < 1) { return null; }
-    final int[] slotsArr = table.slotsArr;
     final int tableSize = 1 << table.lgSizeInts;
     final int[] result = new int[numPairs];
     int i = 0;
@@ -244,15 +356,15 @@ final class PairTable {
 
     // Special rules for the region before the first empty slot.
     final int hiBit = 1 << (table.validBits - 1);
-    while ((i < tableSize) && (slotsArr[i] != -1)) {
-      final int item = slotsArr[i++];
+    while ((i < tableSize) && (table.getSlot(i) != -1)) {
+      final int item = table.getSlot(i++);
       if ((item & hiBit) != 0) { result[r--] = item; } // This item was probably wrapped, so move to end.
       else                     { result[l++] = item; }
     }
 
     // The rest of the table is processed normally.
     while (i < tableSize) {
-      final int look = slotsArr[i++];
+      final int look = table.getSlot(i++);
       if (look != -1) { result[l++] = look; }
     }
     assert l == (r + 1);
@@ -368,7 +480,7 @@ final class PairTable {
       final String hdr = String.format("%9s %9s %9s %4s", "Index","Word","Row","Col");
       sb.append(hdr).append(LS);
       for (int i = 0; i < sizeInts; i++) {
-        final int word = slotsArr[i];
+        final int word = getSlot(i);
         if (word == -1) { //empty
           final String h = String.format("%9d %9s", i, "--");
           sb.append(h).append(LS);
@@ -390,4 +502,11 @@ final class PairTable {
     }
   }
 
+  private static void checkDirectLgSizeInts(final int lgSizeInts, final int maxLgSizeInts) {
+    if (lgSizeInts > maxLgSizeInts) {
+      throw new SketchesStateException("Direct PairTable capacity exceeded: LgSizeInts = "
+          + lgSizeInts + ", Max LgSizeInts = " + maxLgSizeInts);
+    }
+  }
+
 }
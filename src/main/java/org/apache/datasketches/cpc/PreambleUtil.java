@@ -128,6 +128,30 @@ import org.apache.datasketches.memory.WritableMemory;
  *
  *          ||   XX   |   XX   |   XX   |   XX   |   43   |   42   |   41   |   40   |
  *      5   ||--------Start of SV stream---------|--------Start of Window stream-----|
+ *
+ *
+ * Format = UPDATABLE (Direct): the Compressed flag is clear, and the Format bits of the flags
+ * are {Window valid, PairTable valid, HIP}. K = 1 &lt;&lt; lgK.
+ * PI = 10, FIcol = valid
+ * Long adr ||
+ *          ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |    8   |
+ *      1   ||-------------------------------numCoupons------------------------------|
+ *
+ *          ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |   16   |
+ *      2   ||--------------Unused---------------|-----------Window Offset-----------|
+ *
+ *          ||   31   |   30   |   29   |   28   |   27   |   26   |   25   |   24   |
+ *      3   ||----------------------------------KxP----------------------------------|
+ *
+ *          ||   39   |   38   |   37   |   36   |   35   |   34   |   33   |   32   |
+ *      4   ||-------------------------------HIP Accum-------------------------------|
+ *
+ *          ||   47   |   46   |   45   |   44   |   43   |   42   |   41   |   40   |
+ *      5   ||--------------------Start of Sliding Window, K bytes-------------------|
+ *
+ *  5 + K/8 ||--------PairTable numPairs---------|-------PairTable lgSizeInts--------|
+ *
+ *  6 + K/8 ||---------Start of PairTable slots, (1 &lt;&lt; maxLgSizeInts) ints----------|
  * </pre>
  *
  * @author Lee Rhodes
@@ -158,6 +182,54 @@ final class PreambleUtil {
   static final int SUP_VAL_FLAG_MASK        = 8; //num Suprising Values > 0
   static final int WINDOW_FLAG_MASK         = 16;//window length > 0
 
+  //UPDATABLE (DIRECT) FORMAT, byte offsets
+
+  static final byte DIRECT_PRE_INTS = 10;
+  static final int DIRECT_NUM_COUPONS_LONG = 8;
+  static final int DIRECT_WINDOW_OFFSET_INT = 16;
+  static final int DIRECT_KXP_DOUBLE = 24;
+  static final int DIRECT_HIP_ACCUM_DOUBLE = 32;
+  static final int DIRECT_WINDOW_START = 40;
+
+  /**
+   * Returns the log2 of the largest PairTable of an updatable Direct sketch.
+   * In the windowed flavors of a sketch fed with hashed items the table stays below 1/8 of K
+   * slots, so the cap leaves ample headroom for large K and a full K slots for small K, whose
+   * tables fluctuate more.
+   * @param lgK the given log2 of K
+   * @return the log2 of the largest PairTable of an updatable Direct sketch
+   */
+  static int getDirectMaxLgSizeInts(final int lgK) {
+    return (lgK < 8) ? lgK : lgK - 1;
+  }
+
+  static long getDirectTableStart(final int lgK) {
+    return DIRECT_WINDOW_START + (1L << lgK);
+  }
+
+  static long getDirectSerializedBytes(final int lgK) {
+    return getDirectTableStart(lgK) + PairTable.getDirectBytes(getDirectMaxLgSizeInts(lgK));
+  }
+
+  static void putDirectFirst8(final WritableMemory wmem, final int lgK, final short seedHash) {
+    putFirst8(wmem, DIRECT_PRE_INTS, (byte) lgK, (byte) 0, (byte) 0, seedHash);
+  }
+
+  //basic checks of an updatable Direct image
+  static void checkDirectPreamble(final Memory mem) {
+    Objects.requireNonNull(mem, "Source Memory must not be null");
+    checkBounds(0, 8, mem.getCapacity()); //need min 8 bytes
+    if ((getSerVer(mem) != (SER_VER & 0XFF)) || (getPreInts(mem) != DIRECT_PRE_INTS)
+        || (getFamily(mem) != Family.CPC) || isCompressed(mem)) {
+      throw new SketchesArgumentException("Memory does not contain an updatable CPC sketch image.");
+    }
+    final int lgK = getLgK(mem);
+    if ((lgK < 4) || (lgK > 26)) {
+      throw new SketchesArgumentException("Illegal LgK in updatable CPC sketch image: " + lgK);
+    }
+    checkCapacity(mem.getCapacity(), getDirectSerializedBytes(lgK));
+  }
+
   //PREAMBLE SIZE
 
   /**
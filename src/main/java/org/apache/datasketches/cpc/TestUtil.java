@@ -46,7 +46,7 @@ public class TestUtil {
     rtAssertEquals(sk1.numCoupons, sk2.numCoupons);
 
     rtAssertEquals(sk1.windowOffset, sk2.windowOffset);
-    rtAssertEquals(sk1.slidingWindow, sk2.slidingWindow);
+    rtAssertEquals(sk1.getWindowArray(), sk2.getWindowArray());
     PairTable.equals(sk1.pairTable, sk2.pairTable);
 
     // fiCol is only updated occasionally while stream processing,
@@ -79,12 +79,11 @@ public class TestUtil {
     }
     final PairTable table = sketch.pairTable;
     assert (table != null);
-    final int[] slots = table.getSlotsArr();
     final int numSlots = 1 << table.getLgSizeInts();
     int i;
     int result = offset;
     for (i = 0; i < numSlots; i++) {
-      final int rowCol = slots[i];
+      final int rowCol = table.getSlot(i);
       if (rowCol != -1) {
         final int col = rowCol & 63;
         if (col < result) { result = col; }
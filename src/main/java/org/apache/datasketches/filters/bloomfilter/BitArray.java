@@ -19,192 +19,213 @@
 
 package org.apache.datasketches.filters.bloomfilter;
 
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Buffer;
+import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * This class holds an array of bits suitable for use in a Bloom Filter
  *
  * <p>Rounds the number of bits up to the smallest multiple of 64 (one long)
  * that is not smaller than the specified number.
+ *
+ * <p>The bits are held either in a long[] on the Java heap or in a (Writable)Memory, which
+ * may be off-heap or a memory-mapped file. The concurrent implementations set bits atomically
+ * so that many threads may update one array.
  */
-final class BitArray {
+abstract class BitArray {
   // MAX_BITS using longs, based on array indices being capped at Integer.MAX_VALUE
-  private static final long MAX_BITS = Integer.MAX_VALUE * (long) Long.SIZE;
-
-  private long numBitsSet_;  // if -1, need to recompute value
-  private boolean isDirty_;
-  private long[] data_;
+  static final long MAX_BITS = Integer.MAX_VALUE * (long) Long.SIZE;
 
-  // creates an array of a given size
-  BitArray(final long numBits) {
-    if (numBits <= 0) {
-      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
-    }
-    if (numBits > MAX_BITS) {
-      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
-    }
+  // arrays shorter than this are merged serially, even when a pool is given
+  static final int PARALLEL_MIN_LONGS = 1 << 16;
 
-    final int numLongs = (int) Math.ceil(numBits / 64.0);
-    numBitsSet_ = 0;
-    isDirty_ = false;
-    data_ = new long[numLongs];
-  }
-
-  // uses the provided array
-  BitArray(final long numBitsSet, final long[] data) {
-    data_ = data;
-    isDirty_ = numBitsSet < 0;
-    numBitsSet_ = numBitsSet;
-  }
+  // the number of longs merged by a single task of a parallel merge
+  static final int PARALLEL_CHUNK_LONGS = 1 << 14;
 
   // reads a serialized image, but the BitArray is not fully self-describing so requires
   // a flag to indicate whether the array is empty
   static BitArray heapify(final Buffer buffer, final boolean isEmpty) {
-    final int numLongs = buffer.getInt();
-    if (numLongs < 0) {
-      throw new SketchesArgumentException("Possible corruption: Must have strictly positive array size. Found: " + numLongs);
-    }
-
-    if (isEmpty) {
-      return new BitArray((long) numLongs * Long.SIZE);
-    }
+    return HeapBitArray.heapify(buffer, isEmpty);
+  }
 
-    buffer.getInt(); // unused
+  // wraps a serialized image read-only, starting at the array length
+  static BitArray wrap(final Memory mem, final boolean isEmpty) {
+    return DirectBitArrayR.wrap(mem, isEmpty);
+  }
 
-    // will be -1 if dirty
-    final long numBitsSet = buffer.getLong();
+  // wraps a serialized image for writing, starting at the array length
+  static BitArray writableWrap(final WritableMemory wmem, final boolean isEmpty) {
+    return DirectBitArray.writableWrap(wmem, isEmpty);
+  }
 
-    final long[] data = new long[numLongs];
-    buffer.getLongArray(data, 0, numLongs);
-    return new BitArray(numBitsSet, data);
+  // wraps a serialized image for writing by multiple threads, starting at the array length
+  static BitArray concurrentWrap(final WritableMemory wmem, final boolean isEmpty) {
+    return ConcurrentDirectBitArray.concurrentWrap(wmem, isEmpty);
   }
 
   boolean isEmpty() {
-    return getNumBitsSet() == 0 && !isDirty_;
+    return getNumBitsSet() == 0 && !isDirty();
   }
 
+  abstract boolean hasMemory();
+
+  abstract boolean isDirect();
+
+  abstract boolean isReadOnly();
+
+  abstract boolean isSameResource(Memory mem);
+
+  // true if the array may be updated by multiple threads at once
+  abstract boolean isConcurrent();
+
+  // true if setBit() has been used so the number of bits set must be recomputed
+  abstract boolean isDirty();
+
   // queries a single bit in the array
-  boolean getBit(final long index) {
-    return (data_[(int) index >>> 6] & (1L << index)) != 0 ? true : false;
-  }
+  abstract boolean getBit(long index);
 
   // sets a single bit in the array without querying, meaning the method
   // cannot properly track the number of bits set so set isDirty = true
-  void setBit(final long index) {
-    data_[(int) index >>> 6] |= 1L << index;
-    isDirty_ = true;
-  }
+  abstract void setBit(long index);
 
   // returns existing value of bit
-  boolean getAndSetBit(final long index) {
-    final int offset = (int) index >>> 6;
-    final long mask = 1L << index;
-    if ((data_[offset] & mask) != 0) {
-      return true; // already seen
-    } else {
-      data_[offset] |= mask;
-      ++numBitsSet_; // increment regardless of isDirty_
-      return false; // new set
-    }
-  }
+  abstract boolean getAndSetBit(long index);
 
   // may need to recompute value:
   // O(1) if only getAndSetBit() has been used
-  // O(data_.length) if setBit() has ever been used
-  long getNumBitsSet() {
-    if (isDirty_) {
-      numBitsSet_ = 0;
-      for (final long val : data_) {
-        numBitsSet_ += Long.bitCount(val);
-      }
-    }
-    return numBitsSet_;
-  }
+  // O(data length) if setBit() has ever been used
+  abstract long getNumBitsSet();
+
+  long getCapacity() { return (long) getArrayLength() * Long.SIZE; }
 
-  long getCapacity() { return (long) data_.length * Long.SIZE; }
+  abstract int getArrayLength();
 
-  int getArrayLength() { return data_.length; }
+  // gets the long at the given index of the array
+  abstract long getLong(int arrayIndex);
 
   // applies logical OR
-  void union(final BitArray other) {
-    if (data_.length != other.data_.length) {
+  abstract void union(BitArray other);
+
+  // applies logical AND
+  abstract void intersect(BitArray other);
+
+  // applies logical OR to the longs in [fromIndex, toIndex) without updating the number of bits set,
+  // and returns the number of bits set in that range afterwards
+  abstract long unionRange(BitArray other, int fromIndex, int toIndex);
+
+  // applies logical AND to the longs in [fromIndex, toIndex) without updating the number of bits set,
+  // and returns the number of bits set in that range afterwards
+  abstract long intersectRange(BitArray other, int fromIndex, int toIndex);
+
+  // stores the number of bits set after range operations that covered the whole array
+  abstract void setNumBitsSet(long numBitsSet);
+
+  // applies logical OR, merging chunks of a large array in parallel on the given pool
+  void union(final BitArray other, final ForkJoinPool pool) {
+    if (getArrayLength() != other.getArrayLength()) {
       throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
     }
-
-    numBitsSet_ = 0;
-    for (int i = 0; i < data_.length; ++i) {
-      data_[i] |= other.data_[i];
-      numBitsSet_ += Long.bitCount(data_[i]);
+    if (getArrayLength() < PARALLEL_MIN_LONGS) {
+      union(other);
+      return;
     }
-    isDirty_ = false;
+    setNumBitsSet(pool.invoke(new RangeMergeTask(this, other, true, 0, getArrayLength())));
   }
 
-  // applies logical AND
-  void intersect(final BitArray other) {
-    if (data_.length != other.data_.length) {
+  // applies logical AND, merging chunks of a large array in parallel on the given pool
+  void intersect(final BitArray other, final ForkJoinPool pool) {
+    if (getArrayLength() != other.getArrayLength()) {
       throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
     }
-
-    numBitsSet_ = 0;
-    for (int i = 0; i < data_.length; ++i) {
-      data_[i] &= other.data_[i];
-      numBitsSet_ += Long.bitCount(data_[i]);
+    if (getArrayLength() < PARALLEL_MIN_LONGS) {
+      intersect(other);
+      return;
     }
-    isDirty_ = false;
+    setNumBitsSet(pool.invoke(new RangeMergeTask(this, other, false, 0, getArrayLength())));
   }
 
   // applies bitwise inversion
-  void invert() {
-    if (isDirty_) {
-      numBitsSet_ = 0;
-      for (int i = 0; i < data_.length; ++i) {
-        data_[i] = ~data_[i];
-        numBitsSet_ += Long.bitCount(data_[i]);
-      }
-      isDirty_ = false;
-    } else {
-      for (int i = 0; i < data_.length; ++i) {
-        data_[i] = ~data_[i];
-      }
-      numBitsSet_ = getCapacity() - numBitsSet_;
-    }
-  }
+  abstract void invert();
+
+  // clears the array
+  abstract void reset();
 
   long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(isEmpty());
+  }
+
+  // Sizes the image for a given emptiness snapshot. Callers that may race with concurrent
+  // updates must pass the same snapshot here and to writeToBuffer() so the two agree.
+  long getSerializedSizeBytes(final boolean isEmpty) {
     // We only really need an int for array length but this will keep everything
     // aligned to 8 bytes.
     // Always write array length and numBitsSet, even if empty
-    return isEmpty() ? Long.BYTES : Long.BYTES * (2L + data_.length);
+    return isEmpty ? Long.BYTES : Long.BYTES * (2L + getArrayLength());
   }
 
   void writeToBuffer(final WritableBuffer wbuf) {
-    wbuf.putInt(data_.length);
-    wbuf.putInt(0); // unused
-
-    if (!isEmpty()) {
-      wbuf.putLong(isDirty_ ? -1 : numBitsSet_);
-      wbuf.putLongArray(data_, 0, data_.length);
-    }
+    writeToBuffer(wbuf, isEmpty());
   }
 
+  // writes the empty or non-empty form as chosen by the isEmpty snapshot
+  abstract void writeToBuffer(WritableBuffer wbuf, boolean isEmpty);
+
   // prints the raw BitArray as 0s and 1s, one long per row
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < data_.length; ++i) {
+    final int numLongs = getArrayLength();
+    for (int i = 0; i < numLongs; ++i) {
       sb.append(i + ": ")
-        .append(printLong(data_[i]))
+        .append(printLong(getLong(i)))
         .append("\n");
     }
     return sb.toString();
   }
 
+  // Splits a range of the arrays in halves until each is small enough to merge directly,
+  // and sums the number of bits set in the merged ranges
+  private static final class RangeMergeTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+    private final transient BitArray target;
+    private final transient BitArray source;
+    private final boolean isUnion;
+    private final int fromIndex;
+    private final int toIndex;
+
+    RangeMergeTask(final BitArray target, final BitArray source, final boolean isUnion,
+        final int fromIndex, final int toIndex) {
+      this.target = target;
+      this.source = source;
+      this.isUnion = isUnion;
+      this.fromIndex = fromIndex;
+      this.toIndex = toIndex;
+    }
+
+    @Override
+    protected Long compute() {
+      if ((toIndex - fromIndex) <= PARALLEL_CHUNK_LONGS) {
+        return isUnion
+            ? target.unionRange(source, fromIndex, toIndex)
+            : target.intersectRange(source, fromIndex, toIndex);
+      }
+      final int mid = (fromIndex + toIndex) >>> 1;
+      final RangeMergeTask left = new RangeMergeTask(target, source, isUnion, fromIndex, mid);
+      final RangeMergeTask right = new RangeMergeTask(target, source, isUnion, mid, toIndex);
+      left.fork();
+      final long rightCount = right.compute();
+      return left.join() + rightCount;
+    }
+  }
+
   // prints a long as a series of 0s and 1s as little endian
-  private static String printLong(final long val) {
+  static String printLong(final long val) {
     final StringBuilder sb = new StringBuilder();
     for (int j = 0; j < Long.SIZE; ++j) {
       sb.append((val & (1L << j)) != 0 ? "1" : "0");
@@ -212,11 +233,4 @@ final class BitArray {
     }
     return sb.toString();
   }
-
-  // clears the array
-  void reset() {
-    Arrays.fill(data_, 0);
-    numBitsSet_ = 0;
-    isDirty_ = false;
-  }
 }
@@ -22,9 +22,11 @@ package org.apache.datasketches.filters.bloomfilter;
 import static org.apache.datasketches.common.Util.LS;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Buffer;
 import org.apache.datasketches.memory.Memory;
@@ -56,16 +58,26 @@ import org.apache.datasketches.memory.XxHash;
  * <p>This implementation uses xxHash64 and follows the approach in Kirsch and Mitzenmacher,
  * "Less Hashing, Same Performance: Building a Better Bloom Filter," Wiley Interscience, 2008,
  * pp. 187-218.</p>
+ *
+ * <p>A BloomFilter may live on the Java heap or in a WritableMemory, which may be off-heap or a
+ * memory-mapped file. See {@link #wrap(Memory)} and {@link #writableWrap(WritableMemory)}, and
+ * the BloomFilterBuilder methods that initialize a new filter in a given WritableMemory.</p>
  */
 public final class BloomFilter {
   // maximum number of longs in the array with space for a header at serialization
   static final long MAX_SIZE = (Integer.MAX_VALUE - Family.BLOOMFILTER.getMaxPreLongs()) * (long) Long.SIZE;
   private static final int SER_VER = 1;
   private static final int EMPTY_FLAG_MASK = 4;
+  private static final int BLOCKED_FLAG_MASK = 8;
+  private static final long BIT_ARRAY_OFFSET = 2L * Long.BYTES;
+  private static final int LG_BLOCK_BITS = 9;     // a 512-bit block is one 64-byte cache line
+  private static final int QUERY_BATCH_SIZE = 64; // keys hashed ahead of probing by the batch methods
 
   private long seed_;            // hash seed
   private short numHashes_;      // number of hash values
   private BitArray bitArray_;    // the actual data bits
+  private WritableMemory wmem_;  // the Memory of a direct filter, otherwise null
+  private boolean blocked_;      // if true, all probes for an item fall in one 512-bit block
 
   /**
    * Creates a BloomFilter with given number of bits and number of hash functions,
@@ -76,16 +88,56 @@ public final class BloomFilter {
    * @param seed The base hash seed
    */
   BloomFilter(final long numBits, final int numHashes, final long seed) {
+    this(numBits, numHashes, seed, false);
+  }
+
+  /**
+   * Creates a BloomFilter with given number of bits and number of hash functions,
+   * and a user-specified seed, optionally using the blocked layout. A blocked filter rounds
+   * the number of bits up to a multiple of 512.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed The base hash seed
+   * @param blocked If true, all probes for an item fall in a single 512-bit block
+   */
+  BloomFilter(final long numBits, final int numHashes, final long seed, final boolean blocked) {
     seed_ = seed;
     numHashes_ = (short) numHashes;
-    bitArray_ = new BitArray(numBits);
+    bitArray_ = new HeapBitArray(blocked ? roundUpToBlock(numBits) : numBits);
+    wmem_ = null;
+    blocked_ = blocked;
   }
 
-  // Constructor used with heapify()
-  BloomFilter(final short numHashes, final long seed, final BitArray bitArray) {
+  // Constructor used with heapify(), wrap() and writableWrap()
+  BloomFilter(final short numHashes, final long seed, final BitArray bitArray, final WritableMemory wmem,
+      final boolean blocked) {
     seed_ = seed;
     numHashes_ = numHashes;
     bitArray_ = bitArray;
+    wmem_ = wmem;
+    blocked_ = blocked;
+  }
+
+  /**
+   * Creates a new, empty BloomFilter in the given WritableMemory, which must have a capacity of at least
+   * {@link #getSerializedSizeBytes(long)} bytes.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed The base hash seed
+   * @param dstMem The WritableMemory to hold the filter
+   */
+  static BloomFilter initialize(final long numBits, final int numHashes, final long seed, final WritableMemory dstMem) {
+    if (dstMem.getCapacity() < BIT_ARRAY_OFFSET) {
+      throw new SketchesArgumentException("Memory capacity must be at least " + getSerializedSizeBytes(numBits)
+          + " bytes. Found: " + dstMem.getCapacity());
+    }
+    final BitArray bitArray =
+        DirectBitArray.initialize(numBits, dstMem.writableRegion(BIT_ARRAY_OFFSET, dstMem.getCapacity() - BIT_ARRAY_OFFSET));
+    final WritableBuffer wbuf = dstMem.asWritableBuffer();
+    writePreamble(wbuf, (short) numHashes, seed, false, false);
+    return new BloomFilter((short) numHashes, seed, bitArray, dstMem, false);
   }
 
   /**
@@ -95,6 +147,103 @@ public final class BloomFilter {
    */
   public static BloomFilter heapify(final Memory mem) {
     final Buffer buf = mem.asBuffer();
+    final short numHashes = readPreamble(buf);
+    final long seed = buf.getLong();
+    final boolean isEmpty = (mem.getByte(3) & EMPTY_FLAG_MASK) != 0;
+    final boolean blocked = (mem.getByte(3) & BLOCKED_FLAG_MASK) != 0;
+
+    final BitArray bitArray = BitArray.heapify(buf, isEmpty);
+    checkBlocks(bitArray, blocked);
+
+    return new BloomFilter(numHashes, seed, bitArray, null, blocked);
+  }
+
+  /**
+   * Wraps a serialized image of a BloomFilter in the provided Memory as a read-only filter. No data is copied.
+   * The filter reflects later changes to the Memory, for example by a writable filter in another process.
+   * @param mem Memory containing a previously serialized BloomFilter
+   * @return a read-only BloomFilter backed by the given Memory
+   */
+  public static BloomFilter wrap(final Memory mem) {
+    final Buffer buf = mem.asBuffer();
+    final short numHashes = readPreamble(buf);
+    final long seed = buf.getLong();
+    final boolean isEmpty = (mem.getByte(3) & EMPTY_FLAG_MASK) != 0;
+    final boolean blocked = (mem.getByte(3) & BLOCKED_FLAG_MASK) != 0;
+
+    final BitArray bitArray = BitArray.wrap(mem.region(BIT_ARRAY_OFFSET, mem.getCapacity() - BIT_ARRAY_OFFSET), isEmpty);
+    checkBlocks(bitArray, blocked);
+
+    return new BloomFilter(numHashes, seed, bitArray, (WritableMemory) mem, blocked);
+  }
+
+  /**
+   * Wraps a serialized image of a BloomFilter in the provided WritableMemory as a writable filter.
+   * No data is copied, and all updates are written to the WritableMemory.
+   *
+   * <p>The image must hold the bits of the filter, so it cannot be the serialized image of an empty filter.
+   * Use the BloomFilterBuilder to initialize a new filter in a WritableMemory instead.</p>
+   * @param wmem WritableMemory containing a previously serialized BloomFilter
+   * @return a BloomFilter backed by the given WritableMemory
+   */
+  public static BloomFilter writableWrap(final WritableMemory wmem) {
+    if (wmem.isReadOnly()) { throw new SketchesReadOnlyException("Cannot writableWrap a read-only Memory"); }
+    final Buffer buf = wmem.asBuffer();
+    final short numHashes = readPreamble(buf);
+    final long seed = buf.getLong();
+    final boolean isEmpty = (wmem.getByte(3) & EMPTY_FLAG_MASK) != 0;
+    final boolean blocked = (wmem.getByte(3) & BLOCKED_FLAG_MASK) != 0;
+
+    final BitArray bitArray = BitArray.writableWrap(
+        wmem.writableRegion(BIT_ARRAY_OFFSET, wmem.getCapacity() - BIT_ARRAY_OFFSET), isEmpty);
+    checkBlocks(bitArray, blocked);
+
+    return new BloomFilter(numHashes, seed, bitArray, wmem, blocked);
+  }
+
+  /**
+   * Wraps a serialized image of a BloomFilter in the provided WritableMemory as a filter that many threads may
+   * update and query at once. No data is copied, and all updates are written to the WritableMemory with atomic
+   * operations. Other processes wrapping the same WritableMemory see the bits as they are set, but must recount
+   * the number of bits set.
+   *
+   * <p>The image must hold the bits of the filter, so it cannot be the serialized image of an empty filter.
+   * Use the BloomFilterBuilder to initialize a new filter in a WritableMemory, then wrap it with this method.</p>
+   * @param wmem WritableMemory containing a previously serialized BloomFilter
+   * @return a thread-safe BloomFilter backed by the given WritableMemory
+   * @see BloomFilterBuilder#createConcurrentBySize(long, int, long)
+   */
+  public static BloomFilter concurrentWrap(final WritableMemory wmem) {
+    if (wmem.isReadOnly()) { throw new SketchesReadOnlyException("Cannot concurrentWrap a read-only Memory"); }
+    final Buffer buf = wmem.asBuffer();
+    final short numHashes = readPreamble(buf);
+    final long seed = buf.getLong();
+    final boolean isEmpty = (wmem.getByte(3) & EMPTY_FLAG_MASK) != 0;
+    final boolean blocked = (wmem.getByte(3) & BLOCKED_FLAG_MASK) != 0;
+
+    final BitArray bitArray = BitArray.concurrentWrap(
+        wmem.writableRegion(BIT_ARRAY_OFFSET, wmem.getCapacity() - BIT_ARRAY_OFFSET), isEmpty);
+    checkBlocks(bitArray, blocked);
+
+    return new BloomFilter(numHashes, seed, bitArray, wmem, blocked);
+  }
+
+  /**
+   * Returns the number of bytes needed to hold a non-empty BloomFilter of the given number of bits, which is also
+   * the capacity needed to initialize a new filter in a WritableMemory.
+   * @param numBits The size of the BloomFilter, in bits
+   * @return the number of bytes needed to hold a BloomFilter of the given number of bits
+   */
+  public static long getSerializedSizeBytes(final long numBits) {
+    if (numBits <= 0 || numBits > MAX_SIZE) {
+      throw new SketchesArgumentException("Size of BloomFilter must be strictly positive and <= "
+          + MAX_SIZE + ". Requested: " + numBits);
+    }
+    return BIT_ARRAY_OFFSET + DirectBitArray.getRequiredBytes((int) Math.ceil(numBits / 64.0));
+  }
+
+  // reads and checks the preamble, leaving the buffer at the seed, and returns the number of hashes
+  private static short readPreamble(final Buffer buf) {
     final int preLongs = buf.getByte();
     final int serVer = buf.getByte();
     final int familyID = buf.getByte();
@@ -108,14 +257,33 @@ public final class BloomFilter {
     final short numHashes = buf.getShort();
     buf.getShort(); // unused
     checkArgument(numHashes < 1, "Possible corruption: Need strictly positive number of hash functions. Found: " + numHashes);
+    return numHashes;
+  }
 
-    final long seed = buf.getLong();
-
-    final boolean isEmpty = (flags & EMPTY_FLAG_MASK) != 0;
+  // checks that a blocked filter holds a whole number of blocks
+  private static void checkBlocks(final BitArray bitArray, final boolean blocked) {
+    checkArgument(blocked && (bitArray.getCapacity() & ((1L << LG_BLOCK_BITS) - 1)) != 0,
+        "Possible corruption: Blocked BloomFilter must hold a multiple of 512 bits. Found: " + bitArray.getCapacity());
+  }
 
-    final BitArray bitArray = BitArray.heapify(buf, isEmpty);
+  // rounds the number of bits up to a whole number of blocks, but no more than the largest one allowed
+  static long roundUpToBlock(final long numBits) {
+    if (numBits <= 0) { return numBits; } // rejected by the BitArray
+    final long blockBits = 1L << LG_BLOCK_BITS;
+    final long rounded = ((numBits + blockBits - 1) >>> LG_BLOCK_BITS) << LG_BLOCK_BITS;
+    return Math.min(rounded, (MAX_SIZE >>> LG_BLOCK_BITS) << LG_BLOCK_BITS);
+  }
 
-    return new BloomFilter(numHashes, seed, bitArray);
+  // writes the preamble, leaving the buffer at the BitArray
+  private static void writePreamble(final WritableBuffer wbuf, final short numHashes, final long seed,
+      final boolean isEmpty, final boolean blocked) {
+    wbuf.putByte((byte) Family.BLOOMFILTER.getMinPreLongs());
+    wbuf.putByte((byte) SER_VER); // to do: add constant
+    wbuf.putByte((byte) Family.BLOOMFILTER.getID());
+    wbuf.putByte((byte) ((isEmpty ? EMPTY_FLAG_MASK : 0) | (blocked ? BLOCKED_FLAG_MASK : 0)));
+    wbuf.putShort(numHashes);
+    wbuf.putShort((short) 0); // unused
+    wbuf.putLong(seed);
   }
 
   /**
@@ -130,6 +298,47 @@ public final class BloomFilter {
    * @return True if the BloomFilter is empty, otherwise False
    */
   public boolean isEmpty() { return bitArray_.isEmpty(); }
+
+  /**
+   * Returns true if this BloomFilter is backed by a Memory.
+   * @return true if this BloomFilter is backed by a Memory
+   */
+  public boolean hasMemory() { return wmem_ != null; }
+
+  /**
+   * Returns true if this BloomFilter is backed by off-heap (direct or memory-mapped) memory.
+   * @return true if this BloomFilter is backed by off-heap memory
+   */
+  public boolean isDirect() { return bitArray_.isDirect(); }
+
+  /**
+   * Returns true if this BloomFilter is read-only.
+   * @return true if this BloomFilter is read-only
+   */
+  public boolean isReadOnly() { return bitArray_.isReadOnly(); }
+
+  /**
+   * Returns true if this BloomFilter is backed by the same resource as the given Memory.
+   * @param mem the given Memory
+   * @return true if this BloomFilter is backed by the same resource as the given Memory
+   */
+  public boolean isSameResource(final Memory mem) {
+    return wmem_ != null && wmem_.isSameResource(mem);
+  }
+
+  /**
+   * Returns true if this BloomFilter uses the blocked layout, in which all the probes for an item
+   * fall in a single 512-bit block, which is one 64-byte cache line.
+   * @return true if this BloomFilter uses the blocked layout
+   */
+  public boolean isBlocked() { return blocked_; }
+
+  /**
+   * Returns true if this BloomFilter may be updated and queried by multiple threads at once.
+   * Such a filter sets bits atomically and keeps an exact count of the bits set.
+   * @return true if this BloomFilter is thread-safe
+   */
+  public boolean isConcurrent() { return bitArray_.isConcurrent(); }
   
   /**
    * Returns the number of bits in the BloomFilter that are set to 1.
@@ -274,6 +483,14 @@ public final class BloomFilter {
   // Internal method to apply updates given pre-computed hashes
   private void updateInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
+    if (blocked_) {
+      final long blockStart = getBlockStart(h0, numBits);
+      final long h2 = Long.rotateLeft(h0, 32);
+      for (int i = 1; i <= numHashes_; ++i) {
+        bitArray_.setBit(blockStart + getBlockOffset(h1, h2, i));
+      }
+      return;
+    }
     for (int i = 1; i <= numHashes_; ++i) {
       // right-shift to ensure non-negative value
       final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
@@ -281,6 +498,19 @@ public final class BloomFilter {
     }
   }
 
+  // In the blocked layout h0 picks the block, then the top bits of a second double hash
+  // pick the bit of each probe within it
+
+  // Returns the index of the first bit of the block for the given hash
+  private static long getBlockStart(final long h0, final long numBits) {
+    return ((h0 >>> 1) % (numBits >>> LG_BLOCK_BITS)) << LG_BLOCK_BITS;
+  }
+
+  // Returns the offset within the block of the i-th probe
+  private static long getBlockOffset(final long h1, final long h2, final int i) {
+    return (h1 + i * h2) >>> (Long.SIZE - LG_BLOCK_BITS);
+  }
+
   // QUERY-AND-UPDATE METHODS 
 
   /**
@@ -407,10 +637,41 @@ public final class BloomFilter {
     return queryAndUpdateInternal(h0, h1);
   }
 
+  /**
+   * Updates the filter with each of the provided longs and stores in <i>results</i> the result from
+   * querying each value prior to its update. The results are the same as calling
+   * {@link #queryAndUpdate(long)} on each item in order, but the items are hashed in batches ahead of
+   * probing the filter.
+   * @param items the items with which to update the filter
+   * @param results receives the query result of each item prior to applying its update. It must be at
+   * least as long as <i>items</i>.
+   */
+  public void queryAndUpdate(final long[] items, final boolean[] results) {
+    checkBatchArgs(items, results);
+    final int batchSize = Math.min(items.length, QUERY_BATCH_SIZE);
+    final long[] h0s = new long[batchSize];
+    final long[] h1s = new long[batchSize];
+    for (int start = 0; start < items.length; start += batchSize) {
+      final int len = Math.min(batchSize, items.length - start);
+      hashBatch(items, start, len, h0s, h1s);
+      for (int j = 0; j < len; ++j) {
+        results[start + j] = queryAndUpdateInternal(h0s[j], h1s[j]);
+      }
+    }
+  }
+
   // Internal query-and-update method given pre-computed hashes
   private boolean queryAndUpdateInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
     boolean valueAlreadyExists = true;
+    if (blocked_) {
+      final long blockStart = getBlockStart(h0, numBits);
+      final long h2 = Long.rotateLeft(h0, 32);
+      for (int i = 1; i <= numHashes_; ++i) {
+        valueAlreadyExists &= bitArray_.getAndSetBit(blockStart + getBlockOffset(h1, h2, i));
+      }
+      return valueAlreadyExists;
+    }
     for (int i = 1; i <= numHashes_; ++i) {
       final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
       // returns old value of bit
@@ -563,9 +824,59 @@ public final class BloomFilter {
     return queryInternal(h0, h1);
   }
 
+  /**
+   * Queries the filter with each of the provided longs and stores in <i>results</i> whether each value
+   * <em>might</em> have been seen previously. The results are the same as calling {@link #query(long)}
+   * on each item, but the items are hashed in batches ahead of probing the filter, which keeps the
+   * hashing loop tight and lets the probes of consecutive items overlap.
+   * @param items the items with which to query the filter
+   * @param results receives the result of querying the filter with each item. It must be at least as
+   * long as <i>items</i>.
+   */
+  public void query(final long[] items, final boolean[] results) {
+    checkBatchArgs(items, results);
+    final int batchSize = Math.min(items.length, QUERY_BATCH_SIZE);
+    final long[] h0s = new long[batchSize];
+    final long[] h1s = new long[batchSize];
+    for (int start = 0; start < items.length; start += batchSize) {
+      final int len = Math.min(batchSize, items.length - start);
+      hashBatch(items, start, len, h0s, h1s);
+      for (int j = 0; j < len; ++j) { results[start + j] = queryInternal(h0s[j], h1s[j]); }
+    }
+  }
+
+  // Computes the hash pairs of a batch of longs, as done by the single-item methods
+  private void hashBatch(final long[] items, final int start, final int len, final long[] h0s, final long[] h1s) {
+    for (int j = 0; j < len; ++j) {
+      final long h0 = XxHash.hashLong(items[start + j], seed_);
+      h0s[j] = h0;
+      h1s[j] = XxHash.hashLong(items[start + j], h0);
+    }
+  }
+
+  private static void checkBatchArgs(final long[] items, final boolean[] results) {
+    if (items == null || results == null) {
+      throw new SketchesArgumentException("Items and results arrays must not be null");
+    }
+    if (results.length < items.length) {
+      throw new SketchesArgumentException("Results array must be at least as long as the items array. Found: "
+          + results.length + " < " + items.length);
+    }
+  }
+
   // Internal method to query the filter given pre-computed hashes
   private boolean queryInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
+    if (blocked_) {
+      final long blockStart = getBlockStart(h0, numBits);
+      final long h2 = Long.rotateLeft(h0, 32);
+      for (int i = 1; i <= numHashes_; ++i) {
+        if (!bitArray_.getBit(blockStart + getBlockOffset(h1, h2, i))) {
+          return false;
+        }
+      }
+      return true;
+    }
     for (int i = 1; i <= numHashes_; ++i) {
       final long hashIndex = ((h0 + i * h1) >>> 1) % numBits;
       // returns old value of bit
@@ -605,6 +916,42 @@ public final class BloomFilter {
     bitArray_.intersect(other.bitArray_);
   }
 
+  /**
+   * Unions two BloomFilters by applying a logical OR, merging chunks of large filters in parallel on the
+   * given pool. Filters smaller than about 4 million bits are merged serially. The result is the same as
+   * {@link #union(BloomFilter)}. Neither filter may be updated while the union is in progress, unless both
+   * are concurrent filters.
+   * @param other A BloomFilter to union with this one
+   * @param pool The ForkJoinPool in which to merge chunks of the filters
+   */
+  public void union(final BloomFilter other, final ForkJoinPool pool) {
+    if (other == null) { return; }
+    if (!isCompatible(other)) {
+      throw new SketchesArgumentException("Cannot union sketches with different seeds, hash functions, or sizes");
+    }
+    if (isReadOnly()) { throw new SketchesReadOnlyException("Attempt to union into a read-only BloomFilter"); }
+
+    bitArray_.union(other.bitArray_, pool);
+  }
+
+  /**
+   * Intersects two BloomFilters by applying a logical AND, merging chunks of large filters in parallel on
+   * the given pool. Filters smaller than about 4 million bits are merged serially. The result is the same as
+   * {@link #intersect(BloomFilter)}. Neither filter may be updated while the intersection is in progress,
+   * unless both are concurrent filters.
+   * @param other A BloomFilter to intersect with this one
+   * @param pool The ForkJoinPool in which to merge chunks of the filters
+   */
+  public void intersect(final BloomFilter other, final ForkJoinPool pool) {
+    if (other == null) { return; }
+    if (!isCompatible(other)) {
+      throw new SketchesArgumentException("Cannot union sketches with different seeds, hash functions, or sizes");
+    }
+    if (isReadOnly()) { throw new SketchesReadOnlyException("Attempt to intersect into a read-only BloomFilter"); }
+
+    bitArray_.intersect(other.bitArray_, pool);
+  }
+
   /**
    * Inverts all the bits of the BloomFilter. Approximately inverts the notion of set-membership.
    */
@@ -621,6 +968,7 @@ public final class BloomFilter {
     if (other == null
         || seed_ != other.seed_
         || numHashes_ != other.numHashes_
+        || blocked_ != other.blocked_
         || bitArray_.getArrayLength() != other.bitArray_.getArrayLength()) {
           return false;
     }
@@ -632,8 +980,13 @@ public final class BloomFilter {
    * @return The length of this BloomFilter when serialized, in bytes
    */
   public long getSerializedSizeBytes() {
+    return getSerializedSizeBytes(bitArray_.isEmpty());
+  }
+
+  // sizes the image for a single emptiness snapshot, shared with the writer
+  private long getSerializedSizeBytes(final boolean isEmpty) {
     long sizeBytes = 2L * Long.BYTES; // basic sketch info + baseSeed
-    sizeBytes += bitArray_.getSerializedSizeBytes();
+    sizeBytes += bitArray_.getSerializedSizeBytes(isEmpty);
     return sizeBytes;
   }
 
@@ -656,7 +1009,8 @@ public final class BloomFilter {
  *  2   ||---------------------------------NumBitsSet------------------------------------|
  *  </pre>
  * 
- * The raw BitArray bits, if non-empty start at byte 24.
+ * The raw BitArray bits, if non-empty start at byte 32. An empty image ends after the BitArray length.
+ * A filter that lives in a WritableMemory always holds the bits and never sets the empty flag.
  */
 
   /**
@@ -666,7 +1020,10 @@ public final class BloomFilter {
    * @return A serialized image of the current BloomFilter as byte[]
    */
   public byte[] toByteArray() {
-    final long sizeBytes = getSerializedSizeBytes();
+    // A concurrent filter may gain bits at any time, so emptiness is read once and used for
+    // sizing, the preamble flag and the payload alike.
+    final boolean isEmpty = bitArray_.isEmpty();
+    final long sizeBytes = getSerializedSizeBytes(isEmpty);
     if (sizeBytes > Integer.MAX_VALUE) {
       throw new SketchesStateException("Cannot serialize a BloomFilter of this size using toByteArray(); use toLongArray() instead.");
     }
@@ -674,15 +1031,9 @@ public final class BloomFilter {
     final byte[] bytes = new byte[(int) sizeBytes];
     final WritableBuffer wbuf = WritableMemory.writableWrap(bytes).asWritableBuffer();
 
-    wbuf.putByte((byte) Family.BLOOMFILTER.getMinPreLongs());
-    wbuf.putByte((byte) SER_VER); // to do: add constant
-    wbuf.putByte((byte) Family.BLOOMFILTER.getID());
-    wbuf.putByte((byte) (bitArray_.isEmpty() ? EMPTY_FLAG_MASK : 0));
-    wbuf.putShort(numHashes_);
-    wbuf.putShort((short) 0); // unused
-    wbuf.putLong(seed_);
+    writePreamble(wbuf, numHashes_, seed_, isEmpty, blocked_);
 
-    bitArray_.writeToBuffer(wbuf);
+    bitArray_.writeToBuffer(wbuf, isEmpty);
 
     return bytes;
   }
@@ -694,20 +1045,16 @@ public final class BloomFilter {
    * @return A serialized image of the current BloomFilter as long[]
    */
   public long[] toLongArray() {
-    final long sizeBytes = getSerializedSizeBytes();
+    // single emptiness snapshot, as in toByteArray()
+    final boolean isEmpty = bitArray_.isEmpty();
+    final long sizeBytes = getSerializedSizeBytes(isEmpty);
 
     final long[] longs = new long[(int) (sizeBytes >> 3)];
     final WritableBuffer wbuf = WritableMemory.writableWrap(longs).asWritableBuffer();
 
-    wbuf.putByte((byte) Family.BLOOMFILTER.getMinPreLongs());
-    wbuf.putByte((byte) SER_VER); // to do: add constant
-    wbuf.putByte((byte) Family.BLOOMFILTER.getID());
-    wbuf.putByte((byte) (bitArray_.isEmpty() ? EMPTY_FLAG_MASK : 0));
-    wbuf.putShort(numHashes_);
-    wbuf.putShort((short) 0); // unused
-    wbuf.putLong(seed_);
+    writePreamble(wbuf, numHashes_, seed_, isEmpty, blocked_);
 
-    bitArray_.writeToBuffer(wbuf);
+    bitArray_.writeToBuffer(wbuf, isEmpty);
 
     return longs;
   }
@@ -727,6 +1074,7 @@ public final class BloomFilter {
     sb.append("   numBits      : ").append(bitArray_.getCapacity()).append(LS);
     sb.append("   numHashes    : ").append(numHashes_).append(LS);
     sb.append("   seed         : ").append(seed_).append(LS);
+    sb.append("   blocked      : ").append(blocked_).append(LS);
     sb.append("   bitsUsed     : ").append(bitArray_.getNumBitsSet()).append(LS);
     sb.append("   fill %       : ").append(getFillPercentage()).append(LS);
     sb.append("### END SKETCH SUMMARY").append(LS);
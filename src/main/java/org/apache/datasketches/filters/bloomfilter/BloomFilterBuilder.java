@@ -22,6 +22,7 @@ package org.apache.datasketches.filters.bloomfilter;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * <p>This class provides methods to help estimate the correct paramters to use when
@@ -97,17 +98,69 @@ public final class BloomFilterBuilder {
    * @return A new BloomFilter configured for the given input parameters
    */
   public static BloomFilter createByAccuracy(final long maxDistinctItems, final double targetFalsePositiveProb, final long seed) {
-    if (maxDistinctItems <= 0) {
-      throw new SketchesArgumentException("maxDistinctItems must be strictly positive");
-    }
-    if (targetFalsePositiveProb <= 0.0 || targetFalsePositiveProb > 1.0) {
-      throw new SketchesArgumentException("targetFalsePositiveProb must be a valid probability and strictly greater than 0");
-    }
+    checkAccuracyArgs(maxDistinctItems, targetFalsePositiveProb);
     final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
     final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
     return new BloomFilter(numBits, numHashes, seed);
   }
 
+  /**
+   * Creates a new BloomFilter with the blocked layout, using the number of bits and hash functions that
+   * would be optimal for a standard filter with the given inputs, and the provided base seed for the
+   * hash function.
+   *
+   * <p>A blocked filter places all the probes for an item in a single 512-bit block, so each update or
+   * query touches one cache line. In exchange, the false positive probability is somewhat higher than
+   * that of a standard filter of the same size.</p>
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item, for a standard filter
+   * @param seed A base hash seed
+   * @return A new blocked BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createBlockedByAccuracy(final long maxDistinctItems, final double targetFalsePositiveProb,
+      final long seed) {
+    checkAccuracyArgs(maxDistinctItems, targetFalsePositiveProb);
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return new BloomFilter(numBits, numHashes, seed, true);
+  }
+
+  /**
+   * Creates a new BloomFilter that many threads may update and query at once, with an optimal number of
+   * bits and hash functions for the given inputs, using the provided base seed for the hash function.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @param seed A base hash seed
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   * @see #createConcurrentBySize(long, int, long)
+   */
+  public static BloomFilter createConcurrentByAccuracy(final long maxDistinctItems,
+      final double targetFalsePositiveProb, final long seed) {
+    checkAccuracyArgs(maxDistinctItems, targetFalsePositiveProb);
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return createConcurrentBySize(numBits, numHashes, seed);
+  }
+
+  /**
+   * Initializes a new BloomFilter in the given WritableMemory, with an optimal number of bits and hash functions
+   * for the given inputs, using the provided base seed for the hash function. The required capacity of the
+   * WritableMemory may be obtained from {@link BloomFilter#getSerializedSizeBytes(long)} and
+   * {@link #suggestNumFilterBits(long, double)}.
+   * @param maxDistinctItems The maximum expected number of distinct items to add to the filter
+   * @param targetFalsePositiveProb A desired false positive probability per item
+   * @param seed A base hash seed
+   * @param dstMem The WritableMemory to hold the filter
+   * @return A new BloomFilter configured for the given input parameters, backed by the given WritableMemory
+   */
+  public static BloomFilter initializeByAccuracy(final long maxDistinctItems, final double targetFalsePositiveProb,
+      final long seed, final WritableMemory dstMem) {
+    checkAccuracyArgs(maxDistinctItems, targetFalsePositiveProb);
+    final long numBits = suggestNumFilterBits(maxDistinctItems, targetFalsePositiveProb);
+    final short numHashes = suggestNumHashes(maxDistinctItems, numBits);
+    return BloomFilter.initialize(numBits, numHashes, seed, dstMem);
+  }
+
   /**
    * Creates a BloomFilter with given number of bits and number of hash functions,
    * and a random seed.
@@ -130,6 +183,73 @@ public final class BloomFilterBuilder {
    * @return A new BloomFilter configured for the given input parameters
    */
   public static BloomFilter createBySize(final long numBits, final int numHashes, final long seed) {
+    checkSizeArgs(numBits, numHashes);
+    return new BloomFilter(numBits, numHashes, seed);
+  }
+
+  /**
+   * Creates a BloomFilter with the blocked layout, the given number of bits, rounded up to a multiple
+   * of 512, and the given number of hash functions.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @return A new blocked BloomFilter configured for the given input parameters
+   * @see #createBlockedByAccuracy(long, double, long)
+   */
+  public static BloomFilter createBlockedBySize(final long numBits, final int numHashes, final long seed) {
+    checkSizeArgs(numBits, numHashes);
+    return new BloomFilter(numBits, numHashes, seed, true);
+  }
+
+  /**
+   * Creates a BloomFilter that many threads may update and query at once, with the given number of bits
+   * and number of hash functions.
+   *
+   * <p>Bits are set atomically with compare-and-swap, so concurrent updates are never lost, and the number of
+   * bits set is kept exact in a striped counter. A concurrent <i>queryAndUpdate</i> of an item returns false
+   * unless all its bits were already set, so two threads adding the same new item at once may both return
+   * false. Union, intersection, inversion and reset are applied one long at a time, so they are not atomic
+   * with respect to concurrent updates. In exchange for thread safety, updates cost more than those of a
+   * filter used by a single thread.</p>
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @return A new thread-safe BloomFilter configured for the given input parameters
+   */
+  public static BloomFilter createConcurrentBySize(final long numBits, final int numHashes, final long seed) {
+    checkSizeArgs(numBits, numHashes);
+    return new BloomFilter((short) numHashes, seed, new ConcurrentHeapBitArray(numBits), null, false);
+  }
+
+  /**
+   * Initializes a new BloomFilter in the given WritableMemory, with the given number of bits and number of
+   * hash functions. The WritableMemory must have a capacity of at least
+   * {@link BloomFilter#getSerializedSizeBytes(long)} bytes.
+   *
+   * @param numBits The size of the BloomFilter, in bits
+   * @param numHashes The number of hash functions to apply to items
+   * @param seed A base hash seed
+   * @param dstMem The WritableMemory to hold the filter
+   * @return A new BloomFilter configured for the given input parameters, backed by the given WritableMemory
+   */
+  public static BloomFilter initializeBySize(final long numBits, final int numHashes, final long seed,
+      final WritableMemory dstMem) {
+    checkSizeArgs(numBits, numHashes);
+    return BloomFilter.initialize(numBits, numHashes, seed, dstMem);
+  }
+
+  private static void checkAccuracyArgs(final long maxDistinctItems, final double targetFalsePositiveProb) {
+    if (maxDistinctItems <= 0) {
+      throw new SketchesArgumentException("maxDistinctItems must be strictly positive");
+    }
+    if (targetFalsePositiveProb <= 0.0 || targetFalsePositiveProb > 1.0) {
+      throw new SketchesArgumentException("targetFalsePositiveProb must be a valid probability and strictly greater than 0");
+    }
+  }
+
+  private static void checkSizeArgs(final long numBits, final int numHashes) {
     if (numBits > BloomFilter.MAX_SIZE) {
       throw new SketchesArgumentException("Size of BloomFilter must be <= "
       + BloomFilter.MAX_SIZE + ". Requested: " + numBits);
@@ -142,7 +262,5 @@ public final class BloomFilterBuilder {
       throw new SketchesArgumentException("Number of hashes cannot exceed " + Short.MAX_VALUE
       + ". Requested: " + numHashes);
     }
-
-    return new BloomFilter(numBits, numHashes, seed);
   }
 }
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class is an array of bits backed by a WritableMemory that may be updated by multiple threads
+ * at once, suitable for use in a Bloom Filter. The layout is described in {@link DirectBitArrayR}.
+ *
+ * <p>Bits are set with the compare-and-swap operations of the WritableMemory. The exact number of bits
+ * set is kept in a striped counter on the heap rather than in the WritableMemory, which would make
+ * every writer contend on one long. Once a bit has been set, the stored number of bits set is marked
+ * as needing to be recomputed, so other readers of the WritableMemory will count the bits, and
+ * serialization writes the exact number.</p>
+ */
+final class ConcurrentDirectBitArray extends DirectBitArrayR {
+  private final LongAdder numBitsSet_;
+  private volatile boolean imageMarkedDirty_;
+
+  ConcurrentDirectBitArray(final int dataLength, final WritableMemory wmem) {
+    super(dataLength, wmem, false);
+    numBitsSet_ = new LongAdder();
+    numBitsSet_.add(super.getNumBitsSet());
+    imageMarkedDirty_ = false;
+  }
+
+  // wraps a serialized image for writing by multiple threads, starting at the array length
+  static ConcurrentDirectBitArray concurrentWrap(final WritableMemory wmem, final boolean isEmpty) {
+    if (isEmpty) {
+      throw new SketchesArgumentException("Cannot wrap an empty serialized BitArray image, which holds no bits. "
+          + "Initialize a new filter in the WritableMemory instead.");
+    }
+    final int numLongs = checkArrayLength(wmem, false);
+    return new ConcurrentDirectBitArray(numLongs, wmem);
+  }
+
+  @Override
+  boolean isReadOnly() { return false; }
+
+  @Override
+  boolean isConcurrent() { return true; }
+
+  @Override
+  boolean isDirty() { return false; }
+
+  @Override
+  void setBit(final long index) {
+    getAndSetBit(index);
+  }
+
+  @Override
+  boolean getAndSetBit(final long index) {
+    final long offset = DATA_OFFSET + ((index >>> 6) << 3);
+    final long mask = 1L << index;
+    long val;
+    do {
+      val = wmem_.getLong(offset);
+      if ((val & mask) != 0) {
+        return true; // already seen
+      }
+    } while (!wmem_.compareAndSwapLong(offset, val, val | mask));
+    countChange(1);
+    return false; // new set
+  }
+
+  @Override
+  long getNumBitsSet() {
+    return numBitsSet_.sum();
+  }
+
+  @Override
+  void union(final BitArray other) {
+    if (dataLength_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
+    }
+
+    unionRange(other, 0, dataLength_);
+  }
+
+  @Override
+  long unionRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    long delta = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      final long bits = other.getLong(i);
+      long val;
+      do {
+        val = wmem_.getLong(offset);
+        if ((val | bits) == val) { break; }
+      } while (!wmem_.compareAndSwapLong(offset, val, val | bits));
+      delta += Long.bitCount(bits & ~val);
+      numBitsSet += Long.bitCount(val | bits);
+    }
+    countChange(delta);
+    return numBitsSet;
+  }
+
+  @Override
+  void intersect(final BitArray other) {
+    if (dataLength_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
+    }
+
+    intersectRange(other, 0, dataLength_);
+  }
+
+  @Override
+  long intersectRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    long delta = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      final long bits = other.getLong(i);
+      long val;
+      do {
+        val = wmem_.getLong(offset);
+        if ((val & bits) == val) { break; }
+      } while (!wmem_.compareAndSwapLong(offset, val, val & bits));
+      delta -= Long.bitCount(val & ~bits);
+      numBitsSet += Long.bitCount(val & bits);
+    }
+    countChange(delta);
+    return numBitsSet;
+  }
+
+  // the range operations keep the count exact as they go
+  @Override
+  void setNumBitsSet(final long numBitsSet) { }
+
+  @Override
+  void invert() {
+    for (int i = 0; i < dataLength_; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      long val;
+      do {
+        val = wmem_.getLong(offset);
+      } while (!wmem_.compareAndSwapLong(offset, val, ~val));
+      countChange(Long.SIZE - (2L * Long.bitCount(val)));
+    }
+  }
+
+  @Override
+  void reset() {
+    for (int i = 0; i < dataLength_; ++i) {
+      countChange(-Long.bitCount(wmem_.getAndSetLong(DATA_OFFSET + ((long) i << 3), 0)));
+    }
+  }
+
+  // Writes a snapshot of the bits. Each long is read atomically, but concurrent updates may
+  // be partially included. The number of bits set matches the bits written.
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
+    wbuf.putInt(dataLength_);
+    wbuf.putInt(0); // unused
+
+    if (!isEmpty) {
+      final long numBitsSetPos = wbuf.getPosition();
+      wbuf.putLong(0); // filled in below
+      long numBitsSet = 0;
+      for (int i = 0; i < dataLength_; ++i) {
+        final long val = wmem_.getLong(DATA_OFFSET + ((long) i << 3));
+        wbuf.putLong(val);
+        numBitsSet += Long.bitCount(val);
+      }
+      wbuf.putLong(numBitsSetPos, numBitsSet);
+    }
+  }
+
+  // records a change in the number of bits set, and marks the stored number as stale
+  private void countChange(final long delta) {
+    if (delta == 0) { return; }
+    numBitsSet_.add(delta);
+    if (!imageMarkedDirty_) {
+      wmem_.putLong(NUM_BITS_OFFSET, -1);
+      imageMarkedDirty_ = true;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+
+/**
+ * This class holds an array of bits on the Java heap that may be updated by multiple threads at once,
+ * suitable for use in a Bloom Filter.
+ *
+ * <p>Bits are set with compare-and-swap, which also tells whether each update changed a bit, so the
+ * number of bits set is always exact. It is kept in a striped counter to avoid contention between
+ * writers.</p>
+ *
+ * <p>Rounds the number of bits up to the smallest multiple of 64 (one long)
+ * that is not smaller than the specified number.
+ */
+final class ConcurrentHeapBitArray extends BitArray {
+  private final AtomicLongArray data_;
+  private final LongAdder numBitsSet_;
+
+  // creates an array of a given size
+  ConcurrentHeapBitArray(final long numBits) {
+    if (numBits <= 0) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
+    }
+    if (numBits > MAX_BITS) {
+      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
+    }
+
+    final int numLongs = (int) Math.ceil(numBits / 64.0);
+    data_ = new AtomicLongArray(numLongs);
+    numBitsSet_ = new LongAdder();
+  }
+
+  @Override
+  boolean hasMemory() { return false; }
+
+  @Override
+  boolean isDirect() { return false; }
+
+  @Override
+  boolean isReadOnly() { return false; }
+
+  @Override
+  boolean isSameResource(final Memory mem) { return false; }
+
+  @Override
+  boolean isConcurrent() { return true; }
+
+  @Override
+  boolean isDirty() { return false; }
+
+  @Override
+  boolean getBit(final long index) {
+    return (data_.get((int) (index >>> 6)) & (1L << index)) != 0;
+  }
+
+  @Override
+  void setBit(final long index) {
+    getAndSetBit(index);
+  }
+
+  @Override
+  boolean getAndSetBit(final long index) {
+    final int i = (int) (index >>> 6);
+    final long mask = 1L << index;
+    long val;
+    do {
+      val = data_.get(i);
+      if ((val & mask) != 0) {
+        return true; // already seen
+      }
+    } while (!data_.compareAndSet(i, val, val | mask));
+    numBitsSet_.increment();
+    return false; // new set
+  }
+
+  @Override
+  long getNumBitsSet() {
+    return numBitsSet_.sum();
+  }
+
+  @Override
+  int getArrayLength() { return data_.length(); }
+
+  @Override
+  long getLong(final int arrayIndex) { return data_.get(arrayIndex); }
+
+  @Override
+  void union(final BitArray other) {
+    if (data_.length() != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
+    }
+
+    unionRange(other, 0, data_.length());
+  }
+
+  @Override
+  long unionRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    long delta = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long bits = other.getLong(i);
+      long val;
+      do {
+        val = data_.get(i);
+        if ((val | bits) == val) { break; }
+      } while (!data_.compareAndSet(i, val, val | bits));
+      delta += Long.bitCount(bits & ~val);
+      numBitsSet += Long.bitCount(val | bits);
+    }
+    numBitsSet_.add(delta);
+    return numBitsSet;
+  }
+
+  @Override
+  void intersect(final BitArray other) {
+    if (data_.length() != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
+    }
+
+    intersectRange(other, 0, data_.length());
+  }
+
+  @Override
+  long intersectRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    long delta = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long bits = other.getLong(i);
+      long val;
+      do {
+        val = data_.get(i);
+        if ((val & bits) == val) { break; }
+      } while (!data_.compareAndSet(i, val, val & bits));
+      delta -= Long.bitCount(val & ~bits);
+      numBitsSet += Long.bitCount(val & bits);
+    }
+    numBitsSet_.add(delta);
+    return numBitsSet;
+  }
+
+  // the range operations keep the count exact as they go
+  @Override
+  void setNumBitsSet(final long numBitsSet) { }
+
+  @Override
+  void invert() {
+    for (int i = 0; i < data_.length(); ++i) {
+      long val;
+      do {
+        val = data_.get(i);
+      } while (!data_.compareAndSet(i, val, ~val));
+      numBitsSet_.add(Long.SIZE - (2L * Long.bitCount(val)));
+    }
+  }
+
+  @Override
+  void reset() {
+    for (int i = 0; i < data_.length(); ++i) {
+      numBitsSet_.add(-Long.bitCount(data_.getAndSet(i, 0)));
+    }
+  }
+
+  // Writes a snapshot of the bits. Each long is read atomically, but concurrent updates may
+  // be partially included. The number of bits set matches the bits written.
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
+    wbuf.putInt(data_.length());
+    wbuf.putInt(0); // unused
+
+    if (!isEmpty) {
+      final long numBitsSetPos = wbuf.getPosition();
+      wbuf.putLong(0); // filled in below
+      long numBitsSet = 0;
+      for (int i = 0; i < data_.length(); ++i) {
+        final long val = data_.get(i);
+        wbuf.putLong(val);
+        numBitsSet += Long.bitCount(val);
+      }
+      wbuf.putLong(numBitsSetPos, numBitsSet);
+    }
+  }
+}
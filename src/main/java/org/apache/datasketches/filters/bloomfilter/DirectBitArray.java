@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class is a writable array of bits backed by a WritableMemory, suitable for use in a Bloom Filter.
+ * All the state, including the number of bits set, is held in the WritableMemory, so the array can be
+ * shared through a memory-mapped file. The layout is described in {@link DirectBitArrayR}.
+ *
+ * <p>Writes are not atomic. Concurrent writers must be coordinated by the caller.</p>
+ */
+final class DirectBitArray extends DirectBitArrayR {
+
+  DirectBitArray(final int dataLength, final WritableMemory wmem) {
+    super(dataLength, wmem, false);
+  }
+
+  // initializes a new, empty array of the given size at the start of the given WritableMemory
+  static DirectBitArray initialize(final long numBits, final WritableMemory wmem) {
+    if (numBits <= 0) {
+      throw new SketchesArgumentException("Number of bits must be strictly positive. Found: " + numBits);
+    }
+    if (numBits > MAX_BITS) {
+      throw new SketchesArgumentException("Number of bits may not exceed " + MAX_BITS + ". Found: " + numBits);
+    }
+    final int numLongs = (int) Math.ceil(numBits / 64.0);
+    final long reqBytes = getRequiredBytes(numLongs);
+    if (wmem.getCapacity() < reqBytes) {
+      throw new SketchesArgumentException("Memory capacity must be at least " + reqBytes
+          + " bytes for a BitArray of " + numBits + " bits. Found: " + wmem.getCapacity());
+    }
+    wmem.putInt(0, numLongs);
+    wmem.putInt(Integer.BYTES, 0); // unused
+    wmem.putLong(NUM_BITS_OFFSET, 0);
+    wmem.clear(DATA_OFFSET, (long) numLongs * Long.BYTES);
+    return new DirectBitArray(numLongs, wmem);
+  }
+
+  // wraps a serialized image for writing, starting at the array length
+  static DirectBitArray writableWrap(final WritableMemory wmem, final boolean isEmpty) {
+    if (isEmpty) {
+      throw new SketchesArgumentException("Cannot writableWrap an empty serialized BitArray image, which holds no bits. "
+          + "Initialize a new filter in the WritableMemory instead.");
+    }
+    final int numLongs = checkArrayLength(wmem, false);
+    return new DirectBitArray(numLongs, wmem);
+  }
+
+  // the number of bytes required for an array of the given number of longs
+  static long getRequiredBytes(final int numLongs) {
+    return DATA_OFFSET + ((long) numLongs * Long.BYTES);
+  }
+
+  @Override
+  boolean isReadOnly() { return false; }
+
+  @Override
+  void setBit(final long index) {
+    final long offset = DATA_OFFSET + ((index >>> 6) << 3);
+    wmem_.putLong(offset, wmem_.getLong(offset) | (1L << index));
+    setDirty();
+  }
+
+  @Override
+  boolean getAndSetBit(final long index) {
+    final long offset = DATA_OFFSET + ((index >>> 6) << 3);
+    final long mask = 1L << index;
+    final long val = wmem_.getLong(offset);
+    if ((val & mask) != 0) {
+      return true; // already seen
+    }
+    wmem_.putLong(offset, val | mask);
+    final long numBitsSet = wmem_.getLong(NUM_BITS_OFFSET);
+    if (numBitsSet >= 0) { wmem_.putLong(NUM_BITS_OFFSET, numBitsSet + 1); }
+    return false; // new set
+  }
+
+  @Override
+  void union(final BitArray other) {
+    if (dataLength_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot union bit arrays with unequal lengths");
+    }
+
+    setNumBitsSet(unionRange(other, 0, dataLength_));
+  }
+
+  @Override
+  long unionRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      final long val = wmem_.getLong(offset) | other.getLong(i);
+      wmem_.putLong(offset, val);
+      numBitsSet += Long.bitCount(val);
+    }
+    return numBitsSet;
+  }
+
+  @Override
+  void intersect(final BitArray other) {
+    if (dataLength_ != other.getArrayLength()) {
+      throw new SketchesArgumentException("Cannot intersect bit arrays with unequal lengths");
+    }
+
+    setNumBitsSet(intersectRange(other, 0, dataLength_));
+  }
+
+  @Override
+  long intersectRange(final BitArray other, final int fromIndex, final int toIndex) {
+    long numBitsSet = 0;
+    for (int i = fromIndex; i < toIndex; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      final long val = wmem_.getLong(offset) & other.getLong(i);
+      wmem_.putLong(offset, val);
+      numBitsSet += Long.bitCount(val);
+    }
+    return numBitsSet;
+  }
+
+  @Override
+  void setNumBitsSet(final long numBitsSet) {
+    wmem_.putLong(NUM_BITS_OFFSET, numBitsSet);
+  }
+
+  @Override
+  void invert() {
+    final long oldNumBitsSet = wmem_.getLong(NUM_BITS_OFFSET);
+    long numBitsSet = 0;
+    for (int i = 0; i < dataLength_; ++i) {
+      final long offset = DATA_OFFSET + ((long) i << 3);
+      final long val = ~wmem_.getLong(offset);
+      wmem_.putLong(offset, val);
+      if (oldNumBitsSet < 0) { numBitsSet += Long.bitCount(val); }
+    }
+    wmem_.putLong(NUM_BITS_OFFSET, (oldNumBitsSet < 0) ? numBitsSet : getCapacity() - oldNumBitsSet);
+  }
+
+  @Override
+  void reset() {
+    wmem_.clear(DATA_OFFSET, (long) dataLength_ * Long.BYTES);
+    wmem_.putLong(NUM_BITS_OFFSET, 0);
+  }
+
+  private void setDirty() {
+    if (wmem_.getLong(NUM_BITS_OFFSET) != -1) { wmem_.putLong(NUM_BITS_OFFSET, -1); }
+  }
+}
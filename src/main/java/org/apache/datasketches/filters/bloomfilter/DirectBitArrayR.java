@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class is a read-only array of bits backed by a Memory, suitable for use in a Bloom Filter.
+ * The Memory holds the same image that is serialized by the BitArray:
+ *
+ * <pre>
+ * Byte 0:  BitArray length, in longs (int) | unused (int)
+ * Byte 8:  number of bits set, or -1 if it must be recomputed (long)
+ * Byte 16: the bits
+ * </pre>
+ *
+ * <p>An empty serialized image holds only the array length. In that case no bits are read
+ * from the Memory.</p>
+ */
+class DirectBitArrayR extends BitArray {
+  static final long NUM_BITS_OFFSET = Long.BYTES;
+  static final long DATA_OFFSET = 2L * Long.BYTES;
+
+  final int dataLength_;
+  final WritableMemory wmem_; // A WritableMemory for the child class, but no write methods here
+  private final boolean isEmptyImage_;
+
+  DirectBitArrayR(final int dataLength, final WritableMemory wmem, final boolean isEmptyImage) {
+    dataLength_ = dataLength;
+    wmem_ = wmem;
+    isEmptyImage_ = isEmptyImage;
+  }
+
+  // wraps a serialized image read-only, starting at the array length
+  static DirectBitArrayR wrap(final Memory mem, final boolean isEmpty) {
+    final int numLongs = checkArrayLength(mem, isEmpty);
+    return new DirectBitArrayR(numLongs, (WritableMemory) mem, isEmpty);
+  }
+
+  // checks the array length and the capacity of the given image
+  static int checkArrayLength(final Memory mem, final boolean isEmpty) {
+    final int numLongs = mem.getInt(0);
+    if (numLongs <= 0) {
+      throw new SketchesArgumentException("Possible corruption: Must have strictly positive array size. Found: " + numLongs);
+    }
+    if (!isEmpty && mem.getCapacity() < DATA_OFFSET + ((long) numLongs * Long.BYTES)) {
+      throw new SketchesArgumentException("Possible corruption: Memory capacity is too small for a BitArray of "
+          + numLongs + " longs. Found: " + mem.getCapacity());
+    }
+    return numLongs;
+  }
+
+  @Override
+  boolean hasMemory() { return true; }
+
+  @Override
+  boolean isDirect() { return wmem_.isDirect(); }
+
+  @Override
+  boolean isReadOnly() { return true; }
+
+  @Override
+  boolean isSameResource(final Memory mem) { return wmem_.isSameResource(mem); }
+
+  @Override
+  boolean isConcurrent() { return false; }
+
+  @Override
+  boolean isDirty() {
+    return !isEmptyImage_ && wmem_.getLong(NUM_BITS_OFFSET) < 0;
+  }
+
+  @Override
+  boolean getBit(final long index) {
+    if (isEmptyImage_) { return false; }
+    return (wmem_.getLong(DATA_OFFSET + ((index >>> 6) << 3)) & (1L << index)) != 0;
+  }
+
+  @Override
+  void setBit(final long index) {
+    throw new SketchesReadOnlyException("Attempt to update a read-only BitArray");
+  }
+
+  @Override
+  boolean getAndSetBit(final long index) {
+    throw new SketchesReadOnlyException("Attempt to update a read-only BitArray");
+  }
+
+  @Override
+  long getNumBitsSet() {
+    if (isEmptyImage_) { return 0; }
+    final long numBitsSet = wmem_.getLong(NUM_BITS_OFFSET);
+    return (numBitsSet >= 0) ? numBitsSet : countBitsSet();
+  }
+
+  // counts the bits set in the array, O(data length)
+  long countBitsSet() {
+    long count = 0;
+    for (int i = 0; i < dataLength_; ++i) {
+      count += Long.bitCount(wmem_.getLong(DATA_OFFSET + ((long) i << 3)));
+    }
+    return count;
+  }
+
+  @Override
+  int getArrayLength() { return dataLength_; }
+
+  @Override
+  long getLong(final int arrayIndex) {
+    if (isEmptyImage_) { return 0; }
+    return wmem_.getLong(DATA_OFFSET + ((long) arrayIndex << 3));
+  }
+
+  @Override
+  void union(final BitArray other) {
+    throw new SketchesReadOnlyException("Attempt to union into a read-only BitArray");
+  }
+
+  @Override
+  void intersect(final BitArray other) {
+    throw new SketchesReadOnlyException("Attempt to intersect into a read-only BitArray");
+  }
+
+  @Override
+  long unionRange(final BitArray other, final int fromIndex, final int toIndex) {
+    throw new SketchesReadOnlyException("Attempt to union into a read-only BitArray");
+  }
+
+  @Override
+  long intersectRange(final BitArray other, final int fromIndex, final int toIndex) {
+    throw new SketchesReadOnlyException("Attempt to intersect into a read-only BitArray");
+  }
+
+  @Override
+  void setNumBitsSet(final long numBitsSet) {
+    throw new SketchesReadOnlyException("Attempt to update a read-only BitArray");
+  }
+
+  @Override
+  void invert() {
+    throw new SketchesReadOnlyException("Attempt to invert a read-only BitArray");
+  }
+
+  @Override
+  void reset() {
+    throw new SketchesReadOnlyException("Attempt to reset a read-only BitArray");
+  }
+
+  @Override
+  void writeToBuffer(final WritableBuffer wbuf, final boolean isEmpty) {
+    wbuf.putInt(dataLength_);
+    wbuf.putInt(0); // unused
+
+    if (!isEmpty) {
+      wbuf.putLong(wmem_.getLong(NUM_BITS_OFFSET));
+      final long numBytes = (long) dataLength_ * Long.BYTES;
+      wmem_.copyTo(DATA_OFFSET, wbuf.asWritableMemory(), wbuf.getPosition(), numBytes);
+      wbuf.incrementPosition(numBytes);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.frequencies;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A ReversePurgeLongHashMap that keeps its table in a WritableMemory, so that the hash map can be
+ * updated and purged in place off-heap. The table region holds, in order, the keys (longs),
+ * the values (longs) and the states (shorts), each sized for the maximum length of the table.
+ * The current table occupies the first <i>getLength()</i> cells of each of the three arrays.
+ *
+ * <p>The number of active keys and the current length are not kept in the table region.
+ * The owner of this map is responsible for persisting them.</p>
+ *
+ * @author Lee Rhodes
+ */
+final class DirectReversePurgeLongHashMap extends ReversePurgeLongHashMap {
+  private final WritableMemory wmem;
+  private final int maxMapSize;
+  private final long valuesOffset;
+  private final long statesOffset;
+
+  /**
+   * Constructs a hash map over a table region that already holds a table of the given
+   * current length with numActive active keys.
+   *
+   * @param wmem the table region, which must be at least getTableBytes(maxMapSize) in size.
+   * @param maxMapSize the maximum length of the table, which must be a power of 2.
+   * @param lgLength log2 of the current length of the table.
+   * @param numActive the number of active keys already in the table.
+   */
+  DirectReversePurgeLongHashMap(final WritableMemory wmem, final int maxMapSize, final int lgLength,
+      final int numActive) {
+    super(lgLength, numActive);
+    if ((1 << lgLength) > maxMapSize) {
+      throw new SketchesArgumentException("Current map size: " + (1 << lgLength)
+          + " exceeds the maximum map size: " + maxMapSize);
+    }
+    if (wmem.getCapacity() < getTableBytes(maxMapSize)) {
+      throw new SketchesArgumentException("Memory capacity: " + wmem.getCapacity()
+          + " is less than the required table bytes: " + getTableBytes(maxMapSize));
+    }
+    this.wmem = wmem;
+    this.maxMapSize = maxMapSize;
+    valuesOffset = (long) maxMapSize * Long.BYTES;
+    statesOffset = 2 * valuesOffset;
+  }
+
+  /**
+   * Returns the number of bytes required for the table region of a map with the given maximum length.
+   * @param maxMapSize the maximum length of the table.
+   * @return the number of bytes required for the table region.
+   */
+  static long getTableBytes(final int maxMapSize) {
+    return (long) maxMapSize * (2 * Long.BYTES + Short.BYTES);
+  }
+
+  @Override
+  long getKey(final int probe) {
+    return wmem.getLong((long) probe << 3);
+  }
+
+  @Override
+  long getValue(final int probe) {
+    return wmem.getLong(valuesOffset + ((long) probe << 3));
+  }
+
+  @Override
+  short getState(final int probe) {
+    return wmem.getShort(statesOffset + ((long) probe << 1));
+  }
+
+  @Override
+  void setKey(final int probe, final long key) {
+    wmem.putLong((long) probe << 3, key);
+  }
+
+  @Override
+  void setValue(final int probe, final long value) {
+    wmem.putLong(valuesOffset + ((long) probe << 3), value);
+  }
+
+  @Override
+  void setState(final int probe, final short state) {
+    wmem.putShort(statesOffset + ((long) probe << 1), state);
+  }
+
+  /**
+   * The new table overlaps the old one in the same region, so the active keys and values are
+   * copied out before the states are cleared.
+   */
+  @Override
+  void resize(final int newSize) {
+    final int oldNumActive = getNumActive();
+    final long[] oldKeys = getActiveKeys();
+    final long[] oldValues = getActiveValues();
+    reset(newSize);
+    for (int i = 0; i < oldNumActive; i++) {
+      adjustOrPutValue(oldKeys[i], oldValues[i]);
+    }
+  }
+
+  /**
+   * Only the states need to be cleared, the keys and values of empty cells are never read.
+   */
+  @Override
+  void newTable(final int newSize) {
+    if (newSize > maxMapSize) {
+      throw new SketchesArgumentException("New map size: " + newSize
+          + " exceeds the maximum map size: " + maxMapSize);
+    }
+    wmem.clear(statesOffset, (long) newSize * Short.BYTES);
+  }
+
+}
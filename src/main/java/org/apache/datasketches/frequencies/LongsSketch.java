@@ -23,8 +23,13 @@ import static org.apache.datasketches.common.Util.LS;
 import static org.apache.datasketches.common.Util.checkBounds;
 import static org.apache.datasketches.common.Util.exactLog2OfInt;
 import static org.apache.datasketches.common.Util.isPowerOf2;
+import static org.apache.datasketches.frequencies.PreambleUtil.ACTIVE_ITEMS_INT;
 import static org.apache.datasketches.frequencies.PreambleUtil.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.frequencies.PreambleUtil.LG_CUR_MAP_SIZE_BYTE;
+import static org.apache.datasketches.frequencies.PreambleUtil.OFFSET_LONG;
 import static org.apache.datasketches.frequencies.PreambleUtil.SER_VER;
+import static org.apache.datasketches.frequencies.PreambleUtil.STREAMLENGTH_LONG;
+import static org.apache.datasketches.frequencies.PreambleUtil.UPDATABLE_FLAG_MASK;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractActiveItems;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractFamilyID;
 import static org.apache.datasketches.frequencies.PreambleUtil.extractFlags;
@@ -48,6 +53,7 @@ import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.Memory;
@@ -68,6 +74,7 @@ import org.apache.datasketches.memory.WritableMemory;
  * NO_FALSE_NEGATIVES error type.</li>
  * <li>Merge itself with another sketch object created from this class.</li>
  * <li>Serialize/Deserialize to/from a String or byte array.</li>
+ * <li>Keep the internal hash map in a WritableMemory and update it in place.</li>
  * </ul>
  *
  * <p><b>Space Usage</b></p>
@@ -84,6 +91,12 @@ import org.apache.datasketches.memory.WritableMemory;
  * this sketch will never exceed 18 * <i>maxMapSize</i> bytes, plus a small constant number of
  * additional bytes.</p>
  *
+ * <p>A direct instance, created by {@link #newDirectInstance(int, WritableMemory)}, keeps its hash
+ * map in the given WritableMemory, which is sized once for <i>maxMapSize</i> by
+ * {@link #getUpdatableStorageBytes(int)}. The sketch grows and purges the hash map in place and
+ * never requests more memory. The memory always holds a complete updatable image of the sketch,
+ * which can be reopened with {@link #writableWrap(WritableMemory)}.</p>
+ *
  * <p><b>Maximum Capacity of the Sketch</b></p>
  *
  * <p>The LOAD_FACTOR for the hash map is internally set at 75%,
@@ -180,6 +193,11 @@ public class LongsSketch {
    */
   private ReversePurgeLongHashMap hashMap;
 
+  /**
+   * The WritableMemory that holds the updatable image of a direct sketch, otherwise null.
+   */
+  private final WritableMemory wmem;
+
   /**
    * Construct this sketch with the parameter maxMapSize and the default initialMapSize (8).
    *
@@ -205,9 +223,23 @@ public class LongsSketch {
    */
   LongsSketch(final int lgMaxMapSize, final int lgCurMapSize) {
     //set initial size of hash map
+    this(lgMaxMapSize,
+        new ReversePurgeLongHashMap(1 << Math.max(lgCurMapSize, LG_MIN_MAP_SIZE)), null);
+  }
+
+  /**
+   * Construct this sketch around the given hash map, which may already contain items.
+   *
+   * @param lgMaxMapSize Log2 of the physical size of the internal hash map managed by this
+   * sketch.
+   * @param hashMap the internal hash map.
+   * @param wmem the WritableMemory that holds the updatable image of a direct sketch, or null.
+   */
+  private LongsSketch(final int lgMaxMapSize, final ReversePurgeLongHashMap hashMap,
+      final WritableMemory wmem) {
     this.lgMaxMapSize = Math.max(lgMaxMapSize, LG_MIN_MAP_SIZE);
-    final int lgCurMapSz = Math.max(lgCurMapSize, LG_MIN_MAP_SIZE);
-    hashMap = new ReversePurgeLongHashMap(1 << lgCurMapSz);
+    this.hashMap = hashMap;
+    this.wmem = wmem;
     curMapCap = hashMap.getCapacity();
     final int maxMapCap =
         (int) ((1 << lgMaxMapSize) * ReversePurgeLongHashMap.getLoadFactor());
@@ -215,9 +247,72 @@ public class LongsSketch {
     sampleSize = Math.min(SAMPLE_SIZE, maxMapCap);
   }
 
+  /**
+   * Creates a new, empty direct sketch that keeps its hash map in the given WritableMemory.
+   * The capacity of the given WritableMemory must be at least
+   * {@link #getUpdatableStorageBytes(int) getUpdatableStorageBytes(maxMapSize)}.
+   * Any previous content of the given WritableMemory is overwritten.
+   *
+   * @param maxMapSize Determines the physical size of the internal hash map managed by this
+   * sketch and must be a power of 2.
+   * @param dstMem the destination WritableMemory for the updatable image of this sketch.
+   * @return a new direct sketch.
+   */
+  public static LongsSketch newDirectInstance(final int maxMapSize, final WritableMemory dstMem) {
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null.");
+    final int lgMaxMapSize = Math.max(exactLog2OfInt(maxMapSize, "maxMapSize"), LG_MIN_MAP_SIZE);
+    if (dstMem.isReadOnly()) { throw new SketchesReadOnlyException("Destination Memory is read-only."); }
+    checkUpdatableCapacity(dstMem, lgMaxMapSize);
+
+    long pre0 = 0L;
+    pre0 = insertPreLongs(Family.FREQUENCY.getMaxPreLongs(), pre0); //Byte 0
+    pre0 = insertSerVer(SER_VER, pre0);                     //Byte 1
+    pre0 = insertFamilyID(Family.FREQUENCY.getID(), pre0);  //Byte 2
+    pre0 = insertLgMaxMapSize(lgMaxMapSize, pre0);          //Byte 3
+    pre0 = insertLgCurMapSize(LG_MIN_MAP_SIZE, pre0);       //Byte 4
+    pre0 = insertFlags(UPDATABLE_FLAG_MASK, pre0);          //Byte 5
+    dstMem.putLong(0, pre0);
+    dstMem.putLong(ACTIVE_ITEMS_INT, 0L);
+    dstMem.putLong(STREAMLENGTH_LONG, 0L);
+    dstMem.putLong(OFFSET_LONG, 0L);
+
+    final ReversePurgeLongHashMap hashMap =
+        newDirectHashMap(dstMem, lgMaxMapSize, LG_MIN_MAP_SIZE, 0);
+    hashMap.reset(1 << LG_MIN_MAP_SIZE);
+    return new LongsSketch(lgMaxMapSize, hashMap, dstMem);
+  }
+
+  /**
+   * Returns a direct sketch that wraps, and continues to update in place, the updatable image in
+   * the given WritableMemory, which must have been created by
+   * {@link #newDirectInstance(int, WritableMemory)}. No data is copied.
+   *
+   * @param srcMem the WritableMemory that holds the updatable image of a sketch of this class.
+   * @return a direct sketch backed by the given WritableMemory.
+   */
+  public static LongsSketch writableWrap(final WritableMemory srcMem) {
+    Objects.requireNonNull(srcMem, "Source Memory must not be null.");
+    final long pre0 = checkPreamble(srcMem);
+    if ((extractFlags(pre0) & UPDATABLE_FLAG_MASK) == 0) {
+      throw new SketchesArgumentException(
+          "Source Memory is not an updatable image. Use getInstance(Memory) instead.");
+    }
+    if (srcMem.isReadOnly()) { throw new SketchesReadOnlyException("Source Memory is read-only."); }
+    final int lgMaxMapSize = extractLgMaxMapSize(pre0);
+    checkUpdatableCapacity(srcMem, lgMaxMapSize);
+    final int numActive = srcMem.getInt(ACTIVE_ITEMS_INT);
+    final ReversePurgeLongHashMap hashMap =
+        newDirectHashMap(srcMem, lgMaxMapSize, extractLgCurMapSize(pre0), numActive);
+    final LongsSketch fls = new LongsSketch(lgMaxMapSize, hashMap, srcMem);
+    fls.streamWeight = srcMem.getLong(STREAMLENGTH_LONG);
+    fls.offset = srcMem.getLong(OFFSET_LONG);
+    return fls;
+  }
+
   /**
    * Returns a sketch instance of this class from the given srcMem,
    * which must be a Memory representation of this sketch class.
+   * The updatable image of a direct sketch is also accepted and copied to the heap.
    *
    * @param srcMem a Memory representation of a sketch of this class.
    * <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
@@ -225,40 +320,18 @@ public class LongsSketch {
    */
   public static LongsSketch getInstance(final Memory srcMem) {
     Objects.requireNonNull(srcMem, "Source Memory must not be null.");
-    final long pre0 = PreambleUtil.checkPreambleSize(srcMem); //check Memory capacity
-    final int maxPreLongs = Family.FREQUENCY.getMaxPreLongs();
-
+    final long pre0 = checkPreamble(srcMem);
     final int preLongs = extractPreLongs(pre0);         //Byte 0
-    final int serVer = extractSerVer(pre0);             //Byte 1
-    final int familyID = extractFamilyID(pre0);         //Byte 2
     final int lgMaxMapSize = extractLgMaxMapSize(pre0); //Byte 3
     final int lgCurMapSize = extractLgCurMapSize(pre0); //Byte 4
     final boolean empty = (extractFlags(pre0) & EMPTY_FLAG_MASK) != 0; //Byte 5
 
-    // Checks
-    final boolean preLongsEq1 = (preLongs == 1);        //Byte 0
-    final boolean preLongsEqMax = (preLongs == maxPreLongs);
-    if (!preLongsEq1 && !preLongsEqMax) {
-      throw new SketchesArgumentException(
-          "Possible Corruption: PreLongs must be 1 or " + maxPreLongs + ": " + preLongs);
-    }
-    if (serVer != SER_VER) {                            //Byte 1
-      throw new SketchesArgumentException(
-          "Possible Corruption: Ser Ver must be " + SER_VER + ": " + serVer);
-    }
-    final int actFamID = Family.FREQUENCY.getID();      //Byte 2
-    if (familyID != actFamID) {
-      throw new SketchesArgumentException(
-          "Possible Corruption: FamilyID must be " + actFamID + ": " + familyID);
-    }
-    if (empty ^ preLongsEq1) {                          //Byte 5 and Byte 0
-      throw new SketchesArgumentException(
-          "Possible Corruption: (PreLongs == 1) ^ Empty == True.");
-    }
-
     if (empty) {
       return new LongsSketch(lgMaxMapSize, LG_MIN_MAP_SIZE);
     }
+    if ((extractFlags(pre0) & UPDATABLE_FLAG_MASK) != 0) {
+      return heapifyUpdatable(srcMem, lgMaxMapSize, lgCurMapSize);
+    }
     //get full preamble
     final long[] preArr = new long[preLongs];
     srcMem.getLongArray(0, preArr, 0, preLongs);
@@ -494,6 +567,36 @@ public class LongsSketch {
     return hashMap.get(item) + offset;
   }
 
+  /**
+   * Returns true if this sketch keeps its hash map in a WritableMemory.
+   *
+   * @return true if this sketch keeps its hash map in a WritableMemory.
+   */
+  public boolean hasMemory() {
+    return wmem != null;
+  }
+
+  /**
+   * Returns true if this sketch keeps its hash map in off-heap memory.
+   *
+   * @return true if this sketch keeps its hash map in off-heap memory.
+   */
+  public boolean isDirect() {
+    return wmem != null && wmem.isDirect();
+  }
+
+  /**
+   * Returns the number of bytes of WritableMemory required by a direct sketch with the given
+   * maxMapSize. This is the preamble plus a hash table of maxMapSize cells of 18 bytes each.
+   *
+   * @param maxMapSize the maximum size of the hash map, which must be a power of 2.
+   * @return the number of bytes required by a direct sketch with the given maxMapSize.
+   */
+  public static long getUpdatableStorageBytes(final int maxMapSize) {
+    final int lgMaxMapSize = Math.max(exactLog2OfInt(maxMapSize, "maxMapSize"), LG_MIN_MAP_SIZE);
+    return getUpdatableStorageBytesLg(lgMaxMapSize);
+  }
+
   /**
    * Returns true if this sketch is empty
    *
@@ -523,6 +626,7 @@ public class LongsSketch {
     }
     offset += other.offset;
     streamWeight = streamWt; //corrected streamWeight
+    if (wmem != null) { putDirectState(); }
     return this;
   }
 
@@ -530,10 +634,15 @@ public class LongsSketch {
    * Resets this sketch to a virgin state.
    */
   public void reset() {
-    hashMap = new ReversePurgeLongHashMap(1 << LG_MIN_MAP_SIZE);
+    if (wmem != null) {
+      hashMap.reset(1 << LG_MIN_MAP_SIZE); //in place
+    } else {
+      hashMap = new ReversePurgeLongHashMap(1 << LG_MIN_MAP_SIZE);
+    }
     curMapCap = hashMap.getCapacity();
     offset = 0;
     streamWeight = 0;
+    if (wmem != null) { putDirectState(); }
   }
 
   //Serialization
@@ -672,6 +781,7 @@ public class LongsSketch {
         }
       }
     }
+    if (wmem != null) { putDirectState(); }
   }
 
   /**
@@ -808,6 +918,100 @@ public class LongsSketch {
     return rowsArr;
   }
 
+  /**
+   * Checks the preamble of a Memory image of this class and returns the first preamble long.
+   *
+   * @param srcMem a Memory image of a sketch of this class.
+   * @return the first preamble long.
+   */
+  private static long checkPreamble(final Memory srcMem) {
+    final long pre0 = PreambleUtil.checkPreambleSize(srcMem); //check Memory capacity
+    final int maxPreLongs = Family.FREQUENCY.getMaxPreLongs();
+
+    final int preLongs = extractPreLongs(pre0);         //Byte 0
+    final int serVer = extractSerVer(pre0);             //Byte 1
+    final int familyID = extractFamilyID(pre0);         //Byte 2
+    final boolean empty = (extractFlags(pre0) & EMPTY_FLAG_MASK) != 0; //Byte 5
+
+    // Checks
+    final boolean preLongsEq1 = (preLongs == 1);        //Byte 0
+    final boolean preLongsEqMax = (preLongs == maxPreLongs);
+    if (!preLongsEq1 && !preLongsEqMax) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: PreLongs must be 1 or " + maxPreLongs + ": " + preLongs);
+    }
+    if (serVer != SER_VER) {                            //Byte 1
+      throw new SketchesArgumentException(
+          "Possible Corruption: Ser Ver must be " + SER_VER + ": " + serVer);
+    }
+    final int actFamID = Family.FREQUENCY.getID();      //Byte 2
+    if (familyID != actFamID) {
+      throw new SketchesArgumentException(
+          "Possible Corruption: FamilyID must be " + actFamID + ": " + familyID);
+    }
+    if (empty ^ preLongsEq1) {                          //Byte 5 and Byte 0
+      throw new SketchesArgumentException(
+          "Possible Corruption: (PreLongs == 1) ^ Empty == True.");
+    }
+    return pre0;
+  }
+
+  private static long getUpdatableStorageBytesLg(final int lgMaxMapSize) {
+    final int preBytes = Family.FREQUENCY.getMaxPreLongs() << 3;
+    return preBytes + DirectReversePurgeLongHashMap.getTableBytes(1 << lgMaxMapSize);
+  }
+
+  private static void checkUpdatableCapacity(final Memory mem, final int lgMaxMapSize) {
+    final long reqBytes = getUpdatableStorageBytesLg(lgMaxMapSize);
+    if (mem.getCapacity() < reqBytes) {
+      throw new SketchesArgumentException("Memory capacity: " + mem.getCapacity()
+          + " is less than the required updatable storage bytes: " + reqBytes);
+    }
+  }
+
+  private static ReversePurgeLongHashMap newDirectHashMap(final WritableMemory wmem,
+      final int lgMaxMapSize, final int lgCurMapSize, final int numActive) {
+    final int preBytes = Family.FREQUENCY.getMaxPreLongs() << 3;
+    final int maxMapSize = 1 << lgMaxMapSize;
+    final WritableMemory tableMem =
+        wmem.writableRegion(preBytes, DirectReversePurgeLongHashMap.getTableBytes(maxMapSize));
+    return new DirectReversePurgeLongHashMap(tableMem, maxMapSize, lgCurMapSize, numActive);
+  }
+
+  /**
+   * Heapifies the updatable image of a direct sketch.
+   */
+  private static LongsSketch heapifyUpdatable(final Memory srcMem, final int lgMaxMapSize,
+      final int lgCurMapSize) {
+    checkUpdatableCapacity(srcMem, lgMaxMapSize);
+    final int preBytes = Family.FREQUENCY.getMaxPreLongs() << 3;
+    final long maxMapSize = 1L << lgMaxMapSize;
+    final long valuesOffset = preBytes + (maxMapSize * Long.BYTES);
+    final long statesOffset = preBytes + (2 * maxMapSize * Long.BYTES);
+    final int curMapSize = 1 << lgCurMapSize;
+
+    final LongsSketch fls = new LongsSketch(lgMaxMapSize, lgCurMapSize);
+    for (int i = 0; i < curMapSize; i++) {
+      if (srcMem.getShort(statesOffset + ((long) i << 1)) > 0) {
+        fls.update(srcMem.getLong(preBytes + ((long) i << 3)),
+            srcMem.getLong(valuesOffset + ((long) i << 3)));
+      }
+    }
+    fls.streamWeight = srcMem.getLong(STREAMLENGTH_LONG); //override streamWeight due to updating
+    fls.offset = srcMem.getLong(OFFSET_LONG);
+    return fls;
+  }
+
+  /**
+   * Writes the state that is not kept in the hash table region to the updatable image.
+   */
+  private void putDirectState() {
+    wmem.putByte(LG_CUR_MAP_SIZE_BYTE, (byte) hashMap.getLgLength());
+    wmem.putInt(ACTIVE_ITEMS_INT, hashMap.getNumActive());
+    wmem.putLong(STREAMLENGTH_LONG, streamWeight);
+    wmem.putLong(OFFSET_LONG, offset);
+  }
+
   /**
    * Deserializes an array of String tokens into a hash map object of this class.
    *
@@ -63,6 +63,13 @@ import org.apache.datasketches.memory.Memory;
  *  5   ||----------start of values buffer, followed by keys buffer------------------------|
  * </pre>
  *
+ * <p>
+ * The updatable image of a direct LongsSketch has the UPDATABLE flag set and always has 4
+ * preamble longs, even when empty. The preamble is followed by the hash table region, which holds
+ * the keys (longs), the values (longs) and the states (shorts) of the hash map, each sized for
+ * <i>maxMapSize</i> cells.
+ * </p>
+ *
  * @author Lee Rhodes
  */
 final class PreambleUtil {
@@ -86,6 +93,7 @@ final class PreambleUtil {
   // due to a mistake different bits were used in C++ and Java to indicate empty sketch
   // therefore both are set and checked for compatibility with historical binary format
   static final int EMPTY_FLAG_MASK = 5;
+  static final int UPDATABLE_FLAG_MASK = 8;
 
   // Specific values for this implementation
   static final int SER_VER = 1;
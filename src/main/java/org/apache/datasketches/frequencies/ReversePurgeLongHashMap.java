@@ -32,6 +32,11 @@ import org.apache.datasketches.thetacommon.QuickSelect;
  * "reverse" purge operation that removes all keys in the map whose associated values are &le; 0
  * and is performed in reverse, starting at the "back" of the array and moving toward the front.
  *
+ * <p>This class keeps its keys, values and states on the heap. Apart from the resize, which
+ * rehashes the heap arrays directly, all reads and writes of the table go through the
+ * package-private cell accessors. {@link DirectReversePurgeLongHashMap} overrides them and the
+ * resize to keep the table in a WritableMemory.</p>
+ *
  * @author Edo Liberty
  * @author Justin Thaler
  * @author Lee Rhodes
@@ -64,6 +69,19 @@ class ReversePurgeLongHashMap {
     states = new short[mapSize];
   }
 
+  /**
+   * Constructor for subclasses that keep the table outside of the heap arrays of this class.
+   * The table itself must already hold numActive active keys.
+   *
+   * @param lgLength log2 of the current length of the table.
+   * @param numActive the number of active keys already in the table.
+   */
+  ReversePurgeLongHashMap(final int lgLength, final int numActive) {
+    this.lgLength = lgLength;
+    loadThreshold = (int) ((1 << lgLength) * LOAD_FACTOR);
+    this.numActive = numActive;
+  }
+
   /**
    * Returns an instance of this class from the given String,
    * which must be a String representation of this class.
@@ -98,11 +116,12 @@ class ReversePurgeLongHashMap {
    */
   String serializeToString() {
     final StringBuilder sb = new StringBuilder();
-    sb.append(String.format("%d,%d,", numActive, keys.length));
+    final int length = getLength();
+    sb.append(String.format("%d,%d,", numActive, length));
 
-    for (int i = 0; i < keys.length; i++) {
-      if (states[i] != 0) {
-        sb.append(String.format("%d,%d,", keys[i], values[i]));
+    for (int i = 0; i < length; i++) {
+      if (getState(i) != 0) {
+        sb.append(String.format("%d,%d,", getKey(i), getValue(i)));
       }
     }
     return sb.toString();
@@ -113,7 +132,7 @@ class ReversePurgeLongHashMap {
    * @return true if the cell in the array contains an active key
    */
   boolean isActive(final int probe) {
-    return (states[probe] > 0);
+    return (getState(probe) > 0);
   }
 
   /**
@@ -124,9 +143,9 @@ class ReversePurgeLongHashMap {
    */
   long get(final long key) {
     final int probe = hashProbe(key);
-    if (states[probe] > 0) {
-      assert (keys[probe] == key);
-      return values[probe];
+    if (getState(probe) > 0) {
+      assert (getKey(probe) == key);
+      return getValue(probe);
     }
     return 0;
   }
@@ -139,27 +158,27 @@ class ReversePurgeLongHashMap {
    * @param adjustAmount the amount by which to increment the value
    */
   void adjustOrPutValue(final long key, final long adjustAmount) {
-    final int arrayMask = keys.length - 1;
+    final int arrayMask = getLength() - 1;
     int probe = (int) hash(key) & arrayMask;
     int drift = 1;
-    while ((states[probe] != 0) && (keys[probe] != key)) {
+    while ((getState(probe) != 0) && (getKey(probe) != key)) {
       probe = (probe + 1) & arrayMask;
       drift++;
       //only used for theoretical analysis
       assert (drift < DRIFT_LIMIT) : "drift: " + drift + " >= DRIFT_LIMIT";
     }
     //found either an empty slot or the key
-    if (states[probe] == 0) { //found empty slot
+    if (getState(probe) == 0) { //found empty slot
       // adding the key and value to the table
       assert (numActive <= loadThreshold)
         : "numActive: " + numActive + " > loadThreshold : " + loadThreshold;
-      keys[probe] = key;
-      values[probe] = adjustAmount;
-      states[probe] = (short) drift; //how far off we are
+      setKey(probe, key);
+      setValue(probe, adjustAmount);
+      setState(probe, (short) drift); //how far off we are
       numActive++;
     } else { //found the key, adjust the value
-      assert (keys[probe] == key);
-      values[probe] += adjustAmount;
+      assert (getKey(probe) == key);
+      setValue(probe, getValue(probe) + adjustAmount);
     }
   }
 
@@ -167,9 +186,10 @@ class ReversePurgeLongHashMap {
    * Processes the map arrays and retains only keys with positive counts.
    */
   void keepOnlyPositiveCounts() {
+    final int length = getLength();
     // Starting from the back, find the first empty cell, which marks a boundary between clusters.
-    int firstProbe = keys.length - 1;
-    while (states[firstProbe] > 0) {
+    int firstProbe = length - 1;
+    while (getState(firstProbe) > 0) {
       firstProbe--;
     }
 
@@ -177,14 +197,14 @@ class ReversePurgeLongHashMap {
     for (int probe = firstProbe; probe-- > 0; ) {
       // When we find the next non-empty cell, we know we are at the high end of a cluster,
       //  which is tracked by firstProbe.
-      if ((states[probe] > 0) && (values[probe] <= 0)) {
+      if ((getState(probe) > 0) && (getValue(probe) <= 0)) {
         hashDelete(probe); //does the work of deletion and moving higher items towards the front.
         numActive--;
       }
     }
     //now work on the first cluster that was skipped.
-    for (int probe = keys.length; probe-- > firstProbe;) {
-      if ((states[probe] > 0) && (values[probe] <= 0)) {
+    for (int probe = length; probe-- > firstProbe;) {
+      if ((getState(probe) > 0) && (getValue(probe) <= 0)) {
         hashDelete(probe);
         numActive--;
       }
@@ -196,8 +216,8 @@ class ReversePurgeLongHashMap {
    * values are retained.
    */
   void adjustAllValuesBy(final long adjustAmount) {
-    for (int i = keys.length; i-- > 0; ) {
-      values[i] += adjustAmount;
+    for (int i = getLength(); i-- > 0; ) {
+      setValue(i, getValue(i) + adjustAmount);
     }
   }
 
@@ -208,9 +228,10 @@ class ReversePurgeLongHashMap {
     if (numActive == 0) { return null; }
     final long[] returnedKeys = new long[numActive];
     int j = 0;
-    for (int i = 0; i < keys.length; i++) {
+    final int length = getLength();
+    for (int i = 0; i < length; i++) {
       if (isActive(i)) {
-        returnedKeys[j] = keys[i];
+        returnedKeys[j] = getKey(i);
         j++;
       }
     }
@@ -225,9 +246,10 @@ class ReversePurgeLongHashMap {
     if (numActive == 0) { return null; }
     final long[] returnedValues = new long[numActive];
     int j = 0;
-    for (int i = 0; i < values.length; i++) {
+    final int length = getLength();
+    for (int i = 0; i < length; i++) {
       if (isActive(i)) {
-        returnedValues[j] = values[i];
+        returnedValues[j] = getValue(i);
         j++;
       }
     }
@@ -253,11 +275,22 @@ class ReversePurgeLongHashMap {
     }
   }
 
+  /**
+   * Empties this hash map and sets the length of the table to the given size.
+   * @param newSize the new length of the table, which must be a power of 2.
+   */
+  void reset(final int newSize) {
+    newTable(newSize);
+    loadThreshold = (int) (newSize * LOAD_FACTOR);
+    lgLength = Integer.numberOfTrailingZeros(newSize);
+    numActive = 0;
+  }
+
   /**
    * @return length of hash table internal arrays
    */
   int getLength() {
-    return keys.length;
+    return 1 << lgLength;
   }
 
   int getLgLength() {
@@ -289,9 +322,10 @@ class ReversePurgeLongHashMap {
     sb.append("ReversePurgeLongHashMap:").append(LS);
     sb.append(String.format(hfmt, "Index","States","Values","Keys")).append(LS);
 
-    for (int i = 0; i < keys.length; i++) {
-      if (states[i] <= 0) { continue; }
-      sb.append(String.format(fmt, i, states[i], values[i], keys[i])).append(LS);
+    final int length = getLength();
+    for (int i = 0; i < length; i++) {
+      if (getState(i) <= 0) { continue; }
+      sb.append(String.format(fmt, i, getState(i), getValue(i), getKey(i))).append(LS);
     }
     return sb.toString();
   }
@@ -321,7 +355,7 @@ class ReversePurgeLongHashMap {
 
     while (numSamples < limit) {
       if (isActive(i)) {
-        samples[numSamples] = values[i];
+        samples[numSamples] = getValue(i);
         numSamples++;
       }
       i++;
@@ -333,22 +367,59 @@ class ReversePurgeLongHashMap {
     return val;
   }
 
+  //Table cell accessors, overridden by subclasses that keep the table elsewhere.
+
+  long getKey(final int probe) {
+    return keys[probe];
+  }
+
+  long getValue(final int probe) {
+    return values[probe];
+  }
+
+  short getState(final int probe) {
+    return states[probe];
+  }
+
+  void setKey(final int probe, final long key) {
+    keys[probe] = key;
+  }
+
+  void setValue(final int probe, final long value) {
+    values[probe] = value;
+  }
+
+  void setState(final int probe, final short state) {
+    states[probe] = state;
+  }
+
+  /**
+   * Replaces the table with an empty one of the given length.
+   * @param newSize the new length of the table, which must be a power of 2.
+   */
+  void newTable(final int newSize) {
+    keys = new long[newSize];
+    values = new long[newSize];
+    states = new short[newSize];
+  }
+
   private void hashDelete(int deleteProbe) {
     // Looks ahead in the table to search for another item to move to this location.
     // If none are found, the status is changed
-    states[deleteProbe] = 0; //mark as empty
+    setState(deleteProbe, (short) 0); //mark as empty
     int drift = 1;
-    final int arrayMask = keys.length - 1;
+    final int arrayMask = getLength() - 1;
     int probe = (deleteProbe + drift) & arrayMask; //map length must be a power of 2
     // advance until you find a free location replacing locations as needed
-    while (states[probe] != 0) {
-      if (states[probe] > drift) {
+    short state;
+    while ((state = getState(probe)) != 0) {
+      if (state > drift) {
         // move current element
-        keys[deleteProbe] = keys[probe];
-        values[deleteProbe] = values[probe];
-        states[deleteProbe] = (short) (states[probe] - drift);
+        setKey(deleteProbe, getKey(probe));
+        setValue(deleteProbe, getValue(probe));
+        setState(deleteProbe, (short) (state - drift));
         // marking the current probe location as deleted
-        states[probe] = 0;
+        setState(probe, (short) 0);
         drift = 0;
         deleteProbe = probe;
       }
@@ -360,36 +431,33 @@ class ReversePurgeLongHashMap {
   }
 
   private int hashProbe(final long key) {
-    final int arrayMask = keys.length - 1;
+    final int arrayMask = getLength() - 1;
     int probe = (int) hash(key) & arrayMask;
-    while ((states[probe] > 0) && (keys[probe] != key)) {
+    while ((getState(probe) > 0) && (getKey(probe) != key)) {
       probe = (probe + 1) & arrayMask;
     }
     return probe;
   }
 
   Iterator iterator() {
-    return new Iterator(keys, values, states, numActive);
+    return new Iterator(this);
   }
 
   // This iterator uses strides based on golden ratio to avoid clustering during merge
   static class Iterator {
-    private final long[] keys_;
-    private final long[] values_;
-    private final short[] states_;
+    private final ReversePurgeLongHashMap map_;
     private final int numActive_;
     private final int stride_;
     private final int mask_;
     private int i_;
     private int count_;
 
-    Iterator(final long[] keys, final long[] values, final short[] states, final int numActive) {
-      keys_ = keys;
-      values_ = values;
-      states_ = states;
-      numActive_ = numActive;
-      stride_ = (int) (keys.length * INVERSE_GOLDEN) | 1;
-      mask_ = keys.length - 1;
+    Iterator(final ReversePurgeLongHashMap map) {
+      map_ = map;
+      numActive_ = map.getNumActive();
+      final int length = map.getLength();
+      stride_ = (int) (length * INVERSE_GOLDEN) | 1;
+      mask_ = length - 1;
       i_ = -stride_;
       count_ = 0;
     }
@@ -397,7 +465,7 @@ class ReversePurgeLongHashMap {
     boolean next() {
       i_ = (i_ + stride_) & mask_;
       while (count_ < numActive_) {
-        if (states_[i_] > 0) {
+        if (map_.isActive(i_)) {
           count_++;
           return true;
         }
@@ -407,11 +475,11 @@ class ReversePurgeLongHashMap {
     }
 
     long getKey() {
-      return keys_[i_];
+      return map_.getKey(i_);
     }
 
     long getValue() {
-      return values_[i_];
+      return map_.getValue(i_);
     }
   }
 
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.common.Util.invPow2;
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * A thread-local buffer that collects updates for a {@link ConcurrentHllSketch}.
+ *
+ * <p>Each writer thread must use its own buffer; a buffer is not thread-safe. Updates that
+ * cannot raise the corresponding register of the shared sketch are discarded immediately.
+ * The remaining updates are held in the buffer and propagated to the shared sketch when the
+ * buffer reaches its current limits, which are governed by the maxConcurrencyError and
+ * maxLocalBufferSize of the shared sketch. Call {@link #flush()} when a writer is done to
+ * propagate any remaining items.</p>
+ *
+ * <p>All query methods are proxies to the shared sketch.</p>
+ */
+public final class ConcurrentHllBuffer extends BaseHllSketch {
+  private final ConcurrentHllSketch shared;
+  private final int slotMask;
+  private final int[] coupons;
+  private int numCoupons;
+  private int limit;
+  private double pendingKxQ;
+  private double kxqLimit;
+
+  ConcurrentHllBuffer(final ConcurrentHllSketch shared) {
+    this.shared = shared;
+    slotMask = (1 << shared.getLgConfigK()) - 1;
+    coupons = new int[shared.getMaxLocalBufferSize()];
+    resetBuffer();
+  }
+
+  /**
+   * Propagates all items held by this buffer to the shared sketch.
+   */
+  public void flush() {
+    shared.propagate(coupons, numCoupons);
+    resetBuffer();
+  }
+
+  /**
+   * Gets the shared sketch that this buffer propagates to.
+   * @return the shared sketch that this buffer propagates to.
+   */
+  public ConcurrentHllSketch getSharedSketch() {
+    return shared;
+  }
+
+  //Public BaseHllSketch overrides proxies to the shared concurrent sketch
+
+  @Override
+  public int getCompactSerializationBytes() {
+    return shared.getCompactSerializationBytes();
+  }
+
+  @Override
+  public double getCompositeEstimate() {
+    return shared.getCompositeEstimate();
+  }
+
+  @Override
+  CurMode getCurMode() {
+    return shared.getCurMode();
+  }
+
+  @Override
+  public double getEstimate() {
+    return shared.getEstimate();
+  }
+
+  @Override
+  public TgtHllType getTgtHllType() {
+    return shared.getTgtHllType();
+  }
+
+  @Override
+  public int getLgConfigK() {
+    return shared.getLgConfigK();
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    return shared.getLowerBound(numStdDev);
+  }
+
+  @Override
+  public int getUpdatableSerializationBytes() {
+    return shared.getUpdatableSerializationBytes();
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    return shared.getUpperBound(numStdDev);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return shared.isEmpty();
+  }
+
+  @Override
+  public boolean isCompact() {
+    return shared.isCompact();
+  }
+
+  @Override
+  public boolean isMemory() {
+    return shared.isMemory();
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return shared.isOffHeap();
+  }
+
+  @Override
+  boolean isOutOfOrder() {
+    return shared.isOutOfOrder();
+  }
+
+  @Override
+  public boolean isSameResource(final Memory mem) {
+    return shared.isSameResource(mem);
+  }
+
+  @Override
+  public String toString(final boolean summary, final boolean detail, final boolean auxDetail,
+      final boolean all) {
+    return shared.toString(summary, detail, auxDetail, all);
+  }
+
+  //End of proxies
+
+  /**
+   * Discards the items held by this buffer without propagating them.
+   * The shared sketch is not affected.
+   */
+  @Override
+  public void reset() {
+    resetBuffer();
+  }
+
+  @Override
+  public byte[] toCompactByteArray() {
+    throw new UnsupportedOperationException("Local HLL buffer need not be serialized");
+  }
+
+  @Override
+  public byte[] toUpdatableByteArray() {
+    throw new UnsupportedOperationException("Local HLL buffer need not be serialized");
+  }
+
+  //restricted
+
+  private void resetBuffer() {
+    numCoupons = 0;
+    pendingKxQ = 0;
+    limit = shared.getLocalBufferLimit();
+    kxqLimit = shared.getLocalKxQLimit();
+  }
+
+  @Override
+  void couponUpdate(final int coupon) {
+    final int epoch = shared.getResetEpoch();
+    final int oldValue = shared.getRegister(coupon & slotMask);
+    if (((coupon >>> KEY_BITS_26) <= oldValue) && shared.isUnchangedByReset(epoch)) { return; }
+    coupons[numCoupons++] = coupon;
+    pendingKxQ += invPow2(oldValue); //an upper bound of the reduction of KxQ by this coupon
+    if ((numCoupons >= limit) || (pendingKxQ > kxqLimit)) { flush(); }
+  }
+
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) { couponUpdate(coupons[i]); }
+  }
+
+}
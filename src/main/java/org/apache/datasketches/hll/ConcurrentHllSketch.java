@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.common.Util.invPow2;
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+import static org.apache.datasketches.hll.HllUtil.VAL_MASK_6;
+import static org.apache.datasketches.hll.TgtHllType.HLL_8;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * A shared HLL sketch that can be updated concurrently by many writer threads.
+ *
+ * <p>This is the HLL analog of the concurrent Theta sketch. The shared sketch holds a single
+ * HLL_8 register array that is partitioned into a fixed number of contiguous stripes, each
+ * guarded by its own lock. Each writer thread obtains its own local buffer with
+ * {@link #newLocalBuffer()} and updates only that buffer. The buffer discards any update that
+ * cannot raise the corresponding shared register, collects the rest, and periodically
+ * propagates them into the shared registers with a register-wise max. Because registers only
+ * grow, the order in which the buffers are propagated does not matter.</p>
+ *
+ * <pre>{@code
+ * ConcurrentHllSketch shared = new ConcurrentHllSketch(12);
+ * //in each writer thread
+ * ConcurrentHllBuffer local = shared.newLocalBuffer();
+ * for (long item : items) { local.update(item); }
+ * local.flush();
+ * //in any thread, at any time
+ * double estimate = shared.getEstimate();
+ * }</pre>
+ *
+ * <p>The estimate may be read at any time, including during ingestion. It reflects all data
+ * that has been propagated so far. Each local buffer holds back at most
+ * <i>maxConcurrencyError * estimate</i> items, never more than <i>maxLocalBufferSize</i>
+ * items, and never more register updates than would change the estimate by a relative amount
+ * of about <i>maxConcurrencyError</i>. So with <i>T</i> writer threads the estimate lags the
+ * true state by a relative amount of about <i>T * maxConcurrencyError</i> at most. While the
+ * sketch is small the buffers propagate eagerly.</p>
+ *
+ * <p>Since registers are merged out of order, the HIP estimator cannot be used and the
+ * estimate is the composite estimator, as it would be for a union.</p>
+ */
+public final class ConcurrentHllSketch extends BaseHllSketch {
+  /**
+   * The default maximum number of items a local buffer can hold before it propagates.
+   */
+  public static final int DEFAULT_MAX_LOCAL_BUFFER_SIZE = 256;
+
+  /**
+   * The default maximum error, relative to the estimate, that each local buffer may contribute.
+   */
+  public static final double DEFAULT_MAX_CONCURRENCY_ERROR = 0.01;
+
+  private static final int LG_MAX_STRIPES = 6;
+  //the bits of a coupon are rotated so that the sort order groups coupons by slot
+  private static final int ROTATE_BITS = 32 - KEY_BITS_26;
+
+  private final int lgConfigK;
+  private final int maxLocalBufferSize;
+  private final double maxConcurrencyError;
+  private final int slotMask;
+  private final int lgSlotsPerStripe;
+  private final Hll8Array hllArr;
+  private final Stripe[] stripes;
+  //incremented at the start and at the end of every reset, so it is odd while a reset runs
+  private final AtomicInteger resetEpoch = new AtomicInteger();
+
+  /**
+   * Constructs a new concurrent HLL sketch with the default local buffer configuration.
+   * @param lgConfigK The Log2 of K for the target HLL sketch. This value must be
+   * between 4 and 21 inclusively.
+   */
+  public ConcurrentHllSketch(final int lgConfigK) {
+    this(lgConfigK, DEFAULT_MAX_LOCAL_BUFFER_SIZE, DEFAULT_MAX_CONCURRENCY_ERROR);
+  }
+
+  /**
+   * Constructs a new concurrent HLL sketch.
+   * @param lgConfigK The Log2 of K for the target HLL sketch. This value must be
+   * between 4 and 21 inclusively.
+   * @param maxLocalBufferSize the maximum number of items a local buffer can hold before it
+   * propagates to this shared sketch. It must be at least one.
+   * @param maxConcurrencyError the maximum error, relative to the estimate, that each local buffer
+   * may hold back from this shared sketch. It must be in the range [0, 1).
+   * A value of zero means that every update that can change this sketch is propagated eagerly.
+   */
+  public ConcurrentHllSketch(final int lgConfigK, final int maxLocalBufferSize,
+      final double maxConcurrencyError) {
+    this.lgConfigK = HllUtil.checkLgK(lgConfigK);
+    if (maxLocalBufferSize < 1) {
+      throw new SketchesArgumentException("maxLocalBufferSize must be at least 1: " + maxLocalBufferSize);
+    }
+    if (!(maxConcurrencyError >= 0.0) || (maxConcurrencyError >= 1.0)) {
+      throw new SketchesArgumentException("maxConcurrencyError must be in [0, 1): " + maxConcurrencyError);
+    }
+    this.maxLocalBufferSize = maxLocalBufferSize;
+    this.maxConcurrencyError = maxConcurrencyError;
+    slotMask = (1 << lgConfigK) - 1;
+    final int lgNumStripes = Math.min(LG_MAX_STRIPES, lgConfigK);
+    lgSlotsPerStripe = lgConfigK - lgNumStripes;
+    hllArr = new Hll8Array(lgConfigK);
+    stripes = new Stripe[1 << lgNumStripes];
+    for (int i = 0; i < stripes.length; i++) { stripes[i] = new Stripe(1 << lgSlotsPerStripe); }
+  }
+
+  /**
+   * Returns a new local buffer that propagates into this shared sketch.
+   * A local buffer is not thread-safe and must be confined to a single writer thread.
+   * @return a new local buffer that propagates into this shared sketch.
+   */
+  public ConcurrentHllBuffer newLocalBuffer() {
+    return new ConcurrentHllBuffer(this);
+  }
+
+  /**
+   * Returns a copy of the current state of this shared sketch as an on-heap HllSketch of the
+   * given type. Each stripe is copied atomically, but the copy as a whole is not taken atomically
+   * with respect to concurrent propagation.
+   * @param tgtHllType the desired Hll type.
+   * @return a copy of the current state of this shared sketch as an on-heap HllSketch.
+   */
+  public HllSketch copyAs(final TgtHllType tgtHllType) {
+    Objects.requireNonNull(tgtHllType, "TgtHllType must not be null");
+    final Hll8Array copyArr = new Hll8Array(lgConfigK);
+    final int slotsPerStripe = 1 << lgSlotsPerStripe;
+    for (int i = 0; i < stripes.length; i++) {
+      synchronized (stripes[i]) {
+        System.arraycopy(hllArr.hllByteArr, i * slotsPerStripe, copyArr.hllByteArr, i * slotsPerStripe,
+            slotsPerStripe);
+      }
+    }
+    copyArr.putOutOfOrder(true);
+    copyArr.putRebuildCurMinNumKxQFlag(true);
+    final HllSketch sketch = new HllSketch(copyArr);
+    Union.checkRebuildCurMinNumKxQ(sketch);
+    return (tgtHllType == HLL_8) ? sketch : sketch.copyAs(tgtHllType);
+  }
+
+  /**
+   * Gets the maximum error, relative to the estimate, that each local buffer may hold back.
+   * @return the maximum error, relative to the estimate, that each local buffer may hold back.
+   */
+  public double getMaxConcurrencyError() {
+    return maxConcurrencyError;
+  }
+
+  /**
+   * Gets the maximum number of items a local buffer can hold before it propagates.
+   * @return the maximum number of items a local buffer can hold before it propagates.
+   */
+  public int getMaxLocalBufferSize() {
+    return maxLocalBufferSize;
+  }
+
+  @Override
+  public int getCompactSerializationBytes() {
+    return copyAs(HLL_8).getCompactSerializationBytes();
+  }
+
+  @Override
+  public double getCompositeEstimate() {
+    return getEstimate();
+  }
+
+  @Override
+  CurMode getCurMode() {
+    return CurMode.HLL;
+  }
+
+  @Override
+  public double getEstimate() {
+    double kxq = 0;
+    int numZeros = 0;
+    for (int i = 0; i < stripes.length; i++) {
+      final Stripe stripe = stripes[i];
+      synchronized (stripe) {
+        kxq += stripe.kxq0 + stripe.kxq1;
+        numZeros += stripe.numZeros;
+      }
+    }
+    return HllEstimators.hllCompositeEstimate(lgConfigK, kxq, 0, numZeros);
+  }
+
+  @Override
+  public TgtHllType getTgtHllType() {
+    return HLL_8;
+  }
+
+  @Override
+  public int getLgConfigK() {
+    return lgConfigK;
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    final double estimate = getEstimate();
+    final double relErr = getRelErr(false, true, lgConfigK, numStdDev);
+    return Math.max(estimate / (1.0 + relErr), (1 << lgConfigK) - getNumZeros());
+  }
+
+  @Override
+  public int getUpdatableSerializationBytes() {
+    return HllSketch.getMaxUpdatableSerializationBytes(lgConfigK, HLL_8);
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    final double estimate = getEstimate();
+    final double relErr = getRelErr(true, true, lgConfigK, numStdDev);
+    return estimate / (1.0 - relErr);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return getNumZeros() == (1 << lgConfigK);
+  }
+
+  @Override
+  public boolean isCompact() {
+    return false;
+  }
+
+  @Override
+  public boolean isMemory() {
+    return false;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  boolean isOutOfOrder() {
+    return true;
+  }
+
+  @Override
+  public boolean isSameResource(final Memory mem) {
+    return false;
+  }
+
+  /**
+   * Resets this shared sketch to empty. Items still held by local buffers are not affected and
+   * will be propagated into the reset sketch. This may be called while other threads update.
+   * An update that overlaps the reset may be applied either before or after it, but every update
+   * that starts after this method returns is applied to the reset sketch.
+   */
+  @Override
+  public void reset() {
+    final int slotsPerStripe = 1 << lgSlotsPerStripe;
+    synchronized (stripes) { //serializes resets
+      resetEpoch.incrementAndGet();
+      for (int i = 0; i < stripes.length; i++) {
+        final Stripe stripe = stripes[i];
+        synchronized (stripe) {
+          Arrays.fill(hllArr.hllByteArr, i * slotsPerStripe, (i + 1) * slotsPerStripe, (byte) 0);
+          stripe.reset(slotsPerStripe);
+        }
+      }
+      resetEpoch.incrementAndGet();
+    }
+  }
+
+  @Override
+  public byte[] toCompactByteArray() {
+    return copyAs(HLL_8).toCompactByteArray();
+  }
+
+  @Override
+  public byte[] toUpdatableByteArray() {
+    return copyAs(HLL_8).toUpdatableByteArray();
+  }
+
+  @Override
+  public String toString(final boolean summary, final boolean detail, final boolean auxDetail,
+      final boolean all) {
+    return copyAs(HLL_8).toString(summary, detail, auxDetail, all);
+  }
+
+  //restricted
+
+  @Override
+  void couponUpdate(final int coupon) {
+    final int slotNo = coupon & slotMask;
+    final int epoch = getResetEpoch();
+    if (((coupon >>> KEY_BITS_26) <= getRegister(slotNo)) && isUnchangedByReset(epoch)) { return; }
+    final Stripe stripe = stripes[slotNo >>> lgSlotsPerStripe];
+    synchronized (stripe) {
+      updateRegister(stripe, slotNo, coupon >>> KEY_BITS_26);
+    }
+  }
+
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    propagate(Arrays.copyOfRange(coupons, offset, offset + length), length);
+  }
+
+  /**
+   * Reads a register of the shared array without locking. This is a plain read that may be stale.
+   * Between resets the registers only grow, so a stale read may only miss a recent increase,
+   * which just sends the update down the locked path. Across a concurrent reset, however, the read
+   * may return a value from before the reset. A caller that discards an update because of this
+   * read must therefore read {@link #getResetEpoch()} first and confirm
+   * {@link #isUnchangedByReset(int)} afterwards, and must not discard the update otherwise.
+   * @param slotNo the given slot number
+   * @return the value of the register, which may be stale.
+   */
+  int getRegister(final int slotNo) {
+    return hllArr.hllByteArr[slotNo] & VAL_MASK_6;
+  }
+
+  /**
+   * Gets the reset epoch to be read before an unlocked read with {@link #getRegister(int)}.
+   * The volatile read also makes the registers zeroed by any completed reset visible.
+   * @return the reset epoch
+   */
+  int getResetEpoch() {
+    return resetEpoch.get();
+  }
+
+  /**
+   * Checks that no reset was running when the given epoch was read and none has started since,
+   * so that a register read in between is not from before a reset.
+   * @param epoch the value returned by {@link #getResetEpoch()} before the register read
+   * @return true if a register read since the given epoch may be trusted to discard an update
+   */
+  boolean isUnchangedByReset(final int epoch) {
+    return ((epoch & 1) == 0) && (resetEpoch.get() == epoch);
+  }
+
+  /**
+   * Computes the number of items a local buffer may hold before it must propagate.
+   * @return the number of items a local buffer may hold before it must propagate.
+   */
+  int getLocalBufferLimit() {
+    if (maxConcurrencyError == 0.0) { return 1; }
+    final double limit = getEstimate() * maxConcurrencyError;
+    return (int) Math.max(1.0, Math.min(maxLocalBufferSize, limit));
+  }
+
+  /**
+   * Computes how much the items held by a local buffer may reduce the KxQ sum of this sketch
+   * before the buffer must propagate. Once the sketch is past its low range, a register update
+   * represents many items, so this bounds the relative change of the estimate that a buffer can
+   * hold back.
+   * @return how much the items held by a local buffer may reduce the KxQ sum of this sketch.
+   */
+  double getLocalKxQLimit() {
+    double kxq = 0;
+    for (int i = 0; i < stripes.length; i++) {
+      final Stripe stripe = stripes[i];
+      synchronized (stripe) { kxq += stripe.kxq0 + stripe.kxq1; }
+    }
+    return kxq * maxConcurrencyError;
+  }
+
+  /**
+   * Propagates the given coupons into the shared registers with a register-wise max.
+   * The given array is used as scratch space and its contents are destroyed.
+   * @param coupons the coupons to propagate, starting at index zero.
+   * @param count the number of valid coupons in the array.
+   */
+  void propagate(final int[] coupons, final int count) {
+    if (count == 0) { return; }
+    //move the slot into the high bits so that sorting groups the coupons by stripe.
+    for (int i = 0; i < count; i++) { coupons[i] = Integer.rotateLeft(coupons[i], ROTATE_BITS); }
+    Arrays.sort(coupons, 0, count);
+    int i = 0;
+    while (i < count) {
+      final int stripeIdx = (Integer.rotateRight(coupons[i], ROTATE_BITS) & slotMask) >>> lgSlotsPerStripe;
+      final Stripe stripe = stripes[stripeIdx];
+      synchronized (stripe) {
+        do {
+          final int coupon = Integer.rotateRight(coupons[i], ROTATE_BITS);
+          final int slotNo = coupon & slotMask;
+          if ((slotNo >>> lgSlotsPerStripe) != stripeIdx) { break; }
+          updateRegister(stripe, slotNo, coupon >>> KEY_BITS_26);
+          i++;
+        } while (i < count);
+      }
+    }
+  }
+
+  private int getNumZeros() {
+    int numZeros = 0;
+    for (int i = 0; i < stripes.length; i++) {
+      final Stripe stripe = stripes[i];
+      synchronized (stripe) { numZeros += stripe.numZeros; }
+    }
+    return numZeros;
+  }
+
+  //must be called while holding the lock of the given stripe
+  private void updateRegister(final Stripe stripe, final int slotNo, final int newValue) {
+    final int oldValue = hllArr.hllByteArr[slotNo] & VAL_MASK_6;
+    if (newValue <= oldValue) { return; }
+    hllArr.hllByteArr[slotNo] = (byte) (newValue & VAL_MASK_6);
+    if (oldValue < 32) { stripe.kxq0 -= invPow2(oldValue); }
+    else               { stripe.kxq1 -= invPow2(oldValue); }
+    if (newValue < 32) { stripe.kxq0 += invPow2(newValue); }
+    else               { stripe.kxq1 += invPow2(newValue); }
+    if (oldValue == 0) { stripe.numZeros--; }
+  }
+
+  /**
+   * The lock and the KxQ and zero-count summaries for a contiguous range of slots.
+   */
+  private static final class Stripe {
+    double kxq0;
+    double kxq1;
+    int numZeros;
+
+    Stripe(final int numSlots) {
+      reset(numSlots);
+    }
+
+    void reset(final int numSlots) {
+      kxq0 = numSlots;
+      kxq1 = 0;
+      numZeros = numSlots;
+    }
+  }
+}
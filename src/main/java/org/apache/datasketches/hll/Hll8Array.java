@@ -71,6 +71,17 @@ class Hll8Array extends HllArray {
     return this;
   }
 
+  @Override
+  HllSketchImpl couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int configKmask = (1 << lgConfigK) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      updateSlotWithKxQ(coupon & configKmask, coupon >>> KEY_BITS_26);
+    }
+    return this;
+  }
+
   @Override
   int getNibble(final int slotNo) {
     throw new SketchesStateException("Improper access.");
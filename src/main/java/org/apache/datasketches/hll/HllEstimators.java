@@ -72,8 +72,21 @@ class HllEstimators {
    */
   //In C: again-two-registers.c hhb_get_composite_estimate L1489
   static final double hllCompositeEstimate(final AbstractHllArray absHllArr) {
-    final int lgConfigK = absHllArr.getLgConfigK();
-    final double rawEst = getHllRawEstimate(lgConfigK, absHllArr.getKxQ0() + absHllArr.getKxQ1());
+    return hllCompositeEstimate(absHllArr.getLgConfigK(), absHllArr.getKxQ0() + absHllArr.getKxQ1(),
+        absHllArr.getCurMin(), absHllArr.getNumAtCurMin());
+  }
+
+  /**
+   * The composite estimator computed from the summary state of an HLL array.
+   * @param lgConfigK the configured lgK of the sketch
+   * @param kxqSum the sum of the KxQ0 and KxQ1 registers
+   * @param curMin the current minimum value of the HLL window
+   * @param numAtCurMin the current number of slots with the value curMin
+   * @return the composite estimate
+   */
+  static final double hllCompositeEstimate(final int lgConfigK, final double kxqSum,
+      final int curMin, final int numAtCurMin) {
+    final double rawEst = getHllRawEstimate(lgConfigK, kxqSum);
 
     final double[] xArr = CompositeInterpolationXTable.xArrs[lgConfigK - MIN_LOG_K];
     final double yStride = CompositeInterpolationXTable.yStrides[lgConfigK - MIN_LOG_K];
@@ -99,8 +112,7 @@ class HllEstimators {
     //Alternate call
     //if ((adjEst > (3 << lgConfigK)) || ((curMin != 0) || (numAtCurMin == 0)) ) { return adjEst; }
 
-    final double linEst =
-        getHllBitMapEstimate(lgConfigK, absHllArr.getCurMin(), absHllArr.getNumAtCurMin());
+    final double linEst = getHllBitMapEstimate(lgConfigK, curMin, numAtCurMin);
 
     // Bias is created when the value of an estimator is compared with a threshold to decide whether
     // to use that estimator or a different one.
@@ -568,4 +568,9 @@ public class HllSketch extends BaseHllSketch {
     hllSketchImpl = hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    hllSketchImpl = hllSketchImpl.couponUpdate(coupons, offset, length);
+  }
+
 }
@@ -54,6 +54,26 @@ abstract class HllSketchImpl {
 
   abstract HllSketchImpl couponUpdate(int coupon);
 
+  /**
+   * Updates this sketch with a batch of non-empty coupons.
+   * If a coupon causes this sketch to change its mode, the remainder of the batch is passed on
+   * to the new implementation, which is returned.
+   * @param coupons the given array of coupons
+   * @param offset the index of the first coupon to apply
+   * @param length the number of coupons to apply
+   * @return the resulting implementation, which may be different from this one
+   */
+  HllSketchImpl couponUpdate(final int[] coupons, final int offset, final int length) {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final HllSketchImpl impl = couponUpdate(coupons[i]);
+      if (impl != this) { //promoted to a new mode
+        return impl.couponUpdate(coupons, i + 1, end - i - 1);
+      }
+    }
+    return this;
+  }
+
   abstract int getCompactSerializationBytes();
 
   abstract double getCompositeEstimate();
@@ -28,6 +28,9 @@ import static org.apache.datasketches.hll.PreambleUtil.extractTgtHllType;
 import static org.apache.datasketches.hll.TgtHllType.HLL_4;
 import static org.apache.datasketches.hll.TgtHllType.HLL_8;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -67,6 +70,10 @@ import org.apache.datasketches.memory.WritableMemory;
  * @author Kevin Lang
  */
 public class Union extends BaseHllSketch {
+  //register arrays smaller than this are merged serially, even when a pool is given
+  static final int PARALLEL_MERGE_MIN_LG_K = 16;
+  //the number of target registers merged by a single task of a parallel merge
+  static final int PARALLEL_MERGE_CHUNK = 1 << 14;
   final int lgMaxK;
   private final HllSketch gadget;
 
@@ -316,7 +323,20 @@ public class Union extends BaseHllSketch {
    * @param sketch the given sketch.
    */
   public void update(final HllSketch sketch) {
-    gadget.hllSketchImpl = unionImpl(sketch, gadget, lgMaxK);
+    gadget.hllSketchImpl = unionImpl(sketch, gadget, lgMaxK, null);
+  }
+
+  /**
+   * Update this union operator with the given sketch, merging the registers of large HLL_8 sketches
+   * in parallel on the given pool. Registers are merged in parallel only when both the given sketch
+   * and this union are in HLL mode, the given sketch is of type HLL_8, and the merge target has at least
+   * 2<sup>16</sup> registers. Otherwise this is the same as {@link #update(HllSketch)}. The result is the same
+   * in either case.
+   * @param sketch the given sketch.
+   * @param pool the ForkJoinPool in which to merge chunks of the registers.
+   */
+  public void update(final HllSketch sketch, final ForkJoinPool pool) {
+    gadget.hllSketchImpl = unionImpl(sketch, gadget, lgMaxK, pool);
   }
 
   @Override
@@ -325,6 +345,11 @@ public class Union extends BaseHllSketch {
     gadget.hllSketchImpl = gadget.hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdate(final int[] coupons, final int offset, final int length) {
+    gadget.hllSketchImpl = gadget.hllSketchImpl.couponUpdate(coupons, offset, length);
+  }
+
   // Union operator logic
 
   /**
@@ -347,11 +372,12 @@ public class Union extends BaseHllSketch {
    * @param source the given incoming sketch, which cannot be modified.
    * @param gadget the given gadget sketch, which has a target of HLL_8 and holds the result.
    * @param lgMaxK the maximum value of log2 K for this union.
+   * @param pool if not null, the ForkJoinPool in which to merge large HLL_8 register arrays.
    * @return the union of the two sketches in the form of the internal HllSketchImpl, which is
    * always in HLL_8 form.
    */
   private static HllSketchImpl unionImpl(final HllSketch source, final HllSketch gadget,
-      final int lgMaxK) {
+      final int lgMaxK, final ForkJoinPool pool) {
     assert gadget.getTgtHllType() == HLL_8;
     if ((source == null) || source.isEmpty()) {
       return gadget.hllSketchImpl;
@@ -431,7 +457,7 @@ public class Union extends BaseHllSketch {
       case 21://src >  max, src >= gdt, gdtHLL, gdtMemory
       { //Action: forward HLL merge w/autofold, ooof=True
         //merge src(Hll4,6,8,heap/mem,Mode=HLL) -> gdt(Hll8,heap,Mode=HLL)
-        mergeHlltoHLLmode(source, gadget, srcLgK, gadgetLgK, srcIsMem, gdtIsMem);
+        mergeHlltoHLLmode(source, gadget, srcLgK, gadgetLgK, srcIsMem, gdtIsMem, pool);
         hllSketchImpl = gadget.putOutOfOrderFlag(true).hllSketchImpl;
         break;
       }
@@ -439,7 +465,7 @@ public class Union extends BaseHllSketch {
       { //Action: downsample gdt to srcLgK, forward HLL merge w/autofold, ooof=True
         final HllSketch gdtHll8Heap = downsample(gadget, srcLgK);
         //merge src(Hll4,6,8;heap/mem,Mode=HLL) -> gdt(Hll8,heap,hll)
-        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false);
+        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false, pool);
         hllSketchImpl = gdtHll8Heap.putOutOfOrderFlag(true).hllSketchImpl;
         break;
       }
@@ -447,7 +473,7 @@ public class Union extends BaseHllSketch {
       { //Action: downsample gdt to srcLgK, forward HLL merge w/autofold, use gdt memory, ooof=True
         final HllSketch gdtHll8Heap = downsample(gadget, srcLgK);
         //merge src(Hll4,6,8;heap/mem;Mode=HLL) -> gdt(Hll8,heap,Mode=HLL)
-        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false);
+        mergeHlltoHLLmode(source, gdtHll8Heap, srcLgK, gadgetLgK, srcIsMem, false, pool);
         hllSketchImpl = useGadgetMemory(gadget, gdtHll8Heap, true).hllSketchImpl;
         break;
       }
@@ -495,7 +521,14 @@ public class Union extends BaseHllSketch {
   }
 
   private static final void mergeHlltoHLLmode(final HllSketch src, final HllSketch tgt,
-      final int srcLgK, final int tgtLgK, final boolean srcIsMem, final boolean tgtIsMem) {
+      final int srcLgK, final int tgtLgK, final boolean srcIsMem, final boolean tgtIsMem,
+      final ForkJoinPool pool) {
+      if ((pool != null) && (src.getTgtHllType() == HLL_8)
+          && (tgt.getLgConfigK() >= PARALLEL_MERGE_MIN_LG_K)) {
+        pool.invoke(new Hll8MergeTask(src, tgt, 0, 1 << tgt.getLgConfigK()));
+        tgt.hllSketchImpl.putRebuildCurMinNumKxQFlag(true);
+        return;
+      }
       final int sw = (tgtIsMem ? 1 : 0) | (srcIsMem ? 2 : 0)
           | ((srcLgK > tgtLgK) ? 4 : 0) | ((src.getTgtHllType() != HLL_8) ? 8 : 0);
       final int srcK = 1 << srcLgK;
@@ -822,4 +855,59 @@ public class Union extends BaseHllSketch {
     //HipAccum is not affected
   }
 
+
+  /**
+   * Merges a range of the registers of an HLL_8 source into an HLL_8 target, either of which may be
+   * on the heap or in Memory. The range is of target registers, each of which takes the maximum of
+   * all the source registers that fold onto it. Large ranges are split in halves and merged in parallel.
+   */
+  private static final class Hll8MergeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final transient HllSketch src;
+    private final transient HllSketch tgt;
+    private final int fromSlot;
+    private final int toSlot;
+
+    Hll8MergeTask(final HllSketch src, final HllSketch tgt, final int fromSlot, final int toSlot) {
+      this.src = src;
+      this.tgt = tgt;
+      this.fromSlot = fromSlot;
+      this.toSlot = toSlot;
+    }
+
+    @Override
+    protected void compute() {
+      if ((toSlot - fromSlot) > PARALLEL_MERGE_CHUNK) {
+        final int mid = (fromSlot + toSlot) >>> 1;
+        invokeAll(new Hll8MergeTask(src, tgt, fromSlot, mid), new Hll8MergeTask(src, tgt, mid, toSlot));
+        return;
+      }
+      final int srcK = 1 << src.getLgConfigK();
+      final int tgtK = 1 << tgt.getLgConfigK();
+      if (!src.isMemory() && !tgt.isMemory()) {
+        final byte[] srcArr = ((Hll8Array) src.hllSketchImpl).hllByteArr;
+        final byte[] tgtArr = ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
+        for (int j = fromSlot; j < toSlot; j++) {
+          byte max = tgtArr[j];
+          for (int i = j; i < srcK; i += tgtK) { max = (byte) Math.max(max, srcArr[i]); }
+          tgtArr[j] = max;
+        }
+        return;
+      }
+      final Memory srcMem = src.isMemory() ? src.getMemory() : null;
+      final byte[] srcArr = src.isMemory() ? null : ((Hll8Array) src.hllSketchImpl).hllByteArr;
+      final WritableMemory tgtMem = tgt.isMemory() ? tgt.getWritableMemory() : null;
+      final byte[] tgtArr = tgt.isMemory() ? null : ((Hll8Array) tgt.hllSketchImpl).hllByteArr;
+      for (int j = fromSlot; j < toSlot; j++) {
+        byte max = (tgtMem != null) ? tgtMem.getByte(HLL_BYTE_ARR_START + j) : tgtArr[j];
+        for (int i = j; i < srcK; i += tgtK) {
+          final byte srcV = (srcMem != null) ? srcMem.getByte(HLL_BYTE_ARR_START + i) : srcArr[i];
+          max = (byte) Math.max(max, srcV);
+        }
+        if (tgtMem != null) { tgtMem.putByte(HLL_BYTE_ARR_START + j, max); }
+        else { tgtArr[j] = max; }
+      }
+    }
+  }
+
 }
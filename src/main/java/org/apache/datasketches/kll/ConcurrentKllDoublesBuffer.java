@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import org.apache.datasketches.common.Util;
+
+/**
+ * A thread-local level-zero buffer that collects updates for a {@link ConcurrentKllDoublesSketch}.
+ *
+ * <p>Each writer thread must use its own buffer; a buffer is not thread-safe. Items are appended
+ * to a private array and merged into the shared sketch when the array is full.
+ * Call {@link #flush()} when a writer is done, or before a query that must include its items.</p>
+ */
+public final class ConcurrentKllDoublesBuffer {
+  private final ConcurrentKllDoublesSketch shared;
+  private final double[] items;
+  private int numItems;
+
+  ConcurrentKllDoublesBuffer(final ConcurrentKllDoublesSketch shared) {
+    this.shared = shared;
+    items = new double[shared.getMaxLocalBufferSize()];
+    numItems = 0;
+  }
+
+  /**
+   * Updates this buffer with the given item. NaNs are ignored.
+   * @param item the given item
+   */
+  public void update(final double item) {
+    if (Double.isNaN(item)) { return; }
+    items[numItems++] = item;
+    if (numItems == items.length) { flush(); }
+  }
+
+  /**
+   * Vector update. Updates this buffer with the given range of items. NaNs are ignored.
+   * @param items the given array of items.
+   * @param offset the index of the first item to update with.
+   * @param length the number of items to update with.
+   */
+  public void update(final double[] items, final int offset, final int length) {
+    Util.checkBounds(offset, length, items.length);
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final double item = items[i];
+      if (Double.isNaN(item)) { continue; }
+      this.items[numItems++] = item;
+      if (numItems == this.items.length) { flush(); }
+    }
+  }
+
+  /**
+   * Merges all items held by this buffer into the shared sketch.
+   */
+  public void flush() {
+    shared.propagate(items, numItems);
+    numItems = 0;
+  }
+
+  /**
+   * Discards the items held by this buffer without merging them.
+   * The shared sketch is not affected.
+   */
+  public void reset() {
+    numItems = 0;
+  }
+
+  /**
+   * Gets the number of items held by this buffer that have not been merged yet.
+   * @return the number of items held by this buffer
+   */
+  public int getNumBufferedItems() {
+    return numItems;
+  }
+
+  /**
+   * Gets the shared sketch that this buffer merges into.
+   * @return the shared sketch that this buffer merges into
+   */
+  public ConcurrentKllDoublesSketch getSharedSketch() {
+    return shared;
+  }
+
+}
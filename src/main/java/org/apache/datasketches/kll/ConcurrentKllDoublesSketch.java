@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
+
+/**
+ * A KLL doubles sketch that can be updated by many writer threads and queried concurrently.
+ *
+ * <p>Each writer thread obtains its own {@link ConcurrentKllDoublesBuffer} from
+ * {@link #newLocalBuffer()}. The buffer collects items in a private level-zero array and merges them
+ * into the shared sketch when it is full, so writers only synchronize once per buffer of items.
+ * Items held in a local buffer are not visible to queries until the buffer is flushed.</p>
+ *
+ * <p>Queries are answered from an immutable {@link KllDoublesSketchSortedView} snapshot of the
+ * shared sketch. The snapshot is rebuilt only when the shared sketch has changed since the last
+ * snapshot. Readers hold the lock of the shared sketch only while copying its retained items;
+ * sorting and building the view are done outside the lock, so readers never stall writers for
+ * longer than a copy.</p>
+ *
+ * <p>The shared sketch is on the Java heap. It may also be updated directly, which synchronizes on
+ * every update.</p>
+ */
+public final class ConcurrentKllDoublesSketch {
+
+  /**
+   * The default maximum number of items held by a local buffer.
+   */
+  public static final int DEFAULT_MAX_LOCAL_BUFFER_SIZE = 1024;
+
+  private final KllDoublesSketch sketch;
+  private final int maxLocalBufferSize;
+  // Incremented under the lock on every change of the shared sketch
+  private volatile long version;
+  private volatile Snapshot snapshot;
+
+  /**
+   * Constructs a new shared sketch with the default <em>k</em> of 200 and the default
+   * maximum local buffer size.
+   */
+  public ConcurrentKllDoublesSketch() {
+    this(KllSketch.DEFAULT_K, DEFAULT_MAX_LOCAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a new shared sketch with the given <em>k</em> and the default
+   * maximum local buffer size.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   */
+  public ConcurrentKllDoublesSketch(final int k) {
+    this(k, DEFAULT_MAX_LOCAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a new shared sketch.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param maxLocalBufferSize the maximum number of items held by a local buffer before it is
+   * merged into the shared sketch. It must be at least one.
+   */
+  public ConcurrentKllDoublesSketch(final int k, final int maxLocalBufferSize) {
+    if (maxLocalBufferSize < 1) {
+      throw new SketchesArgumentException("maxLocalBufferSize must be at least one: " + maxLocalBufferSize);
+    }
+    sketch = KllDoublesSketch.newHeapInstance(k);
+    this.maxLocalBufferSize = maxLocalBufferSize;
+    version = 0;
+    snapshot = null;
+  }
+
+  /**
+   * Returns a new local buffer for the calling writer thread.
+   * @return a new local buffer that merges into this shared sketch
+   */
+  public ConcurrentKllDoublesBuffer newLocalBuffer() {
+    return new ConcurrentKllDoublesBuffer(this);
+  }
+
+  /**
+   * Gets the maximum number of items held by a local buffer.
+   * @return the maximum number of items held by a local buffer
+   */
+  public int getMaxLocalBufferSize() {
+    return maxLocalBufferSize;
+  }
+
+  /**
+   * Gets the configured parameter <em>k</em>.
+   * @return the configured parameter <em>k</em>
+   */
+  public int getK() {
+    return sketch.getK();
+  }
+
+  /**
+   * Gets the number of items merged into the shared sketch.
+   * @return the number of items merged into the shared sketch
+   */
+  public synchronized long getN() {
+    return sketch.getN();
+  }
+
+  /**
+   * Returns true if no items have been merged into the shared sketch.
+   * @return true if no items have been merged into the shared sketch
+   */
+  public boolean isEmpty() {
+    return getN() == 0;
+  }
+
+  /**
+   * Updates the shared sketch directly with the given item. NaNs are ignored.
+   * This synchronizes on every call; writer threads should use a local buffer instead.
+   * @param item the given item
+   */
+  public synchronized void update(final double item) {
+    if (Double.isNaN(item)) { return; }
+    sketch.update(item);
+    version++;
+  }
+
+  /**
+   * Merges the given sketch into the shared sketch.
+   * @param other the given KllDoublesSketch
+   */
+  public synchronized void merge(final KllDoublesSketch other) {
+    if (other.isEmpty()) { return; }
+    sketch.merge(other);
+    version++;
+  }
+
+  /**
+   * Resets the shared sketch to the empty state. Items that are held by local buffers at this time
+   * are merged into the reset sketch when those buffers are flushed.
+   */
+  public synchronized void reset() {
+    sketch.reset();
+    version++;
+  }
+
+  /**
+   * Returns a heap copy of the shared sketch, which can be serialized or merged.
+   * @return a heap copy of the shared sketch
+   */
+  public synchronized KllDoublesSketch copy() {
+    return KllDoublesSketch.heapify(Memory.wrap(sketch.toByteArray()));
+  }
+
+  /**
+   * Returns a sorted view of the items merged into the shared sketch so far.
+   * The view is an immutable snapshot; it is shared by concurrent readers until the shared sketch
+   * changes.
+   * @return a sorted view of the shared sketch
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public KllDoublesSketchSortedView getSortedView() {
+    final Snapshot snap = snapshot;
+    if ((snap != null) && (snap.version == version)) { return snap.view; }
+    final Snapshot newSnap = takeSnapshot();
+    synchronized (this) {
+      if ((snapshot == null) || (snapshot.version < newSnap.version)) { snapshot = newSnap; }
+    }
+    return newSnap.view;
+  }
+
+  /**
+   * Gets the approximate quantile of the given normalized rank, using the INCLUSIVE criterion.
+   * @param rank the given normalized rank, a double in the range [0.0, 1.0].
+   * @return the approximate quantile given the normalized rank.
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public double getQuantile(final double rank) {
+    return getSortedView().getQuantile(rank, INCLUSIVE);
+  }
+
+  /**
+   * Gets the approximate quantile of the given normalized rank and search criterion.
+   * @param rank the given normalized rank, a double in the range [0.0, 1.0].
+   * @param searchCrit the given search criterion.
+   * @return the approximate quantile given the normalized rank.
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    return getSortedView().getQuantile(rank, searchCrit);
+  }
+
+  /**
+   * Gets the approximate quantiles of the given normalized ranks from a single snapshot.
+   * @param ranks the given array of normalized ranks.
+   * @param searchCrit the given search criterion.
+   * @return the approximate quantiles given the normalized ranks.
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public double[] getQuantiles(final double[] ranks, final QuantileSearchCriteria searchCrit) {
+    final KllDoublesSketchSortedView view = getSortedView();
+    final double[] quantiles = new double[ranks.length];
+    for (int i = 0; i < ranks.length; i++) {
+      quantiles[i] = view.getQuantile(ranks[i], searchCrit);
+    }
+    return quantiles;
+  }
+
+  /**
+   * Gets the normalized rank of the given quantile, using the INCLUSIVE criterion.
+   * @param quantile the given quantile
+   * @return the normalized rank of the given quantile.
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public double getRank(final double quantile) {
+    return getSortedView().getRank(quantile, INCLUSIVE);
+  }
+
+  /**
+   * Gets the normalized rank of the given quantile and search criterion.
+   * @param quantile the given quantile
+   * @param searchCrit the given search criterion.
+   * @return the normalized rank of the given quantile.
+   * @throws SketchesArgumentException if the sketch is empty.
+   */
+  public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    return getSortedView().getRank(quantile, searchCrit);
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentKllDoublesSketch, k: " + getK() + ", maxLocalBufferSize: " + maxLocalBufferSize
+        + ", N: " + getN();
+  }
+
+  //restricted
+
+  /**
+   * Merges the first count items of the given local buffer into the shared sketch.
+   * @param items the items of a local buffer
+   * @param count the number of items
+   */
+  synchronized void propagate(final double[] items, final int count) {
+    if (count == 0) { return; }
+    sketch.update(items, 0, count);
+    version++;
+  }
+
+  private Snapshot takeSnapshot() {
+    final long snapVersion;
+    final double[] items;
+    final int[] levels;
+    final int numLevels;
+    final boolean levelZeroSorted;
+    final long n;
+    final double maxItem;
+    final double minItem;
+    synchronized (this) {
+      if (sketch.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+      snapVersion = version;
+      numLevels = sketch.getNumLevels();
+      final int[] srcLevels = sketch.levelsArr;
+      items = Arrays.copyOfRange(sketch.getDoubleItemsArray(), srcLevels[0], srcLevels[numLevels]);
+      levels = new int[numLevels + 1];
+      for (int i = 0; i <= numLevels; i++) { levels[i] = srcLevels[i] - srcLevels[0]; }
+      levelZeroSorted = sketch.isLevelZeroSorted();
+      n = sketch.getN();
+      maxItem = sketch.getMaxItem();
+      minItem = sketch.getMinItem();
+    }
+    if (!levelZeroSorted) { Arrays.sort(items, levels[0], levels[1]); }
+    return new Snapshot(snapVersion,
+        new KllDoublesSketchSortedView(items, levels, numLevels, n, maxItem, minItem));
+  }
+
+  private static final class Snapshot {
+    final long version;
+    final KllDoublesSketchSortedView view;
+
+    Snapshot(final long version, final KllDoublesSketchSortedView view) {
+      this.version = version;
+      this.view = view;
+    }
+  }
+
+}
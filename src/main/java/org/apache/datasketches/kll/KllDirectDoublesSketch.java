@@ -316,6 +316,14 @@ class KllDirectDoublesSketch extends KllDoublesSketch {
     wmem.putDouble(offset, item);
   }
 
+  @Override
+  void setDoubleItemsArrayAt(final int dstIndex, final double[] srcItems, final int srcOffset, final int length) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    final int offset =
+        DATA_START_ADR + getLevelsArrSizeBytes(sketchStructure) + (dstIndex + 2) * ITEM_BYTES;
+    wmem.putDoubleArray(offset, srcItems, srcOffset, length);
+  }
+
   @Override
   void setLevelZeroSorted(final boolean sorted) {
     if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
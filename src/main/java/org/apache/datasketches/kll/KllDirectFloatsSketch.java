@@ -316,6 +316,14 @@ class KllDirectFloatsSketch extends KllFloatsSketch {
     wmem.putFloat(offset, item);
   }
 
+  @Override
+  void setFloatItemsArrayAt(final int dstIndex, final float[] srcItems, final int srcOffset, final int length) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    final int offset =
+        DATA_START_ADR + getLevelsArrSizeBytes(sketchStructure) + (dstIndex + 2) * ITEM_BYTES;
+    wmem.putFloatArray(offset, srcItems, srcOffset, length);
+  }
+
   @Override
   void setLevelZeroSorted(final boolean sorted) {
     if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
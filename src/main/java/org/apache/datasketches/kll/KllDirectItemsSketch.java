@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.kll.KllPreambleUtil.DATA_START_ADR;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryK;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryLevelZeroSortedFlag;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryM;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryMinK;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryN;
+import static org.apache.datasketches.kll.KllPreambleUtil.getMemoryNumLevels;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryFamilyID;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryK;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryLevelZeroSortedFlag;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryM;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryMinK;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryN;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryNumLevels;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemoryPreInts;
+import static org.apache.datasketches.kll.KllPreambleUtil.setMemorySerVer;
+import static org.apache.datasketches.kll.KllSketch.SketchStructure.UPDATABLE;
+import static org.apache.datasketches.kll.KllSketch.SketchType.ITEMS_SKETCH;
+
+import java.lang.reflect.Array;
+import java.util.Comparator;
+
+import org.apache.datasketches.common.ArrayOfItemsSerDe;
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * This class implements an off-heap, updatable KllItemsSketch using WritableMemory.
+ *
+ * <p>The items are kept in their serialized form in the same UPDATABLE layout used by the
+ * direct doubles and floats sketches. This requires a SerDe with a fixed serialized item size,
+ * see {@link ArrayOfItemsSerDe#getFixedItemBytes()}, so that any item can be located and
+ * rewritten in place.</p>
+ *
+ * <p>Please refer to the documentation in the package-info:<br>
+ * {@link org.apache.datasketches.kll}</p>
+ *
+ * @author Lee Rhodes, Kevin Lang
+ */
+@SuppressWarnings("unchecked")
+final class KllDirectItemsSketch<T> extends KllItemsSketch<T> {
+  private final int itemBytes;
+  private WritableMemory wmem;
+  private MemoryRequestServer memReqSvr;
+
+  /**
+   * Constructs from a WritableMemory already initialized with an UPDATABLE sketch image and validated.
+   * @param wmem the current WritableMemory
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param memVal the MemoryValadate object
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer for items of type <i>T</i> and <i>T[]</i>.
+   */
+  KllDirectItemsSketch(
+      final WritableMemory wmem,
+      final MemoryRequestServer memReqSvr,
+      final KllMemoryValidate memVal,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe) {
+    super(UPDATABLE, comparator, serDe);
+    this.itemBytes = checkFixedItemBytes(serDe);
+    this.wmem = wmem;
+    this.memReqSvr = memReqSvr;
+    readOnly = wmem.isReadOnly();
+    levelsArr = memVal.levelsArr; //always converted to writable form.
+  }
+
+  /**
+   * Create a new updatable, direct instance of this sketch.
+   * @param k parameter that controls size of the sketch and accuracy of estimates
+   * @param m parameter that controls the minimum level width in items.
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer with a fixed serialized item size.
+   * @param <T> The sketch data type
+   * @return a new instance of this sketch
+   */
+  static <T> KllDirectItemsSketch<T> newDirectUpdatableInstance(
+      final int k,
+      final int m,
+      final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe) {
+    final int itemBytes = checkFixedItemBytes(serDe);
+    KllHelper.checkM(m);
+    KllHelper.checkK(k, m);
+    setMemoryPreInts(dstMem, UPDATABLE.getPreInts());
+    setMemorySerVer(dstMem, UPDATABLE.getSerVer());
+    setMemoryFamilyID(dstMem, Family.KLL.getID());
+    setMemoryK(dstMem, k);
+    setMemoryM(dstMem, m);
+    setMemoryN(dstMem, 0);
+    setMemoryMinK(dstMem, k);
+    setMemoryNumLevels(dstMem, 1);
+    int offset = DATA_START_ADR;
+    //new Levels array
+    dstMem.putIntArray(offset, new int[] {k, k}, 0, 2);
+    offset += 2 * Integer.BYTES;
+    //new min/max and empty items array
+    dstMem.clear(offset, (long)(k + 2) * itemBytes);
+
+    final KllMemoryValidate memVal = new KllMemoryValidate(dstMem, ITEMS_SKETCH, serDe);
+    return new KllDirectItemsSketch<>(dstMem, memReqSvr, memVal, comparator, serDe);
+  }
+
+  //End of constructors
+
+  @Override
+  String getItemAsString(final int index) {
+    if (isEmpty()) { return "Null"; }
+    return serDe.toString(getTotalItemsArray()[index]);
+  }
+
+  @Override
+  public int getK() {
+    return getMemoryK(wmem);
+  }
+
+  @Override
+  public T getMaxItem() {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return getItem(getMinMaxOffset() + itemBytes);
+  }
+
+  @Override
+  String getMaxItemAsString() {
+    if (isEmpty()) { return "Null"; }
+    return serDe.toString(getMaxItem());
+  }
+
+  @Override
+  public T getMinItem() {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    return getItem(getMinMaxOffset());
+  }
+
+  @Override
+  String getMinItemAsString() {
+    if (isEmpty()) { return "Null"; }
+    return serDe.toString(getMinItem());
+  }
+
+  @Override
+  public long getN() {
+    return getMemoryN(wmem);
+  }
+
+  //restricted
+
+  @Override
+  int getM() {
+    return getMemoryM(wmem);
+  }
+
+  @Override
+  MemoryRequestServer getMemoryRequestServer() { return memReqSvr; }
+
+  @Override
+  int getMinK() {
+    return getMemoryMinK(wmem);
+  }
+
+  @Override
+  byte[] getMinMaxByteArr() {
+    final byte[] bytesOut = new byte[2 * itemBytes];
+    wmem.getByteArray(getMinMaxOffset(), bytesOut, 0, 2 * itemBytes);
+    return bytesOut;
+  }
+
+  @Override
+  int getMinMaxSizeBytes() {
+    return 2 * itemBytes;
+  }
+
+  @Override
+  T[] getRetainedItemsArray() {
+    return serDe.deserializeFromMemory(wmem, getItemOffset(levelsArr[0]), getNumRetained());
+  }
+
+  @Override
+  byte[] getRetainedItemsByteArr() {
+    final byte[] bytesOut = new byte[getRetainedItemsSizeBytes()];
+    wmem.getByteArray(getItemOffset(levelsArr[0]), bytesOut, 0, bytesOut.length);
+    return bytesOut;
+  }
+
+  @Override
+  int getRetainedItemsSizeBytes() {
+    return getNumRetained() * itemBytes;
+  }
+
+  @Override
+  T getSingleItem() {
+    if (getN() != 1L) { throw new SketchesArgumentException(NOT_SINGLE_ITEM_MSG); }
+    return getItem(getItemOffset(levelsArr[0]));
+  }
+
+  @Override
+  byte[] getSingleItemByteArr() {
+    if (getN() != 1L) { throw new SketchesArgumentException(NOT_SINGLE_ITEM_MSG); }
+    final byte[] bytesOut = new byte[itemBytes];
+    wmem.getByteArray(getItemOffset(levelsArr[0]), bytesOut, 0, itemBytes);
+    return bytesOut;
+  }
+
+  @Override
+  int getSingleItemSizeBytes() {
+    return itemBytes;
+  }
+
+  @Override
+  T[] getTotalItemsArray() {
+    final int capacityItems = levelsArr[getNumLevels()];
+    final T[] outArr = (T[]) Array.newInstance(serDe.getClassOfT(), capacityItems);
+    final int numRet = getNumRetained();
+    if (numRet > 0) {
+      final T[] retArr = getRetainedItemsArray();
+      System.arraycopy(retArr, 0, outArr, levelsArr[0], numRet);
+    }
+    return outArr;
+  }
+
+  @Override
+  WritableMemory getWritableMemory() {
+    return wmem;
+  }
+
+  @Override
+  void incN() {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    setMemoryN(wmem, getMemoryN(wmem) + 1);
+  }
+
+  @Override
+  void incNumLevels() {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    int numLevels = getMemoryNumLevels(wmem);
+    setMemoryNumLevels(wmem, ++numLevels);
+  }
+
+  @Override
+  boolean isLevelZeroSorted() {
+    return getMemoryLevelZeroSortedFlag(wmem);
+  }
+
+  /**
+   * Only the retained items, from levelsArr[0] to the end, are written.
+   * The levels array must already reflect the given items array.
+   */
+  @Override
+  void setItemsArray(final Object[] itemsArr) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    final int fromIndex = levelsArr[0];
+    final int numRet = itemsArr.length - fromIndex;
+    if (numRet <= 0) { return; }
+    final T[] retArr = (T[]) Array.newInstance(serDe.getClassOfT(), numRet);
+    System.arraycopy(itemsArr, fromIndex, retArr, 0, numRet);
+    final byte[] bytes = serDe.serializeToByteArray(retArr);
+    checkSerializedBytes(bytes.length, numRet);
+    wmem.putByteArray(getItemOffset(fromIndex), bytes, 0, bytes.length);
+  }
+
+  @Override
+  void setItemsArrayAt(final int index, final Object item) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    putItem(getItemOffset(index), item);
+  }
+
+  @Override
+  void setLevelZeroSorted(final boolean sorted) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    setMemoryLevelZeroSortedFlag(wmem, sorted);
+  }
+
+  @Override
+  void setMaxItem(final Object item) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    putItem(getMinMaxOffset() + itemBytes, item);
+  }
+
+  @Override
+  void setMinItem(final Object item) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    putItem(getMinMaxOffset(), item);
+  }
+
+  @Override
+  void setMinK(final int minK) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    setMemoryMinK(wmem, minK);
+  }
+
+  @Override
+  void setN(final long n) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    setMemoryN(wmem, n);
+  }
+
+  @Override
+  void setNumLevels(final int numLevels) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    setMemoryNumLevels(wmem, numLevels);
+  }
+
+  @Override
+  void setWritableMemory(final WritableMemory wmem) {
+    this.wmem = wmem;
+  }
+
+  static int checkFixedItemBytes(final ArrayOfItemsSerDe<?> serDe) {
+    final int itemBytes = serDe.getFixedItemBytes();
+    if (itemBytes <= 0) {
+      throw new SketchesArgumentException(UNSUPPORTED_MSG
+          + "An updatable Memory KllItemsSketch requires a SerDe with a fixed item size.");
+    }
+    return itemBytes;
+  }
+
+  private void checkSerializedBytes(final int numBytes, final int numItems) {
+    if (numBytes != numItems * itemBytes) {
+      throw new SketchesArgumentException("Serialized items must be exactly " + itemBytes
+          + " bytes each: " + numBytes + " bytes for " + numItems + " items.");
+    }
+  }
+
+  private T getItem(final long offset) {
+    return serDe.deserializeFromMemory(wmem, offset, 1)[0];
+  }
+
+  private long getItemOffset(final int index) {
+    return getMinMaxOffset() + (long)(index + 2) * itemBytes;
+  }
+
+  private long getMinMaxOffset() {
+    return DATA_START_ADR + getLevelsArrSizeBytes(UPDATABLE);
+  }
+
+  private void putItem(final long offset, final Object item) {
+    if (item == null) { //only used to clear min and max on reset
+      wmem.clear(offset, itemBytes);
+      return;
+    }
+    final byte[] bytes = serDe.serializeToByteArray((T) item);
+    checkSerializedBytes(bytes.length, 1);
+    wmem.putByteArray(offset, bytes, 0, itemBytes);
+  }
+
+}
@@ -60,6 +60,7 @@ final class KllDoublesHelper {
    * @param dblSk the current KllDoublesSketch
    */
   private static void compressWhileUpdatingSketch(final KllDoublesSketch dblSk) {
+    dblSk.sortedViewLevelsChanged();
     final int level =
         findLevelToCompact(dblSk.getK(), dblSk.getM(), dblSk.getNumLevels(), dblSk.levelsArr);
     if (level == dblSk.getNumLevels() - 1) {
@@ -330,6 +331,51 @@ final class KllDoublesHelper {
     dblSk.setDoubleItemsArrayAt(nextPos, item);
   }
 
+  //Called from KllDoublesSketch::update with an array of items
+  static void updateDouble(final KllDoublesSketch dblSk, final double[] items, final int offset, final int length) {
+    final int end = offset + length;
+    double[] chunk = new double[0];
+    int i = offset;
+    while (i < end) {
+      //skip NaNs before compacting, since a single update of a NaN does not compact a full level 0
+      while ((i < end) && Double.isNaN(items[i])) { i++; }
+      if (i == end) { break; }
+      int freeSpace = dblSk.levelsArr[0];
+      assert (freeSpace >= 0);
+      if (freeSpace == 0) {
+        compressWhileUpdatingSketch(dblSk);
+        freeSpace = dblSk.levelsArr[0];
+        assert (freeSpace > 0);
+      }
+      //gather up to freeSpace non-NaN items in the same order that single updates would place them
+      final int maxCount = min(freeSpace, end - i);
+      if (chunk.length < maxCount) { chunk = new double[maxCount]; }
+      double chunkMin = Double.NaN;
+      double chunkMax = Double.NaN;
+      int count = 0;
+      while ((count < maxCount) && (i < end)) {
+        final double item = items[i++];
+        if (Double.isNaN(item)) { continue; }
+        chunk[maxCount - 1 - count++] = item;
+        chunkMin = (count == 1) ? item : min(chunkMin, item);
+        chunkMax = (count == 1) ? item : max(chunkMax, item);
+      }
+      if (count == 0) { break; }
+      if (dblSk.isEmpty()) {
+        dblSk.setMinItem(chunkMin);
+        dblSk.setMaxItem(chunkMax);
+      } else {
+        dblSk.setMinItem(min(dblSk.getMinItem(), chunkMin));
+        dblSk.setMaxItem(max(dblSk.getMaxItem(), chunkMax));
+      }
+      dblSk.setN(dblSk.getN() + count);
+      dblSk.setLevelZeroSorted(false);
+      final int nextPos = freeSpace - count;
+      dblSk.setLevelsArrayAt(0, nextPos);
+      dblSk.setDoubleItemsArrayAt(nextPos, chunk, maxCount - count, count);
+    }
+  }
+
   //Called from KllDoublesSketch::update with weight
   static void updateDouble(final KllDoublesSketch dblSk, final double item, final long weight) {
     if (weight < dblSk.levelsArr[0]) {
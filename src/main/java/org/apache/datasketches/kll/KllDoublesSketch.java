@@ -30,6 +30,7 @@ import java.util.Objects;
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SuppressFBWarnings;
+import org.apache.datasketches.common.Util;
 import org.apache.datasketches.kll.KllDirectDoublesSketch.KllDirectCompactDoublesSketch;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.Memory;
@@ -47,6 +48,7 @@ import org.apache.datasketches.quantilescommon.QuantilesDoublesSketchIterator;
  */
 public abstract class KllDoublesSketch extends KllSketch implements QuantilesDoublesAPI {
   private KllDoublesSketchSortedView kllDoublesSV = null;
+  private final KllDoublesSortedViewCache sortedViewCache = new KllDoublesSortedViewCache();
   final static int ITEM_BYTES = Double.BYTES;
 
   KllDoublesSketch(
@@ -251,12 +253,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   public double[] getRanks(final double[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = kllDoublesSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return kllDoublesSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
@@ -264,6 +261,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
   public DoublesSortedView getSortedView() {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
+    sortedViewCache.release(); //the user's view must not change with later updates
     return kllDoublesSV;
   }
 
@@ -281,6 +279,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     if (othDblSk.isEmpty()) { return; } //then check empty
     KllDoublesHelper.mergeDoubleImpl(this, othDblSk);
     kllDoublesSV = null;
+    sortedViewCache.levelsChanged();
   }
 
   /**
@@ -300,6 +299,7 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     setMaxItem(Double.NaN);
     setDoubleItemsArray(new double[k]);
     kllDoublesSV = null;
+    sortedViewCache.levelsChanged();
   }
 
   @Override
@@ -340,6 +340,23 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
     kllDoublesSV = null;
   }
 
+  /**
+   * Vector update. Updates this sketch with the given range of items. NaNs are ignored.
+   * The result is the same as calling update(double) for each of the items, but the items are copied
+   * into level zero in chunks that fill its free space, so the compaction logic runs at most once per
+   * filled chunk. This is considerably faster for large arrays of items.
+   * @param items the given array of items.
+   * @param offset the index of the first item to update with.
+   * @param length the number of items to update with.
+   */
+  public void update(final double[] items, final int offset, final int length) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    Util.checkBounds(offset, length, items.length);
+    if (length == 0) { return; }
+    KllDoublesHelper.updateDouble(this, items, offset, length);
+    kllDoublesSV = null;
+  }
+
   //restricted
 
   /**
@@ -395,13 +412,22 @@ public abstract class KllDoublesSketch extends KllSketch implements QuantilesDou
 
   private final void refreshSortedView() {
     kllDoublesSV = (kllDoublesSV == null)
-        ? new KllDoublesSketchSortedView(this) : kllDoublesSV;
+        ? sortedViewCache.build(this) : kllDoublesSV;
+  }
+
+  /**
+   * Called when a compaction has changed the levels above level zero.
+   */
+  final void sortedViewLevelsChanged() {
+    sortedViewCache.levelsChanged();
   }
 
   abstract void setDoubleItemsArray(double[] doubleItems);
 
   abstract void setDoubleItemsArrayAt(int index, double item);
 
+  abstract void setDoubleItemsArrayAt(int dstIndex, double[] srcItems, int srcOffset, int length);
+
   abstract void setMaxItem(double item);
 
   abstract void setMinItem(double item);
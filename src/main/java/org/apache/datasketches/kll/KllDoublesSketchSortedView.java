@@ -31,6 +31,7 @@ import org.apache.datasketches.quantilescommon.DoublesSortedViewIterator;
 import org.apache.datasketches.quantilescommon.InequalitySearch;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.QuantilesUtil;
+import org.apache.datasketches.quantilescommon.SortedViewSearchIndex;
 
 /**
  * The SortedView of the KllDoublesSketch.
@@ -40,7 +41,9 @@ import org.apache.datasketches.quantilescommon.QuantilesUtil;
 public final class KllDoublesSketchSortedView implements DoublesSortedView {
   private final double[] quantiles;
   private final long[] cumWeights; //comes in as individual weights, converted to cumulative natural weights
+  private final int numQuantiles; //the arrays above may be longer if they are buffers reused by the sketch
   private final long totalN;
+  private SortedViewSearchIndex searchIndex = null; //optional, see buildSearchIndex()
   private final double maxItem;
   private final double minItem;
 
@@ -52,8 +55,21 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
    */
   KllDoublesSketchSortedView(final double[] quantiles, final long[] cumWeights, final long totalN,
       final double maxItem, final double minItem) {
+    this(quantiles, cumWeights, quantiles.length, totalN, maxItem, minItem);
+  }
+
+  /**
+   * Construct from the first numQuantiles elements of reusable buffers.
+   * @param quantiles sorted array of quantiles, which may be longer than numQuantiles
+   * @param cumWeights sorted, monotonically increasing cumulative weights, which may be longer than numQuantiles
+   * @param numQuantiles the number of valid quantiles and cumulative weights
+   * @param totalN the total number of items presented to the sketch.
+   */
+  KllDoublesSketchSortedView(final double[] quantiles, final long[] cumWeights, final int numQuantiles,
+      final long totalN, final double maxItem, final double minItem) {
     this.quantiles = quantiles;
     this.cumWeights  = cumWeights;
+    this.numQuantiles = numQuantiles;
     this.totalN = totalN;
     this.maxItem = maxItem;
     this.minItem = minItem;
@@ -77,15 +93,36 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
       if (!sketch.hasMemory()) { sketch.setLevelZeroSorted(true); }
     }
 
-    final int numQuantiles = srcLevels[srcNumLevels] - srcLevels[0]; //remove free space
+    numQuantiles = srcLevels[srcNumLevels] - srcLevels[0]; //remove free space
+    quantiles = new double[numQuantiles];
+    cumWeights = new long[numQuantiles];
+    populateFromSketch(srcQuantiles, srcLevels, srcNumLevels);
+  }
+
+  /**
+   * Constructs this Sorted View from a copy of the retained items of a sketch.
+   * Level zero of the given items must already be sorted.
+   * @param srcQuantiles the retained items of the sketch
+   * @param srcLevels the levels array of the given retained items
+   * @param srcNumLevels the number of levels
+   * @param totalN the total number of items presented to the sketch.
+   * @param maxItem the maximum item of the sketch
+   * @param minItem the minimum item of the sketch
+   */
+  KllDoublesSketchSortedView(final double[] srcQuantiles, final int[] srcLevels, final int srcNumLevels,
+      final long totalN, final double maxItem, final double minItem) {
+    this.totalN = totalN;
+    this.maxItem = maxItem;
+    this.minItem = minItem;
+    numQuantiles = srcLevels[srcNumLevels] - srcLevels[0];
     quantiles = new double[numQuantiles];
     cumWeights = new long[numQuantiles];
-    populateFromSketch(srcQuantiles, srcLevels, srcNumLevels, numQuantiles);
+    populateFromSketch(srcQuantiles, srcLevels, srcNumLevels);
   }
 
   @Override
   public long[] getCumulativeWeights() {
-    return cumWeights.clone();
+    return Arrays.copyOf(cumWeights, numQuantiles);
   }
 
   @Override
@@ -107,8 +144,9 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
   public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     QuantilesUtil.checkNormalizedRankBounds(rank);
-    final int len = cumWeights.length;
+    final int len = numQuantiles;
     final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    if (searchIndex != null) { return quantiles[searchIndex.getQuantileIndex(naturalRank, searchCrit)]; }
     final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.GE : InequalitySearch.GT;
     final int index = InequalitySearch.find(cumWeights, 0, len - 1, naturalRank, crit);
     if (index == -1) {
@@ -119,13 +157,14 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
 
   @Override
   public double[] getQuantiles() {
-    return quantiles.clone();
+    return Arrays.copyOf(quantiles, numQuantiles);
   }
 
   @Override
   public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
-    final int len = quantiles.length;
+    final int len = numQuantiles;
+    if (searchIndex != null) { return searchIndex.getRank(quantile, searchCrit); }
     final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
     final int index = InequalitySearch.find(quantiles,  0, len - 1, quantile, crit);
     if (index == -1) {
@@ -134,6 +173,33 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final double[] probes, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int len = numQuantiles;
+    if (QuantilesUtil.isMergeSearchCheaper(probes, len)) {
+      //the probes are sorted, so one pass over the retained quantiles finds all of them
+      return SortedViewSearchIndex.getRanksByMerge(quantiles, cumWeights, len, totalN, probes, searchCrit);
+    }
+    final double[] ranks = new double[probes.length];
+    for (int i = 0; i < probes.length; i++) {
+      ranks[i] = getRank(probes[i], searchCrit);
+    }
+    return ranks;
+  }
+
+  /**
+   * Attaches a cache-friendly search index over the quantiles and cumulative weights of this sorted view,
+   * which speeds up repeated calls of getRank and getQuantile. The index takes about as much space as
+   * this sorted view, so it is only worthwhile if the view is queried many times.
+   * Calling this more than once has no further effect.
+   * @see SortedViewSearchIndex
+   */
+  public void buildSearchIndex() {
+    if (isEmpty() || searchIndex != null) { return; }
+    searchIndex = new SortedViewSearchIndex(quantiles, cumWeights, numQuantiles, totalN);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
@@ -141,24 +207,43 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
 
   @Override
   public DoublesSortedViewIterator iterator() {
-    return new DoublesSortedViewIterator(quantiles, cumWeights);
+    if (numQuantiles == quantiles.length) { return new DoublesSortedViewIterator(quantiles, cumWeights); }
+    return new DoublesSortedViewIterator(getQuantiles(), getCumulativeWeights());
   }
 
   //restricted methods
 
-  private void populateFromSketch(final double[] srcQuantiles, final int[] srcLevels,
-    final int srcNumLevels, final int numItems) {
-    final int[] myLevels = new int[srcNumLevels + 1];
-    final int offset = srcLevels[0];
-    System.arraycopy(srcQuantiles, offset, quantiles, 0, numItems);
-    int srcLevel = 0;
+  private void populateFromSketch(final double[] srcQuantiles, final int[] srcLevels, final int srcNumLevels) {
+    mergeLevels(srcQuantiles, srcLevels, 0, srcNumLevels, quantiles, cumWeights);
+    KllHelper.convertToCumulative(cumWeights);
+  }
+
+  /**
+   * Merges the sorted levels in the range [fromLevel, toLevel) of the given retained items into the
+   * beginning of the destination arrays, together with the individual (not cumulative) weight of each item.
+   * Level zero, if included, must already be sorted.
+   * @param srcQuantiles the items array of the sketch
+   * @param srcLevels the levels array of the sketch
+   * @param fromLevel the lowest level to include
+   * @param toLevel one past the highest level to include
+   * @param dstQuantiles receives the merged items, must have room for all of them
+   * @param dstWeights receives the weights of the merged items, must have room for all of them
+   * @return the number of merged items
+   */
+  static int mergeLevels(final double[] srcQuantiles, final int[] srcLevels, final int fromLevel,
+      final int toLevel, final double[] dstQuantiles, final long[] dstWeights) {
+    final int offset = srcLevels[fromLevel];
+    final int numItems = srcLevels[toLevel] - offset;
+    final int[] myLevels = new int[toLevel - fromLevel + 1];
+    System.arraycopy(srcQuantiles, offset, dstQuantiles, 0, numItems);
+    int srcLevel = fromLevel;
     int dstLevel = 0;
-    long weight = 1;
-    while (srcLevel < srcNumLevels) {
+    long weight = 1L << fromLevel;
+    while (srcLevel < toLevel) {
       final int fromIndex = srcLevels[srcLevel] - offset;
       final int toIndex = srcLevels[srcLevel + 1] - offset; // exclusive
       if (fromIndex < toIndex) { // if equal, skip empty level
-        Arrays.fill(cumWeights, fromIndex, toIndex, weight);
+        Arrays.fill(dstWeights, fromIndex, toIndex, weight);
         myLevels[dstLevel] = fromIndex;
         myLevels[dstLevel + 1] = toIndex;
         dstLevel++;
@@ -167,17 +252,17 @@ public final class KllDoublesSketchSortedView implements DoublesSortedView {
       weight *= 2;
     }
     final int numLevels = dstLevel;
-    blockyTandemMergeSort(quantiles, cumWeights, myLevels, numLevels); //create unit weights
-    KllHelper.convertToCumulative(cumWeights);
+    blockyTandemMergeSort(dstQuantiles, dstWeights, numItems, myLevels, numLevels); //create unit weights
+    return numItems;
   }
 
   private static void blockyTandemMergeSort(final double[] quantiles, final long[] weights,
-      final int[] levels, final int numLevels) {
-    if (numLevels == 1) { return; }
+      final int numItems, final int[] levels, final int numLevels) {
+    if (numLevels <= 1) { return; }
 
     // duplicate the input in preparation for the "ping-pong" copy reduction strategy.
-    final double[] quantilesTmp = Arrays.copyOf(quantiles, quantiles.length);
-    final long[] weightsTmp = Arrays.copyOf(weights, quantiles.length); // don't need the extra one
+    final double[] quantilesTmp = Arrays.copyOf(quantiles, numItems);
+    final long[] weightsTmp = Arrays.copyOf(weights, numItems); // don't need the extra one
 
     blockyTandemMergeSortRecursion(quantilesTmp, weightsTmp, quantiles, weights, levels, 0, numLevels);
   }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * Maintains the sorted view of a KllDoublesSketch incrementally.
+ *
+ * <p>Between compactions an update only adds items to level zero, so the levels above it are kept
+ * here already merged, together with their weights. Rebuilding the sorted view then only sorts level zero
+ * and merges it with the cached levels in a single pass into reusable buffers.
+ * The cached levels are merged again only after a compaction, a merge or a reset.</p>
+ *
+ * <p>The buffers are handed over to the sorted view and reused by the next rebuild, unless the view has
+ * been given to the user by {@link KllDoublesSketch#getSortedView()}, in which case new buffers are
+ * allocated so that the user's view is never modified.</p>
+ */
+final class KllDoublesSortedViewCache {
+  private double[] upperQuantiles; //merged items of the levels above zero
+  private long[] upperWeights; //individual, not cumulative, weights of upperQuantiles
+  private int numUpper;
+  private boolean upperValid = false;
+  private double[] quantiles; //reusable buffers of the sorted view
+  private long[] cumWeights;
+
+  /**
+   * Marks the cached levels above zero as stale after they were changed by a compaction, merge or reset.
+   */
+  void levelsChanged() {
+    upperValid = false;
+  }
+
+  /**
+   * Stops reusing the buffers of the last sorted view because it was given to the user.
+   */
+  void release() {
+    quantiles = null;
+    cumWeights = null;
+  }
+
+  /**
+   * Builds the sorted view of the given sketch, merging the levels above zero only if they have changed.
+   * @param sketch the given KllDoublesSketch
+   * @return the sorted view of the given sketch
+   */
+  KllDoublesSketchSortedView build(final KllDoublesSketch sketch) {
+    if (sketch.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final double[] srcQuantiles = sketch.getDoubleItemsArray();
+    final int[] srcLevels = sketch.levelsArr;
+    final int srcNumLevels = sketch.getNumLevels();
+
+    if (!sketch.isLevelZeroSorted()) {
+      Arrays.sort(srcQuantiles, srcLevels[0], srcLevels[1]);
+      if (!sketch.hasMemory()) { sketch.setLevelZeroSorted(true); }
+    }
+
+    if (!upperValid) {
+      final int num = srcLevels[srcNumLevels] - srcLevels[1];
+      if (upperQuantiles == null || upperQuantiles.length < num) {
+        upperQuantiles = new double[num];
+        upperWeights = new long[num];
+      }
+      numUpper = KllDoublesSketchSortedView.mergeLevels(
+          srcQuantiles, srcLevels, 1, srcNumLevels, upperQuantiles, upperWeights);
+      upperValid = true;
+    }
+
+    final int numQuantiles = numUpper + (srcLevels[1] - srcLevels[0]);
+    if (quantiles == null || quantiles.length < numQuantiles) {
+      //the total capacity of the current levels bounds the number of retained items until a level is added
+      final int capacity = Math.max(numQuantiles, srcLevels[srcNumLevels]);
+      quantiles = new double[capacity];
+      cumWeights = new long[capacity];
+    }
+
+    //merge level zero, all of weight one, with the cached levels above it
+    int i0 = srcLevels[0];
+    final int end0 = srcLevels[1];
+    int iu = 0;
+    int iDst = 0;
+    long cumWeight = 0;
+    while (i0 < end0 && iu < numUpper) {
+      if (srcQuantiles[i0] < upperQuantiles[iu]) {
+        quantiles[iDst] = srcQuantiles[i0++];
+        cumWeight++;
+      } else {
+        quantiles[iDst] = upperQuantiles[iu];
+        cumWeight += upperWeights[iu++];
+      }
+      cumWeights[iDst++] = cumWeight;
+    }
+    while (i0 < end0) {
+      quantiles[iDst] = srcQuantiles[i0++];
+      cumWeights[iDst++] = ++cumWeight;
+    }
+    while (iu < numUpper) {
+      quantiles[iDst] = upperQuantiles[iu];
+      cumWeight += upperWeights[iu++];
+      cumWeights[iDst++] = cumWeight;
+    }
+    return new KllDoublesSketchSortedView(quantiles, cumWeights, numQuantiles,
+        sketch.getN(), sketch.getMaxItem(), sketch.getMinItem());
+  }
+
+}
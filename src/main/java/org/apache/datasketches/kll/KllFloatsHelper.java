@@ -330,6 +330,51 @@ final class KllFloatsHelper {
     fltSk.setFloatItemsArrayAt(nextPos, item);
   }
 
+  //Called from KllFloatsSketch::update with an array of items
+  static void updateFloat(final KllFloatsSketch fltSk, final float[] items, final int offset, final int length) {
+    final int end = offset + length;
+    float[] chunk = new float[0];
+    int i = offset;
+    while (i < end) {
+      //skip NaNs before compacting, since a single update of a NaN does not compact a full level 0
+      while ((i < end) && Float.isNaN(items[i])) { i++; }
+      if (i == end) { break; }
+      int freeSpace = fltSk.levelsArr[0];
+      assert (freeSpace >= 0);
+      if (freeSpace == 0) {
+        compressWhileUpdatingSketch(fltSk);
+        freeSpace = fltSk.levelsArr[0];
+        assert (freeSpace > 0);
+      }
+      //gather up to freeSpace non-NaN items in the same order that single updates would place them
+      final int maxCount = min(freeSpace, end - i);
+      if (chunk.length < maxCount) { chunk = new float[maxCount]; }
+      float chunkMin = Float.NaN;
+      float chunkMax = Float.NaN;
+      int count = 0;
+      while ((count < maxCount) && (i < end)) {
+        final float item = items[i++];
+        if (Float.isNaN(item)) { continue; }
+        chunk[maxCount - 1 - count++] = item;
+        chunkMin = (count == 1) ? item : min(chunkMin, item);
+        chunkMax = (count == 1) ? item : max(chunkMax, item);
+      }
+      if (count == 0) { break; }
+      if (fltSk.isEmpty()) {
+        fltSk.setMinItem(chunkMin);
+        fltSk.setMaxItem(chunkMax);
+      } else {
+        fltSk.setMinItem(min(fltSk.getMinItem(), chunkMin));
+        fltSk.setMaxItem(max(fltSk.getMaxItem(), chunkMax));
+      }
+      fltSk.setN(fltSk.getN() + count);
+      fltSk.setLevelZeroSorted(false);
+      final int nextPos = freeSpace - count;
+      fltSk.setLevelsArrayAt(0, nextPos);
+      fltSk.setFloatItemsArrayAt(nextPos, chunk, maxCount - count, count);
+    }
+  }
+
   //Called from KllFloatsSketch::update with weight
   static void updateFloat(final KllFloatsSketch fltSk, final float item, final long weight) {
     if (weight < fltSk.levelsArr[0]) {
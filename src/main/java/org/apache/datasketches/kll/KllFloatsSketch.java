@@ -30,6 +30,7 @@ import java.util.Objects;
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SuppressFBWarnings;
+import org.apache.datasketches.common.Util;
 import org.apache.datasketches.kll.KllDirectFloatsSketch.KllDirectCompactFloatsSketch;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.Memory;
@@ -251,12 +252,7 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
   public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = kllFloatsSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return kllFloatsSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
@@ -340,6 +336,23 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
     kllFloatsSV = null;
   }
 
+  /**
+   * Vector update. Updates this sketch with the given range of items. NaNs are ignored.
+   * The result is the same as calling update(float) for each of the items, but the items are copied
+   * into level zero in chunks that fill its free space, so the compaction logic runs at most once per
+   * filled chunk. This is considerably faster for large arrays of items.
+   * @param items the given array of items.
+   * @param offset the index of the first item to update with.
+   * @param length the number of items to update with.
+   */
+  public void update(final float[] items, final int offset, final int length) {
+    if (readOnly) { throw new SketchesArgumentException(TGT_IS_READ_ONLY_MSG); }
+    Util.checkBounds(offset, length, items.length);
+    if (length == 0) { return; }
+    KllFloatsHelper.updateFloat(this, items, offset, length);
+    kllFloatsSV = null;
+  }
+
   //restricted
 
   /**
@@ -402,6 +415,8 @@ public abstract class KllFloatsSketch extends KllSketch implements QuantilesFloa
 
   abstract void setFloatItemsArrayAt(int index, float item);
 
+  abstract void setFloatItemsArrayAt(int dstIndex, float[] srcItems, int srcOffset, int length);
+
   abstract void setMaxItem(float item);
 
   abstract void setMinItem(float item);
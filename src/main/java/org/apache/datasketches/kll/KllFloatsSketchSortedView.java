@@ -31,6 +31,7 @@ import org.apache.datasketches.quantilescommon.FloatsSortedViewIterator;
 import org.apache.datasketches.quantilescommon.InequalitySearch;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
 import org.apache.datasketches.quantilescommon.QuantilesUtil;
+import org.apache.datasketches.quantilescommon.SortedViewSearchIndex;
 
 /**
  * The SortedView of the KllFloatsSketch.
@@ -41,6 +42,7 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
   private final float[] quantiles;
   private final long[] cumWeights; //comes in as individual weights, converted to cumulative natural weights
   private final long totalN;
+  private SortedViewSearchIndex searchIndex = null; //optional, see buildSearchIndex()
   private final float maxItem;
   private final float minItem;
 
@@ -109,6 +111,7 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
     QuantilesUtil.checkNormalizedRankBounds(rank);
     final int len = cumWeights.length;
     final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    if (searchIndex != null) { return quantiles[searchIndex.getQuantileIndex(naturalRank, searchCrit)]; }
     final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.GE : InequalitySearch.GT;
     final int index = InequalitySearch.find(cumWeights, 0, len - 1, naturalRank, crit);
     if (index == -1) {
@@ -126,6 +129,7 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
   public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
     final int len = quantiles.length;
+    if (searchIndex != null) { return searchIndex.getRank(quantile, searchCrit); }
     final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
     final int index = InequalitySearch.find(quantiles,  0, len - 1, quantile, crit);
     if (index == -1) {
@@ -134,6 +138,33 @@ public final class KllFloatsSketchSortedView implements FloatsSortedView {
     return (double)cumWeights[index] / totalN;
   }
 
+  @Override
+  public double[] getRanks(final float[] probes, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int len = quantiles.length;
+    if (QuantilesUtil.isMergeSearchCheaper(probes, len)) {
+      //the probes are sorted, so one pass over the retained quantiles finds all of them
+      return SortedViewSearchIndex.getRanksByMerge(quantiles, cumWeights, len, totalN, probes, searchCrit);
+    }
+    final double[] ranks = new double[probes.length];
+    for (int i = 0; i < probes.length; i++) {
+      ranks[i] = getRank(probes[i], searchCrit);
+    }
+    return ranks;
+  }
+
+  /**
+   * Attaches a cache-friendly search index over the quantiles and cumulative weights of this sorted view,
+   * which speeds up repeated calls of getRank and getQuantile. The index takes about as much space as
+   * this sorted view, so it is only worthwhile if the view is queried many times.
+   * Calling this more than once has no further effect.
+   * @see SortedViewSearchIndex
+   */
+  public void buildSearchIndex() {
+    if (isEmpty() || searchIndex != null) { return; }
+    searchIndex = new SortedViewSearchIndex(quantiles, cumWeights, quantiles.length, totalN);
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
@@ -271,6 +271,11 @@ final class KllHeapDoublesSketch extends KllDoublesSketch {
   @Override
   void setDoubleItemsArrayAt(final int index, final double item) { this.doubleItems[index] = item; }
 
+  @Override
+  void setDoubleItemsArrayAt(final int dstIndex, final double[] srcItems, final int srcOffset, final int length) {
+    System.arraycopy(srcItems, srcOffset, doubleItems, dstIndex, length);
+  }
+
   @Override
   void setLevelZeroSorted(final boolean sorted) { this.isLevelZeroSorted = sorted; }
 
@@ -271,6 +271,11 @@ final class KllHeapFloatsSketch extends KllFloatsSketch {
   @Override
   void setFloatItemsArrayAt(final int index, final float item) { this.floatItems[index] = item; }
 
+  @Override
+  void setFloatItemsArrayAt(final int dstIndex, final float[] srcItems, final int srcOffset, final int length) {
+    System.arraycopy(srcItems, srcOffset, floatItems, dstIndex, length);
+  }
+
   @Override
   void setLevelZeroSorted(final boolean sorted) { this.isLevelZeroSorted = sorted; }
 
@@ -140,8 +140,21 @@ final class KllHeapItemsSketch<T> extends KllItemsSketch<T> {
       final int numRetained = levelsArr[memVal.numLevels] - levelsArr[0];
       final Object[] retItems = serDe.deserializeFromMemory(srcMem, offset, numRetained);
       System.arraycopy(retItems, 0, itemsArr, levelsArr[0], numRetained);
-    } else { //memStruct == UPDATABLE
-      throw new SketchesArgumentException(UNSUPPORTED_MSG + "UPDATABLE");
+    } else { //memStruct == UPDATABLE, which requires a fixed item size
+      final int itemBytes = serDe.getFixedItemBytes();
+      int offset = DATA_START_ADR + (memVal.numLevels + 1) * Integer.BYTES;
+      if (n == 0) {
+        this.minItem = null;
+        this.maxItem = null;
+      } else {
+        this.minItem = serDe.deserializeFromMemory(srcMem, offset, 1)[0];
+        this.maxItem = serDe.deserializeFromMemory(srcMem, offset + itemBytes, 1)[0];
+      }
+      offset += 2 * itemBytes;
+      final int numRetained = levelsArr[memVal.numLevels] - levelsArr[0];
+      final Object[] retItems =
+          serDe.deserializeFromMemory(srcMem, offset + (long)levelsArr[0] * itemBytes, numRetained);
+      System.arraycopy(retItems, 0, itemsArr, levelsArr[0], numRetained);
     }
   }
 
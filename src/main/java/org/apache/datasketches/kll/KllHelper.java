@@ -321,7 +321,7 @@ final class KllHelper {
   }
 
   /**
-   * This method is for direct Double and Float sketches only and does the following:
+   * This method is for direct Double, Float and fixed size Items sketches and does the following:
    * <ul>
    * <li>Determines if the required sketch bytes will fit in the current Memory.
    * If so, it will stretch the positioning of the arrays to fit. Otherwise:
@@ -340,11 +340,12 @@ final class KllHelper {
       final int newLevelsArrLen,
       final int newItemsArrLen) {
     final KllSketch.SketchType sketchType = sketch.sketchType;
-    if (sketchType == ITEMS_SKETCH) { throw new SketchesArgumentException(UNSUPPORTED_MSG); }
     final WritableMemory wmem = sketch.getWritableMemory();
     if (wmem == null) { return null; }
     final WritableMemory oldWmem = wmem;
-    final int typeBytes = sketchType.getBytes();
+    final int typeBytes = (sketchType == ITEMS_SKETCH)
+        ? KllDirectItemsSketch.checkFixedItemBytes(sketch.getSerDe())
+        : sketchType.getBytes();
     final int requiredSketchBytes =  DATA_START_ADR
       + newLevelsArrLen * Integer.BYTES
       + 2 * typeBytes
@@ -32,6 +32,7 @@ import java.util.Comparator;
 import java.util.Random;
 
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.memory.WritableMemory;
 
 /**
  * Static methods to support KllItemsSketch
@@ -211,11 +212,11 @@ final class KllItemsHelper {
       }
 
       //MEMORY SPACE MANAGEMENT
-      //not used
-      //extra spaces to make comparison with other helpers easier
-      //
-      //
-      //
+      if (mySketch.getWritableMemory() != null) {
+        final WritableMemory wmem =
+            KllHelper.memorySpaceMgmt(mySketch, myNewLevelsArr.length, myNewItemsArr.length);
+        mySketch.setWritableMemory(wmem);
+      }
     } //end of updating levels above level 0
 
     //Update Preamble:
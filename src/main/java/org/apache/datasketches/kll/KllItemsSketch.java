@@ -32,6 +32,7 @@ import java.util.Objects;
 import org.apache.datasketches.common.ArrayOfItemsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
@@ -102,10 +103,57 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
     return new KllHeapItemsSketch<>(k, DEFAULT_M, comparator, serDe);
   }
 
+  //Factories for new direct instances.
+
+  /**
+   * Create a new direct updatable instance of this sketch with the default <em>k</em>.
+   * The items are kept serialized in the given WritableMemory, which requires a SerDe with a
+   * fixed serialized item size, see {@link ArrayOfItemsSerDe#getFixedItemBytes()}.
+   * The default <em>k</em> = 200 results in a normalized rank error of about
+   * 1.65%. Larger <em>k</em> will have smaller error but the sketch will be larger (and slower).
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer with a fixed serialized item size.
+   * @param <T> The sketch data type
+   * @return a new direct instance of this sketch
+   */
+  public static <T> KllItemsSketch<T> newDirectInstance(
+      final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe) {
+    return newDirectInstance(DEFAULT_K, dstMem, memReqSvr, comparator, serDe);
+  }
+
+  /**
+   * Create a new direct updatable instance of this sketch with a given <em>k</em>.
+   * The items are kept serialized in the given WritableMemory, which requires a SerDe with a
+   * fixed serialized item size, see {@link ArrayOfItemsSerDe#getFixedItemBytes()}.
+   * @param k parameter that controls size of the sketch and accuracy of estimates.
+   * @param dstMem the given destination WritableMemory object for use by the sketch
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer with a fixed serialized item size.
+   * @param <T> The sketch data type
+   * @return a new direct instance of this sketch
+   */
+  public static <T> KllItemsSketch<T> newDirectInstance(
+      final int k,
+      final WritableMemory dstMem,
+      final MemoryRequestServer memReqSvr,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe) {
+    Objects.requireNonNull(dstMem, "Parameter 'dstMem' must not be null");
+    Objects.requireNonNull(memReqSvr, "Parameter 'memReqSvr' must not be null");
+    return KllDirectItemsSketch.newDirectUpdatableInstance(k, DEFAULT_M, dstMem, memReqSvr, comparator, serDe);
+  }
+
   // Factory to create an heap instance from a Memory image
 
   /**
    * Factory heapify takes a compact sketch image in Memory and instantiates an on-heap sketch.
+   * An updatable image created by a direct instance of this sketch is also accepted.
    * The resulting sketch will not retain any link to the source Memory.
    * @param srcMem a compact Memory image of a sketch serialized by this sketch and of the same type of T.
    * @param comparator to compare items
@@ -128,7 +176,8 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
    * A reference to the Memory is kept in the sketch and must remain in scope consistent
    * with the temporal scope of this sketch. The amount of data kept on the heap is very small.
    * All of the item data originally collected by the given Memory sketch object remains in the
-   * Memory object
+   * Memory object. If the given Memory holds an updatable image created by a direct instance of this
+   * sketch, the returned sketch is updatable only if the given Memory is writable.
    * @param srcMem the Memory object that this sketch will wrap.
    * @param comparator to compare items
    * @param serDe Serializer / deserializer for items of type <i>T</i> and <i>T[]</i>.
@@ -140,6 +189,37 @@ public abstract class KllItemsSketch<T> extends KllSketch implements QuantilesGe
       final Comparator<? super T> comparator,
       final ArrayOfItemsSerDe<T> serDe) {
     final KllMemoryValidate memVal = new KllMemoryValidate(srcMem, SketchType.ITEMS_SKETCH, serDe);
+    if (memVal.sketchStructure == UPDATABLE) {
+      final MemoryRequestServer memReqSvr = new DefaultMemoryRequestServer(); //dummy
+      return new KllDirectItemsSketch<>((WritableMemory)srcMem, memReqSvr, memVal, comparator, serDe);
+    }
+    return new KllDirectCompactItemsSketch<>(memVal, comparator, serDe);
+  }
+
+  //Factory to wrap a WritableMemory image
+
+  /**
+   * Wrap a sketch around the given source WritableMemory containing sketch data
+   * that originated from this sketch. If the image is in updatable form, the returned sketch
+   * updates the items in place, otherwise the returned sketch is read only.
+   * @param srcMem a WritableMemory that contains data.
+   * @param memReqSvr the given MemoryRequestServer to request a larger WritableMemory
+   * @param comparator to compare items
+   * @param serDe Serializer / deserializer for items of type <i>T</i> and <i>T[]</i>.
+   * @param <T> The sketch data type
+   * @return instance of this sketch
+   */
+  public static <T> KllItemsSketch<T> writableWrap(
+      final WritableMemory srcMem,
+      final MemoryRequestServer memReqSvr,
+      final Comparator<? super T> comparator,
+      final ArrayOfItemsSerDe<T> serDe) {
+    Objects.requireNonNull(srcMem, "Parameter 'srcMem' must not be null");
+    Objects.requireNonNull(memReqSvr, "Parameter 'memReqSvr' must not be null");
+    final KllMemoryValidate memVal = new KllMemoryValidate(srcMem, SketchType.ITEMS_SKETCH, serDe);
+    if (memVal.sketchStructure == UPDATABLE) {
+      return new KllDirectItemsSketch<>(srcMem, memReqSvr, memVal, comparator, serDe);
+    }
     return new KllDirectCompactItemsSketch<>(memVal, comparator, serDe);
   }
 
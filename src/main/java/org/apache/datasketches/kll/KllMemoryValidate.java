@@ -176,7 +176,10 @@ final class KllMemoryValidate {
 
     int offsetBytes = DATA_START_ADR + levelsLen * Integer.BYTES;
     if (sketchType == ITEMS_SKETCH) {
-      if (serDe instanceof ArrayOfBooleansSerDe) {
+      if (updatable) { //only fixed size items can be updatable
+        final int itemBytes = KllDirectItemsSketch.checkFixedItemBytes(serDe);
+        offsetBytes += (numItems + 2) * itemBytes; //2 for min & max
+      } else if (serDe instanceof ArrayOfBooleansSerDe) {
         offsetBytes += serDe.sizeOf(srcMem, offsetBytes, numItems) + 2; //2 for min & max
       } else {
         offsetBytes += serDe.sizeOf(srcMem, offsetBytes, numItems + 2); //2 for min & max
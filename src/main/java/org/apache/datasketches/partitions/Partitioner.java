@@ -35,9 +35,18 @@ import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.quantilescommon.GenericInequalitySearch;
+import org.apache.datasketches.quantilescommon.GenericInequalitySearch.Inequality;
 import org.apache.datasketches.quantilescommon.GenericPartitionBoundaries;
 import org.apache.datasketches.quantilescommon.PartitioningFeature;
 import org.apache.datasketches.quantilescommon.QuantileSearchCriteria;
@@ -52,6 +61,15 @@ import org.apache.datasketches.quantilescommon.QuantilesGenericAPI;
  * a data set of 1 billion items into 324 partitions of size 3M items completed in under 3 minutes, which was
  * performed on a single CPU. For much larger partitioning tasks, it is recommended that this code be leveraged into a
  * parallelized systems environment.</p>
+ *
+ * <p>The sketch fills of each level are independent of each other, so they can also be run concurrently on a
+ * single machine with {@link #partitionParallel(QuantilesGenericAPI, Executor)}. The resulting partition list is
+ * identical to the one produced by {@link #partition(QuantilesGenericAPI)}.</p>
+ *
+ * <p>Both of these modes make one pass over the source data set for every sketch fill. For very large data sets
+ * {@link #partitionSinglePass(QuantilesGenericAPI, SketchScanRequest)} fills all the sketches of the second level
+ * in a single scan, so the whole job takes two scans of the data set, including the scan that filled the sketch of
+ * the entire data set, whatever the number of partitions.</p>
  * @param <T> the data type
  * @param <S> the quantiles sketch that implements both QuantilesGenericAPI and PartitioningFeature.
  */
@@ -66,6 +84,8 @@ public class Partitioner<T, S extends QuantilesGenericAPI<T> & PartitioningFeatu
   //computed once at the beginning
   private int numLevels;
   private int partitionsPerSk;
+  //elapsed time of computing the partition boundaries of each level, including the sketch fills
+  private long[] levelTimesNanos = new long[0];
   //output
   private final List<PartitionBoundsRow<T>> finalPartitionList = new ArrayList<>();
 
@@ -111,17 +131,195 @@ public class Partitioner<T, S extends QuantilesGenericAPI<T> & PartitioningFeatu
    * @return the final partitioning list
    */
   public List<PartitionBoundsRow<T>> partition(final S sk) {
+    final StackElement<T> se = init(sk);
+    stack.push(se);
+    partitionSearch(stack);
+    return unmodifiableList(finalPartitionList);
+  }
+
+  /**
+   * This initiates the partitioning process in parallel mode, using the common ForkJoinPool.
+   * @param sk A sketch of the entire data set.
+   * @return the final partitioning list
+   * @see #partitionParallel(QuantilesGenericAPI, Executor)
+   */
+  public List<PartitionBoundsRow<T>> partitionParallel(final S sk) {
+    return partitionParallel(sk, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * This initiates the partitioning process in parallel mode.
+   * The partitioning proceeds one level at a time. All the sketch fills of a level are submitted to the given
+   * executor and run concurrently, and the next level starts when they have all completed. The resulting partition
+   * list is in the same order as the one returned by {@link #partition(QuantilesGenericAPI)}.
+   *
+   * <p>In this mode the SketchFillRequest may be called concurrently from several threads, so it must be
+   * thread-safe. If a fill fails, the exception is rethrown from this method.</p>
+   * @param sk A sketch of the entire data set.
+   * @param executor the executor that runs the sketch fills of each level.
+   * @return the final partitioning list
+   */
+  public List<PartitionBoundsRow<T>> partitionParallel(final S sk, final Executor executor) {
+    Objects.requireNonNull(executor, "executor must not be null");
+    List<StackElement<T>> levelElements = Collections.singletonList(init(sk));
+    for (int level = 2; level <= numLevels; level++) {
+      final long startNanos = System.nanoTime();
+      final List<CompletableFuture<StackElement<T>>> fills = new ArrayList<>();
+      for (final StackElement<T> se : levelElements) {
+        final int numParts = se.gpb.getNumPartitions();
+        for (int part = 1; part <= numParts; part++) {
+          final StackElement<T> parent = new StackElement<>(se.gpb, part, se.levelPartId);
+          final int childLevel = level;
+          fills.add(CompletableFuture.supplyAsync(() -> fill(parent, childLevel), executor));
+        }
+      }
+      final List<StackElement<T>> nextElements = new ArrayList<>(fills.size());
+      for (final CompletableFuture<StackElement<T>> fill : fills) {
+        nextElements.add(join(fill));
+      }
+      levelElements = nextElements;
+      levelTimesNanos[level - 1] = System.nanoTime() - startNanos;
+    }
+    for (final StackElement<T> se : levelElements) { //at max level
+      addFinalRows(se);
+    }
+    return unmodifiableList(finalPartitionList);
+  }
+
+  /**
+   * This initiates the partitioning process in single-pass mode.
+   * The given sketch of the entire data set is partitioned into at most <i>maxPartsPerSk</i> top-level partitions.
+   * A single scan of the data set then fills one sketch per top-level partition at the same time. Each item is routed
+   * to the sketch of its top-level partition by a binary search of the top-level partition boundaries, which
+   * respects the same bounds rules as the rows of those partitions. Finally, each of these sketches is partitioned
+   * into as many partitions as required to reach the target partition size.
+   *
+   * <p>The number of levels is at most two, and at most <i>maxPartsPerSk</i> sketches are held in memory.
+   * Because the second level is not limited to <i>maxPartsPerSk</i> partitions, the variance of the resulting
+   * partition sizes can be larger than with the multi-pass modes when the number of partitions is very large.
+   * Top-level partitions that receive no items produce no rows.</p>
+   * @param sk A sketch of the entire data set.
+   * @param scanReq the callback request to scan the entire data set.
+   * @return the final partitioning list
+   */
+  public List<PartitionBoundsRow<T>> partitionSinglePass(final S sk, final SketchScanRequest<T, S> scanReq) {
+    Objects.requireNonNull(scanReq, "scanReq must not be null");
+    if (sk.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final long startNanos = System.nanoTime();
+    final double guessNumParts = max(1.0, ceil((double)sk.getN() / tgtPartitionSize));
+    this.numLevels = (guessNumParts <= maxPartsPerSk) ? 1 : 2;
+    this.partitionsPerSk = (int)min(guessNumParts, maxPartsPerSk);
+    final GenericPartitionBoundaries<T> gpb = sk.getPartitionBoundaries(partitionsPerSk, criteria);
+    final StackElement<T> top = new StackElement<>(gpb, 0, "1");
+    this.levelTimesNanos = new long[numLevels];
+    levelTimesNanos[0] = System.nanoTime() - startNanos;
+    if (numLevels == 1) {
+      addFinalRows(top);
+      return unmodifiableList(finalPartitionList);
+    }
+
+    final long scanStartNanos = System.nanoTime();
+    final int numParts = gpb.getNumPartitions();
+    final T[] boundaries = gpb.getBoundaries();
+    final Comparator<T> comparator = scanReq.getComparator();
+    final List<S> sketches = new ArrayList<>(numParts);
+    for (int part = 1; part <= numParts; part++) { sketches.add(scanReq.newSketch()); }
+    scanReq.scan(item -> sketches.get(findPart(boundaries, numParts, item, comparator) - 1).update(item));
+
+    final int subPartsPerSk = (int)ceil(guessNumParts / numParts);
+    for (int part = 1; part <= numParts; part++) {
+      final S subSk = sketches.get(part - 1);
+      if (subSk.isEmpty()) { continue; }
+      final GenericPartitionBoundaries<T> gpb2 = subSk.getPartitionBoundaries(subPartsPerSk, criteria);
+      addFinalRows(new StackElement<>(gpb2, 0, top.levelPartId + "." + part + ",2"));
+    }
+    levelTimesNanos[1] = System.nanoTime() - scanStartNanos;
+    return unmodifiableList(finalPartitionList);
+  }
+
+  /**
+   * Finds the top-level partition of the given item, consistent with the bounds rules of PartitionBoundsRow.
+   * With INCLUSIVE boundaries, part <i>j</i> holds the items in (boundaries[j-1], boundaries[j]].
+   * With EXCLUSIVE boundaries, part <i>j</i> holds the items in [boundaries[j-1], boundaries[j]).
+   * Items outside the range of the boundaries go to the first or last part.
+   * @param boundaries the partition boundaries, including the min and max items.
+   * @param numParts the number of partitions.
+   * @param item the given item.
+   * @param comparator the comparator of the items.
+   * @return the one-based index of the partition of the given item.
+   */
+  private int findPart(final T[] boundaries, final int numParts, final T item, final Comparator<T> comparator) {
+    if (criteria == INCLUSIVE) {
+      final int idx = GenericInequalitySearch.find(boundaries, 1, numParts, item, Inequality.GE, comparator);
+      return (idx == -1) ? numParts : idx;
+    }
+    final int idx = GenericInequalitySearch.find(boundaries, 0, numParts - 1, item, Inequality.LE, comparator);
+    return (idx == -1) ? 1 : idx + 1;
+  }
+
+  private void addFinalRows(final StackElement<T> se) {
+    final int numParts = se.gpb.getNumPartitions();
+    while (++se.part <= numParts) {
+      finalPartitionList.add(new PartitionBoundsRow<>(se));
+    }
+  }
+
+  /**
+   * Gets the number of levels of the last partitioning.
+   * @return the number of levels of the last partitioning.
+   */
+  public int getNumLevels() {
+    return numLevels;
+  }
+
+  /**
+   * Gets the elapsed time of each level of the last partitioning, in nanoseconds. Entry <i>i</i> is the time spent
+   * filling the sketches of level <i>i + 1</i> and computing their partition boundaries. Entry zero covers only the
+   * partition boundaries of the given sketch of the entire data set.
+   * In the sequential mode this is the sum of the times of the individual fills.
+   * @return the elapsed time of each level of the last partitioning, in nanoseconds.
+   */
+  public long[] getLevelTimesNanos() {
+    return levelTimesNanos.clone();
+  }
+
+  private StackElement<T> init(final S sk) {
     if (sk.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final long startNanos = System.nanoTime();
     final long inputN = sk.getN();
     final double guessNumParts = max(1.0, ceil((double)inputN / tgtPartitionSize));
     this.numLevels = (int)max(1, ceil(log(guessNumParts) / log(maxPartsPerSk)));
     final int partsPerSk = (int)round(pow(guessNumParts, 1.0 / numLevels));
     this.partitionsPerSk = min(partsPerSk, maxPartsPerSk);
     final GenericPartitionBoundaries<T> gpb = sk.getPartitionBoundaries(partitionsPerSk, criteria);
-    final StackElement<T> se = new StackElement<>(gpb, 0, "1");
-    stack.push(se);
-    partitionSearch(stack);
-    return unmodifiableList(finalPartitionList);
+    this.levelTimesNanos = new long[numLevels];
+    levelTimesNanos[0] = System.nanoTime() - startNanos;
+    return new StackElement<>(gpb, 0, "1");
+  }
+
+  /**
+   * Fills the sketch of the current part of the given stack element and computes its partition boundaries.
+   * @param se the parent stack element, positioned at the part to fill.
+   * @param level the level of the resulting stack element.
+   * @return the stack element of the filled part.
+   */
+  private StackElement<T> fill(final StackElement<T> se, final int level) {
+    final PartitionBoundsRow<T> row = new PartitionBoundsRow<>(se);
+    final S sk = fillReq.getRange(row.lowerBound, row.upperBound, row.rule);
+    final GenericPartitionBoundaries<T> gpb2 = sk.getPartitionBoundaries(this.partitionsPerSk, criteria);
+    final String partId = se.levelPartId + "." + se.part + "," + level;
+    return new StackElement<>(gpb2, 0, partId);
+  }
+
+  private static <E> E join(final CompletableFuture<E> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+      if (cause instanceof Error) { throw (Error) cause; }
+      throw e;
+    }
   }
 
   private void partitionSearch(final ArrayDeque<StackElement<T>> stack) {
@@ -142,12 +340,10 @@ public class Partitioner<T, S extends QuantilesGenericAPI<T> & PartitioningFeatu
     }
     else { //not at max level
       if (++se.part <= numParts) {
-        final PartitionBoundsRow<T> row = new PartitionBoundsRow<>(se);
-        final S sk = fillReq.getRange(row.lowerBound, row.upperBound, row.rule);
-        final GenericPartitionBoundaries<T> gpb2 = sk.getPartitionBoundaries(this.partitionsPerSk, criteria);
         final int level = stack.size() + 1;
-        final String partId = se.levelPartId + "." + se.part + "," + level;
-        final StackElement<T> se2 = new StackElement<>(gpb2, 0, partId);
+        final long startNanos = System.nanoTime();
+        final StackElement<T> se2 = fill(se, level);
+        levelTimesNanos[level - 1] += System.nanoTime() - startNanos;
         stack.push(se2);
         partitionSearch(stack);
       }
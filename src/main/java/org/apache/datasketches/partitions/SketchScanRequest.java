@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.partitions;
+
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+import org.apache.datasketches.quantilescommon.PartitioningFeature;
+import org.apache.datasketches.quantilescommon.QuantilesGenericAPI;
+
+/**
+ * This is a callback request to the data source to scan the entire data set once, used by the single-pass
+ * partitioning mode of the {@link Partitioner}. Instead of filling one sketch per requested range, the data source
+ * passes every item to a consumer, which routes it to the sketch of the partition that the item belongs to.
+ *
+ * @param <T> the data type
+ * @param <S> the quantiles sketch that implements both QuantilesGenericAPI and PartitioningFeature.
+ */
+public interface SketchScanRequest<T, S extends QuantilesGenericAPI<T> & PartitioningFeature<T>> {
+
+  /**
+   * Returns a new, empty quantiles sketch, which is filled with the items of one partition.
+   * @return a new, empty quantiles sketch.
+   */
+  public S newSketch();
+
+  /**
+   * Returns the comparator of the items, which must be the same as the comparator of the sketches.
+   * @return the comparator of the items.
+   */
+  public Comparator<T> getComparator();
+
+  /**
+   * This is a callback request to the data source to pass every item of the entire data set to the given consumer,
+   * in any order. The consumer is not thread-safe.
+   * @param consumer the consumer of the items.
+   */
+  public void scan(final Consumer<T> consumer);
+
+}
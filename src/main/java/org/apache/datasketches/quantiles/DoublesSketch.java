@@ -246,12 +246,7 @@ public abstract class DoublesSketch implements QuantilesDoublesAPI {
   public double[] getRanks(final double[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int len = quantiles.length;
-    final double[] ranks = new double[len];
-    for (int i = 0; i < len; i++) {
-      ranks[i] = classicQdsSV.getRank(quantiles[i], searchCrit);
-    }
-    return ranks;
+    return classicQdsSV.getRanks(quantiles, searchCrit);
   }
 
   @Override
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.MAX_DOUBLE;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.MIN_ITEM;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.N_LONG;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.PREAMBLE_BYTES;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.TYPE_DOUBLES;
+
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A read-only DoublesSortedView that answers queries directly from its serialized form in Memory,
+ * without copying the quantiles or cumulative weights to the heap.
+ *
+ * <p>The serialized form is created once from any DoublesSortedView by {@link #toByteArray(DoublesSortedView)},
+ * for example when the sketch is written, and can later be served from a memory mapped file with
+ * {@link #wrap(Memory)}, saving the cost of rebuilding the sorted view from the sketch for each query.</p>
+ */
+public final class DirectDoublesSortedView implements DoublesSortedView {
+  private final Memory mem;
+  private final int numQuantiles;
+  private final long totalN;
+  private final long cumWeightsOffset;
+
+  private DirectDoublesSortedView(final Memory mem, final int numQuantiles) {
+    this.mem = mem;
+    this.numQuantiles = numQuantiles;
+    this.totalN = mem.getLong(N_LONG);
+    this.cumWeightsOffset = PREAMBLE_BYTES + ((long) numQuantiles << 3);
+  }
+
+  /**
+   * Wraps the given Memory, which must contain a serialized DoublesSortedView.
+   * @param mem the given Memory, which may be read-only
+   * @return a read-only sorted view backed by the given Memory
+   */
+  public static DirectDoublesSortedView wrap(final Memory mem) {
+    Objects.requireNonNull(mem, "Memory must not be null");
+    final int numQuantiles = SortedViewSerDe.checkPreamble(mem, TYPE_DOUBLES);
+    SortedViewSerDe.checkCapacity(mem, getSerializedSizeBytes(numQuantiles));
+    return new DirectDoublesSortedView(mem, numQuantiles);
+  }
+
+  /**
+   * Serializes the given sorted view into the format read by {@link #wrap(Memory)}.
+   * @param sv the given DoublesSortedView
+   * @return the serialized sorted view
+   */
+  public static byte[] toByteArray(final DoublesSortedView sv) {
+    final boolean empty = sv.isEmpty();
+    final double[] quantiles = empty ? new double[0] : sv.getQuantiles();
+    final long[] cumWeights = empty ? new long[0] : sv.getCumulativeWeights();
+    final int numQuantiles = quantiles.length;
+    final byte[] bytes = new byte[(int) getSerializedSizeBytes(numQuantiles)];
+    final WritableMemory wmem = WritableMemory.writableWrap(bytes);
+    SortedViewSerDe.putPreamble(wmem, TYPE_DOUBLES, numQuantiles, empty ? 0 : sv.getN());
+    wmem.putDouble(MIN_ITEM, empty ? Double.NaN : sv.getMinItem());
+    wmem.putDouble(MAX_DOUBLE, empty ? Double.NaN : sv.getMaxItem());
+    wmem.putDoubleArray(PREAMBLE_BYTES, quantiles, 0, numQuantiles);
+    wmem.putLongArray(PREAMBLE_BYTES + ((long) numQuantiles << 3), cumWeights, 0, numQuantiles);
+    return bytes;
+  }
+
+  /**
+   * Returns the number of bytes of a serialized DoublesSortedView with the given number of quantiles.
+   * @param numQuantiles the number of retained quantiles
+   * @return the number of bytes of the serialized sorted view
+   */
+  public static long getSerializedSizeBytes(final int numQuantiles) {
+    return PREAMBLE_BYTES + ((long) numQuantiles << 4);
+  }
+
+  @Override
+  public long[] getCumulativeWeights() {
+    final long[] cumWeights = new long[numQuantiles];
+    mem.getLongArray(cumWeightsOffset, cumWeights, 0, numQuantiles);
+    return cumWeights;
+  }
+
+  @Override
+  public double getMaxItem() {
+    return mem.getDouble(MAX_DOUBLE);
+  }
+
+  @Override
+  public double getMinItem() {
+    return mem.getDouble(MIN_ITEM);
+  }
+
+  @Override
+  public long getN() {
+    return totalN;
+  }
+
+  @Override
+  public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    QuantilesUtil.checkNormalizedRankBounds(rank);
+    final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    final int count = SortedViewSerDe.countLongs(mem, cumWeightsOffset, numQuantiles, naturalRank,
+        searchCrit != INCLUSIVE);
+    final int index = count == numQuantiles ? numQuantiles - 1 : count; //EXCLUSIVE (GT) case: normRank == 1.0
+    return mem.getDouble(PREAMBLE_BYTES + ((long) index << 3));
+  }
+
+  @Override
+  public double[] getQuantiles() {
+    final double[] quantiles = new double[numQuantiles];
+    mem.getDoubleArray(PREAMBLE_BYTES, quantiles, 0, numQuantiles);
+    return quantiles;
+  }
+
+  @Override
+  public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int count = SortedViewSerDe.countDoubles(mem, PREAMBLE_BYTES, numQuantiles, quantile,
+        searchCrit == INCLUSIVE);
+    if (count == 0) {
+      return 0; //EXCLUSIVE (LT) case: quantile <= minQuantile; INCLUSIVE (LE) case: quantile < minQuantile
+    }
+    return (double) mem.getLong(cumWeightsOffset + ((long) (count - 1) << 3)) / totalN;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return totalN == 0;
+  }
+
+  @Override
+  public DoublesSortedViewIterator iterator() {
+    return new DoublesSortedViewIterator(getQuantiles(), getCumulativeWeights());
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.MAX_FLOAT;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.MIN_ITEM;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.N_LONG;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.PREAMBLE_BYTES;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.TYPE_FLOATS;
+
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A read-only FloatsSortedView that answers queries directly from its serialized form in Memory,
+ * without copying the quantiles or cumulative weights to the heap.
+ *
+ * <p>The serialized form is created once from any FloatsSortedView by {@link #toByteArray(FloatsSortedView)},
+ * for example when the sketch is written, and can later be served from a memory mapped file with
+ * {@link #wrap(Memory)}, saving the cost of rebuilding the sorted view from the sketch for each query.</p>
+ */
+public final class DirectFloatsSortedView implements FloatsSortedView {
+  private final Memory mem;
+  private final int numQuantiles;
+  private final long totalN;
+  private final long cumWeightsOffset;
+
+  private DirectFloatsSortedView(final Memory mem, final int numQuantiles) {
+    this.mem = mem;
+    this.numQuantiles = numQuantiles;
+    this.totalN = mem.getLong(N_LONG);
+    this.cumWeightsOffset = getCumWeightsOffset(numQuantiles);
+  }
+
+  /**
+   * Wraps the given Memory, which must contain a serialized FloatsSortedView.
+   * @param mem the given Memory, which may be read-only
+   * @return a read-only sorted view backed by the given Memory
+   */
+  public static DirectFloatsSortedView wrap(final Memory mem) {
+    Objects.requireNonNull(mem, "Memory must not be null");
+    final int numQuantiles = SortedViewSerDe.checkPreamble(mem, TYPE_FLOATS);
+    SortedViewSerDe.checkCapacity(mem, getSerializedSizeBytes(numQuantiles));
+    return new DirectFloatsSortedView(mem, numQuantiles);
+  }
+
+  /**
+   * Serializes the given sorted view into the format read by {@link #wrap(Memory)}.
+   * @param sv the given FloatsSortedView
+   * @return the serialized sorted view
+   */
+  public static byte[] toByteArray(final FloatsSortedView sv) {
+    final boolean empty = sv.isEmpty();
+    final float[] quantiles = empty ? new float[0] : sv.getQuantiles();
+    final long[] cumWeights = empty ? new long[0] : sv.getCumulativeWeights();
+    final int numQuantiles = quantiles.length;
+    final byte[] bytes = new byte[(int) getSerializedSizeBytes(numQuantiles)];
+    final WritableMemory wmem = WritableMemory.writableWrap(bytes);
+    SortedViewSerDe.putPreamble(wmem, TYPE_FLOATS, numQuantiles, empty ? 0 : sv.getN());
+    wmem.putFloat(MIN_ITEM, empty ? Float.NaN : sv.getMinItem());
+    wmem.putFloat(MAX_FLOAT, empty ? Float.NaN : sv.getMaxItem());
+    wmem.putFloatArray(PREAMBLE_BYTES, quantiles, 0, numQuantiles);
+    wmem.putLongArray(getCumWeightsOffset(numQuantiles), cumWeights, 0, numQuantiles);
+    return bytes;
+  }
+
+  /**
+   * Returns the number of bytes of a serialized FloatsSortedView with the given number of quantiles.
+   * @param numQuantiles the number of retained quantiles
+   * @return the number of bytes of the serialized sorted view
+   */
+  public static long getSerializedSizeBytes(final int numQuantiles) {
+    return getCumWeightsOffset(numQuantiles) + ((long) numQuantiles << 3);
+  }
+
+  //the cumulative weights start at the first multiple of 8 bytes after the quantiles
+  private static long getCumWeightsOffset(final int numQuantiles) {
+    return PREAMBLE_BYTES + ((((long) numQuantiles << 2) + 7) & ~7L);
+  }
+
+  @Override
+  public long[] getCumulativeWeights() {
+    final long[] cumWeights = new long[numQuantiles];
+    mem.getLongArray(cumWeightsOffset, cumWeights, 0, numQuantiles);
+    return cumWeights;
+  }
+
+  @Override
+  public float getMaxItem() {
+    return mem.getFloat(MAX_FLOAT);
+  }
+
+  @Override
+  public float getMinItem() {
+    return mem.getFloat(MIN_ITEM);
+  }
+
+  @Override
+  public long getN() {
+    return totalN;
+  }
+
+  @Override
+  public float getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    QuantilesUtil.checkNormalizedRankBounds(rank);
+    final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    final int count = SortedViewSerDe.countLongs(mem, cumWeightsOffset, numQuantiles, naturalRank,
+        searchCrit != INCLUSIVE);
+    final int index = count == numQuantiles ? numQuantiles - 1 : count; //EXCLUSIVE (GT) case: normRank == 1.0
+    return mem.getFloat(PREAMBLE_BYTES + ((long) index << 2));
+  }
+
+  @Override
+  public float[] getQuantiles() {
+    final float[] quantiles = new float[numQuantiles];
+    mem.getFloatArray(PREAMBLE_BYTES, quantiles, 0, numQuantiles);
+    return quantiles;
+  }
+
+  @Override
+  public double getRank(final float quantile, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int count = SortedViewSerDe.countFloats(mem, PREAMBLE_BYTES, numQuantiles, quantile,
+        searchCrit == INCLUSIVE);
+    if (count == 0) {
+      return 0; //EXCLUSIVE (LT) case: quantile <= minQuantile; INCLUSIVE (LE) case: quantile < minQuantile
+    }
+    return (double) mem.getLong(cumWeightsOffset + ((long) (count - 1) << 3)) / totalN;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return totalN == 0;
+  }
+
+  @Override
+  public FloatsSortedViewIterator iterator() {
+    return new FloatsSortedViewIterator(getQuantiles(), getCumulativeWeights());
+  }
+
+}
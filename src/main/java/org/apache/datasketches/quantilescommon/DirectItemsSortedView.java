@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantilesAPI.EMPTY_MSG;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.evenlySpacedDoubles;
+import static org.apache.datasketches.quantilescommon.QuantilesUtil.getNaturalRank;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.NORM_RANK_ERR_DOUBLE;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.N_LONG;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.PREAMBLE_BYTES;
+import static org.apache.datasketches.quantilescommon.SortedViewSerDe.TYPE_ITEMS;
+
+import java.lang.reflect.Array;
+import java.util.Comparator;
+import java.util.Objects;
+
+import org.apache.datasketches.common.ArrayOfItemsSerDe;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * A read-only GenericSortedView that answers queries directly from its serialized form in Memory.
+ * Only the min and max items are deserialized when wrapping. Searches deserialize the single items they
+ * compare, so the quantiles are never copied to the heap as a whole.
+ *
+ * <p>The serialized form is created once from an ItemsSketchSortedView by
+ * {@link #toByteArray(ItemsSketchSortedView, ArrayOfItemsSerDe)} and read back by
+ * {@link #wrap(Memory, ArrayOfItemsSerDe, Comparator)} with the same SerDe.</p>
+ *
+ * @param <T> The sketch data type
+ */
+public final class DirectItemsSortedView<T> implements GenericSortedView<T> {
+  private static final double PARTITIONING_ERROR_FACTOR = 2.0;
+  private final Memory mem;
+  private final ArrayOfItemsSerDe<T> serDe;
+  private final Comparator<? super T> comparator;
+  private final int numQuantiles;
+  private final long totalN;
+  private final double normRankErr;
+  private final long offsetsOffset;
+  private final T minItem;
+  private final T maxItem;
+
+  private DirectItemsSortedView(final Memory mem, final ArrayOfItemsSerDe<T> serDe,
+      final Comparator<? super T> comparator, final int numQuantiles) {
+    this.mem = mem;
+    this.serDe = serDe;
+    this.comparator = comparator;
+    this.numQuantiles = numQuantiles;
+    this.totalN = mem.getLong(N_LONG);
+    this.normRankErr = mem.getDouble(NORM_RANK_ERR_DOUBLE);
+    this.offsetsOffset = PREAMBLE_BYTES + ((long) numQuantiles << 3);
+    this.minItem = getItem(0);
+    this.maxItem = getItem(1);
+  }
+
+  /**
+   * Wraps the given Memory, which must contain a serialized ItemsSketchSortedView.
+   * @param <T> The sketch data type
+   * @param mem the given Memory, which may be read-only
+   * @param serDe the SerDe the sorted view was serialized with
+   * @param comparator the Comparator for type T
+   * @return a read-only sorted view backed by the given Memory
+   */
+  public static <T> DirectItemsSortedView<T> wrap(final Memory mem, final ArrayOfItemsSerDe<T> serDe,
+      final Comparator<? super T> comparator) {
+    Objects.requireNonNull(mem, "Memory must not be null");
+    Objects.requireNonNull(serDe, "SerDe must not be null");
+    Objects.requireNonNull(comparator, "Comparator must not be null");
+    final int numQuantiles = SortedViewSerDe.checkPreamble(mem, TYPE_ITEMS);
+    if (numQuantiles == 0) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final long offsetsOffset = PREAMBLE_BYTES + ((long) numQuantiles << 3);
+    final long endOffsetPos = offsetsOffset + ((long) (numQuantiles + 2) << 3);
+    SortedViewSerDe.checkCapacity(mem, endOffsetPos + Long.BYTES);
+    SortedViewSerDe.checkCapacity(mem, mem.getLong(endOffsetPos));
+    return new DirectItemsSortedView<>(mem, serDe, comparator, numQuantiles);
+  }
+
+  /**
+   * Serializes the given sorted view into the format read by {@link #wrap(Memory, ArrayOfItemsSerDe, Comparator)}.
+   * @param <T> The sketch data type
+   * @param sv the given ItemsSketchSortedView, which must not be empty
+   * @param serDe the SerDe for type T
+   * @return the serialized sorted view
+   */
+  public static <T> byte[] toByteArray(final ItemsSketchSortedView<T> sv, final ArrayOfItemsSerDe<T> serDe) {
+    if (sv.isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final T[] quantiles = sv.getQuantiles();
+    final long[] cumWeights = sv.getCumulativeWeights();
+    final int numQuantiles = quantiles.length;
+    final byte[][] itemBytes = new byte[numQuantiles + 2][];
+    itemBytes[0] = serDe.serializeToByteArray(sv.getMinItem());
+    itemBytes[1] = serDe.serializeToByteArray(sv.getMaxItem());
+    for (int i = 0; i < numQuantiles; i++) { itemBytes[i + 2] = serDe.serializeToByteArray(quantiles[i]); }
+    final long offsetsOffset = PREAMBLE_BYTES + ((long) numQuantiles << 3);
+    final long[] offsets = new long[numQuantiles + 3];
+    offsets[0] = offsetsOffset + ((long) offsets.length << 3);
+    for (int i = 0; i < itemBytes.length; i++) { offsets[i + 1] = offsets[i] + itemBytes[i].length; }
+    final long totalBytes = offsets[offsets.length - 1];
+    if (totalBytes > Integer.MAX_VALUE) {
+      throw new SketchesArgumentException("Sorted view too large to serialize to a byte array: " + totalBytes);
+    }
+    final byte[] bytes = new byte[(int) totalBytes];
+    final WritableMemory wmem = WritableMemory.writableWrap(bytes);
+    SortedViewSerDe.putPreamble(wmem, TYPE_ITEMS, numQuantiles, sv.getN());
+    wmem.putDouble(NORM_RANK_ERR_DOUBLE, sv.getNormRankErr());
+    wmem.putLongArray(PREAMBLE_BYTES, cumWeights, 0, numQuantiles);
+    wmem.putLongArray(offsetsOffset, offsets, 0, offsets.length);
+    for (int i = 0; i < itemBytes.length; i++) { wmem.putByteArray(offsets[i], itemBytes[i], 0, itemBytes[i].length); }
+    return bytes;
+  }
+
+  @Override
+  public double[] getCDF(final T[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    GenericSortedView.validateItems(splitPoints, comparator);
+    final int len = splitPoints.length + 1;
+    final double[] buckets = new double[len];
+    for (int i = 0; i < len - 1; i++) {
+      buckets[i] = getRank(splitPoints[i], searchCrit);
+    }
+    buckets[len - 1] = 1.0;
+    return buckets;
+  }
+
+  @Override
+  public long[] getCumulativeWeights() {
+    final long[] cumWeights = new long[numQuantiles];
+    mem.getLongArray(PREAMBLE_BYTES, cumWeights, 0, numQuantiles);
+    return cumWeights;
+  }
+
+  @Override
+  public T getMaxItem() {
+    return maxItem;
+  }
+
+  @Override
+  public T getMinItem() {
+    return minItem;
+  }
+
+  @Override
+  public long getN() {
+    return totalN;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public GenericPartitionBoundaries<T> getPartitionBoundaries(final int numEquallySized,
+      final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    final int maxParts = (int) (totalN / Math.ceil(normRankErr * PARTITIONING_ERROR_FACTOR) );
+    final int svLen = numQuantiles;
+
+    if (numEquallySized > maxParts) {
+      throw new SketchesArgumentException(QuantilesAPI.UNSUPPORTED_MSG
+          + "The requested number of partitions is too large for the 'k' of this sketch "
+          + "if it exceeds the maximum number of partitions allowed by the error threshold for the 'k' of this sketch."
+          + "Requested Partitions: " + numEquallySized + " > " + maxParts);
+    }
+    if (numEquallySized > svLen / 2.0) {
+      throw new SketchesArgumentException(QuantilesAPI.UNSUPPORTED_MSG
+          + "The requested number of partitions is too large for the number of retained items "
+          + "if it exceeds maximum number of retained items divided by 2."
+          + "Requested Partitions: " + numEquallySized + " > "
+          + "Retained Items / 2: " + (svLen / 2));
+    }
+
+    final double[] searchNormRanks = evenlySpacedDoubles(0, 1.0, numEquallySized + 1);
+    final int partArrLen = searchNormRanks.length;
+    final T[] partQuantiles = (T[]) Array.newInstance(serDe.getClassOfT(), partArrLen);
+    final long[] partNatRanks = new long[partArrLen];
+    final double[] partNormRanks = new double[partArrLen];
+
+    //The ends of the quantiles may be missing the actual min and max items, which are required for partitioning.
+    //As in ItemsSketchSortedView they are inserted virtually, see getAdjCumWeight() and getAdjQuantile().
+    final boolean adjLow = comparator.compare(getQuantileAt(0), minItem) != 0;
+    final boolean adjHigh = comparator.compare(getQuantileAt(svLen - 1), maxItem) != 0;
+    final int adjLen = svLen + (adjLow ? 1 : 0) + (adjHigh ? 1 : 0);
+
+    for (int i = 0; i < partArrLen; i++) {
+      final double naturalRank = getNaturalRank(searchNormRanks[i], totalN, searchCrit);
+      final boolean inclusive = searchCrit != INCLUSIVE; //GE counts the weights < rank, GT counts those <= rank
+      int lo = 0;
+      int hi = adjLen;
+      while (lo < hi) {
+        final int mid = (lo + hi) >>> 1;
+        final long cw = getAdjCumWeight(mid, adjLow, adjHigh, adjLen);
+        if (inclusive ? cw <= naturalRank : cw < naturalRank) { lo = mid + 1; } else { hi = mid; }
+      }
+      final int index = lo == adjLen ? adjLen - 1 : lo;
+      partQuantiles[i] = getAdjQuantile(index, adjLow, adjHigh, adjLen);
+      final long cumWt = getAdjCumWeight(index, adjLow, adjHigh, adjLen);
+      partNatRanks[i] = cumWt;
+      partNormRanks[i] = (double)cumWt / totalN;
+    }
+    return new GenericPartitionBoundaries<>(
+        totalN,
+        partQuantiles,
+        partNatRanks,
+        partNormRanks,
+        maxItem,
+        minItem,
+        searchCrit);
+  }
+
+  @Override
+  public double[] getPMF(final T[] splitPoints, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    GenericSortedView.validateItems(splitPoints, comparator);
+    final double[] buckets = getCDF(splitPoints, searchCrit);
+    final int len = buckets.length;
+    for (int i = len; i-- > 1; ) {
+      buckets[i] -= buckets[i - 1];
+    }
+    return buckets;
+  }
+
+  @Override
+  public T getQuantile(final double rank, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    QuantilesUtil.checkNormalizedRankBounds(rank);
+    final double naturalRank = getNaturalRank(rank, totalN, searchCrit);
+    final int count = SortedViewSerDe.countLongs(mem, PREAMBLE_BYTES, numQuantiles, naturalRank,
+        searchCrit != INCLUSIVE);
+    return getQuantileAt(count == numQuantiles ? numQuantiles - 1 : count);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T[] getQuantiles() {
+    final T[] quantiles = (T[]) Array.newInstance(serDe.getClassOfT(), numQuantiles);
+    for (int i = 0; i < numQuantiles; i++) { quantiles[i] = getQuantileAt(i); }
+    return quantiles;
+  }
+
+  @Override
+  public double getRank(final T quantile, final QuantileSearchCriteria searchCrit) {
+    if (isEmpty()) { throw new SketchesArgumentException(EMPTY_MSG); }
+    Objects.requireNonNull(quantile, "Input quantile must not be null");
+    final boolean inclusive = searchCrit == INCLUSIVE;
+    int lo = 0;
+    int hi = numQuantiles;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int cmp = comparator.compare(getQuantileAt(mid), quantile);
+      if (inclusive ? cmp <= 0 : cmp < 0) { lo = mid + 1; } else { hi = mid; }
+    }
+    if (lo == 0) {
+      return 0; //EXCLUSIVE (LT) case: quantile <= minQuantile; INCLUSIVE (LE) case: quantile < minQuantile
+    }
+    return (double) getCumWeightAt(lo - 1) / totalN;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return totalN == 0;
+  }
+
+  @Override
+  public GenericSortedViewIterator<T> iterator() {
+    return new GenericSortedViewIterator<>(getQuantiles(), getCumulativeWeights());
+  }
+
+  //restricted
+
+  //item 0 is the min item, item 1 the max item, followed by the quantiles
+  private T getItem(final int i) {
+    final long offset = mem.getLong(offsetsOffset + ((long) i << 3));
+    return serDe.deserializeFromMemory(mem, offset, 1)[0];
+  }
+
+  private T getQuantileAt(final int index) {
+    return getItem(index + 2);
+  }
+
+  private long getCumWeightAt(final int index) {
+    return mem.getLong(PREAMBLE_BYTES + ((long) index << 3));
+  }
+
+  //the cumulative weights with the min and max items inserted at the ends if they are missing
+  private long getAdjCumWeight(final int j, final boolean adjLow, final boolean adjHigh, final int adjLen) {
+    if (adjLow && j == 0) { return 1; }
+    if (adjHigh && j == adjLen - 1) { return getCumWeightAt(numQuantiles - 1); }
+    if (adjHigh && j == adjLen - 2) { return getCumWeightAt(numQuantiles - 1) - 1; }
+    return getCumWeightAt(adjLow ? j - 1 : j);
+  }
+
+  private T getAdjQuantile(final int j, final boolean adjLow, final boolean adjHigh, final int adjLen) {
+    if (adjLow && j == 0) { return minItem; }
+    if (adjHigh && j == adjLen - 1) { return maxItem; }
+    return getQuantileAt(adjLow ? j - 1 : j);
+  }
+
+}
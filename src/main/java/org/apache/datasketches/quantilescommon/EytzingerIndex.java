@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * A read-only search index over a sorted array stored in the Eytzinger (breadth-first) layout of an
+ * implicit binary search tree.
+ *
+ * <p>A search reads the tree from the root down, so the first few levels of all searches share the same
+ * cache lines, and each step selects the child with arithmetic instead of a hard to predict branch.
+ * This makes repeated searches over the same sorted view considerably faster than a classic binary search,
+ * at the cost of a copy of the keys and an int array of the same length.</p>
+ *
+ * <p>All keys are held as doubles. Floats and longs are compared exactly as
+ * {@link InequalitySearch#find(float[], int, int, float, InequalitySearch)} and
+ * {@link InequalitySearch#find(long[], int, int, double, InequalitySearch)} compare them.</p>
+ *
+ * <p>Instances are immutable and may be shared between threads.</p>
+ */
+public final class EytzingerIndex {
+  private final double[] tree; //1-based, tree[0] is unused
+  private final int[] sortedIndex; //maps a tree position to the index of the same key in the sorted array
+  private final int length;
+
+  /**
+   * Builds the index over the first <i>length</i> items of the given sorted array.
+   * @param sortedArr the given array sorted in ascending order
+   * @param length the number of items to index
+   */
+  public EytzingerIndex(final double[] sortedArr, final int length) {
+    this(length);
+    build(sortedArr, null, null, 0, 1);
+  }
+
+  /**
+   * Builds the index over the first <i>length</i> items of the given sorted array.
+   * @param sortedArr the given array sorted in ascending order
+   * @param length the number of items to index
+   */
+  public EytzingerIndex(final float[] sortedArr, final int length) {
+    this(length);
+    build(null, sortedArr, null, 0, 1);
+  }
+
+  /**
+   * Builds the index over the first <i>length</i> items of the given sorted array.
+   * @param sortedArr the given array sorted in ascending order
+   * @param length the number of items to index
+   */
+  public EytzingerIndex(final long[] sortedArr, final int length) {
+    this(length);
+    build(null, null, sortedArr, 0, 1);
+  }
+
+  private EytzingerIndex(final int length) {
+    if (length < 1) { throw new SketchesArgumentException("The index must contain at least one item."); }
+    this.length = length;
+    tree = new double[length + 1];
+    sortedIndex = new int[length + 1];
+  }
+
+  /**
+   * @return the number of indexed items
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the number of indexed items less than the given value, or less than or equal to it if
+   * <i>inclusive</i> is true. This is also the index of the first item that is not counted.
+   * @param v the given value, which must not be NaN
+   * @param inclusive if true items equal to the given value are counted
+   * @return the number of indexed items below the given value, from zero to {@link #getLength()}
+   */
+  public int count(final double v, final boolean inclusive) {
+    if (Double.isNaN(v)) { throw new SketchesArgumentException("Input v must not be NaN."); }
+    final double[] t = tree;
+    final int n = length;
+    int k = 1;
+    if (inclusive) {
+      while (k <= n) { k = (k << 1) + (t[k] <= v ? 1 : 0); }
+    } else {
+      while (k <= n) { k = (k << 1) + (t[k] < v ? 1 : 0); }
+    }
+    //strip the trailing right turns and the last left turn to find the first item not counted
+    k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+    return k == 0 ? n : sortedIndex[k];
+  }
+
+  //fills the subtree rooted at k by an in-order traversal, returns the next index into the sorted array
+  private int build(final double[] dArr, final float[] fArr, final long[] lArr, int i, final int k) {
+    if (k <= length) {
+      i = build(dArr, fArr, lArr, i, 2 * k);
+      tree[k] = dArr != null ? dArr[i] : fArr != null ? (double) fArr[i] : (double) lArr[i];
+      sortedIndex[k] = i++;
+      i = build(dArr, fArr, lArr, i, 2 * k + 1);
+    }
+    return i;
+  }
+
+}
@@ -169,6 +169,27 @@ public interface FloatsSortedView extends SortedView {
    */
   double getRank(float quantile, QuantileSearchCriteria searchCrit);
 
+  /**
+   * Gets the normalized ranks corresponding to the given array of quantiles.
+   *
+   * <p>Implementations answer a batch of probes in non-decreasing order with a single merge pass over
+   * the retained quantiles when that is cheaper than searching for each probe.</p>
+   *
+   * @param quantiles the given array of quantiles
+   * @param searchCrit if INCLUSIVE the given quantiles are included into the ranks.
+   * @return the normalized ranks corresponding to the given quantiles.
+   * @throws IllegalArgumentException if sketch is empty.
+   * @see org.apache.datasketches.quantilescommon.QuantileSearchCriteria
+   */
+  default double[] getRanks(float[] quantiles, QuantileSearchCriteria searchCrit) {
+    final int len = quantiles.length;
+    final double[] ranks = new double[len];
+    for (int i = 0; i < len; i++) {
+      ranks[i] = getRank(quantiles[i], searchCrit);
+    }
+    return ranks;
+  }
+
   @Override
   FloatsSortedViewIterator iterator();
 
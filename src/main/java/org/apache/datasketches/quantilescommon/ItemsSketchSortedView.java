@@ -266,6 +266,13 @@ public class ItemsSketchSortedView<T> implements GenericSortedView<T> {
     return (double)cumWeights[index] / totalN;
   }
 
+  /**
+   * @return the normalized rank error of the originating sketch
+   */
+  double getNormRankErr() {
+    return normRankErr;
+  }
+
   @Override
   public boolean isEmpty() {
     return totalN == 0;
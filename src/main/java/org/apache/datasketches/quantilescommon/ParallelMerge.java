@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * A balanced parallel tree reduction for merging many quantiles sketches, or their serialized
+ * images, on a given ForkJoinPool.
+ *
+ * <p>The inputs are split recursively in halves down to batches of at most <i>batchSize</i> inputs.
+ * Each batch is merged sequentially into a new accumulator, and the accumulators of the two halves
+ * are then combined, so each input is merged exactly once and the depth of the tree of merges is
+ * logarithmic in the number of batches. Since all of these sketches are mergeable, the result has the
+ * same accuracy guarantees as merging all of the inputs sequentially into a single sketch configured
+ * like the accumulators, although the retained items may differ.</p>
+ *
+ * <p>For example, with KLL sketches and their serialized images:</p>
+ * <pre>{@code
+ * KllDoublesSketch result = ParallelMerge.treeReduce(sketches,
+ *     () -> KllDoublesSketch.newHeapInstance(k), KllDoublesSketch::merge, KllDoublesSketch::merge, pool);
+ * KllDoublesSketch result = ParallelMerge.treeReduce(images,
+ *     () -> KllDoublesSketch.newHeapInstance(k), (sk, mem) -> sk.merge(KllDoublesSketch.wrap(mem)),
+ *     KllDoublesSketch::merge, pool);
+ * }</pre>
+ *
+ * <p>With the classic quantiles sketches the accumulator is a DoublesUnion:</p>
+ * <pre>{@code
+ * DoublesUnion union = ParallelMerge.treeReduce(sketches,
+ *     () -> DoublesUnion.builder().setMaxK(k).build(), DoublesUnion::union,
+ *     (u1, u2) -> u1.union(u2.getResult()), pool);
+ * }</pre>
+ *
+ * <p>The accumulator and combiner functions must only modify their first argument, and an accumulator
+ * must not be shared between calls of the supplier, since accumulators are updated concurrently.</p>
+ */
+public final class ParallelMerge {
+
+  /**
+   * The default maximum number of inputs merged sequentially by a single task.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 64;
+
+  private ParallelMerge() {}
+
+  /**
+   * Merges the given inputs with the default batch size.
+   * See {@link #treeReduce(List, Supplier, BiConsumer, BiConsumer, ForkJoinPool, int)}.
+   * @param <T> the type of the inputs, for example a sketch type or Memory
+   * @param <A> the type of the accumulator, for example a sketch type or a union
+   * @param inputs the given inputs. Null elements are ignored.
+   * @param newAccumulator returns a new, empty accumulator
+   * @param accumulator merges an input into an accumulator
+   * @param combiner merges the second accumulator into the first
+   * @param pool the ForkJoinPool in which to merge the batches.
+   * If null, all inputs are merged sequentially in the calling thread.
+   * @return a new accumulator holding the merge of all the given inputs
+   */
+  public static <T, A> A treeReduce(final List<? extends T> inputs, final Supplier<? extends A> newAccumulator,
+      final BiConsumer<? super A, ? super T> accumulator, final BiConsumer<? super A, ? super A> combiner,
+      final ForkJoinPool pool) {
+    return treeReduce(inputs, newAccumulator, accumulator, combiner, pool, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Merges the given inputs by a balanced parallel tree reduction.
+   * @param <T> the type of the inputs, for example a sketch type or Memory
+   * @param <A> the type of the accumulator, for example a sketch type or a union
+   * @param inputs the given inputs. Null elements are ignored.
+   * @param newAccumulator returns a new, empty accumulator
+   * @param accumulator merges an input into an accumulator
+   * @param combiner merges the second accumulator into the first
+   * @param pool the ForkJoinPool in which to merge the batches.
+   * If null, all inputs are merged sequentially in the calling thread.
+   * @param batchSize the maximum number of inputs merged sequentially by a single task, at least 1
+   * @return a new accumulator holding the merge of all the given inputs
+   */
+  public static <T, A> A treeReduce(final List<? extends T> inputs, final Supplier<? extends A> newAccumulator,
+      final BiConsumer<? super A, ? super T> accumulator, final BiConsumer<? super A, ? super A> combiner,
+      final ForkJoinPool pool, final int batchSize) {
+    Objects.requireNonNull(inputs, "inputs must not be null");
+    Objects.requireNonNull(newAccumulator, "newAccumulator must not be null");
+    Objects.requireNonNull(accumulator, "accumulator must not be null");
+    Objects.requireNonNull(combiner, "combiner must not be null");
+    if (batchSize < 1) {
+      throw new SketchesArgumentException("batchSize must be at least 1: " + batchSize);
+    }
+    final ReduceTask<T, A> task =
+        new ReduceTask<>(inputs, 0, inputs.size(), newAccumulator, accumulator, combiner, batchSize);
+    if ((pool == null) || (inputs.size() <= batchSize)) {
+      return task.reduceSequentially();
+    }
+    return pool.invoke(task);
+  }
+
+  private static final class ReduceTask<T, A> extends RecursiveTask<A> {
+    private static final long serialVersionUID = 1L;
+    private final transient List<? extends T> inputs;
+    private final int start;
+    private final int end;
+    private final transient Supplier<? extends A> newAccumulator;
+    private final transient BiConsumer<? super A, ? super T> accumulator;
+    private final transient BiConsumer<? super A, ? super A> combiner;
+    private final int batchSize;
+
+    ReduceTask(final List<? extends T> inputs, final int start, final int end,
+        final Supplier<? extends A> newAccumulator, final BiConsumer<? super A, ? super T> accumulator,
+        final BiConsumer<? super A, ? super A> combiner, final int batchSize) {
+      this.inputs = inputs;
+      this.start = start;
+      this.end = end;
+      this.newAccumulator = newAccumulator;
+      this.accumulator = accumulator;
+      this.combiner = combiner;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    protected A compute() {
+      if ((end - start) <= batchSize) { return reduceSequentially(); }
+      final int mid = (start + end) >>> 1;
+      final ReduceTask<T, A> left =
+          new ReduceTask<>(inputs, start, mid, newAccumulator, accumulator, combiner, batchSize);
+      final ReduceTask<T, A> right =
+          new ReduceTask<>(inputs, mid, end, newAccumulator, accumulator, combiner, batchSize);
+      right.fork();
+      final A result = left.compute();
+      combiner.accept(result, right.join());
+      return result;
+    }
+
+    A reduceSequentially() {
+      final A result = newAccumulator.get();
+      for (int i = start; i < end; i++) {
+        final T input = inputs.get(i);
+        if (input != null) { accumulator.accept(result, input); }
+      }
+      return result;
+    }
+  }
+
+}
@@ -86,6 +86,42 @@ public final class QuantilesUtil {
     }
   }
 
+  /**
+   * Returns true if a batch of rank queries for the given probes is answered faster by a single merge pass
+   * over the sorted quantiles of a sorted view than by searching for each probe separately.
+   * This requires the probes to be in non-decreasing order without NaNs, and enough of them that a pass over
+   * all of the quantiles costs less than the separate searches.
+   * @param probes the given probes
+   * @param numQuantiles the number of quantiles in the sorted view
+   * @return true if a merge pass should be used
+   */
+  public static boolean isMergeSearchCheaper(final double[] probes, final int numQuantiles) {
+    final int len = probes.length;
+    if ((long) len * (32 - Integer.numberOfLeadingZeros(numQuantiles)) < numQuantiles) { return false; }
+    for (int j = 0; j < len; j++) {
+      if (Double.isNaN(probes[j]) || (j > 0 && probes[j] < probes[j - 1])) { return false; }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if a batch of rank queries for the given probes is answered faster by a single merge pass
+   * over the sorted quantiles of a sorted view than by searching for each probe separately.
+   * This requires the probes to be in non-decreasing order without NaNs, and enough of them that a pass over
+   * all of the quantiles costs less than the separate searches.
+   * @param probes the given probes
+   * @param numQuantiles the number of quantiles in the sorted view
+   * @return true if a merge pass should be used
+   */
+  public static boolean isMergeSearchCheaper(final float[] probes, final int numQuantiles) {
+    final int len = probes.length;
+    if ((long) len * (32 - Integer.numberOfLeadingZeros(numQuantiles)) < numQuantiles) { return false; }
+    for (int j = 0; j < len; j++) {
+      if (Float.isNaN(probes[j]) || (j > 0 && probes[j] < probes[j - 1])) { return false; }
+    }
+    return true;
+  }
+
   /**
    * Returns an array of (<i>num</i> + 1) values that define equally sized intervals between 0.0, inclusive, and 1.0,
    * inclusive. The end points 0.0 and 1.0 are part of the returned array.
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+/**
+ * The optional search index of the primitive sorted views, together with the batched rank search
+ * these views share.
+ *
+ * <p>The index holds an {@link EytzingerIndex} over the quantiles and another over the cumulative
+ * weights of a sorted view. Its results are identical to those of the {@link InequalitySearch}
+ * based searches of the sorted views, including for a NaN argument, which is passed on to
+ * InequalitySearch.</p>
+ *
+ * <p>Instances are immutable and may be shared between threads.</p>
+ */
+public final class SortedViewSearchIndex {
+  private final double[] dQuantiles; //exactly one of the quantile arrays is not null
+  private final float[] fQuantiles;
+  private final long[] cumWeights;
+  private final int len;
+  private final long totalN;
+  private final EytzingerIndex rankIndex;
+  private final EytzingerIndex quantileIndex;
+
+  /**
+   * Builds the index over the first <i>len</i> entries of the given arrays of a sorted view.
+   * The arrays are referenced, not copied, and must not change.
+   * @param quantiles the sorted quantiles of the sorted view
+   * @param cumWeights the cumulative weights of the sorted view
+   * @param len the number of valid quantiles and cumulative weights, at least one
+   * @param totalN the total number of items presented to the sketch
+   */
+  public SortedViewSearchIndex(final double[] quantiles, final long[] cumWeights, final int len,
+      final long totalN) {
+    this(quantiles, null, new EytzingerIndex(quantiles, len), cumWeights, len, totalN);
+  }
+
+  /**
+   * Builds the index over the first <i>len</i> entries of the given arrays of a sorted view.
+   * The arrays are referenced, not copied, and must not change.
+   * @param quantiles the sorted quantiles of the sorted view
+   * @param cumWeights the cumulative weights of the sorted view
+   * @param len the number of valid quantiles and cumulative weights, at least one
+   * @param totalN the total number of items presented to the sketch
+   */
+  public SortedViewSearchIndex(final float[] quantiles, final long[] cumWeights, final int len,
+      final long totalN) {
+    this(null, quantiles, new EytzingerIndex(quantiles, len), cumWeights, len, totalN);
+  }
+
+  private SortedViewSearchIndex(final double[] dQuantiles, final float[] fQuantiles,
+      final EytzingerIndex rankIndex, final long[] cumWeights, final int len, final long totalN) {
+    this.dQuantiles = dQuantiles;
+    this.fQuantiles = fQuantiles;
+    this.rankIndex = rankIndex;
+    this.cumWeights = cumWeights;
+    this.len = len;
+    this.totalN = totalN;
+    quantileIndex = new EytzingerIndex(cumWeights, len);
+  }
+
+  /**
+   * Gets the normalized rank of the given quantile.
+   * A float quantile is compared exactly as the float sorted views compare it.
+   * @param quantile the given quantile
+   * @param searchCrit if INCLUSIVE, the given quantile is included in the rank
+   * @return the normalized rank of the given quantile
+   */
+  public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) {
+    final int index;
+    if (Double.isNaN(quantile)) {
+      final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.LE : InequalitySearch.LT;
+      index = (dQuantiles != null)
+          ? InequalitySearch.find(dQuantiles, 0, len - 1, quantile, crit)
+          : InequalitySearch.find(fQuantiles, 0, len - 1, (float) quantile, crit);
+    } else {
+      index = rankIndex.count(quantile, searchCrit == INCLUSIVE) - 1;
+    }
+    return index == -1 ? 0 : (double)cumWeights[index] / totalN;
+  }
+
+  /**
+   * Gets the index of the quantile at the given natural rank.
+   * @param naturalRank the natural rank, as computed by
+   * {@link QuantilesUtil#getNaturalRank(double, long, QuantileSearchCriteria)}
+   * @param searchCrit if INCLUSIVE, the quantile whose cumulative weight is at least the natural rank is
+   * chosen, otherwise the quantile whose cumulative weight is greater than the natural rank
+   * @return the index into the quantiles of the sorted view
+   */
+  public int getQuantileIndex(final double naturalRank, final QuantileSearchCriteria searchCrit) {
+    if (Double.isNaN(naturalRank)) {
+      final InequalitySearch crit = (searchCrit == INCLUSIVE) ? InequalitySearch.GE : InequalitySearch.GT;
+      final int index = InequalitySearch.find(cumWeights, 0, len - 1, naturalRank, crit);
+      return index == -1 ? len - 1 : index;
+    }
+    final int count = quantileIndex.count(naturalRank, searchCrit != INCLUSIVE);
+    return count == len ? len - 1 : count; //EXCLUSIVE (GT) case: normRank == 1.0;
+  }
+
+  /**
+   * Gets the normalized ranks of the given probes with a single merge pass over the quantiles of a
+   * sorted view. The probes must be sorted, which
+   * {@link QuantilesUtil#isMergeSearchCheaper(double[], int)} checks.
+   * @param quantiles the sorted quantiles of the sorted view
+   * @param cumWeights the cumulative weights of the sorted view
+   * @param len the number of valid quantiles and cumulative weights
+   * @param totalN the total number of items presented to the sketch
+   * @param probes the given probes in non-decreasing order
+   * @param searchCrit if INCLUSIVE, each probe is included in its rank
+   * @return the normalized ranks of the given probes
+   */
+  public static double[] getRanksByMerge(final double[] quantiles, final long[] cumWeights, final int len,
+      final long totalN, final double[] probes, final QuantileSearchCriteria searchCrit) {
+    final double[] ranks = new double[probes.length];
+    final boolean inclusive = searchCrit == INCLUSIVE;
+    int count = 0;
+    for (int i = 0; i < probes.length; i++) {
+      final double quantile = probes[i];
+      if (inclusive) {
+        while (count < len && quantiles[count] <= quantile) { count++; }
+      } else {
+        while (count < len && quantiles[count] < quantile) { count++; }
+      }
+      ranks[i] = count == 0 ? 0 : (double)cumWeights[count - 1] / totalN;
+    }
+    return ranks;
+  }
+
+  /**
+   * Gets the normalized ranks of the given probes with a single merge pass over the quantiles of a
+   * sorted view. The probes must be sorted, which
+   * {@link QuantilesUtil#isMergeSearchCheaper(float[], int)} checks.
+   * @param quantiles the sorted quantiles of the sorted view
+   * @param cumWeights the cumulative weights of the sorted view
+   * @param len the number of valid quantiles and cumulative weights
+   * @param totalN the total number of items presented to the sketch
+   * @param probes the given probes in non-decreasing order
+   * @param searchCrit if INCLUSIVE, each probe is included in its rank
+   * @return the normalized ranks of the given probes
+   */
+  public static double[] getRanksByMerge(final float[] quantiles, final long[] cumWeights, final int len,
+      final long totalN, final float[] probes, final QuantileSearchCriteria searchCrit) {
+    final double[] ranks = new double[probes.length];
+    final boolean inclusive = searchCrit == INCLUSIVE;
+    int count = 0;
+    for (int i = 0; i < probes.length; i++) {
+      final float quantile = probes[i];
+      if (inclusive) {
+        while (count < len && quantiles[count] <= quantile) { count++; }
+      } else {
+        while (count < len && quantiles[count] < quantile) { count++; }
+      }
+      ranks[i] = count == 0 ? 0 : (double)cumWeights[count - 1] / totalN;
+    }
+    return ranks;
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * The serialized format shared by the Direct sorted views, and binary searches over its arrays in Memory.
+ *
+ * <pre>
+ * Preamble, all types:
+ * Byte  0: preamble longs (4)
+ * Byte  1: serialization version (1)
+ * Byte  2: type of the view: 1 = doubles, 2 = floats, 3 = generic items
+ * Byte  3: flags, bit 0 = empty
+ * Bytes 4-7: number of retained quantiles (int)
+ * Bytes 8-15: N, the total number of items presented to the sketch (long)
+ * Bytes 16-23: doubles: min item; floats: min item at 16, max item at 20; items: normalized rank error
+ * Bytes 24-31: doubles: max item; floats and items: unused
+ *
+ * Doubles: the quantiles (8 bytes each) at 32 followed by the cumulative weights (8 bytes each).
+ * Floats: the quantiles (4 bytes each) at 32 followed by the cumulative weights (8 bytes each),
+ * which start at the next multiple of 8 bytes.
+ * Items: the cumulative weights (8 bytes each) at 32, followed by numQuantiles + 3 offsets (8 bytes each)
+ * to the serialized min item, max item, each quantile and the end of the items region.
+ * </pre>
+ */
+final class SortedViewSerDe {
+  static final int PREAMBLE_LONGS = 4;
+  static final int PREAMBLE_BYTES = PREAMBLE_LONGS * Long.BYTES;
+  static final byte SER_VER = 1;
+  static final byte TYPE_DOUBLES = 1;
+  static final byte TYPE_FLOATS = 2;
+  static final byte TYPE_ITEMS = 3;
+  static final byte EMPTY_FLAG = 1;
+
+  static final int PREAMBLE_LONGS_BYTE = 0;
+  static final int SER_VER_BYTE = 1;
+  static final int TYPE_BYTE = 2;
+  static final int FLAGS_BYTE = 3;
+  static final int NUM_QUANTILES_INT = 4;
+  static final int N_LONG = 8;
+  static final int MIN_ITEM = 16;
+  static final int MAX_DOUBLE = 24;
+  static final int MAX_FLOAT = 20;
+  static final int NORM_RANK_ERR_DOUBLE = 16;
+
+  private SortedViewSerDe() { }
+
+  static void putPreamble(final WritableMemory wmem, final byte type, final int numQuantiles, final long n) {
+    wmem.putByte(PREAMBLE_LONGS_BYTE, (byte) PREAMBLE_LONGS);
+    wmem.putByte(SER_VER_BYTE, SER_VER);
+    wmem.putByte(TYPE_BYTE, type);
+    wmem.putByte(FLAGS_BYTE, n == 0 ? EMPTY_FLAG : 0);
+    wmem.putInt(NUM_QUANTILES_INT, numQuantiles);
+    wmem.putLong(N_LONG, n);
+  }
+
+  /**
+   * Checks the preamble of a serialized sorted view of the given type.
+   * @param mem the given Memory
+   * @param type the expected type of the view
+   * @return the number of retained quantiles
+   */
+  static int checkPreamble(final Memory mem, final byte type) {
+    if (mem.getCapacity() < PREAMBLE_BYTES) {
+      throw new SketchesArgumentException("Memory too small for a sorted view: " + mem.getCapacity());
+    }
+    final int preLongs = mem.getByte(PREAMBLE_LONGS_BYTE);
+    final int serVer = mem.getByte(SER_VER_BYTE);
+    final int memType = mem.getByte(TYPE_BYTE);
+    if (preLongs != PREAMBLE_LONGS) {
+      throw new SketchesArgumentException("Preamble longs mismatch: expected " + PREAMBLE_LONGS + ", actual " + preLongs);
+    }
+    if (serVer != SER_VER) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SER_VER + ", actual " + serVer);
+    }
+    if (memType != type) {
+      throw new SketchesArgumentException("Sorted view type mismatch: expected " + type + ", actual " + memType);
+    }
+    final int numQuantiles = mem.getInt(NUM_QUANTILES_INT);
+    final long n = mem.getLong(N_LONG);
+    if (numQuantiles < 0 || n < 0 || (n == 0) != (numQuantiles == 0)) {
+      throw new SketchesArgumentException("Corrupted sorted view: " + numQuantiles + " quantiles, N = " + n);
+    }
+    return numQuantiles;
+  }
+
+  static void checkCapacity(final Memory mem, final long requiredBytes) {
+    if (mem.getCapacity() < requiredBytes) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity()
+          + " is smaller than the required " + requiredBytes + " bytes.");
+    }
+  }
+
+  /**
+   * Returns the number of doubles in the given sorted array in Memory less than the given value,
+   * or less than or equal to it if inclusive is true.
+   */
+  static int countDoubles(final Memory mem, final long offsetBytes, final int len, final double v,
+      final boolean inclusive) {
+    if (Double.isNaN(v)) { throw new SketchesArgumentException("Input v must not be NaN."); }
+    int lo = 0;
+    int hi = len;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final double item = mem.getDouble(offsetBytes + ((long) mid << 3));
+      if (inclusive ? item <= v : item < v) { lo = mid + 1; } else { hi = mid; }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the number of floats in the given sorted array in Memory less than the given value,
+   * or less than or equal to it if inclusive is true.
+   */
+  static int countFloats(final Memory mem, final long offsetBytes, final int len, final float v,
+      final boolean inclusive) {
+    if (Float.isNaN(v)) { throw new SketchesArgumentException("Input v must not be NaN."); }
+    int lo = 0;
+    int hi = len;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final float item = mem.getFloat(offsetBytes + ((long) mid << 2));
+      if (inclusive ? item <= v : item < v) { lo = mid + 1; } else { hi = mid; }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the number of longs in the given sorted array in Memory less than the given value,
+   * or less than or equal to it if inclusive is true.
+   */
+  static int countLongs(final Memory mem, final long offsetBytes, final int len, final double v,
+      final boolean inclusive) {
+    int lo = 0;
+    int hi = len;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      final long item = mem.getLong(offsetBytes + ((long) mid << 3));
+      if (inclusive ? item <= v : item < v) { lo = mid + 1; } else { hi = mid; }
+    }
+    return lo;
+  }
+
+}
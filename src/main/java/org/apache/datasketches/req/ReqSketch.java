@@ -321,12 +321,7 @@ public final class ReqSketch extends BaseReqSketch {
   public double[] getRanks(final float[] quantiles, final QuantileSearchCriteria searchCrit) {
     if (isEmpty()) { throw new IllegalArgumentException(QuantilesAPI.EMPTY_MSG); }
     refreshSortedView();
-    final int numQuantiles = quantiles.length;
-    final double[] retArr = new double[numQuantiles];
-    for (int i = 0; i < numQuantiles; i++) {
-      retArr[i] = reqSV.getRank(quantiles[i], searchCrit); //already normalized
-    }
-    return retArr;
+    return reqSV.getRanks(quantiles, searchCrit); //already normalized
   }
 
   /**
@@ -19,6 +19,8 @@
 
 package org.apache.datasketches.tdigest;
 
+import org.apache.datasketches.memory.Memory;
+
 /**
  * Algorithms with logarithmic complexity for searching in an array.
  */
@@ -90,4 +92,65 @@ public final class BinarySearch {
     return first;
   }
 
+
+  /**
+   * Same as {@link #lowerBound(double[], int, int, double)} for values stored in the given Memory
+   * at offsetBytes + index * strideBytes.
+   *
+   * @param mem Memory holding the values
+   * @param offsetBytes offset of the value at index 0
+   * @param strideBytes distance between consecutive values in bytes
+   * @param first index to the first element in the range
+   * @param last index to the element past the end of the range
+   * @param value to look for
+   * @return index to the element found or last if not found
+   */
+  static int lowerBound(final Memory mem, final long offsetBytes, final int strideBytes,
+      int first, final int last, final double value) {
+    int current;
+    int step;
+    int count = last - first;
+    while (count > 0) {
+      step = count / 2;
+      current = first + step;
+      if (mem.getDouble(offsetBytes + ((long) current * strideBytes)) < value) {
+        first = ++current;
+        count -= step + 1;
+      } else {
+        count = step;
+      }
+    }
+    return first;
+  }
+
+  /**
+   * Same as {@link #upperBound(double[], int, int, double)} for values stored in the given Memory
+   * at offsetBytes + index * strideBytes.
+   *
+   * @param mem Memory holding the values
+   * @param offsetBytes offset of the value at index 0
+   * @param strideBytes distance between consecutive values in bytes
+   * @param first index to the first element in the range
+   * @param last index to the element past the end of the range
+   * @param value to look for
+   * @return index to the element found or last if not found
+   */
+  static int upperBound(final Memory mem, final long offsetBytes, final int strideBytes,
+      int first, final int last, final double value) {
+    int current;
+    int step;
+    int count = last - first;
+    while (count > 0) {
+      step = count / 2;
+      current = first + step;
+      if (!(value < mem.getDouble(offsetBytes + ((long) current * strideBytes)))) {
+        first = ++current;
+        count -= step + 1;
+      } else {
+        count = step;
+      }
+    }
+    return first;
+  }
+
 }
@@ -24,6 +24,7 @@ import java.util.function.Function;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Buffer;
 import org.apache.datasketches.memory.Memory;
@@ -60,6 +61,7 @@ public final class TDigestDouble {
   private double[] bufferValues_;
   private long[] bufferWeights_;
   private long bufferedWeight_;
+  private final Memory mem_; //null if on the heap, otherwise a read-only serialized image
 
   private static final byte PREAMBLE_LONGS_EMPTY_OR_SINGLE = 1;
   private static final byte PREAMBLE_LONGS_MULTIPLE = 2;
@@ -68,6 +70,12 @@ public final class TDigestDouble {
   private static final int COMPAT_DOUBLE = 1;
   private static final int COMPAT_FLOAT = 2;
 
+  private static final int NUM_CENTROIDS_INT = 8;
+  private static final int MIN_DOUBLE = 16;
+  private static final int MAX_DOUBLE = 24;
+  private static final int CENTROIDS_START = 32;
+  private static final int CENTROID_BYTES = Double.BYTES + Long.BYTES;
+
   private enum Flags { IS_EMPTY, IS_SINGLE_VALUE, REVERSE_MERGE }
 
   /**
@@ -97,6 +105,7 @@ public final class TDigestDouble {
    * @param value to update the TDigest with
    */
   public void update(final double value) {
+    if (mem_ != null) { throw new SketchesReadOnlyException("Attempt to update a wrapped TDigest"); }
     if (Double.isNaN(value)) { return; }
     if (numBuffered_ == bufferCapacity_ - numCentroids_) { mergeBuffered(); }
     bufferValues_[numBuffered_] = value;
@@ -112,7 +121,12 @@ public final class TDigestDouble {
    * @param other TDigest to merge
    */
   public void merge(final TDigestDouble other) {
+    if (mem_ != null) { throw new SketchesReadOnlyException("Attempt to merge into a wrapped TDigest"); }
     if (other.isEmpty()) { return; }
+    if (other.mem_ != null) {
+      merge(heapify(other.mem_));
+      return;
+    }
     final int num = numCentroids_ + numBuffered_ + other.numCentroids_ + other.numBuffered_;
     if (num <= bufferCapacity_) {
       System.arraycopy(other.bufferValues_, 0, bufferValues_, numBuffered_, other.numBuffered_);
@@ -169,11 +183,18 @@ public final class TDigestDouble {
     return maxValue_;
   }
 
+  /**
+   * @return true if this TDigest is a read-only view of a serialized image in Memory
+   */
+  public boolean isReadOnly() {
+    return mem_ != null;
+  }
+
   /**
    * @return total weight
    */
   public long getTotalWeight() {
-    return centroidsWeight_ + bufferedWeight_;
+    return getCentroidsWeight() + bufferedWeight_;
   }
 
   /**
@@ -189,49 +210,55 @@ public final class TDigestDouble {
     if (numCentroids_ + numBuffered_ == 1) { return 0.5; }
 
     mergeBuffered(); // side effect
+    final long centroidsWeight = getCentroidsWeight();
 
     // left tail
-    final double firstMean = centroidMeans_[0];
+    final double firstMean = getMean(0);
     if (value < firstMean) {
       if (firstMean - minValue_ > 0) {
-        if (value == minValue_) { return 0.5 / centroidsWeight_; }
-        return (1.0 + (value - minValue_) / (firstMean - minValue_) * (centroidWeights_[0] / 2.0 - 1.0));
+        if (value == minValue_) { return 0.5 / centroidsWeight; }
+        return (1.0 + (value - minValue_) / (firstMean - minValue_) * (getWeight(0) / 2.0 - 1.0));
       }
       return 0; // should never happen
     }
 
     // right tail
-    final double lastMean = centroidMeans_[numCentroids_ - 1];
+    final double lastMean = getMean(numCentroids_ - 1);
     if (value > lastMean) {
       if (maxValue_ - lastMean > 0) {
-        if (value == maxValue_) { return 1.0 - 0.5 / centroidsWeight_; }
+        if (value == maxValue_) { return 1.0 - 0.5 / centroidsWeight; }
         return 1.0 - ((1.0 + (maxValue_ - value) / (maxValue_ - lastMean)
-            * (centroidWeights_[numCentroids_ - 1] / 2.0 - 1.0)) / centroidsWeight_);
+            * (getWeight(numCentroids_ - 1) / 2.0 - 1.0)) / centroidsWeight);
       }
       return 1; // should never happen
     }
 
-    int lower = BinarySearch.lowerBound(centroidMeans_, 0, numCentroids_, value);
+    int lower = mem_ == null
+        ? BinarySearch.lowerBound(centroidMeans_, 0, numCentroids_, value)
+        : BinarySearch.lowerBound(mem_, CENTROIDS_START, CENTROID_BYTES, 0, numCentroids_, value);
     if (lower == numCentroids_) { throw new SketchesStateException("lower == end in getRank()"); }
-    int upper = BinarySearch.upperBound(centroidMeans_, lower, numCentroids_, value);
+    int upper = mem_ == null
+        ? BinarySearch.upperBound(centroidMeans_, lower, numCentroids_, value)
+        : BinarySearch.upperBound(mem_, CENTROIDS_START, CENTROID_BYTES, lower, numCentroids_, value);
     if (upper == 0) { throw new SketchesStateException("upper == begin in getRank()"); }
-    if (value < centroidMeans_[lower]) { lower--; }
-    if (upper == numCentroids_ || !(centroidMeans_[upper - 1] < value)) { upper--; }
+    if (value < getMean(lower)) { lower--; }
+    if (upper == numCentroids_ || !(getMean(upper - 1) < value)) { upper--; }
 
     double weightBelow = 0;
     int i = 0;
-    while (i != lower) { weightBelow += centroidWeights_[i++]; }
-    weightBelow += centroidWeights_[lower] / 2.0;
+    while (i != lower) { weightBelow += getWeight(i++); }
+    weightBelow += getWeight(lower) / 2.0;
 
     double weightDelta = 0;
-    while (i != upper) { weightDelta += centroidWeights_[i++]; }
-    weightDelta -= centroidWeights_[lower] / 2.0;
-    weightDelta += centroidWeights_[upper] / 2.0;
-    if (centroidMeans_[upper] - centroidMeans_[lower] > 0) {
-      return (weightBelow + weightDelta * (value - centroidMeans_[lower])
-          / (centroidMeans_[upper] - centroidMeans_[lower])) / centroidsWeight_;
+    while (i != upper) { weightDelta += getWeight(i++); }
+    weightDelta -= getWeight(lower) / 2.0;
+    weightDelta += getWeight(upper) / 2.0;
+    final double lowerMean = getMean(lower);
+    final double upperMean = getMean(upper);
+    if (upperMean - lowerMean > 0) {
+      return (weightBelow + weightDelta * (value - lowerMean) / (upperMean - lowerMean)) / centroidsWeight;
     }
-    return (weightBelow + weightDelta / 2.0) / centroidsWeight_;
+    return (weightBelow + weightDelta / 2.0) / centroidsWeight;
   }
 
   /**
@@ -243,49 +270,52 @@ public final class TDigestDouble {
     if (isEmpty()) { throw new SketchesStateException(QuantilesAPI.EMPTY_MSG); }
     if (Double.isNaN(rank)) { throw new SketchesArgumentException("Operation is undefined for Nan"); }
     if (rank < 0 || rank > 1) { throw new SketchesArgumentException("Normalized rank must be within [0, 1]"); } 
-    
     mergeBuffered(); // side effect
 
-    if (numCentroids_ == 1) { return centroidMeans_[0]; }
+    if (numCentroids_ == 1) { return getMean(0); }
 
     // at least 2 centroids
-    final double weight = rank * centroidsWeight_;
+    final long centroidsWeight = getCentroidsWeight();
+    final double weight = rank * centroidsWeight;
     if (weight < 1) { return minValue_; }
-    if (weight > centroidsWeight_ - 1.0) { return maxValue_; }
-    final double firstWeight = centroidWeights_[0];
+    if (weight > centroidsWeight - 1.0) { return maxValue_; }
+    final double firstWeight = getWeight(0);
     if (firstWeight > 1 && weight < firstWeight / 2.0) {
-      return minValue_ + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * (centroidMeans_[0] - minValue_);
+      return minValue_ + (weight - 1.0) / (firstWeight / 2.0 - 1.0) * (getMean(0) - minValue_);
     }
-    final double lastWeight = centroidWeights_[numCentroids_ - 1];
-    if (lastWeight > 1 && centroidsWeight_ - weight <= lastWeight / 2.0) {
-      return maxValue_ + (centroidsWeight_ - weight - 1.0) / (lastWeight / 2.0 - 1.0) * (maxValue_ - centroidMeans_[numCentroids_ - 1]);
+    final double lastWeight = getWeight(numCentroids_ - 1);
+    if (lastWeight > 1 && centroidsWeight - weight <= lastWeight / 2.0) {
+      return maxValue_ + (centroidsWeight - weight - 1.0) / (lastWeight / 2.0 - 1.0) * (maxValue_ - getMean(numCentroids_ - 1));
     }
 
     // interpolate between extremes
     double weightSoFar = firstWeight / 2.0;
+    long leftCentroidWeight = getWeight(0);
     for (int i = 0; i < numCentroids_ - 1; i++) {
-      final double dw = (centroidWeights_[i] + centroidWeights_[i + 1]) / 2.0;
+      final long rightCentroidWeight = getWeight(i + 1);
+      final double dw = (leftCentroidWeight + rightCentroidWeight) / 2.0;
       if (weightSoFar + dw > weight) {
         // the target weight is between centroids i and i+1
         double leftWeight = 0;
-        if (centroidWeights_[i] == 1) {
-          if (weight - weightSoFar < 0.5) { return centroidMeans_[i]; }
+        if (leftCentroidWeight == 1) {
+          if (weight - weightSoFar < 0.5) { return getMean(i); }
           leftWeight = 0.5;
         }
         double rightWeight = 0;
-        if (centroidWeights_[i + 1] == 1) {
-          if (weightSoFar + dw - weight <= 0.5) { return centroidMeans_[i + 1]; }
+        if (rightCentroidWeight == 1) {
+          if (weightSoFar + dw - weight <= 0.5) { return getMean(i + 1); }
           rightWeight = 0.5;
         }
         final double w1 = weight - weightSoFar - leftWeight;
         final double w2 = weightSoFar + dw - weight - rightWeight;
-        return weightedAverage(centroidMeans_[i], w1, centroidMeans_[i + 1], w2);
+        return weightedAverage(getMean(i), w1, getMean(i + 1), w2);
       }
       weightSoFar += dw;
+      leftCentroidWeight = rightCentroidWeight;
     }
-    final double w1 = weight - centroidsWeight_ - centroidWeights_[numCentroids_ - 1] / 2.0;
-    final double w2 = centroidWeights_[numCentroids_ - 1] / 2.0 - w1;
-    return weightedAverage(centroidWeights_[numCentroids_ - 1], w1, maxValue_, w2);
+    final double w1 = weight - centroidsWeight - lastWeight / 2.0;
+    final double w2 = lastWeight / 2.0 - w1;
+    return weightedAverage(lastWeight, w1, maxValue_, w2);
   }
 
   /**
@@ -305,6 +335,10 @@ public final class TDigestDouble {
   public byte[] toByteArray() {
     mergeBuffered(); // side effect
     final byte[] bytes = new byte[getSerializedSizeBytes()];
+    if (mem_ != null) {
+      mem_.getByteArray(0, bytes, 0, bytes.length);
+      return bytes;
+    }
     final WritableBuffer wbuf = WritableMemory.writableWrap(bytes).asWritableBuffer();
     wbuf.putByte((byte) getPreambleLongs());
     wbuf.putByte(SERIAL_VERSION);
@@ -404,6 +438,46 @@ public final class TDigestDouble {
     return new TDigestDouble(reverseMerge, k, min, max, means, weights, totalWeight);
   }
 
+  /**
+   * Wrap a serialized TDigest in the given Memory as a read-only view.
+   * Ranks, quantiles, min and max values are answered directly from the centroids in the Memory
+   * without copying them to the heap. Update and merge into the wrapped TDigest are not allowed.
+   * An empty or single-value image, as well as the format of the reference implementation,
+   * is heapified instead since there is nothing to gain from wrapping it.
+   * @param mem instance of Memory with a serialized TDigest
+   * @return a read-only instance of TDigest
+   */
+  public static TDigestDouble wrap(final Memory mem) {
+    final byte preambleLongs = mem.getByte(0);
+    final byte serialVersion = mem.getByte(1);
+    final byte sketchType = mem.getByte(2);
+    if (sketchType != (byte) Family.TDIGEST.getID()) {
+      if (preambleLongs == 0 && serialVersion == 0 && sketchType == 0) { return heapifyCompat(mem); }
+      throw new SketchesArgumentException("Sketch type mismatch: expected " + Family.TDIGEST.getID() + ", actual " + sketchType);
+    }
+    if (serialVersion != SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SERIAL_VERSION + ", actual " + serialVersion);
+    }
+    final short k = mem.getShort(3);
+    final byte flagsByte = mem.getByte(5);
+    final boolean isEmpty = (flagsByte & (1 << Flags.IS_EMPTY.ordinal())) > 0;
+    final boolean isSingleValue = (flagsByte & (1 << Flags.IS_SINGLE_VALUE.ordinal())) > 0;
+    if (isEmpty || isSingleValue) { return heapify(mem); }
+    if (preambleLongs != PREAMBLE_LONGS_MULTIPLE) {
+      throw new SketchesArgumentException("Preamble longs mismatch: expected " + PREAMBLE_LONGS_MULTIPLE + ", actual " + preambleLongs);
+    }
+    final boolean reverseMerge = (flagsByte & (1 << Flags.REVERSE_MERGE.ordinal())) > 0;
+    final int numCentroids = mem.getInt(NUM_CENTROIDS_INT);
+    final long requiredBytes = CENTROIDS_START + (long) CENTROID_BYTES * numCentroids;
+    if (numCentroids < 1 || mem.getCapacity() < requiredBytes) {
+      throw new SketchesArgumentException("Memory capacity " + mem.getCapacity() + " is too small for "
+          + numCentroids + " centroids, required " + requiredBytes);
+    }
+    // the total weight is not part of the image and is computed lazily by getCentroidsWeight()
+    return new TDigestDouble(mem, reverseMerge, k, mem.getDouble(MIN_DOUBLE), mem.getDouble(MAX_DOUBLE),
+        null, null, numCentroids, -1);
+  }
+
   // compatibility with the format of the reference implementation
   // default byte order of ByteBuffer is used there, which is big endian
   private static TDigestDouble heapifyCompat(final Memory mem) {
@@ -470,10 +544,11 @@ public final class TDigestDouble {
       .append(" Buffered: ").append(numBuffered_).append(LS)
       .append(" Centroids Capacity: ").append(centroidsCapacity_).append(LS)
       .append(" Buffer Capacity: ").append(bufferCapacity_).append(LS)
-      .append("Centroids Weight: ").append(centroidsWeight_).append(LS)
+      .append("Centroids Weight: ").append(getCentroidsWeight()).append(LS)
       .append(" Buffered Weight: ").append(bufferedWeight_).append(LS)
       .append(" Total Weight: ").append(getTotalWeight()).append(LS)
-      .append(" Reverse Merge: ").append(reverseMerge_).append(LS);
+      .append(" Reverse Merge: ").append(reverseMerge_).append(LS)
+      .append(" Read Only: ").append(isReadOnly()).append(LS);
     if (!isEmpty()) {
       sb.append(" Min: ").append(minValue_).append(LS)
         .append(" Max: ").append(maxValue_).append(LS);
@@ -482,7 +557,7 @@ public final class TDigestDouble {
       if (numCentroids_ > 0) {
         sb.append("Centroids:").append(LS);
         for (int i = 0; i < numCentroids_; i++) {
-          sb.append(i).append(": ").append(centroidMeans_[i]).append(", ").append(centroidWeights_[i]).append(LS);
+          sb.append(i).append(": ").append(getMean(i)).append(", ").append(getWeight(i)).append(LS);
         }
       }
       if (numBuffered_ > 0) {
@@ -497,6 +572,13 @@ public final class TDigestDouble {
 
   private TDigestDouble(final boolean reverseMerge, final short k, final double min, final double max,
       final double[] means, final long[] weights, final long weight) {
+    this(null, reverseMerge, k, min, max, means, weights, means == null ? 0 : means.length, weight);
+  }
+
+  // if mem is not null the centroids are read from it and no arrays are allocated
+  private TDigestDouble(final Memory mem, final boolean reverseMerge, final short k, final double min,
+      final double max, final double[] means, final long[] weights, final int numCentroids, final long weight) {
+    mem_ = mem;
     reverseMerge_ = reverseMerge; 
     k_ = k;
     minValue_ = min;
@@ -509,14 +591,18 @@ public final class TDigestDouble {
     internalK_ = (short) Math.ceil(Math.sqrt(scale) * k_);
     centroidsCapacity_ = Math.max(centroidsCapacity_, internalK_ + fudge);
     bufferCapacity_ = Math.max(bufferCapacity_, centroidsCapacity_ * 2);
+    centroidsWeight_ = weight;
+    bufferedWeight_ = 0;
+    numBuffered_ = 0;
+    if (mem != null) {
+      numCentroids_ = numCentroids;
+      return;
+    }
     centroidMeans_ = new double[centroidsCapacity_];
     centroidWeights_ = new long[centroidsCapacity_];
     bufferValues_ =  new double[bufferCapacity_];
     bufferWeights_ = new long[bufferCapacity_];
     numCentroids_ = 0;
-    numBuffered_ = 0;
-    centroidsWeight_ = weight;
-    bufferedWeight_ = 0;
     if (means != null && weights != null) {
       System.arraycopy(means, 0, centroidMeans_, 0, means.length);
       System.arraycopy(weights, 0, centroidWeights_, 0, weights.length);
@@ -524,6 +610,25 @@ public final class TDigestDouble {
     }
   }
 
+  private double getMean(final int i) {
+    return mem_ == null ? centroidMeans_[i] : mem_.getDouble(CENTROIDS_START + (long) CENTROID_BYTES * i);
+  }
+
+  private long getWeight(final int i) {
+    return mem_ == null ? centroidWeights_[i] : mem_.getLong(CENTROIDS_START + (long) CENTROID_BYTES * i + Double.BYTES);
+  }
+
+  // A wrapped image does not record the total weight, so it is summed on first use
+  // rather than in wrap().
+  private long getCentroidsWeight() {
+    if (centroidsWeight_ < 0) {
+      long weight = 0;
+      for (int i = 0; i < numCentroids_; i++) { weight += getWeight(i); }
+      centroidsWeight_ = weight;
+    }
+    return centroidsWeight_;
+  }
+
   private void mergeBuffered() {
     if (numBuffered_ == 0) { return; }
     merge(bufferValues_, bufferWeights_, bufferedWeight_, numBuffered_);
@@ -20,8 +20,9 @@
 package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.common.Util.exactLog2OfLong;
-import static org.apache.datasketches.thetacommon.HashOperations.convertToHashTable;
+import static org.apache.datasketches.thetacommon.HashOperations.hashInsertOnly;
 import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
+import static org.apache.datasketches.thetacommon.HashOperations.minLgHashTableSize;
 
 import java.util.Arrays;
 
@@ -156,9 +157,11 @@ final class AnotBimpl extends AnotB {
   //restricted
 
   private static long[] getHashArrA(final Sketch skA) { //returns a new array
-    //Get skA cache as array
-    final CompactSketch cskA = skA.compact(false, null); //sorting not required
-    final long[] hashArrA = cskA.getCache().clone();
+    //Stream the valid hashes of skA into an array, sorting not required
+    final long[] hashArrA = new long[skA.getRetainedEntries(true)];
+    final HashIterator it = skA.iterator();
+    int i = 0;
+    while ((i < hashArrA.length) && it.next()) { hashArrA[i++] = it.get(); }
     return hashArrA;
   }
 
@@ -170,12 +173,17 @@ final class AnotBimpl extends AnotB {
 
     //Rebuild/get hashtable of skB
     final long[] hashTableB; //read only
-    final long[] thetaCache = skB.getCache();
-    final int countB = skB.getRetainedEntries(true);
-    if (skB instanceof CompactSketch) {
-      hashTableB = convertToHashTable(thetaCache, countB, minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
+    if ((skB instanceof CompactSketch) || skB.hasMemory()) {
+      //stream skB into a new hash table rather than copying or decompressing its cache first
+      final int lgArrLongs = minLgHashTableSize(skB.getRetainedEntries(true), ThetaUtil.REBUILD_THRESHOLD);
+      hashTableB = new long[1 << lgArrLongs];
+      final HashIterator it = skB.iterator();
+      while (it.next()) {
+        final long hash = it.get();
+        if (hash < minThetaLong) { hashInsertOnly(hashTableB, lgArrLongs, hash); }
+      }
     } else {
-      hashTableB = thetaCache;
+      hashTableB = skB.getCache(); //on the heap this is not a copy
     }
 
     //build temporary result arrays of skA
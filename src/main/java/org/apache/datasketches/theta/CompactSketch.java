@@ -130,6 +130,8 @@ public abstract class CompactSketch extends Sketch {
    *
    * <p>Only "Direct" Serialization Version 3 (i.e, OpenSource) sketches that have
    * been explicitly stored as direct sketches can be wrapped.
+   * Compressed Serialization Version 4 images can also be wrapped; their entries are
+   * decompressed on the fly while iterating.
    * Wrapping earlier serial version sketches will result in a heapify operation.
    * These early versions were never designed to "wrap".</p>
    *
@@ -156,6 +158,8 @@ public abstract class CompactSketch extends Sketch {
    *
    * <p>Only "Direct" Serialization Version 3 (i.e, OpenSource) sketches that have
    * been explicitly stored as direct sketches can be wrapped.
+   * Compressed Serialization Version 4 images can also be wrapped; their entries are
+   * decompressed on the fly while iterating.
    * Wrapping earlier serial version sketches will result in a heapify operation.
    * These early versions were never designed to "wrap".</p>
    *
@@ -187,9 +191,9 @@ public abstract class CompactSketch extends Sketch {
     final short seedHash = ThetaUtil.computeSeedHash(seed);
 
     if (serVer == 4) {
-      // not wrapping the compressed format since currently we cannot take advantage of
-      // decompression during iteration because set operations reach into memory directly
-      return heapifyV4(srcMem, seed, enforceSeed);
+      // the entries of the compressed format are decompressed during iteration
+      return DirectCompactCompressedSketch.wrapInstance(srcMem,
+          enforceSeed ? seedHash : (short) extractSeedHash(srcMem));
     }
     else if (serVer == 3) {
       if (PreambleUtil.isEmptyFlag(srcMem)) {
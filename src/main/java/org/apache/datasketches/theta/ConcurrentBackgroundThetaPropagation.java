@@ -19,8 +19,6 @@
 
 package org.apache.datasketches.theta;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
 /**
  * Background propagation thread. Propagates a given sketch or a hash value from local threads
  * buffers into the shared sketch which stores the most up-to-date estimation of number of unique
@@ -37,7 +35,7 @@ class ConcurrentBackgroundThetaPropagation implements Runnable {
   // Propagation flag of local buffer that is being processed.
   // It is the synchronization primitive to coordinate the work of the propagation with the
   // local buffer.  Updated when the propagation completes.
-  private final AtomicBoolean localPropagationInProgress;
+  private final ConcurrentPropagationFlag localPropagationInProgress;
 
   // Sketch to be propagated to shared sketch. Can be null if only a single hash is propagated
   private final Sketch sketchIn;
@@ -52,7 +50,7 @@ class ConcurrentBackgroundThetaPropagation implements Runnable {
   private final long epoch;
 
   ConcurrentBackgroundThetaPropagation(final ConcurrentSharedThetaSketch sharedThetaSketch,
-      final AtomicBoolean localPropagationInProgress, final Sketch sketchIn, final long singleHash,
+      final ConcurrentPropagationFlag localPropagationInProgress, final Sketch sketchIn, final long singleHash,
       final long epoch) {
     this.sharedThetaSketch = sharedThetaSketch;
     this.localPropagationInProgress = localPropagationInProgress;
@@ -21,11 +21,11 @@ package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.theta.PreambleUtil.THETA_LONG;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.WritableMemory;
 
@@ -42,8 +42,8 @@ import org.apache.datasketches.memory.WritableMemory;
 final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     implements ConcurrentSharedThetaSketch {
 
-  // The propagation thread
-  private ExecutorService executorService_;
+  // Serializes the background propagation tasks of this sketch on the underlying Executor
+  private final ConcurrentSerialExecutor propagationExecutor_;
 
   // A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
@@ -68,10 +68,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
    * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLongs">See lgNomLongs</a>.
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See Update Hash Seed</a>.
    * @param maxConcurrencyError the max error value including error induced by concurrency.
+   * @param executor the Executor that runs the background propagation tasks
    * @param dstMem     the given Memory object destination. It cannot be null.
    */
   ConcurrentDirectQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError, final WritableMemory dstMem) {
+      final double maxConcurrencyError, final Executor executor, final WritableMemory dstMem) {
     super(lgNomLongs, seed, 1.0F, //p
       ResizeFactor.X1, //rf,
       null, dstMem, false); //unionGadget
@@ -82,11 +83,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
-    initBgPropagationService();
+    propagationExecutor_ = new ConcurrentSerialExecutor(executor);
   }
 
   ConcurrentDirectQuickSelectSketch(final UpdateSketch sketch, final long seed,
-      final double maxConcurrencyError, final WritableMemory dstMem) {
+      final double maxConcurrencyError, final Executor executor, final WritableMemory dstMem) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         null, //mem Req Svr
@@ -97,7 +98,7 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
-    initBgPropagationService();
+    propagationExecutor_ = new ConcurrentSerialExecutor(executor);
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
     }
@@ -168,7 +169,7 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
   }
 
   @Override
-  public void endPropagation(final AtomicBoolean localPropagationInProgress, final boolean isEager) {
+  public void endPropagation(final ConcurrentPropagationFlag localPropagationInProgress, final boolean isEager) {
     //update volatile theta, uniques estimate and propagation flag
     updateVolatileTheta();
     updateEstimationSnapshot();
@@ -176,7 +177,7 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
       sharedPropagationInProgress_.set(false);
     }
     if (localPropagationInProgress != null) {
-      localPropagationInProgress.set(false); //clear local propagation flag
+      localPropagationInProgress.release(); //clear local propagation flag
     }
   }
 
@@ -187,23 +188,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
-    try {
-      executorService_.shutdown();
-      while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
-        Thread.sleep(1);
-      }
-    } catch (final InterruptedException e) {
-      e.printStackTrace();
-    }
+    propagationExecutor_.awaitQuiescence();
   }
 
   @Override
-  public final void initBgPropagationService() {
-    executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().getId());
-  }
-
-  @Override
-  public boolean propagate(final AtomicBoolean localPropagationInProgress,
+  public boolean propagate(final ConcurrentPropagationFlag localPropagationInProgress,
                            final Sketch sketchIn, final long singleHash) {
     final long epoch = epoch_;
     if ((singleHash != NOT_SINGLE_HASH)                   // namely, is a single hash and
@@ -223,7 +212,14 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    try {
+      propagationExecutor_.execute(job);
+    } catch (final SketchesStateException e) {
+      if (localPropagationInProgress != null) {
+        localPropagationInProgress.release(); //release the local buffer
+      }
+      throw e;
+    }
     return true;
   }
 
@@ -247,6 +243,38 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     return epoch_ == epoch;
   }
 
+  //ConcurrentPropagationControl declarations
+
+  @Override
+  public int getPropagationQueueDepth() {
+    return propagationExecutor_.getQueueDepth();
+  }
+
+  @Override
+  public int getMaxPropagationQueueDepth() {
+    return propagationExecutor_.getMaxQueueDepth();
+  }
+
+  @Override
+  public long getNumCompletedPropagations() {
+    return propagationExecutor_.getNumCompleted();
+  }
+
+  @Override
+  public void awaitPropagation() {
+    propagationExecutor_.awaitQuiescence();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return propagationExecutor_.isClosed();
+  }
+
+  @Override
+  public void close() {
+    propagationExecutor_.close();
+  }
+
   //Restricted
 
   /**
@@ -258,13 +286,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
     //no inspection NonAtomicOperationOnVolatileField
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread.
     epoch_++;
     endPropagation(null, true);
-    initBgPropagationService();
   }
 
 }
@@ -19,11 +19,11 @@
 
 package org.apache.datasketches.theta;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.SuppressFBWarnings;
 
 /**
@@ -39,8 +39,8 @@ import org.apache.datasketches.common.SuppressFBWarnings;
 final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     implements ConcurrentSharedThetaSketch {
 
-  // The propagation thread
-  private volatile ExecutorService executorService_;
+  // Serializes the background propagation tasks of this sketch on the underlying Executor
+  private final ConcurrentSerialExecutor propagationExecutor_;
 
   //A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
@@ -65,10 +65,10 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
    * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLogs">See lgNomLongs</a>.
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
    * @param maxConcurrencyError the max error value including error induced by concurrency
-   *
+   * @param executor the Executor that runs the background propagation tasks
    */
   ConcurrentHeapQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final Executor executor) {
     super(lgNomLongs, seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -79,11 +79,11 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
-    initBgPropagationService();
+    propagationExecutor_ = new ConcurrentSerialExecutor(executor);
   }
 
   ConcurrentHeapQuickSelectSketch(final UpdateSketch sketch, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final Executor executor) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -92,7 +92,7 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
-    initBgPropagationService();
+    propagationExecutor_ = new ConcurrentSerialExecutor(executor);
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
     }
@@ -163,7 +163,7 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
   }
 
   @Override
-  public void endPropagation(final AtomicBoolean localPropagationInProgress, final boolean isEager) {
+  public void endPropagation(final ConcurrentPropagationFlag localPropagationInProgress, final boolean isEager) {
     //update volatile theta, uniques estimate and propagation flag
     updateVolatileTheta();
     updateEstimationSnapshot();
@@ -171,7 +171,7 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
       sharedPropagationInProgress_.set(false);
     }
     if (localPropagationInProgress != null) {
-      localPropagationInProgress.set(false); //clear local propagation flag
+      localPropagationInProgress.release(); //clear local propagation flag
     }
   }
 
@@ -182,23 +182,11 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
-    try {
-      executorService_.shutdown();
-      while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
-        Thread.sleep(1);
-      }
-    } catch (final InterruptedException e) {
-      e.printStackTrace();
-    }
+    propagationExecutor_.awaitQuiescence();
   }
 
   @Override
-  public void initBgPropagationService() {
-    executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().getId());
-  }
-
-  @Override
-  public boolean propagate(final AtomicBoolean localPropagationInProgress,
+  public boolean propagate(final ConcurrentPropagationFlag localPropagationInProgress,
                            final Sketch sketchIn, final long singleHash) {
     final long epoch = epoch_;
     if ((singleHash != NOT_SINGLE_HASH)                 //namely, is a single hash and
@@ -218,7 +206,14 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    try {
+      propagationExecutor_.execute(job);
+    } catch (final SketchesStateException e) {
+      if (localPropagationInProgress != null) {
+        localPropagationInProgress.release(); //release the local buffer
+      }
+      throw e;
+    }
     return true;
   }
 
@@ -242,6 +237,38 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     return epoch_ == epoch;
   }
 
+  //ConcurrentPropagationControl declarations
+
+  @Override
+  public int getPropagationQueueDepth() {
+    return propagationExecutor_.getQueueDepth();
+  }
+
+  @Override
+  public int getMaxPropagationQueueDepth() {
+    return propagationExecutor_.getMaxQueueDepth();
+  }
+
+  @Override
+  public long getNumCompletedPropagations() {
+    return propagationExecutor_.getNumCompleted();
+  }
+
+  @Override
+  public void awaitPropagation() {
+    propagationExecutor_.awaitQuiescence();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return propagationExecutor_.isClosed();
+  }
+
+  @Override
+  public void close() {
+    propagationExecutor_.close();
+  }
+
   //Restricted
 
   /**
@@ -253,14 +280,12 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
     //no inspection NonAtomicOperationOnVolatileField
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread
     // Ignore a FindBugs warning
     epoch_++;
     endPropagation(null, true);
-    initBgPropagationService();
   }
 
 }
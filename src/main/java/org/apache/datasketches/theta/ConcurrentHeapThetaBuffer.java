@@ -23,8 +23,6 @@ import static org.apache.datasketches.theta.UpdateReturnState.ConcurrentBufferIn
 import static org.apache.datasketches.theta.UpdateReturnState.ConcurrentPropagated;
 import static org.apache.datasketches.theta.UpdateReturnState.RejectedOverTheta;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.thetacommon.HashOperations;
 
@@ -48,6 +46,12 @@ import org.apache.datasketches.thetacommon.HashOperations;
  * shared concurrent sketch, it must come from the shared concurrent sketch. As a result nearly all
  * of the inherited sketch methods are redirected to the shared concurrent sketch.
  *
+ * <p>Before a propagation starts, the buffer waits for its previous propagation to complete using
+ * the configured {@link ConcurrentWaitStrategy}. With double buffering the buffer keeps two
+ * propagation slots, so it can keep filling while one propagation is in flight and only waits when
+ * both slots are busy. The buffer is then sized as if there were twice as many local threads,
+ * which bounds the number of items in flight, and hence the concurrency error.
+ *
  * @author eshcar
  * @author Lee Rhodes
  */
@@ -63,14 +67,23 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
   // A flag to indicate if we expect the propagated data to be ordered
   private final boolean propagateOrderedCompact;
 
-  // Propagation flag is set to true while propagation is in progress (or pending).
-  // It is the synchronization primitive to coordinate the work with the propagation thread.
-  private final AtomicBoolean localPropagationInProgress;
+  // Propagation flags, one per propagation slot. A flag is set to true while propagation is in
+  // progress (or pending). It is the synchronization primitive to coordinate the work with the
+  // propagation thread.
+  private final ConcurrentPropagationFlag[] localPropagationInProgress;
+
+  // The strategy used to wait for a propagation slot to become free
+  private final ConcurrentWaitStrategy waitStrategy;
+
+  // The index of the propagation slot used by the next propagation
+  private int slot;
 
   ConcurrentHeapThetaBuffer(final int lgNomLongs, final long seed,
       final ConcurrentSharedThetaSketch shared, final boolean propagateOrderedCompact,
-      final int maxNumLocalThreads) {
-    super(computeLogBufferSize(lgNomLongs, shared.getExactLimit(), maxNumLocalThreads),
+      final int maxNumLocalThreads, final ConcurrentWaitStrategy waitStrategy,
+      final boolean doubleBuffering) {
+    super(computeLogBufferSize(lgNomLongs, shared.getExactLimit(),
+        doubleBuffering ? 2 * maxNumLocalThreads : maxNumLocalThreads),
       seed, 1.0F, //p
       ResizeFactor.X1, //rf
       false); //not a union gadget
@@ -78,7 +91,12 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
     this.shared = shared;
     isExactMode = true;
     this.propagateOrderedCompact = propagateOrderedCompact;
-    localPropagationInProgress = new AtomicBoolean(false);
+    localPropagationInProgress = new ConcurrentPropagationFlag[doubleBuffering ? 2 : 1];
+    for (int i = 0; i < localPropagationInProgress.length; i++) {
+      localPropagationInProgress[i] = new ConcurrentPropagationFlag();
+    }
+    this.waitStrategy = waitStrategy;
+    slot = 0;
   }
 
   private static int computeLogBufferSize(final int lgNomLongs, final long exactSize,
@@ -94,11 +112,9 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
    * @param hash to be propagated
    */
   private boolean propagateToSharedSketch(final long hash) {
-    //noinspection StatementWithEmptyBody
-    while (localPropagationInProgress.get()) {
-    } //busy wait until previous propagation completed
-    localPropagationInProgress.set(true);
-    final boolean res = shared.propagate(localPropagationInProgress, null, hash);
+    final ConcurrentPropagationFlag flag = nextPropagationFlag();
+    flag.set(true);
+    final boolean res = shared.propagate(flag, null, hash);
     //in this case the parent empty_ and curCount_ were not touched
     thetaLong_ = shared.getVolatileTheta();
     return res;
@@ -108,18 +124,27 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
    * Propagates the content of the buffer as a sketch to the shared sketch
    */
   private void propagateToSharedSketch() {
-    //noinspection StatementWithEmptyBody
-    while (localPropagationInProgress.get()) {
-    } //busy wait until previous propagation completed
-
+    final ConcurrentPropagationFlag flag = nextPropagationFlag();
     final CompactSketch compactSketch = compact(propagateOrderedCompact, null);
-    localPropagationInProgress.set(true);
-    shared.propagate(localPropagationInProgress, compactSketch,
-        ConcurrentSharedThetaSketch.NOT_SINGLE_HASH);
+    flag.set(true);
+    shared.propagate(flag, compactSketch, ConcurrentSharedThetaSketch.NOT_SINGLE_HASH);
     super.reset();
     thetaLong_ = shared.getVolatileTheta();
   }
 
+  /**
+   * Waits until the next propagation slot is free and advances to it
+   * @return the propagation flag of the free slot
+   */
+  private ConcurrentPropagationFlag nextPropagationFlag() {
+    final ConcurrentPropagationFlag flag = localPropagationInProgress[slot];
+    if (flag.get()) {
+      waitStrategy.await(flag); //wait until the previous propagation of this slot completed
+    }
+    slot = (slot + 1) % localPropagationInProgress.length;
+    return flag;
+  }
+
   //Public Sketch overrides proxies to shared concurrent sketch
 
   @Override
@@ -180,7 +205,10 @@ final class ConcurrentHeapThetaBuffer extends HeapQuickSelectSketch {
   public void reset() {
     super.reset();
     isExactMode = true;
-    localPropagationInProgress.set(false);
+    for (final ConcurrentPropagationFlag flag : localPropagationInProgress) {
+      flag.set(false);
+    }
+    slot = 0;
   }
 
   //Restricted UpdateSketch overrides
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.theta;
+
+/**
+ * Lifecycle and metrics of the background propagation of a concurrent shared theta sketch.
+ * Every shared sketch returned by {@link UpdateSketchBuilder#buildShared()} and its variants
+ * implements this interface, so the returned UpdateSketch can be cast to it.
+ *
+ * <pre>{@code
+ * UpdateSketch shared = bldr.buildShared();
+ * ConcurrentPropagationControl control = (ConcurrentPropagationControl) shared;
+ * int pending = control.getPropagationQueueDepth();
+ * }</pre>
+ */
+public interface ConcurrentPropagationControl extends AutoCloseable {
+
+  /**
+   * Returns the number of propagation tasks that have been submitted but have not yet completed.
+   * @return the number of propagation tasks that have been submitted but have not yet completed.
+   */
+  int getPropagationQueueDepth();
+
+  /**
+   * Returns the largest propagation queue depth observed since this sketch was created.
+   * @return the largest propagation queue depth observed since this sketch was created.
+   */
+  int getMaxPropagationQueueDepth();
+
+  /**
+   * Returns the number of background propagation tasks that have completed.
+   * @return the number of background propagation tasks that have completed.
+   */
+  long getNumCompletedPropagations();
+
+  /**
+   * Waits until all propagation tasks submitted so far have completed.
+   */
+  void awaitPropagation();
+
+  /**
+   * Returns true if this sketch has been closed.
+   * @return true if this sketch has been closed.
+   */
+  boolean isClosed();
+
+  /**
+   * Waits for all pending propagation to complete and stops accepting background propagation.
+   * The sketch remains readable. After close, a local buffer that needs background propagation
+   * throws a SketchesStateException. The underlying Executor is not shut down, since it may be
+   * shared.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The propagation flag of a local buffer. It is set by the local buffer when it starts a
+ * propagation and cleared by the shared sketch when the propagation completes.
+ * A local thread that parks while waiting for the flag to clear registers itself as the waiter,
+ * and is unparked by {@link #release()}.
+ *
+ * @author eshcar
+ */
+final class ConcurrentPropagationFlag extends AtomicBoolean {
+  private static final long serialVersionUID = 1L;
+
+  // The local thread parked on this flag, if any
+  private transient volatile Thread waiter;
+
+  ConcurrentPropagationFlag() {
+    super(false);
+  }
+
+  /**
+   * Clears this flag and unparks the waiting thread, if any.
+   * The waiter is read after the flag is cleared, and the waiter checks the flag after it is
+   * registered, so a wake-up cannot be lost.
+   */
+  void release() {
+    set(false);
+    final Thread w = waiter;
+    if (w != null) {
+      LockSupport.unpark(w);
+    }
+  }
+
+  /**
+   * Parks the calling thread until this flag is cleared.
+   * An interrupt does not end the wait, since the propagation still owns the buffer. Because
+   * LockSupport.park returns at once while the interrupt status is set, the status is cleared
+   * so the thread can park again, and it is restored when the wait is over.
+   */
+  void park() {
+    waiter = Thread.currentThread();
+    boolean interrupted = false;
+    try {
+      while (get()) {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      waiter = null;
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+}
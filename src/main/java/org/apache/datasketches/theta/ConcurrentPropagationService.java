@@ -16,57 +16,113 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.datasketches.theta;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.datasketches.common.SuppressFBWarnings;
+import org.apache.datasketches.common.SketchesArgumentException;
 
 /**
- * Pool of threads to serve <i>all</i> propagation tasks in the system.
+ * The default thread pool for the background propagation of the concurrent theta sketches.
+ *
+ * <p>It is used by every concurrent shared sketch that was not given its own Executor through
+ * {@link UpdateSketchBuilder#setPropagationExecutor(Executor)}. The pool threads are daemon
+ * threads, so the pool never prevents the JVM from exiting. Each shared sketch serializes its own
+ * propagation tasks, so any number of shared sketches may share the pool.</p>
+ *
+ * <p>The pool is created lazily. Calling {@link #shutdown()} releases its threads; a later
+ * concurrent sketch will create a new pool. Shared sketches that are still attached to a shut down
+ * pool fall back to propagating in the calling thread.</p>
  *
  * @author Eshcar Hillel
  */
-final class ConcurrentPropagationService {
+public final class ConcurrentPropagationService {
 
-  static int NUM_POOL_THREADS = 3; // Default: 3 threads
-  private static volatile ConcurrentPropagationService instance = null; // Singleton
-  private static ExecutorService[] propagationExecutorService = null;
+  /**
+   * The default number of pool threads.
+   */
+  public static final int DEFAULT_NUM_POOL_THREADS = 3;
 
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "Fix later")
-  private ConcurrentPropagationService() {
-    propagationExecutorService = new ExecutorService[NUM_POOL_THREADS];
-  }
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static ThreadPoolExecutor pool = null;
+
+  private ConcurrentPropagationService() { }
 
-  //Factory: Get the singleton
-  @SuppressFBWarnings(value = "SSD_DO_NOT_USE_INSTANCE_LOCK_ON_SHARED_STATIC_DATA", justification = "Fix later")
-  private static ConcurrentPropagationService getInstance() {
-    if (instance == null) {
-      synchronized (ConcurrentPropagationService.class) {
-        if (instance == null) {
-          instance = new ConcurrentPropagationService(); //SpotBugs: SSD_DO_NOT_USE_INSTANCE_LOCK_ON_SHARED_STATIC_DATA
-        }
-      }
+  /**
+   * Returns the default propagation pool, creating it if necessary, and sets its size to the given
+   * number of threads. Since the pool is shared, the most recent setting applies to all of its users.
+   * @param numPoolThreads the number of pool threads
+   * @return the default propagation pool
+   */
+  static synchronized Executor getExecutor(final int numPoolThreads) {
+    if (numPoolThreads < 1) {
+      throw new SketchesArgumentException("numPoolThreads must be at least 1: " + numPoolThreads);
     }
-    return instance;
+    if ((pool == null) || pool.isShutdown()) {
+      pool = new ThreadPoolExecutor(numPoolThreads, numPoolThreads, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(), new DaemonThreadFactory());
+    } else if (numPoolThreads > pool.getMaximumPoolSize()) {
+      pool.setMaximumPoolSize(numPoolThreads);
+      pool.setCorePoolSize(numPoolThreads);
+    } else if (numPoolThreads < pool.getMaximumPoolSize()) {
+      pool.setCorePoolSize(numPoolThreads);
+      pool.setMaximumPoolSize(numPoolThreads);
+    }
+    return pool;
   }
 
-  public static ExecutorService getExecutorService(final long id) {
-    return getInstance().initExecutorService((int) id % NUM_POOL_THREADS);
+  /**
+   * Returns the current number of threads of the default propagation pool, or zero if there is
+   * no active pool.
+   * @return the current number of threads of the default propagation pool.
+   */
+  public static synchronized int getPoolSize() {
+    return ((pool == null) || pool.isShutdown()) ? 0 : pool.getPoolSize();
   }
 
-  @SuppressWarnings("static-access")
-  public static ExecutorService resetExecutorService(final long id) {
-    return getInstance().propagationExecutorService[(int) id % NUM_POOL_THREADS] = null;
+  /**
+   * Shuts down the default propagation pool after the tasks already submitted to it have completed.
+   * @param timeout the maximum time to wait for the submitted tasks to complete
+   * @param unit the time unit of the timeout argument
+   * @return true if the pool terminated, or there was no pool, and false if the timeout elapsed
+   * before termination.
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public static boolean shutdown(final long timeout, final TimeUnit unit) throws InterruptedException {
+    final ThreadPoolExecutor current;
+    synchronized (ConcurrentPropagationService.class) {
+      current = pool;
+      pool = null;
+    }
+    if (current == null) { return true; }
+    current.shutdown();
+    return current.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Shuts down the default propagation pool without waiting for the submitted tasks to complete.
+   * The tasks already submitted will still be executed.
+   */
+  public static void shutdown() {
+    final ThreadPoolExecutor current;
+    synchronized (ConcurrentPropagationService.class) {
+      current = pool;
+      pool = null;
+    }
+    if (current != null) { current.shutdown(); }
   }
 
-  @SuppressWarnings("static-method")
-  private ExecutorService initExecutorService(final int i) {
-    if (propagationExecutorService[i] == null) {
-      propagationExecutorService[i] = Executors.newSingleThreadExecutor();
+  private static final class DaemonThreadFactory implements ThreadFactory {
+    @Override
+    public Thread newThread(final Runnable r) {
+      final Thread thread = new Thread(r, "theta-propagation-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
     }
-    return propagationExecutorService[i];
   }
 }
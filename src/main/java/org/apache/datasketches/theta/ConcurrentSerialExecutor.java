@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.datasketches.theta;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.datasketches.common.SketchesStateException;
+
+/**
+ * Runs the propagation tasks of one shared sketch one at a time, in submission order, on an
+ * underlying Executor that may be shared with other sketches and may run many tasks in parallel.
+ * At most one task of this queue is submitted to the underlying Executor at any time.
+ * If the underlying Executor rejects a task, for example because it has been shut down,
+ * the queued tasks are run in the calling thread instead.
+ */
+final class ConcurrentSerialExecutor implements Executor {
+  //bound on the tasks run by one drain before the underlying thread is released to other sketches
+  private static final int MAX_TASKS_PER_DRAIN = 1024;
+
+  private final Executor executor;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean draining = new AtomicBoolean(false);
+  private final AtomicInteger queueDepth = new AtomicInteger(0);
+  private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+  private final AtomicLong numCompleted = new AtomicLong(0);
+  private final Runnable drainTask = this::drain;
+  private volatile boolean closed = false;
+
+  ConcurrentSerialExecutor(final Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void execute(final Runnable task) {
+    if (closed) {
+      throw new SketchesStateException("The concurrent shared sketch has been closed.");
+    }
+    tasks.add(task);
+    final int depth = queueDepth.incrementAndGet();
+    int max;
+    while (depth > (max = maxQueueDepth.get())) {
+      if (maxQueueDepth.compareAndSet(max, depth)) { break; }
+    }
+    schedule();
+  }
+
+  /**
+   * Waits until all submitted tasks have completed.
+   */
+  void awaitQuiescence() {
+    try {
+      while (queueDepth.get() > 0) {
+        Thread.sleep(1);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Rejects any further tasks and waits until all submitted tasks have completed.
+   */
+  void close() {
+    closed = true;
+    awaitQuiescence();
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  long getNumCompleted() {
+    return numCompleted.get();
+  }
+
+  private void schedule() {
+    if (!draining.compareAndSet(false, true)) { return; }
+    try {
+      executor.execute(drainTask);
+    } catch (final RejectedExecutionException e) {
+      drain(); //we own the draining flag, so running here keeps the tasks serialized
+    }
+  }
+
+  private void drain() {
+    try {
+      Runnable task;
+      int count = 0;
+      while ((count++ < MAX_TASKS_PER_DRAIN) && ((task = tasks.poll()) != null)) {
+        try {
+          task.run();
+        } finally {
+          numCompleted.incrementAndGet();
+          queueDepth.decrementAndGet();
+        }
+      }
+    } finally {
+      draining.set(false);
+    }
+    //a task may have been added after the last poll but before the flag was cleared
+    if (!tasks.isEmpty()) { schedule(); }
+  }
+}
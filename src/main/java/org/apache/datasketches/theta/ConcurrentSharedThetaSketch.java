@@ -19,8 +19,6 @@
 
 package org.apache.datasketches.theta;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
 import org.apache.datasketches.memory.WritableMemory;
 
 /**
@@ -30,7 +28,7 @@ import org.apache.datasketches.memory.WritableMemory;
  *
  * @author eshcar
  */
-interface ConcurrentSharedThetaSketch {
+interface ConcurrentSharedThetaSketch extends ConcurrentPropagationControl {
 
   long NOT_SINGLE_HASH = -1L;
   double MIN_ERROR = 0.0000001;
@@ -60,7 +58,7 @@ interface ConcurrentSharedThetaSketch {
    *                                   notifies local thread the propagation is completed
    * @param isEager true if the propagation is in eager mode
    */
-  void endPropagation(AtomicBoolean localPropagationInProgress, boolean isEager);
+  void endPropagation(ConcurrentPropagationFlag localPropagationInProgress, boolean isEager);
 
   /**
    * Returns the value of the volatile theta manged by the shared sketch
@@ -69,15 +67,10 @@ interface ConcurrentSharedThetaSketch {
   long getVolatileTheta();
 
   /**
-   * Awaits termination of background (lazy) propagation tasks
+   * Awaits completion of the background (lazy) propagation tasks submitted so far
    */
   void awaitBgPropagationTermination();
 
-  /**
-   * Init background (lazy) propagation service
-   */
-  void initBgPropagationService();
-
   /**
    * (Eager) Propagates the given sketch or hash value into this sketch
    * @param localPropagationInProgress the flag to be updated when propagation is done
@@ -85,7 +78,7 @@ interface ConcurrentSharedThetaSketch {
    * @param singleHash a single hash value
    * @return true if propagation successfully started
    */
-  boolean propagate(final AtomicBoolean localPropagationInProgress, final Sketch sketchIn,
+  boolean propagate(final ConcurrentPropagationFlag localPropagationInProgress, final Sketch sketchIn,
     final long singleHash);
 
   /**
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+/**
+ * The strategy used by a local concurrent theta buffer to wait for its previous propagation to the
+ * shared sketch to complete before it starts the next one.
+ *
+ * @see UpdateSketchBuilder#setPropagationWaitStrategy(ConcurrentWaitStrategy)
+ * @author eshcar
+ */
+public enum ConcurrentWaitStrategy {
+
+  /**
+   * Busy-spins until the propagation completes. This gives the lowest hand-off latency but holds
+   * a core for the whole wait, so it is only suitable when every writer thread has its own core.
+   */
+  SPIN {
+    @Override
+    void await(final ConcurrentPropagationFlag flag) {
+      //noinspection StatementWithEmptyBody
+      while (flag.get()) { }
+    }
+  },
+
+  /**
+   * Spins for a short while, then yields the processor between checks. This is the default.
+   */
+  SPIN_YIELD {
+    @Override
+    void await(final ConcurrentPropagationFlag flag) {
+      if (spin(flag)) { return; }
+      while (flag.get()) {
+        Thread.yield();
+      }
+    }
+  },
+
+  /**
+   * Spins for a short while, then parks the thread until the propagation thread unparks it.
+   * Waiting threads consume no processor time, which suits more writer threads than cores.
+   */
+  PARK {
+    @Override
+    void await(final ConcurrentPropagationFlag flag) {
+      if (spin(flag)) { return; }
+      flag.park();
+    }
+  };
+
+  private static final int MAX_SPINS = 128;
+
+  /**
+   * Waits until the given propagation flag is cleared.
+   * @param flag the propagation flag of the local buffer
+   */
+  abstract void await(ConcurrentPropagationFlag flag);
+
+  /**
+   * Spins for at most MAX_SPINS checks of the given flag.
+   * @param flag the propagation flag of the local buffer
+   * @return true if the flag was cleared while spinning
+   */
+  static boolean spin(final ConcurrentPropagationFlag flag) {
+    for (int i = 0; i < MAX_SPINS; i++) {
+      if (!flag.get()) { return true; }
+    }
+    return !flag.get();
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.PreambleUtil.EMPTY_FLAG_MASK;
+import static org.apache.datasketches.theta.PreambleUtil.extractEntryBitsV4;
+import static org.apache.datasketches.theta.PreambleUtil.extractFlags;
+import static org.apache.datasketches.theta.PreambleUtil.extractNumEntriesBytesV4;
+import static org.apache.datasketches.theta.PreambleUtil.extractPreLongs;
+import static org.apache.datasketches.theta.PreambleUtil.extractSeedHash;
+import static org.apache.datasketches.theta.PreambleUtil.extractThetaLongV4;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * An off-heap (Direct), compact, ordered, read-only sketch backed by a compressed
+ * Serialization Version 4 image.
+ *
+ * <p>The entries are decompressed on the fly by the {@link #iterator()}, so wrapping the image
+ * and streaming it into a set operation does not copy the entries to the Java heap.
+ * Only {@link #getCache()} and the conversions to other forms decompress all entries.</p>
+ */
+class DirectCompactCompressedSketch extends DirectCompactSketch {
+
+  /**
+   * Construct this sketch with the given memory.
+   * @param mem Read-only Memory object.
+   */
+  DirectCompactCompressedSketch(final Memory mem) {
+    super(mem);
+  }
+
+  /**
+   * Wraps the given Memory, which must be a SerVer 4 compressed CompactSketch image.
+   * @param srcMem <a href="{@docRoot}/resources/dictionary.html#mem">See Memory</a>
+   * @param seedHash The update seedHash.
+   * <a href="{@docRoot}/resources/dictionary.html#seedHash">See Seed Hash</a>.
+   * @return this sketch
+   */
+  static DirectCompactCompressedSketch wrapInstance(final Memory srcMem, final short seedHash) {
+    ThetaUtil.checkSeedHashes((short) extractSeedHash(srcMem), seedHash);
+    return new DirectCompactCompressedSketch(srcMem);
+  }
+
+  //Sketch Overrides
+
+  @Override
+  public CompactSketch compact(final boolean dstOrdered, final WritableMemory dstMem) {
+    return CompactOperations.componentsToCompact(getThetaLong(), getRetainedEntries(true),
+        getSeedHash(), isEmpty(), true, true, dstOrdered, dstMem, getCache());
+  }
+
+  @Override
+  public int getCurrentBytes() { //the size of the uncompressed form
+    final int curCount = getRetainedEntries(true);
+    final long thetaLong = getThetaLong();
+    return (CompactOperations.computeCompactPreLongs(isEmpty(), curCount, thetaLong) + curCount) << 3;
+  }
+
+  @Override
+  public double getEstimate() {
+    return Sketch.estimate(getThetaLong(), getRetainedEntries(true));
+  }
+
+  @Override
+  public int getRetainedEntries(final boolean valid) { //compact is always valid
+    final int numEntriesBytes = extractNumEntriesBytesV4(mem_);
+    final int offsetBytes = extractPreLongs(mem_) << 3;
+    int numEntries = 0;
+    for (int i = 0; i < numEntriesBytes; i++) {
+      numEntries |= Byte.toUnsignedInt(mem_.getByte(offsetBytes + i)) << (i << 3);
+    }
+    return numEntries;
+  }
+
+  @Override
+  public long getThetaLong() {
+    return (extractPreLongs(mem_) > 1) ? extractThetaLongV4(mem_) : Long.MAX_VALUE;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    final boolean emptyFlag = (extractFlags(mem_) & EMPTY_FLAG_MASK) > 0;
+    return emptyFlag || ((getRetainedEntries(true) == 0) && (getThetaLong() == Long.MAX_VALUE));
+  }
+
+  @Override
+  public boolean isOrdered() {
+    return true;
+  }
+
+  @Override
+  public HashIterator iterator() {
+    final long entriesOffset = (extractPreLongs(mem_) << 3) + extractNumEntriesBytesV4(mem_);
+    return new MemoryCompactCompressedHashIterator(
+        mem_, entriesOffset, extractEntryBitsV4(mem_), getRetainedEntries(true));
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    return compact(true, null).toByteArray();
+  }
+
+  //restricted methods
+
+  @Override
+  long[] getCache() {
+    final long[] cache = new long[getRetainedEntries(true)];
+    final HashIterator it = iterator();
+    int i = 0;
+    while (it.next()) { cache[i++] = it.get(); }
+    return cache;
+  }
+
+  @Override
+  int getCompactPreambleLongs() {
+    return CompactOperations.computeCompactPreLongs(isEmpty(), getRetainedEntries(true), getThetaLong());
+  }
+
+  @Override
+  int getCurrentPreambleLongs() {
+    return getCompactPreambleLongs();
+  }
+
+}
@@ -288,7 +288,11 @@ class IntersectionImpl extends Intersection {
       else { //On the heap, allocate a HT
         hashTable_ = new long[1 << lgArrLongs_];
       }
-      moveDataToTgt(sketchIn.getCache(), curCount_);
+      if (sketchIn.hasMemory()) { //stream from Memory rather than copying the cache
+        moveDataToTgt(sketchIn.iterator(), curCount_);
+      } else {
+        moveDataToTgt(sketchIn.getCache(), curCount_);
+      }
     } //end of state 5
 
     //state 7
@@ -424,8 +428,6 @@ class IntersectionImpl extends Intersection {
   private void performIntersect(final Sketch sketchIn) {
     // curCount and input data are nonzero, match against HT
     assert curCount_ > 0 && !empty_;
-    final long[] cacheIn = sketchIn.getCache();
-    final int arrLongsIn = cacheIn.length;
     final long[] hashTable;
     if (wmem_ != null) {
       final int htLen = 1 << lgArrLongs_;
@@ -438,7 +440,24 @@ class IntersectionImpl extends Intersection {
     final long[] matchSet = new long[ min(curCount_, sketchIn.getRetainedEntries(true)) ];
 
     int matchSetCount = 0;
-    if (sketchIn.isOrdered()) {
+    if (sketchIn.hasMemory()) {
+      //stream from Memory rather than copying the cache, the iterator skips empty slots
+      final boolean ordered = sketchIn.isOrdered();
+      final HashIterator it = sketchIn.iterator();
+      while (it.next()) {
+        final long hashIn = it.get();
+        if (hashIn >= thetaLong_) {
+          if (ordered) { break; } //early stop
+          continue;
+        }
+        final int foundIdx = hashSearch(hashTable, lgArrLongs_, hashIn);
+        if (foundIdx == -1) { continue; }
+        matchSet[matchSetCount++] = hashIn;
+      }
+    }
+    else if (sketchIn.isOrdered()) {
+      final long[] cacheIn = sketchIn.getCache(); //on the heap this is not a copy
+      final int arrLongsIn = cacheIn.length;
       //ordered compact, which enables early stop
       for (int i = 0; i < arrLongsIn; i++ ) {
         final long hashIn = cacheIn[i];
@@ -453,6 +472,8 @@ class IntersectionImpl extends Intersection {
     }
     else {
       //either unordered compact or hash table
+      final long[] cacheIn = sketchIn.getCache(); //on the heap this is not a copy
+      final int arrLongsIn = cacheIn.length;
       for (int i = 0; i < arrLongsIn; i++ ) {
         final long hashIn = cacheIn[i];
         if (hashIn <= 0L || hashIn >= thetaLong_) { continue; }
@@ -505,6 +526,29 @@ class IntersectionImpl extends Intersection {
     assert tmpCnt == count : "Intersection Count Check: got: " + tmpCnt + ", expected: " + count;
   }
 
+  private void moveDataToTgt(final HashIterator it, final int count) {
+    int tmpCnt = 0;
+    if (wmem_ != null) { //Off Heap puts directly into mem
+      final int preBytes = CONST_PREAMBLE_LONGS << 3;
+      final int lgArrLongs = lgArrLongs_;
+      final long thetaLong = thetaLong_;
+      while (it.next()) {
+        final long hashIn = it.get();
+        if (continueCondition(thetaLong, hashIn)) { continue; }
+        hashInsertOnlyMemory(wmem_, lgArrLongs, hashIn, preBytes);
+        tmpCnt++;
+      }
+    } else { //On Heap. Assumes HT exists and is large enough
+      while (it.next()) {
+        final long hashIn = it.get();
+        if (continueCondition(thetaLong_, hashIn)) { continue; }
+        hashInsertOnly(hashTable_, lgArrLongs_, hashIn);
+        tmpCnt++;
+      }
+    }
+    assert tmpCnt == count : "Intersection Count Check: got: " + tmpCnt + ", expected: " + count;
+  }
+
   private void hardReset() {
     resetCommon();
     if (wmem_ != null) {
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.datasketches.theta;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * Iterator over the entries of a compressed (Serialization Version 4) compact sketch image.
+ * The delta-encoded hashes are unpacked directly from the Memory eight at a time into a small
+ * buffer and are never materialized as a whole, so iterating allocates only the two fixed-size
+ * buffers of this iterator.
+ */
+class MemoryCompactCompressedHashIterator implements HashIterator {
+  private final Memory mem;
+  private final int entryBits;
+  private final int numEntries;
+  private final long[] block; // the current block of up to 8 deltas
+  private final byte[] bytes; // the packed bytes of the current block
+  private long offsetBytes;
+  private int index;
+  private long previous;
+
+  MemoryCompactCompressedHashIterator(final Memory mem, final long offsetBytes,
+      final int entryBits, final int numEntries) {
+    this.mem = mem;
+    this.offsetBytes = offsetBytes;
+    this.entryBits = entryBits;
+    this.numEntries = numEntries;
+    block = new long[8];
+    bytes = new byte[entryBits];
+    index = -1;
+    previous = 0;
+  }
+
+  @Override
+  public long get() {
+    return previous;
+  }
+
+  @Override
+  public boolean next() {
+    if (++index >= numEntries) { return false; }
+    final int i = index & 7;
+    if (i == 0) { unpackBlock(); }
+    previous += block[i];
+    return true;
+  }
+
+  private void unpackBlock() {
+    final int count = Math.min(8, numEntries - index);
+    if (count == 8) {
+      mem.getByteArray(offsetBytes, bytes, 0, entryBits);
+      BitPacking.unpackBitsBlock8(block, 0, bytes, 0, entryBits);
+      offsetBytes += entryBits;
+      return;
+    }
+    //the last partial block is packed bit by bit, it needs fewer than entryBits bytes
+    final int bits = count * entryBits;
+    mem.getByteArray(offsetBytes, bytes, 0, (bits >>> 3) + ((bits & 7) > 0 ? 1 : 0));
+    int byteOffset = 0;
+    int bitOffset = 0;
+    for (int j = 0; j < count; j++) {
+      BitPacking.unpackBits(block, j, entryBits, bytes, byteOffset, bitOffset);
+      byteOffset += (bitOffset + entryBits) >>> 3;
+      bitOffset = (bitOffset + entryBits) & 7;
+    }
+  }
+
+}
@@ -19,6 +19,9 @@
 
 package org.apache.datasketches.theta;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -137,6 +140,44 @@ public abstract class Union extends SetOperation {
    */
   public abstract void union(Memory mem);
 
+  /**
+   * Perform a Union operation with <i>this</i> union and all of the given sketches in a single pass.
+   * The result is the same as calling {@link #union(Sketch)} with each of the given sketches,
+   * but the minimum theta of all the sketches is found first, so that only qualifying entries are
+   * inserted. The ordered compact sketches are merged in order and the merge stops as soon as it
+   * has found the <i>k</i> smallest distinct hashes, so most of their entries are never visited.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the incoming sketches
+   */
+  public abstract void unionAll(Iterable<? extends Sketch> sketches);
+
+  /**
+   * Perform a Union operation with <i>this</i> union and all of the given Memory images of sketches
+   * of the Theta Family. Images of compact sketches are wrapped rather than heapified and are
+   * merged as in {@link #unionAll(Iterable)}. Other images are merged as in {@link #union(Memory)}.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param mems the Memory images of the sketches to be merged
+   */
+  public abstract void unionAll(Memory[] mems);
+
+  /**
+   * Perform a Union operation with <i>this</i> union and all of the given sketches, dividing the
+   * sketches into batches that are merged by {@link #unionAll(Iterable)} into temporary on-heap
+   * unions in the given pool, and then merging the partial results pairwise.
+   * The result is the same as that of {@link #unionAll(Iterable)}.
+   * Small lists of sketches are merged serially.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the incoming sketches
+   * @param pool the ForkJoinPool in which to merge the batches of sketches
+   */
+  public abstract void unionAll(List<? extends Sketch> sketches, ForkJoinPool pool);
+
   /**
    * Update <i>this</i> union with the given long data item.
    *
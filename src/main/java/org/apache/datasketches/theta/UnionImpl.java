@@ -38,6 +38,12 @@ import static org.apache.datasketches.theta.PreambleUtil.insertUnionThetaLong;
 import static org.apache.datasketches.theta.SingleItemSketch.otherCheckForSingleItem;
 import static org.apache.datasketches.thetacommon.QuickSelect.selectExcludingZeros;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -54,6 +60,8 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Kevin Lang
  */
 final class UnionImpl extends Union {
+  //the number of sketches merged by a single task of a parallel unionAll
+  static final int PARALLEL_UNION_BATCH = 256;
 
   /**
    * Although the gadget object is initially an UpdateSketch, in the context of a Union it is used
@@ -66,12 +74,14 @@ final class UnionImpl extends Union {
    */
   private final UpdateSketch gadget_;
   private final short expectedSeedHash_; //eliminates having to compute the seedHash on every union.
+  private final long seed_; //only used to create the temporary unions of a parallel unionAll
   private long unionThetaLong_; //when on-heap, this is the only copy
   private boolean unionEmpty_;  //when on-heap, this is the only copy
 
   private UnionImpl(final UpdateSketch gadget, final long seed) {
     gadget_ = gadget;
     expectedSeedHash_ = ThetaUtil.computeSeedHash(seed);
+    seed_ = seed;
   }
 
   /**
@@ -318,7 +328,15 @@ final class UnionImpl extends Union {
     if (curCountIn > 0) {
       if (sketchIn.isOrdered() && (sketchIn instanceof CompactSketch)) { //Use early stop
         //Ordered, thus compact
-        if (sketchIn.hasMemory()) {
+        if (sketchIn instanceof DirectCompactCompressedSketch) { //decompress while streaming
+          final HashIterator it = sketchIn.iterator();
+          while (it.next()) {
+            final long hashIn = it.get();
+            if (hashIn >= unionThetaLong_) { break; } // "early stop"
+            gadget_.hashUpdate(hashIn); //backdoor update, hash function is bypassed
+          }
+        }
+        else if (sketchIn.hasMemory()) {
           final Memory skMem = ((CompactSketch) sketchIn).getMemory();
           final int preambleLongs = skMem.getByte(PREAMBLE_LONGS_BYTE) & 0X3F;
           for (int i = 0; i < curCountIn; i++ ) {
@@ -337,8 +355,17 @@ final class UnionImpl extends Union {
           }
         }
       } //End ordered, compact
+      else if (sketchIn.hasMemory()) { //stream from Memory rather than copying the cache
+        final HashIterator it = sketchIn.iterator(); //skips empty slots and hashes >= its theta
+        for (int c = 0; c < curCountIn && it.next(); ) {
+          final long hashIn = it.get();
+          if (hashIn <= 0L || hashIn >= unionThetaLong_) { continue; } //rejects dirty values
+          gadget_.hashUpdate(hashIn); //backdoor update, hash function is bypassed
+          c++; //ensures against invalid state inside the incoming sketch
+        }
+      }
       else { //either not-ordered compact or Hash Table form. A HT may have dirty values.
-        final long[] cacheIn = sketchIn.getCache(); //if off-heap this will be a copy
+        final long[] cacheIn = sketchIn.getCache(); //on the heap this is not a copy
         final int arrLongs = cacheIn.length;
         for (int i = 0, c = 0; i < arrLongs && c < curCountIn; i++ ) {
           final long hashIn = cacheIn[i];
@@ -365,8 +392,8 @@ final class UnionImpl extends Union {
     final int fam = extractFamilyID(skMem);
 
     if (serVer == 4) { // compressed ordered compact
-      // performance can be improved by decompression while performing the union
-      // potentially only partial decompression might be needed
+      // wrapped, so the entries are decompressed while performing the union,
+      // and only up to the early stop
       ThetaUtil.checkSeedHashes(expectedSeedHash_, (short) extractSeedHash(skMem));
       final CompactSketch csk = CompactSketch.wrap(skMem);
       union(csk);
@@ -395,6 +422,189 @@ final class UnionImpl extends Union {
     throw new SketchesArgumentException("SerVer is unknown: " + serVer);
   }
 
+  @Override
+  public void unionAll(final Iterable<? extends Sketch> sketches) {
+    if (sketches == null) { return; }
+    //Pre-scan: check the sketches, find the minimum theta and separate the ordered compact sketches
+    long minThetaLong = min(unionThetaLong_, gadget_.getThetaLong());
+    final List<Sketch> ordered = new ArrayList<>();
+    final List<Sketch> others = new ArrayList<>();
+    for (final Sketch sketchIn : sketches) {
+      if (sketchIn == null || sketchIn.isEmpty()) { continue; }
+      ThetaUtil.checkSeedHashes(expectedSeedHash_, sketchIn.getSeedHash());
+      if (sketchIn instanceof SingleItemSketch) {
+        others.add(sketchIn);
+        continue;
+      }
+      Sketch.checkSketchAndMemoryFlags(sketchIn);
+      minThetaLong = min(minThetaLong, sketchIn.getThetaLong()); //Theta rule
+      if (sketchIn.isOrdered() && (sketchIn instanceof CompactSketch)) {
+        ordered.add(sketchIn);
+      } else {
+        others.add(sketchIn);
+      }
+      unionEmpty_ = false;
+    }
+    if (ordered.isEmpty() && others.isEmpty()) { return; }
+    unionThetaLong_ = minThetaLong;
+    if (!ordered.isEmpty()) {
+      unionThetaLong_ = mergeOrdered(ordered, minThetaLong, 1 << gadget_.getLgNomLongs());
+    }
+    //the remaining sketches only insert their entries below the reduced theta
+    for (final Sketch sketchIn : others) {
+      union(sketchIn);
+    }
+    unionThetaLong_ = min(unionThetaLong_, gadget_.getThetaLong()); //Theta rule with gadget
+    if (gadget_.hasMemory()) {
+      final WritableMemory wmem = (WritableMemory)gadget_.getMemory();
+      PreambleUtil.insertUnionThetaLong(wmem, unionThetaLong_);
+      if (!unionEmpty_) { PreambleUtil.clearEmpty(wmem); }
+    }
+  }
+
+  @Override
+  public void unionAll(final Memory[] mems) {
+    if (mems == null) { return; }
+    final List<Sketch> wrapped = new ArrayList<>(mems.length);
+    final List<Memory> others = new ArrayList<>();
+    for (final Memory skMem : mems) {
+      if (skMem == null || skMem.getCapacity() < 16) { continue; } //empty or garbage
+      final int serVer = extractSerVer(skMem);
+      if (serVer >= 3 && extractFamilyID(skMem) == Family.COMPACT.getID()) {
+        wrapped.add(CompactSketch.wrap(skMem)); //the seedHash is checked by unionAll
+      } else {
+        others.add(skMem);
+      }
+    }
+    unionAll(wrapped);
+    for (final Memory skMem : others) {
+      union(skMem);
+    }
+  }
+
+  @Override
+  public void unionAll(final List<? extends Sketch> sketches, final ForkJoinPool pool) {
+    if (sketches == null) { return; }
+    if (pool == null || sketches.size() <= PARALLEL_UNION_BATCH) {
+      unionAll(sketches);
+      return;
+    }
+    final int lgNomLongs = gadget_.getLgNomLongs();
+    final CompactSketch partial =
+        pool.invoke(new UnionAllTask(sketches, 0, sketches.size(), lgNomLongs, seed_));
+    unionAll(Arrays.asList(partial));
+  }
+
+  /**
+   * Merges the given ordered compact sketches into the gadget in increasing order of their hashes,
+   * using a binary heap of iterators. Since the result is pulled back to the k smallest hashes
+   * by getResult(), the merge stops at the (k+1)th smallest distinct hash, which becomes the theta.
+   * @param sketches the ordered compact sketches
+   * @param thetaLong the minimum theta of all the incoming sketches, this union and the gadget
+   * @param k the nominal entries of this union
+   * @return the resulting theta of this union
+   */
+  private long mergeOrdered(final List<Sketch> sketches, final long thetaLong, final int k) {
+    final int numSketches = sketches.size();
+    final HashIterator[] its = new HashIterator[numSketches];
+    final long[] heads = new long[numSketches];
+    final int[] heap = new int[numSketches]; //indices into its and heads ordered by heads
+    int heapSize = 0;
+    for (int i = 0; i < numSketches; i++) {
+      final HashIterator it = sketches.get(i).iterator();
+      if (it.next() && it.get() < thetaLong) {
+        its[i] = it;
+        heads[i] = it.get();
+        heap[heapSize] = i;
+        siftUp(heap, heads, heapSize++);
+      }
+    }
+    long previous = 0;
+    int count = 0;
+    while (heapSize > 0) {
+      final int top = heap[0];
+      final long hashIn = heads[top];
+      if (hashIn != previous) {
+        if (count == k) { return hashIn; } //all larger hashes would be discarded by getResult()
+        gadget_.hashUpdate(hashIn); //backdoor update, hash function is bypassed
+        previous = hashIn;
+        count++;
+      }
+      final HashIterator it = its[top];
+      if (it.next() && it.get() < thetaLong) {
+        heads[top] = it.get();
+      } else {
+        heap[0] = heap[--heapSize];
+      }
+      siftDown(heap, heads, heapSize);
+    }
+    return thetaLong;
+  }
+
+  private static void siftUp(final int[] heap, final long[] heads, int i) {
+    final int x = heap[i];
+    while (i > 0) {
+      final int parent = (i - 1) >>> 1;
+      if (heads[heap[parent]] <= heads[x]) { break; }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = x;
+  }
+
+  private static void siftDown(final int[] heap, final long[] heads, final int heapSize) {
+    if (heapSize == 0) { return; }
+    final int x = heap[0];
+    int i = 0;
+    while (true) {
+      int child = (2 * i) + 1;
+      if (child >= heapSize) { break; }
+      if (child + 1 < heapSize && heads[heap[child + 1]] < heads[heap[child]]) { child++; }
+      if (heads[heap[child]] >= heads[x]) { break; }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = x;
+  }
+
+  /**
+   * Merges a range of a list of sketches into a temporary on-heap union and returns its ordered result.
+   * Ranges larger than PARALLEL_UNION_BATCH are split in halves, which are merged in parallel.
+   */
+  private static final class UnionAllTask extends RecursiveTask<CompactSketch> {
+    private static final long serialVersionUID = 1L;
+    private final transient List<? extends Sketch> sketches;
+    private final int start;
+    private final int end;
+    private final int lgNomLongs;
+    private final long seed;
+
+    UnionAllTask(final List<? extends Sketch> sketches, final int start, final int end,
+        final int lgNomLongs, final long seed) {
+      this.sketches = sketches;
+      this.start = start;
+      this.end = end;
+      this.lgNomLongs = lgNomLongs;
+      this.seed = seed;
+    }
+
+    @Override
+    protected CompactSketch compute() {
+      final UnionImpl union = initNewHeapInstance(lgNomLongs, seed, 1.0F, ResizeFactor.X8);
+      if (end - start <= PARALLEL_UNION_BATCH) {
+        union.unionAll(sketches.subList(start, end));
+      } else {
+        final int mid = (start + end) >>> 1;
+        final UnionAllTask left = new UnionAllTask(sketches, start, mid, lgNomLongs, seed);
+        final UnionAllTask right = new UnionAllTask(sketches, mid, end, lgNomLongs, seed);
+        right.fork();
+        final CompactSketch leftResult = left.compute();
+        union.unionAll(Arrays.asList(leftResult, right.join()));
+      }
+      return union.getResult(true, null);
+    }
+  }
+
   //Has seedHash, p, could have 0 entries & theta < 1.0,
   //could be unordered, ordered, compact, or not compact,
   //could be Alpha, QuickSelect, or Compact.
@@ -23,11 +23,12 @@ import static org.apache.datasketches.common.Util.LS;
 import static org.apache.datasketches.common.Util.TAB;
 import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 
+import java.util.concurrent.Executor;
+
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
-import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.memory.DefaultMemoryRequestServer;
 import org.apache.datasketches.memory.MemoryRequestServer;
 import org.apache.datasketches.memory.WritableMemory;
@@ -52,6 +53,9 @@ public class UpdateSketchBuilder {
   private boolean bPropagateOrderedCompact;
   private double bMaxConcurrencyError;
   private int bMaxNumLocalThreads;
+  private Executor bPropagationExecutor;
+  private ConcurrentWaitStrategy bPropagationWaitStrategy;
+  private boolean bLocalDoubleBuffering;
 
   /**
    * Constructor for building a new UpdateSketch. The default configuration is
@@ -72,6 +76,9 @@ public class UpdateSketchBuilder {
    * <li>Concurrent NumPoolThreads: 3</li>
    * <li>Concurrent PropagateOrderedCompact: true</li>
    * <li>Concurrent MaxConcurrencyError: 0</li>
+   * <li>Concurrent PropagationExecutor: null, which selects the default propagation pool</li>
+   * <li>Concurrent PropagationWaitStrategy: {@link ConcurrentWaitStrategy#SPIN_YIELD}</li>
+   * <li>Concurrent LocalDoubleBuffering: false</li>
    * </ul>
    */
   public UpdateSketchBuilder() {
@@ -82,11 +89,14 @@ public class UpdateSketchBuilder {
     bFam = Family.QUICKSELECT;
     bMemReqSvr = new DefaultMemoryRequestServer();
     // Default values for concurrent sketch
-    bNumPoolThreads = ConcurrentPropagationService.NUM_POOL_THREADS;
+    bNumPoolThreads = ConcurrentPropagationService.DEFAULT_NUM_POOL_THREADS;
     bLocalLgNomLongs = 4; //default is smallest legal QS sketch
     bPropagateOrderedCompact = true;
     bMaxConcurrencyError = 0;
     bMaxNumLocalThreads = 1;
+    bPropagationExecutor = null;
+    bPropagationWaitStrategy = ConcurrentWaitStrategy.SPIN_YIELD;
+    bLocalDoubleBuffering = false;
   }
 
   /**
@@ -269,6 +279,8 @@ public class UpdateSketchBuilder {
 
   /**
    * Sets the number of pool threads used for background propagation in the concurrent sketches.
+   * This sizes the default propagation pool, which is shared by all concurrent sketches that were
+   * not given their own Executor. It is ignored if a propagation Executor has been set.
    * @param numPoolThreads the given number of pool threads
    */
   public void setNumPoolThreads(final int numPoolThreads) {
@@ -283,6 +295,75 @@ public class UpdateSketchBuilder {
     return bNumPoolThreads;
   }
 
+  /**
+   * Sets the Executor that runs the background propagation tasks of the concurrent shared sketches
+   * built by this builder. Any Executor may be used, including one that runs many tasks in parallel
+   * and is shared with other work, since each shared sketch runs its own propagation tasks one at a
+   * time. The shared sketch does not shut down the given Executor.
+   * If null, which is the default, the default propagation pool is used.
+   *
+   * @param executor the given Executor, or null for the default propagation pool
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setPropagationExecutor(final Executor executor) {
+    bPropagationExecutor = executor;
+    return this;
+  }
+
+  /**
+   * Gets the Executor used for the background propagation of the concurrent shared sketches,
+   * or null if the default propagation pool is used.
+   * @return the Executor used for background propagation, or null
+   */
+  public Executor getPropagationExecutor() {
+    return bPropagationExecutor;
+  }
+
+  /**
+   * Sets the strategy that a concurrent local buffer uses to wait for its previous propagation
+   * to the shared sketch to complete.
+   *
+   * @param waitStrategy the given ConcurrentWaitStrategy
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setPropagationWaitStrategy(final ConcurrentWaitStrategy waitStrategy) {
+    if (waitStrategy == null) {
+      throw new SketchesArgumentException("The wait strategy must not be null.");
+    }
+    bPropagationWaitStrategy = waitStrategy;
+    return this;
+  }
+
+  /**
+   * Gets the strategy that a concurrent local buffer uses to wait for its previous propagation.
+   * @return the ConcurrentWaitStrategy
+   */
+  public ConcurrentWaitStrategy getPropagationWaitStrategy() {
+    return bPropagationWaitStrategy;
+  }
+
+  /**
+   * Sets the Local Double Buffering flag. Used with concurrent sketches.
+   * If true, a concurrent local buffer can have two propagations in flight, so the writer thread
+   * keeps filling the buffer while the previous propagation completes. The local buffer is then
+   * sized as if there were twice as many local threads, which bounds the concurrency error.
+   *
+   * @param doubleBuffering the given value
+   * @return this UpdateSketchBuilder
+   */
+  public UpdateSketchBuilder setLocalDoubleBuffering(final boolean doubleBuffering) {
+    bLocalDoubleBuffering = doubleBuffering;
+    return this;
+  }
+
+  /**
+   * Gets the Local Double Buffering flag used with concurrent sketches.
+   * @return the Local Double Buffering flag
+   */
+  public boolean getLocalDoubleBuffering() {
+    return bLocalDoubleBuffering;
+  }
+
   /**
    * Sets the Propagate Ordered Compact flag to the given value. Used with concurrent sketches.
    *
@@ -389,6 +470,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which selects the default propagation pool)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -411,6 +493,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which selects the default propagation pool)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -424,14 +507,13 @@ public class UpdateSketchBuilder {
    * @return a concurrent UpdateSketch with the current configuration of the Builder
    * and the given destination WritableMemory.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdateSketch buildShared(final WritableMemory dstMem) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
+    final Executor executor = getSharedPropagationExecutor();
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, executor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, executor,
+          dstMem);
     }
   }
 
@@ -444,6 +526,7 @@ public class UpdateSketchBuilder {
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
    * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Executor (default is null, which selects the default propagation pool)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -459,17 +542,21 @@ public class UpdateSketchBuilder {
    * @return a concurrent UpdateSketch with the current configuration of the Builder
    * and the given destination WritableMemory.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdateSketch buildSharedFromSketch(final UpdateSketch sketch, final WritableMemory dstMem) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
+    final Executor executor = getSharedPropagationExecutor();
     if (dstMem == null) {
-      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, executor);
     } else {
-      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstMem);
+      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, executor, dstMem);
     }
   }
 
+  private Executor getSharedPropagationExecutor() {
+    return (bPropagationExecutor != null)
+        ? bPropagationExecutor
+        : ConcurrentPropagationService.getExecutor(bNumPoolThreads);
+  }
+
   /**
    * Returns a local, on-heap, concurrent UpdateSketch to be used as a per-thread local buffer
    * along with the given concurrent shared UpdateSketch and the current configuration of this
@@ -479,6 +566,8 @@ public class UpdateSketchBuilder {
    * <ul>
    * <li>Local Nominal Entries or Local Log Nominal Entries</li>
    * <li>Propagate Ordered Compact flag</li>
+   * <li>Propagation Wait Strategy</li>
+   * <li>Local Double Buffering flag</li>
    * </ul>
    *
    * @param shared the concurrent shared sketch to be accessed via the concurrent local sketch.
@@ -489,7 +578,8 @@ public class UpdateSketchBuilder {
       throw new SketchesStateException("The concurrent shared sketch must be built first.");
     }
     return new ConcurrentHeapThetaBuffer(bLocalLgNomLongs, bSeed,
-        (ConcurrentSharedThetaSketch) shared, bPropagateOrderedCompact, bMaxNumLocalThreads);
+        (ConcurrentSharedThetaSketch) shared, bPropagateOrderedCompact, bMaxNumLocalThreads,
+        bPropagationWaitStrategy, bLocalDoubleBuffering);
   }
 
   @Override
@@ -508,8 +598,12 @@ public class UpdateSketchBuilder {
     sb.append("MemoryRequestServer:").append(TAB).append(mrsStr).append(LS);
     sb.append("Propagate Ordered Compact").append(TAB).append(bPropagateOrderedCompact).append(LS);
     sb.append("NumPoolThreads").append(TAB).append(bNumPoolThreads).append(LS);
+    final String exStr = (bPropagationExecutor == null) ? "default" : bPropagationExecutor.getClass().getSimpleName();
+    sb.append("PropagationExecutor").append(TAB).append(exStr).append(LS);
     sb.append("MaxConcurrencyError").append(TAB).append(bMaxConcurrencyError).append(LS);
     sb.append("MaxNumLocalThreads").append(TAB).append(bMaxNumLocalThreads).append(LS);
+    sb.append("PropagationWaitStrategy").append(TAB).append(bPropagationWaitStrategy).append(LS);
+    sb.append("LocalDoubleBuffering").append(TAB).append(bLocalDoubleBuffering).append(LS);
     return sb.toString();
   }
 
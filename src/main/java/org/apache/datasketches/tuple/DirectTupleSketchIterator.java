@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import org.apache.datasketches.memory.Memory;
+
+/**
+ * Iterator over the hash table and summary slots of a Direct generic tuple sketch
+ * @param <S> Type of Summary
+ */
+final class DirectTupleSketchIterator<S extends Summary> extends TupleSketchIterator<S> {
+
+  private final Memory mem_;
+  private final long hashesOffset_;
+  private final int capacity_;
+  private final long summariesOffset_;
+  private final int summaryWidth_;
+  private final SummaryFactory<S> summaryFactory_;
+  private int i_;
+
+  DirectTupleSketchIterator(final Memory mem, final long hashesOffset, final int capacity,
+      final long summariesOffset, final int summaryWidth, final SummaryFactory<S> summaryFactory) {
+    super(null, null);
+    mem_ = mem;
+    hashesOffset_ = hashesOffset;
+    capacity_ = capacity;
+    summariesOffset_ = summariesOffset;
+    summaryWidth_ = summaryWidth;
+    summaryFactory_ = summaryFactory;
+    i_ = -1;
+  }
+
+  @Override
+  public boolean next() {
+    i_++;
+    while (i_ < capacity_) {
+      if (mem_.getLong(hashesOffset_ + ((long) Long.BYTES * i_)) > 0) { return true; }
+      i_++;
+    }
+    return false;
+  }
+
+  @Override
+  public long getHash() {
+    return mem_.getLong(hashesOffset_ + ((long) Long.BYTES * i_));
+  }
+
+  /**
+   * Gets a Summary object materialized from the current slot in the sketch.
+   * Each call returns a new instance, so changing it does not change the sketch.
+   * @return Summary object for the current entry
+   */
+  @Override
+  public S getSummary() {
+    final S summary = summaryFactory_.newSummary();
+    ((FixedWidthSummary) summary).readFrom(mem_, summariesOffset_ + ((long) summaryWidth_ * i_));
+    return summary;
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+
+/**
+ * Interface for a user-defined Summary whose state fits in a fixed number of bytes.
+ *
+ * <p>Sketches and unions that keep their hash and summary tables in a WritableMemory
+ * (the Direct sketches and unions) require their summaries to implement this interface.
+ * Each entry of such a table reserves exactly {@link #getFixedWidthBytes()} bytes for its summary.
+ * A summary is materialized from its slot by calling {@link #readFrom(Memory, long)} on an instance
+ * obtained from the SummaryFactory of the sketch, so any state that is the same for all summaries
+ * of a sketch, such as an update mode, need not be written to the slot.</p>
+ */
+public interface FixedWidthSummary extends Summary {
+
+  /**
+   * Gets the number of bytes this Summary occupies in a slot of a Direct table.
+   * This must be the same for all summaries produced by the same SummaryFactory.
+   * @return the fixed width of this Summary in bytes
+   */
+  public int getFixedWidthBytes();
+
+  /**
+   * Writes the state of this Summary to the given WritableMemory.
+   * @param mem the destination WritableMemory
+   * @param offsetBytes the offset of the slot in the destination, in bytes
+   */
+  public void writeTo(WritableMemory mem, long offsetBytes);
+
+  /**
+   * Replaces the state of this Summary with the state written to the given Memory
+   * by {@link #writeTo(WritableMemory, long)}.
+   * @param mem the source Memory
+   * @param offsetBytes the offset of the slot in the source, in bytes
+   */
+  public void readFrom(Memory mem, long offsetBytes);
+
+}
@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.LS;
+
+import org.apache.datasketches.common.ByteArrayUtil;
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.thetacommon.BinomialBoundsN;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.QuickSelect;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * The hash table and theta logic shared by the QuickSelect tuple sketches that keep their values in
+ * a primitive array parallel to the hash table, such as
+ * {@link org.apache.datasketches.tuple.adouble.PrimitiveDoubleSketch} and
+ * {@link org.apache.datasketches.tuple.aninteger.PrimitiveIntegerSketch}.
+ *
+ * <p>A subclass owns the value array and its type. It is told through
+ * {@link #moveValues(int, int[])} whenever the hash table is rebuilt, so it can move the values
+ * along with their keys.</p>
+ */
+public abstract class PrimitiveQuickSelectSketch {
+  /**
+   * The index returned by {@link #searchOrInsert(long)} for a hash that is not retained.
+   */
+  protected static final int NOT_RETAINED = Integer.MIN_VALUE;
+
+  // the serialized form of a CompactSketch, see CompactSketch.toByteArray()
+  private static final byte COMPACT_SERIAL_VERSION = 3;
+  private static final short COMPACT_SEED_HASH = ThetaUtil.computeSeedHash(ThetaUtil.DEFAULT_UPDATE_SEED);
+  private static final int COMPACT_READ_ONLY_FLAG = 1 << 1;
+  private static final int COMPACT_EMPTY_FLAG = 1 << 2;
+  private static final int COMPACT_COMPACT_FLAG = 1 << 3;
+
+  private final int nomEntries_;
+  private final int lgResizeFactor_;
+  private final float samplingProbability_;
+  private long thetaLong_;
+  private boolean empty_;
+  private int lgCurrentCapacity_;
+  private int retEntries_;
+  private int rebuildThreshold_;
+  private long[] hashTable_;
+
+  /**
+   * Constructs an empty hash table. The subclass must allocate its values with the length
+   * {@link #getCurrentCapacity()}.
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   */
+  protected PrimitiveQuickSelectSketch(final int lgK, final int lgResizeFactor,
+      final float samplingProbability) {
+    if ((samplingProbability < 0) || (samplingProbability > 1f)) {
+      throw new SketchesArgumentException("sampling probability must be between 0 and 1");
+    }
+    nomEntries_ = 1 << ThetaUtil.checkNomLongs(1 << lgK);
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    resetTable();
+  }
+
+  /**
+   * Constructs a deep copy of the hash table of the given sketch. The subclass must copy its values.
+   * @param sketch the given sketch
+   */
+  protected PrimitiveQuickSelectSketch(final PrimitiveQuickSelectSketch sketch) {
+    nomEntries_ = sketch.nomEntries_;
+    lgResizeFactor_ = sketch.lgResizeFactor_;
+    samplingProbability_ = sketch.samplingProbability_;
+    thetaLong_ = sketch.thetaLong_;
+    empty_ = sketch.empty_;
+    lgCurrentCapacity_ = sketch.lgCurrentCapacity_;
+    retEntries_ = sketch.retEntries_;
+    rebuildThreshold_ = sketch.rebuildThreshold_;
+    hashTable_ = sketch.hashTable_.clone();
+  }
+
+  /**
+   * Gets the unique count estimate.
+   * @return estimate of the number of unique keys presented to the sketch
+   */
+  public double getEstimate() {
+    if (!isEstimationMode()) { return retEntries_; }
+    return retEntries_ / getTheta();
+  }
+
+  /**
+   * Gets the approximate upper error bound given the specified number of Standard Deviations.
+   * @param numStdDev <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the upper bound.
+   */
+  public double getUpperBound(final int numStdDev) {
+    if (!isEstimationMode()) { return retEntries_; }
+    return BinomialBoundsN.getUpperBound(retEntries_, getTheta(), numStdDev, empty_);
+  }
+
+  /**
+   * Gets the approximate lower error bound given the specified number of Standard Deviations.
+   * @param numStdDev <a href="{@docRoot}/resources/dictionary.html#numStdDev">See Number of Standard Deviations</a>
+   * @return the lower bound.
+   */
+  public double getLowerBound(final int numStdDev) {
+    if (!isEstimationMode()) { return retEntries_; }
+    return BinomialBoundsN.getLowerBound(retEntries_, getTheta(), numStdDev, empty_);
+  }
+
+  /**
+   * <a href="{@docRoot}/resources/dictionary.html#empty">See Empty</a>
+   * @return true if empty.
+   */
+  public boolean isEmpty() {
+    return empty_;
+  }
+
+  /**
+   * Returns true if the sketch is Estimation Mode (as opposed to Exact Mode).
+   * @return true if the sketch is in estimation mode.
+   */
+  public boolean isEstimationMode() {
+    return (thetaLong_ < Long.MAX_VALUE) && !empty_;
+  }
+
+  /**
+   * Gets the value of theta as a double between zero and one
+   * @return the value of theta as a double
+   */
+  public double getTheta() {
+    return getThetaLong() / (double) Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns Theta as a long
+   * @return Theta as a long
+   */
+  public long getThetaLong() {
+    return empty_ ? Long.MAX_VALUE : thetaLong_;
+  }
+
+  /**
+   * @return number of retained entries
+   */
+  public int getRetainedEntries() {
+    return retEntries_;
+  }
+
+  /**
+   * Get configured nominal number of entries
+   * @return nominal number of entries
+   */
+  public int getNominalEntries() {
+    return nomEntries_;
+  }
+
+  /**
+   * Get current capacity
+   * @return current capacity
+   */
+  public int getCurrentCapacity() {
+    return hashTable_.length;
+  }
+
+  /**
+   * Get the mode used to combine the values of the same key
+   * @return the mode
+   */
+  public abstract Enum<?> getMode();
+
+  /**
+   * Rebuilds reducing the actual number of entries to the nominal number of entries if needed
+   */
+  public void trim() {
+    if (retEntries_ > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    }
+  }
+
+  /**
+   * Resets this sketch an empty state.
+   */
+  public void reset() {
+    resetTable();
+    moveValues(hashTable_.length, null);
+  }
+
+  // Layout of first 8 bytes:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||    seed hash    |  Flags | unused | SkType | FamID  | SerVer |  Preamble_Longs    |
+  /**
+   * Serializes this sketch in the compact form of a CompactSketch of the corresponding summary type
+   * @return serialized representation of the sketch
+   */
+  public byte[] toByteArray() {
+    final int count = retEntries_;
+    final boolean isSingleItem = (count == 1) && !isEstimationMode();
+    final int preambleLongs = empty_ || isSingleItem ? 1 : isEstimationMode() ? 3 : 2;
+    final byte[] bytes = new byte[(Long.BYTES * preambleLongs) + ((Long.BYTES + getSummaryBytes()) * count)];
+    int offset = 0;
+    bytes[offset++] = (byte) preambleLongs;
+    bytes[offset++] = COMPACT_SERIAL_VERSION;
+    bytes[offset++] = (byte) Family.TUPLE.getID();
+    bytes[offset++] = (byte) SerializerDeserializer.SketchType.CompactSketch.ordinal();
+    offset++; // unused
+    bytes[offset++] = (byte) (COMPACT_COMPACT_FLAG | COMPACT_READ_ONLY_FLAG
+        | (empty_ ? COMPACT_EMPTY_FLAG : 0));
+    ByteArrayUtil.putShortLE(bytes, offset, COMPACT_SEED_HASH);
+    offset += Short.BYTES;
+    if (!empty_ && !isSingleItem) {
+      ByteArrayUtil.putIntLE(bytes, offset, count);
+      offset += Long.BYTES; // count and 4 unused bytes
+      if (isEstimationMode()) {
+        ByteArrayUtil.putLongLE(bytes, offset, thetaLong_);
+        offset += Long.BYTES;
+      }
+    }
+    for (int i = 0; i < hashTable_.length; i++) {
+      if (hashTable_[i] == 0) { continue; }
+      ByteArrayUtil.putLongLE(bytes, offset, hashTable_[i]);
+      offset += Long.BYTES;
+      offset = putSummary(bytes, offset, i);
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("### ").append(this.getClass().getSimpleName()).append(" SUMMARY: ").append(LS);
+    sb.append("   Estimate                : ").append(getEstimate()).append(LS);
+    sb.append("   Upper Bound, 95% conf   : ").append(getUpperBound(2)).append(LS);
+    sb.append("   Lower Bound, 95% conf   : ").append(getLowerBound(2)).append(LS);
+    sb.append("   Theta (double)          : ").append(getTheta()).append(LS);
+    sb.append("   Theta (long)            : ").append(getThetaLong()).append(LS);
+    sb.append("   EstMode?                : ").append(isEstimationMode()).append(LS);
+    sb.append("   Empty?                  : ").append(isEmpty()).append(LS);
+    sb.append("   Retained Entries        : ").append(getRetainedEntries()).append(LS);
+    sb.append("   Nominal Entries (k)     : ").append(getNominalEntries()).append(LS);
+    sb.append("   Current Capacity        : ").append(getCurrentCapacity()).append(LS);
+    sb.append("   Mode                    : ").append(getMode()).append(LS);
+    sb.append("### END SKETCH SUMMARY").append(LS);
+    return sb.toString();
+  }
+
+  // non-public methods below
+
+  /**
+   * Replaces the value array with one of the given length. The value at old index <i>i</i> moves to
+   * <i>newIndexes[i]</i>, and is dropped if that is negative. If <i>newIndexes</i> is null, all
+   * values are dropped.
+   * @param newLength the length of the new value array, which is the new capacity of the hash table
+   * @param newIndexes the new index of each old value, or null
+   */
+  protected abstract void moveValues(int newLength, int[] newIndexes);
+
+  /**
+   * @return the number of bytes of a serialized summary
+   */
+  protected abstract int getSummaryBytes();
+
+  /**
+   * Serializes the summary of the value at the given index.
+   * @param bytes the destination
+   * @param offset the offset in the destination
+   * @param index the index of the value
+   * @return the offset after the serialized summary
+   */
+  protected abstract int putSummary(byte[] bytes, int offset, int index);
+
+  /**
+   * Gets the hash table, which must not be modified by the subclass. Empty slots hold zero.
+   * @return the hash table
+   */
+  protected final long[] getHashTable() {
+    return hashTable_;
+  }
+
+  /**
+   * Presents a hash of a key to this sketch. The caller must set the value at the returned index.
+   * If the hash was inserted, the caller must call {@link #rebuildIfNeeded()} after that.
+   * @param hash the given hash
+   * @return the index of the retained hash, ~index if it was inserted, or {@link #NOT_RETAINED}
+   */
+  protected final int searchOrInsert(final long hash) {
+    empty_ = false;
+    if ((hash == 0) || (hash >= thetaLong_)) { return NOT_RETAINED; }
+    final int index = HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash);
+    if (index < 0) { retEntries_++; }
+    return index;
+  }
+
+  /**
+   * Finds the index of the given hash in this sketch.
+   * @param hash the given hash
+   * @return the index of the given hash, or a negative number if it is not retained
+   */
+  protected final int indexOf(final long hash) {
+    return HashOperations.hashSearch(hashTable_, lgCurrentCapacity_, hash);
+  }
+
+  /**
+   * Grows the hash table or reduces theta if the retained entries have reached the threshold.
+   */
+  protected final void rebuildIfNeeded() {
+    if (retEntries_ <= rebuildThreshold_) { return; }
+    if (hashTable_.length > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    } else {
+      resize(hashTable_.length * (1 << lgResizeFactor_));
+    }
+  }
+
+  /**
+   * Applies the rules of a union with the given sketch to the state of this sketch.
+   * The caller must then present the retained hashes of the given sketch.
+   * @param other the given sketch
+   * @return false if the given sketch is null or empty and there is nothing more to do
+   */
+  protected final boolean startUnion(final PrimitiveQuickSelectSketch other) {
+    if ((other == null) || other.isEmpty()) { return false; }
+    empty_ = false;
+    if (other.thetaLong_ < thetaLong_) {
+      thetaLong_ = other.thetaLong_;
+      resize(hashTable_.length); // drops the entries at or above the new theta
+    }
+    return true;
+  }
+
+  /**
+   * Applies the empty and theta rules of an intersection with the given sketch to the state of this
+   * sketch. The caller must then call {@link #retainEntries(boolean[])} with the entries present in
+   * both sketches.
+   * @param other the given sketch, which must not be null
+   * @return false if the result is empty and there is nothing more to do
+   */
+  protected final boolean startIntersection(final PrimitiveQuickSelectSketch other) {
+    if (other == null) {
+      throw new SketchesArgumentException("Sketch must not be null");
+    }
+    if (empty_ || other.empty_) { //empty rule
+      reset();
+      return false;
+    }
+    thetaLong_ = min(thetaLong_, other.thetaLong_); //theta rule
+    return true;
+  }
+
+  /**
+   * Completes an intersection by keeping only the given entries of the hash table.
+   * @param retain true at the index of each entry to keep
+   */
+  protected final void retainEntries(final boolean[] retain) {
+    final long[] oldHashTable = hashTable_;
+    final int[] newIndexes = new int[oldHashTable.length];
+    hashTable_ = new long[oldHashTable.length];
+    retEntries_ = 0;
+    for (int i = 0; i < oldHashTable.length; i++) {
+      newIndexes[i] = -1;
+      if (retain[i]) {
+        newIndexes[i] = HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, oldHashTable[i]);
+        retEntries_++;
+      }
+    }
+    moveValues(hashTable_.length, newIndexes);
+    if ((retEntries_ == 0) && (thetaLong_ == Long.MAX_VALUE)) { empty_ = true; }
+  }
+
+  private void resetTable() {
+    empty_ = true;
+    retEntries_ = 0;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
+    final int startingCapacity = Util.getStartingCapacity(nomEntries_, lgResizeFactor_);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    hashTable_ = new long[startingCapacity];
+    rebuildThreshold_ = getRebuildThreshold(startingCapacity, nomEntries_);
+  }
+
+  private void updateTheta() {
+    final long[] hashArr = new long[retEntries_];
+    int i = 0;
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) { hashArr[i++] = hashTable_[j]; }
+    }
+    thetaLong_ = QuickSelect.select(hashArr, 0, retEntries_ - 1, nomEntries_);
+  }
+
+  private void resize(final int newSize) {
+    final long[] oldHashTable = hashTable_;
+    final int[] newIndexes = new int[oldHashTable.length];
+    hashTable_ = new long[newSize];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(newSize);
+    retEntries_ = 0;
+    for (int i = 0; i < oldHashTable.length; i++) {
+      final long hash = oldHashTable[i];
+      newIndexes[i] = -1;
+      if ((hash != 0) && (hash < thetaLong_)) {
+        newIndexes[i] = HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, hash);
+        retEntries_++;
+      }
+    }
+    moveValues(newSize, newIndexes);
+    rebuildThreshold_ = getRebuildThreshold(newSize, nomEntries_);
+  }
+
+  private static int getRebuildThreshold(final int capacity, final int nomEntries) {
+    if (capacity > nomEntries) {
+      return (int) (capacity * ThetaUtil.REBUILD_THRESHOLD);
+    } else {
+      return (int) (capacity * ThetaUtil.RESIZE_THRESHOLD);
+    }
+  }
+
+}
@@ -33,6 +33,7 @@ import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.HashOperations;
 import org.apache.datasketches.thetacommon.QuickSelect;
 import org.apache.datasketches.thetacommon.ThetaUtil;
@@ -40,6 +41,10 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
 /**
  * A generic tuple sketch using the QuickSelect algorithm.
  *
+ * <p>The hash table and the summaries are kept either on the Java heap or, for a Direct sketch,
+ * in a WritableMemory owned and managed by the caller. A Direct sketch requires summaries that
+ * implement {@link FixedWidthSummary}, and keeps each summary in a slot of that fixed width.</p>
+ *
  * @param <S> type of Summary
  */
 class QuickSelectSketch<S extends Summary> extends Sketch<S> {
@@ -47,6 +52,31 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
 
   private enum Flags { IS_BIG_ENDIAN, IS_IN_SAMPLING_MODE, IS_EMPTY, HAS_ENTRIES, IS_THETA_INCLUDED }
 
+  // Layout of a Direct sketch:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||   RF   |  lgArr | lgNom  |  Flags | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||-----------P (float)---------------|------------Summary width in bytes-------------|
+  //      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16              |
+  //  2   ||------------------------------------Theta (long)----------------------------------|
+  //      ||   31   |   30   |   29   |   28   |   27   |   26   |   25   |    24              |
+  //  3   ||-----------------------------------|-------------Retained Entries-----------------|
+  // followed by the hash table of 2^lgArr longs and then by 2^lgArr summary slots.
+  private static final byte DIRECT_SERIAL_VERSION = 1;
+  private static final int FAMILY_ID_BYTE = 2;
+  private static final int SKETCH_TYPE_BYTE = 3;
+  private static final int FLAGS_BYTE = 4;
+  private static final int LG_NOM_ENTRIES_BYTE = 5;
+  private static final int LG_CUR_CAPACITY_BYTE = 6;
+  private static final int LG_RESIZE_FACTOR_BYTE = 7;
+  private static final int SUMMARY_WIDTH_INT = 8;
+  private static final int SAMPLING_P_FLOAT = 12;
+  private static final int THETA_LONG = 16;
+  private static final int RETAINED_ENTRIES_INT = 24;
+  private static final int ENTRIES_START = 32;
+
   private static final int DEFAULT_LG_RESIZE_FACTOR = ResizeFactor.X8.lg();
   private final int nomEntries_;
   private final int lgResizeFactor_;
@@ -57,6 +87,12 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
   private long[] hashTable_;
   S[] summaryTable_;
 
+  // these exist only for a Direct sketch, the scalars above are kept in sync with the Memory
+  private final WritableMemory mem_;
+  private final int summaryWidth_;
+  private S scratchSummary_; // reused to read and write the summary slots on update
+  private WritableMemory newSummaryImage_; // the slot image of a summary from the SummaryFactory
+
   /**
    * This is to create a new instance of a QuickSelectSketch with default resize factor.
    * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
@@ -142,8 +178,176 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingSize);
     retEntries_ = 0;
     hashTable_ = new long[startingSize]; //must be before setRebuildThreshold
-    rebuildThreshold_ = setRebuildThreshold(hashTable_, nomEntries_);
+    rebuildThreshold_ = setRebuildThreshold(hashTable_.length, nomEntries_);
     summaryTable_ = null; // wait for the first summary to call Array.newInstance()
+    mem_ = null;
+    summaryWidth_ = 0;
+  }
+
+  /**
+   * This is to create a new instance of a Direct QuickSelectSketch in the given WritableMemory.
+   * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
+   * or equal to the given value.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3
+   * @param samplingProbability the given sampling probability
+   * @param summaryFactory An instance of a SummaryFactory, which must produce summaries that
+   * implement FixedWidthSummary.
+   * @param dstMem the destination WritableMemory, which must have at least
+   * {@link #getMaxBytes(int, int)} bytes for the fixed width of the summaries.
+   */
+  QuickSelectSketch(
+      final int nomEntries,
+      final int lgResizeFactor,
+      final float samplingProbability,
+      final SummaryFactory<S> summaryFactory,
+      final WritableMemory dstMem) {
+    this(
+      checkDirectMemory(nomEntries, lgResizeFactor, summaryFactory, dstMem),
+      //this construction scheme is compliant with SEI CERT Oracle Coding Standard for Java / OBJ11-J
+      nomEntries,
+      lgResizeFactor,
+      samplingProbability,
+      summaryFactory,
+      dstMem
+    );
+  }
+
+  private QuickSelectSketch(
+      final int summaryWidth, //validated before the super constructor, Finalizer Attack prevention
+      final int nomEntries,
+      final int lgResizeFactor,
+      final float samplingProbability,
+      final SummaryFactory<S> summaryFactory,
+      final WritableMemory dstMem) {
+    super(
+        (long) (Long.MAX_VALUE * (double) samplingProbability),
+        true,
+        summaryFactory);
+    nomEntries_ = ceilingPowerOf2(nomEntries);
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    mem_ = dstMem;
+    summaryWidth_ = summaryWidth;
+    final boolean isBigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+    mem_.putByte(0, PREAMBLE_LONGS);
+    mem_.putByte(1, DIRECT_SERIAL_VERSION);
+    mem_.putByte(FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    mem_.putByte(SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.DirectQuickSelectSketch.ordinal());
+    mem_.putByte(FLAGS_BYTE, (byte) (
+      (isBigEndian ? 1 << Flags.IS_BIG_ENDIAN.ordinal() : 0)
+      | (samplingProbability < 1f ? 1 << Flags.IS_IN_SAMPLING_MODE.ordinal() : 0)
+    ));
+    mem_.putByte(LG_NOM_ENTRIES_BYTE, (byte) Integer.numberOfTrailingZeros(nomEntries_));
+    mem_.putByte(LG_RESIZE_FACTOR_BYTE, (byte) lgResizeFactor);
+    mem_.putInt(SUMMARY_WIDTH_INT, summaryWidth);
+    mem_.putFloat(SAMPLING_P_FLOAT, samplingProbability);
+    initDirectScratch();
+    resetDirect();
+  }
+
+  /**
+   * This is to wrap a Direct QuickSelectSketch created by the constructor above, so that it
+   * continues to be updated in the given WritableMemory.
+   * @param srcMem the WritableMemory of a Direct QuickSelectSketch
+   * @param summaryFactory An instance of a SummaryFactory, which must produce summaries of the
+   * same fixed width as the ones in the given WritableMemory.
+   */
+  QuickSelectSketch(
+      final WritableMemory srcMem,
+      final SummaryFactory<S> summaryFactory) {
+    super(
+        checkDirectImage(srcMem, summaryFactory),
+        //this construction scheme is compliant with SEI CERT Oracle Coding Standard for Java / OBJ11-J
+        (srcMem.getByte(FLAGS_BYTE) & 1 << Flags.IS_EMPTY.ordinal()) > 0,
+        summaryFactory);
+    nomEntries_ = 1 << srcMem.getByte(LG_NOM_ENTRIES_BYTE);
+    lgResizeFactor_ = srcMem.getByte(LG_RESIZE_FACTOR_BYTE);
+    samplingProbability_ = srcMem.getFloat(SAMPLING_P_FLOAT);
+    lgCurrentCapacity_ = srcMem.getByte(LG_CUR_CAPACITY_BYTE);
+    retEntries_ = srcMem.getInt(RETAINED_ENTRIES_INT);
+    rebuildThreshold_ = setRebuildThreshold(1 << lgCurrentCapacity_, nomEntries_);
+    mem_ = srcMem;
+    summaryWidth_ = srcMem.getInt(SUMMARY_WIDTH_INT);
+    initDirectScratch();
+  }
+
+  /**
+   * Returns the number of bytes a Direct sketch needs in the worst case.
+   * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
+   * or equal to the given value.
+   * @param summaryWidthBytes the fixed width of the summaries in bytes
+   * @return the maximum number of bytes of a Direct sketch
+   */
+  static int getMaxBytes(final int nomEntries, final int summaryWidthBytes) {
+    return ENTRIES_START + (Long.BYTES + summaryWidthBytes) * ceilingPowerOf2(nomEntries) * 2;
+  }
+
+  /**
+   * Returns the fixed width of the summaries produced by the given SummaryFactory.
+   * @param summaryFactory the given SummaryFactory
+   * @return the fixed width in bytes
+   * @throws SketchesArgumentException if the summaries do not implement FixedWidthSummary
+   */
+  static int getSummaryWidth(final SummaryFactory<?> summaryFactory) {
+    if (summaryFactory == null) {
+      throw new SketchesArgumentException("A Direct sketch requires a SummaryFactory");
+    }
+    final Summary summary = summaryFactory.newSummary();
+    if (!(summary instanceof FixedWidthSummary)) {
+      throw new SketchesArgumentException("A Direct sketch requires summaries that implement "
+          + "FixedWidthSummary, got " + summary.getClass().getName());
+    }
+    return ((FixedWidthSummary) summary).getFixedWidthBytes();
+  }
+
+  private static int checkDirectMemory(final int nomEntries, final int lgResizeFactor,
+      final SummaryFactory<?> summaryFactory, final WritableMemory dstMem) {
+    Objects.requireNonNull(dstMem, "Destination Memory must not be null.");
+    final int summaryWidth = getSummaryWidth(summaryFactory);
+    checkIfEnoughMemory(dstMem, Util.getStartingCapacity(nomEntries, lgResizeFactor), summaryWidth);
+    return summaryWidth;
+  }
+
+  private static long checkDirectImage(final WritableMemory srcMem,
+      final SummaryFactory<?> summaryFactory) {
+    Objects.requireNonNull(srcMem, "Source Memory must not be null.");
+    checkBounds(0, ENTRIES_START, srcMem.getCapacity());
+    SerializerDeserializer.validateFamily(srcMem.getByte(FAMILY_ID_BYTE), srcMem.getByte(0));
+    SerializerDeserializer.validateType(srcMem.getByte(SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.DirectQuickSelectSketch);
+    final byte version = srcMem.getByte(1);
+    if (version != DIRECT_SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: "
+          + DIRECT_SERIAL_VERSION + ", actual: " + version);
+    }
+    final boolean isBigEndian = (srcMem.getByte(FLAGS_BYTE) & 1 << Flags.IS_BIG_ENDIAN.ordinal()) > 0;
+    if (isBigEndian ^ ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN)) {
+      throw new SketchesArgumentException("Endian byte order mismatch");
+    }
+    final int summaryWidth = getSummaryWidth(summaryFactory);
+    if (summaryWidth != srcMem.getInt(SUMMARY_WIDTH_INT)) {
+      throw new SketchesArgumentException("Summary width mismatch. Expected: "
+          + srcMem.getInt(SUMMARY_WIDTH_INT) + ", actual: " + summaryWidth);
+    }
+    checkIfEnoughMemory(srcMem, 1 << srcMem.getByte(LG_CUR_CAPACITY_BYTE), summaryWidth);
+    return srcMem.getLong(THETA_LONG);
+  }
+
+  private static void checkIfEnoughMemory(final Memory mem, final int capacity,
+      final int summaryWidth) {
+    final long sizeNeeded = ENTRIES_START + (long) (Long.BYTES + summaryWidth) * capacity;
+    if (sizeNeeded > mem.getCapacity()) {
+      throw new SketchesArgumentException("Not enough memory: need "
+          + sizeNeeded + " bytes, got " + mem.getCapacity() + " bytes");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void initDirectScratch() {
+    scratchSummary_ = summaryFactory_.newSummary();
+    newSummaryImage_ = WritableMemory.writableWrap(new byte[summaryWidth_]);
+    ((FixedWidthSummary) scratchSummary_).writeTo(newSummaryImage_, 0);
   }
 
   /**
@@ -160,9 +364,16 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     samplingProbability_ = sketch.samplingProbability_;
     lgCurrentCapacity_ = sketch.lgCurrentCapacity_;
     retEntries_ = sketch.retEntries_;
-    hashTable_ = sketch.hashTable_.clone();
     rebuildThreshold_ = sketch.rebuildThreshold_;
-    summaryTable_ = Util.copySummaryArray(sketch.summaryTable_);
+    if (sketch.mem_ == null) {
+      hashTable_ = sketch.hashTable_.clone();
+      summaryTable_ = Util.copySummaryArray(sketch.summaryTable_);
+    } else { //the copy of a Direct sketch is on the heap
+      hashTable_ = sketch.getHashTable();
+      summaryTable_ = sketch.getSummaryTable();
+    }
+    mem_ = null;
+    summaryWidth_ = 0;
   }
 
   /**
@@ -204,6 +415,8 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     rebuildThreshold_ = val.myRebuildThreshold;
     hashTable_ = val.myHashTable;
     summaryTable_ = val.mySummaryTable;
+    mem_ = null;
+    summaryWidth_ = 0;
   }
 
   private static final class Validate<S> {
@@ -289,21 +502,25 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
         myEmpty = false;
       }
       myEmpty = (flags & 1 << Flags.IS_EMPTY.ordinal()) > 0;
-      myRebuildThreshold = setRebuildThreshold(myHashTable, myNomEntries);
+      myRebuildThreshold = setRebuildThreshold(myHashTable.length, myNomEntries);
       return myThetaLong;
     }
 
   } //end class Validate
 
   /**
-   * @return a deep copy of this sketch
+   * @return a deep copy of this sketch, which is on the heap even if this sketch is Direct
    */
   QuickSelectSketch<S> copy() {
     return new QuickSelectSketch<>(this);
   }
 
+  //a Direct sketch returns a copy of its hash table
   long[] getHashTable() {
-    return hashTable_;
+    if (mem_ == null) { return hashTable_; }
+    final long[] hashTable = new long[getCurrentCapacity()];
+    mem_.getLongArray(ENTRIES_START, hashTable, 0, hashTable.length);
+    return hashTable;
   }
 
   @Override
@@ -313,11 +530,36 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
 
   @Override
   public int getCountLessThanThetaLong(final long thetaLong) {
-    return count(hashTable_, thetaLong);
+    return count(getHashTable(), thetaLong);
   }
 
+  //a Direct sketch returns a table of summaries materialized from its slots
+  @SuppressWarnings("unchecked")
   S[] getSummaryTable() {
-    return summaryTable_;
+    if ((mem_ == null) || (retEntries_ == 0)) { return summaryTable_; }
+    final int capacity = getCurrentCapacity();
+    final S[] summaryTable = (S[]) Array.newInstance(scratchSummary_.getClass(), capacity);
+    for (int i = 0; i < capacity; i++) {
+      if (getDirectHash(i) != 0) { summaryTable[i] = getDirectSummary(i); }
+    }
+    return summaryTable;
+  }
+
+  //an array of the summary type, which a Direct sketch takes from its factory rather than its slots
+  @SuppressWarnings("unchecked")
+  S[] newSummaryArray(final int length) {
+    if (mem_ == null) { return Util.newSummaryArray(summaryTable_, length); }
+    return (S[]) Array.newInstance(scratchSummary_.getClass(), length);
+  }
+
+  @Override
+  public boolean hasMemory() {
+    return mem_ != null;
+  }
+
+  @Override
+  public boolean isDirect() {
+    return (mem_ != null) && mem_.isDirect();
   }
 
   /**
@@ -366,7 +608,7 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
   public void trim() {
     if (retEntries_ > nomEntries_) {
       updateTheta();
-      resize(hashTable_.length);
+      resize(getCurrentCapacity());
     }
   }
 
@@ -374,6 +616,10 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
    * Resets this sketch an empty state.
    */
   public void reset() {
+    if (mem_ != null) {
+      resetDirect();
+      return;
+    }
     empty_ = true;
     retEntries_ = 0;
     thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
@@ -381,7 +627,18 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
     hashTable_ = new long[startingCapacity];
     summaryTable_ = null; // wait for the first summary to call Array.newInstance()
-    rebuildThreshold_ = setRebuildThreshold(hashTable_, nomEntries_);
+    rebuildThreshold_ = setRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  private void resetDirect() {
+    empty_ = true;
+    retEntries_ = 0;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
+    final int startingCapacity = Util.getStartingCapacity(nomEntries_, lgResizeFactor_);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    mem_.clear(ENTRIES_START, (long) Long.BYTES * startingCapacity); // clear hashes only
+    rebuildThreshold_ = setRebuildThreshold(startingCapacity, nomEntries_);
+    writeDirectState();
   }
 
   /**
@@ -395,6 +652,7 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
       if (empty_) { return new CompactSketch<>(null, null, Long.MAX_VALUE, true); }
       return new CompactSketch<>(null, null, thetaLong_, false);
     }
+    if (mem_ != null) { return compactDirect(); }
     final long[] hashArr = new long[getRetainedEntries()];
     final S[] summaryArr = Util.newSummaryArray(summaryTable_, getRetainedEntries());
     int i = 0;
@@ -408,6 +666,22 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     return new CompactSketch<>(hashArr, summaryArr, thetaLong_, empty_);
   }
 
+  private CompactSketch<S> compactDirect() {
+    final long[] hashArr = new long[retEntries_];
+    final S[] summaryArr = newSummaryArray(retEntries_);
+    final int capacity = getCurrentCapacity();
+    int i = 0;
+    for (int j = 0; j < capacity; j++) {
+      final long hash = getDirectHash(j);
+      if (hash != 0) {
+        hashArr[i] = hash;
+        summaryArr[i] = getDirectSummary(j);
+        i++;
+      }
+    }
+    return new CompactSketch<>(hashArr, summaryArr, thetaLong_, empty_);
+  }
+
   // Layout of first 8 bytes:
   // Long || Start Byte Adr:
   // Adr:
@@ -423,6 +697,7 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
   @Deprecated
   @Override
   public byte[] toByteArray() {
+    if (mem_ != null) { return copy().toByteArray(); } //the same image as the heap sketch
     byte[][] summariesBytes = null;
     int summariesBytesLength = 0;
     if (retEntries_ > 0) {
@@ -513,10 +788,11 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
       if (index < 0) {
         insertSummary(~index, (S)summary.copy()); //did not find, so insert
       } else {
-        insertSummary(index, summarySetOps.union(summaryTable_[index], (S) summary.copy()));
+        insertSummary(index, summarySetOps.union(getSummary(index), (S) summary.copy()));
       }
       rebuildIfNeeded();
     }
+    if (mem_ != null) { writeDirectState(); }
   }
 
   boolean isInSamplingMode() {
@@ -525,16 +801,21 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
 
   void setThetaLong(final long theta) {
     thetaLong_ = theta;
+    if (mem_ != null) { writeDirectState(); }
   }
 
   void setEmpty(final boolean value) {
     empty_ = value;
+    if (mem_ != null) { writeDirectState(); }
   }
 
   int findOrInsert(final long hash) {
-    final int index = HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash);
+    final int index = (mem_ == null)
+        ? HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash)
+        : HashOperations.hashSearchOrInsertMemory(mem_, lgCurrentCapacity_, hash, ENTRIES_START);
     if (index < 0) {
       retEntries_++;
+      if (mem_ != null) { mem_.putInt(RETAINED_ENTRIES_INT, retEntries_); }
     }
     return index;
   }
@@ -543,29 +824,41 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
     if (retEntries_ <= rebuildThreshold_) {
       return false;
     }
-    if (hashTable_.length > nomEntries_) {
+    if (getCurrentCapacity() > nomEntries_) {
       updateTheta();
       rebuild();
     } else {
-      resize(hashTable_.length * (1 << lgResizeFactor_));
+      resize(getCurrentCapacity() * (1 << lgResizeFactor_));
     }
     return true;
   }
 
   void rebuild() {
-    resize(hashTable_.length);
+    resize(getCurrentCapacity());
   }
 
   void insert(final long hash, final S summary) {
-    final int index = HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, hash);
+    final int index = (mem_ == null)
+        ? HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, hash)
+        : HashOperations.hashInsertOnlyMemory(mem_, lgCurrentCapacity_, hash, ENTRIES_START);
     insertSummary(index, summary);
     retEntries_++;
     empty_ = false;
+    if (mem_ != null) { writeDirectState(); }
   }
 
   private void updateTheta() {
     final long[] hashArr = new long[retEntries_];
     int i = 0;
+    if (mem_ != null) {
+      final int capacity = getCurrentCapacity();
+      for (int j = 0; j < capacity; j++) {
+        final long hash = getDirectHash(j);
+        if (hash != 0) { hashArr[i++] = hash; }
+      }
+      setThetaLong(QuickSelect.select(hashArr, 0, retEntries_ - 1, nomEntries_));
+      return;
+    }
     //Because of the association of the hashTable with the summaryTable we cannot destroy the
     // hashTable structure. So we must copy. May as well compact at the same time.
     // Might consider a whole table clone and use the selectExcludingZeros method instead.
@@ -579,6 +872,10 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
   }
 
   private void resize(final int newSize) {
+    if (mem_ != null) {
+      resizeDirect(newSize);
+      return;
+    }
     final long[] oldHashTable = hashTable_;
     final S[] oldSummaryTable = summaryTable_;
     hashTable_ = new long[newSize];
@@ -590,27 +887,101 @@ class QuickSelectSketch<S extends Summary> extends Sketch<S> {
         insert(oldHashTable[i], oldSummaryTable[i]);
       }
     }
-    rebuildThreshold_ = setRebuildThreshold(hashTable_, nomEntries_);
+    rebuildThreshold_ = setRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  // rebuilds in the same Memory, moving the summary slots as raw bytes
+  private void resizeDirect(final int newSize) {
+    checkIfEnoughMemory(mem_, newSize, summaryWidth_);
+    final int oldSize = getCurrentCapacity();
+    final long[] oldHashTable = getHashTable();
+    final byte[] oldSummarySlots = new byte[oldSize * summaryWidth_];
+    mem_.getByteArray(ENTRIES_START + (long) Long.BYTES * oldSize, oldSummarySlots, 0,
+        oldSummarySlots.length);
+    mem_.clear(ENTRIES_START, (long) Long.BYTES * newSize);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(newSize);
+    retEntries_ = 0;
+    for (int i = 0; i < oldSize; i++) {
+      final long hash = oldHashTable[i];
+      if (hash != 0 && hash < thetaLong_) {
+        final int index =
+            HashOperations.hashInsertOnlyMemory(mem_, lgCurrentCapacity_, hash, ENTRIES_START);
+        mem_.putByteArray(getDirectSummaryOffset(index), oldSummarySlots, i * summaryWidth_,
+            summaryWidth_);
+        retEntries_++;
+      }
+    }
+    rebuildThreshold_ = setRebuildThreshold(newSize, nomEntries_);
+    writeDirectState();
   }
 
-  private static int setRebuildThreshold(final long[] hashTable, final int nomEntries) {
-    if (hashTable.length > nomEntries) {
-      return (int) (hashTable.length * ThetaUtil.REBUILD_THRESHOLD);
+  private static int setRebuildThreshold(final int capacity, final int nomEntries) {
+    if (capacity > nomEntries) {
+      return (int) (capacity * ThetaUtil.REBUILD_THRESHOLD);
     } else {
-      return (int) (hashTable.length * ThetaUtil.RESIZE_THRESHOLD);
+      return (int) (capacity * ThetaUtil.RESIZE_THRESHOLD);
     }
   }
 
   @SuppressWarnings("unchecked")
   protected void insertSummary(final int index, final S summary) {
+    if (mem_ != null) {
+      ((FixedWidthSummary) summary).writeTo(mem_, getDirectSummaryOffset(index));
+      return;
+    }
     if (summaryTable_ == null) {
       summaryTable_ = (S[]) Array.newInstance(summary.getClass(), hashTable_.length);
     }
     summaryTable_[index] = summary;
   }
 
+  // a Direct sketch materializes a new summary from its slot
+  S getSummary(final int index) {
+    return (mem_ == null) ? summaryTable_[index] : getDirectSummary(index);
+  }
+
+  // Direct only: loads the summary at the given index into the reused scratch summary, or
+  // resets the scratch summary to the state of a new summary if the index was just inserted.
+  // The result is only valid until the next call and must be written back with insertSummary.
+  S loadScratchSummary(final int index, final boolean isNew) {
+    final FixedWidthSummary summary = (FixedWidthSummary) scratchSummary_;
+    if (isNew) {
+      summary.readFrom(newSummaryImage_, 0);
+    } else {
+      summary.readFrom(mem_, getDirectSummaryOffset(index));
+    }
+    return scratchSummary_;
+  }
+
+  private S getDirectSummary(final int index) {
+    final S summary = summaryFactory_.newSummary();
+    ((FixedWidthSummary) summary).readFrom(mem_, getDirectSummaryOffset(index));
+    return summary;
+  }
+
+  private long getDirectHash(final int index) {
+    return mem_.getLong(ENTRIES_START + (long) Long.BYTES * index);
+  }
+
+  private long getDirectSummaryOffset(final int index) {
+    return ENTRIES_START + ((long) Long.BYTES << lgCurrentCapacity_) + (long) summaryWidth_ * index;
+  }
+
+  private void writeDirectState() {
+    mem_.putByte(LG_CUR_CAPACITY_BYTE, (byte) lgCurrentCapacity_);
+    mem_.putLong(THETA_LONG, thetaLong_);
+    mem_.putInt(RETAINED_ENTRIES_INT, retEntries_);
+    final int emptyMask = 1 << Flags.IS_EMPTY.ordinal();
+    final int flags = mem_.getByte(FLAGS_BYTE);
+    mem_.putByte(FLAGS_BYTE, (byte) (empty_ ? flags | emptyMask : flags & ~emptyMask));
+  }
+
   @Override
   public TupleSketchIterator<S> iterator() {
+    if (mem_ != null) {
+      return new DirectTupleSketchIterator<>(mem_, ENTRIES_START, getCurrentCapacity(),
+          getDirectSummaryOffset(0), summaryWidth_, summaryFactory_);
+    }
     return new TupleSketchIterator<>(hashTable_, summaryTable_);
   }
 
@@ -32,7 +32,7 @@ public final class SerializerDeserializer {
    * Defines the sketch classes that this SerializerDeserializer can handle.
    */
   public static enum SketchType { QuickSelectSketch, CompactSketch, ArrayOfDoublesQuickSelectSketch,
-    ArrayOfDoublesCompactSketch, ArrayOfDoublesUnion }
+    ArrayOfDoublesCompactSketch, ArrayOfDoublesUnion, DirectQuickSelectSketch, DirectUnion }
 
   static final int TYPE_BYTE_OFFSET = 3;
 
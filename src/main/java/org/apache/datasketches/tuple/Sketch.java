@@ -144,6 +144,24 @@ public abstract class Sketch<S extends Summary> {
     return thetaLong_ < Long.MAX_VALUE && !isEmpty();
   }
 
+  /**
+   * Returns true if this sketch's data structure is backed by Memory or WritableMemory.
+   * @return true if this sketch's data structure is backed by Memory or WritableMemory.
+   */
+  public boolean hasMemory() {
+    return false;
+  }
+
+  /**
+   * Returns true if the this sketch's internal data structure is backed by direct (off-heap)
+   * Memory.
+   * @return true if the this sketch's internal data structure is backed by direct (off-heap)
+   * Memory.
+   */
+  public boolean isDirect() {
+    return false;
+  }
+
   /**
    * @return number of retained entries
    */
@@ -21,20 +21,45 @@ package org.apache.datasketches.tuple;
 
 import static java.lang.Math.min;
 
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.QuickSelect;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
  * Compute the union of two or more generic tuple sketches or generic tuple sketches combined with
  * theta sketches. A new instance represents an empty set.
+ *
+ * <p>A Direct union keeps its state in a WritableMemory owned and managed by the caller, and
+ * requires summaries that implement {@link FixedWidthSummary}.</p>
  * @param <S> Type of Summary
  */
 public class Union<S extends Summary> {
+
+  // Layout of a Direct union:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||--------------------------|  Flags | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||-------------------------------Union Theta (long)---------------------------------|
+  // followed by the Direct QuickSelectSketch of the union.
+  private static final byte PREAMBLE_LONGS = 2;
+  private static final byte SERIAL_VERSION = 1;
+  private static final int FAMILY_ID_BYTE = 2;
+  private static final int SKETCH_TYPE_BYTE = 3;
+  private static final int FLAGS_BYTE = 4;
+  private static final int UNION_THETA_LONG = 8;
+  private static final int SKETCH_START = 16;
+  private static final byte EMPTY_FLAG_MASK = 1;
+
   private final SummarySetOperations<S> summarySetOps_;
   private QuickSelectSketch<S> qsk_;
   private long unionThetaLong_; // need to maintain outside of the sketch
   private boolean empty_;
+  private final WritableMemory mem_; // null unless Direct
 
   /**
    * Creates new Union instance with instructions on how to process two summaries that
@@ -56,6 +81,102 @@ public class Union<S extends Summary> {
     qsk_ = new QuickSelectSketch<>(nomEntries, null);
     unionThetaLong_ = qsk_.getThetaLong();
     empty_ = true;
+    mem_ = null;
+  }
+
+  /**
+   * Creates new Direct Union instance, which keeps its state in the given WritableMemory.
+   * @param nomEntries nominal entries (K). Forced to the nearest power of 2 greater than
+   * given value.
+   * @param summarySetOps instance of SummarySetOperations
+   * @param summaryFactory instance of SummaryFactory, which must produce summaries that
+   * implement {@link FixedWidthSummary}. It is used to materialize the summaries kept in the
+   * WritableMemory.
+   * @param dstMem the destination WritableMemory, which should have at least
+   * {@link #getMaxBytes(int, SummaryFactory)} bytes.
+   */
+  public Union(final int nomEntries, final SummarySetOperations<S> summarySetOps,
+      final SummaryFactory<S> summaryFactory, final WritableMemory dstMem) {
+    summarySetOps_ = summarySetOps;
+    qsk_ = new QuickSelectSketch<>(nomEntries, ResizeFactor.X8.lg(), 1f, summaryFactory,
+        getSketchRegion(dstMem));
+    mem_ = dstMem;
+    mem_.putByte(0, PREAMBLE_LONGS);
+    mem_.putByte(1, SERIAL_VERSION);
+    mem_.putByte(FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    mem_.putByte(SKETCH_TYPE_BYTE, (byte) SerializerDeserializer.SketchType.DirectUnion.ordinal());
+    unionThetaLong_ = qsk_.getThetaLong();
+    empty_ = true;
+    writeState();
+  }
+
+  private Union(final WritableMemory srcMem, final SummarySetOperations<S> summarySetOps,
+      final SummaryFactory<S> summaryFactory) {
+    summarySetOps_ = summarySetOps;
+    qsk_ = new QuickSelectSketch<>(getSketchRegion(srcMem), summaryFactory);
+    mem_ = srcMem;
+    unionThetaLong_ = srcMem.getLong(UNION_THETA_LONG);
+    empty_ = (srcMem.getByte(FLAGS_BYTE) & EMPTY_FLAG_MASK) != 0;
+  }
+
+  /**
+   * Wraps the WritableMemory of a Direct Union, so that it can be updated further.
+   * @param <S> Type of Summary
+   * @param srcMem the WritableMemory of a Direct Union
+   * @param summarySetOps instance of SummarySetOperations
+   * @param summaryFactory instance of SummaryFactory, which must produce summaries of the
+   * same fixed width as the ones in the given WritableMemory.
+   * @return a Union backed by the given WritableMemory
+   */
+  public static <S extends Summary> Union<S> writableWrap(final WritableMemory srcMem,
+      final SummarySetOperations<S> summarySetOps, final SummaryFactory<S> summaryFactory) {
+    SerializerDeserializer.validateFamily(srcMem.getByte(FAMILY_ID_BYTE), srcMem.getByte(0));
+    SerializerDeserializer.validateType(srcMem.getByte(SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.DirectUnion);
+    final byte version = srcMem.getByte(1);
+    if (version != SERIAL_VERSION) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + SERIAL_VERSION
+          + ", actual: " + version);
+    }
+    return new Union<>(srcMem, summarySetOps, summaryFactory);
+  }
+
+  /**
+   * Returns the number of bytes a Direct Union needs in the worst case.
+   * @param nomEntries nominal entries (K). Forced to the nearest power of 2 greater than
+   * given value.
+   * @param summaryFactory instance of SummaryFactory, which must produce summaries that
+   * implement {@link FixedWidthSummary}.
+   * @return the maximum number of bytes of a Direct Union
+   */
+  public static int getMaxBytes(final int nomEntries, final SummaryFactory<?> summaryFactory) {
+    return SKETCH_START
+        + QuickSelectSketch.getMaxBytes(nomEntries, QuickSelectSketch.getSummaryWidth(summaryFactory));
+  }
+
+  /**
+   * Returns true if this union is backed by a WritableMemory.
+   * @return true if this union is backed by a WritableMemory.
+   */
+  public boolean hasMemory() {
+    return mem_ != null;
+  }
+
+  private static WritableMemory getSketchRegion(final WritableMemory mem) {
+    if (mem == null) {
+      throw new SketchesArgumentException("Memory must not be null.");
+    }
+    if (mem.getCapacity() < SKETCH_START) {
+      throw new SketchesArgumentException("Not enough memory: need at least " + SKETCH_START
+          + " bytes, got " + mem.getCapacity() + " bytes");
+    }
+    return mem.writableRegion(SKETCH_START, mem.getCapacity() - SKETCH_START);
+  }
+
+  private void writeState() {
+    if (mem_ == null) { return; }
+    mem_.putByte(FLAGS_BYTE, empty_ ? EMPTY_FLAG_MASK : 0);
+    mem_.putLong(UNION_THETA_LONG, unionThetaLong_);
   }
 
   /**
@@ -112,6 +233,7 @@ public class Union<S extends Summary> {
       qsk_.merge(it.getHash(), it.getSummary(), summarySetOps_);
     }
     unionThetaLong_ = min(unionThetaLong_, qsk_.thetaLong_);
+    writeState();
   }
 
   /**
@@ -133,6 +255,7 @@ public class Union<S extends Summary> {
       qsk_.merge(it.get(), summary, summarySetOps_); //copies summary
     }
     unionThetaLong_ = min(unionThetaLong_, qsk_.thetaLong_);
+    writeState();
   }
 
   /**
@@ -196,7 +319,7 @@ public class Union<S extends Summary> {
         }
         //now prepare the output arrays
         final long[] hashArr = new long[numHashesOut];
-        final S[] summaries = Util.newSummaryArray(qsk_.getSummaryTable(), numHashesOut);
+        final S[] summaries = qsk_.newSummaryArray(numHashesOut);
         it = qsk_.iterator();
         int i = 0;
         while (it.next()) { //select the qualifying hashes from the gadget synchronized with the summaries
@@ -222,5 +345,6 @@ public class Union<S extends Summary> {
     qsk_.reset();
     unionThetaLong_ = qsk_.getThetaLong();
     empty_ = true;
+    writeState();
   }
 }
@@ -21,6 +21,7 @@ package org.apache.datasketches.tuple;
 
 import org.apache.datasketches.hash.MurmurHash3;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -59,6 +60,61 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
     super(nomEntries, lgResizeFactor, samplingProbability, summaryFactory);
   }
 
+  /**
+   * This is to create a new instance of a Direct UpdatableQuickSelectSketch, which keeps its hash
+   * table and summaries in the given WritableMemory. The summaries produced by the given
+   * SummaryFactory must implement {@link FixedWidthSummary}.
+   * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
+   * or equal to the given value.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3:
+   * <pre>
+   * 0 - no resizing (max size allocated),
+   * 1 - double internal hash table each time it reaches a threshold
+   * 2 - grow four times
+   * 3 - grow eight times (default)
+   * </pre>
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param summaryFactory An instance of a SummaryFactory.
+   * @param dstMem the destination WritableMemory, which should have at least
+   * {@link #getMaxBytes(int, SummaryFactory)} bytes.
+   */
+  public UpdatableSketch(final int nomEntries, final int lgResizeFactor,
+      final float samplingProbability, final SummaryFactory<S> summaryFactory,
+      final WritableMemory dstMem) {
+    super(nomEntries, lgResizeFactor, samplingProbability, summaryFactory, dstMem);
+  }
+
+  private UpdatableSketch(final WritableMemory srcMem, final SummaryFactory<S> summaryFactory) {
+    super(srcMem, summaryFactory);
+  }
+
+  /**
+   * Wraps the WritableMemory of a Direct UpdatableSketch, so that it can be updated further.
+   * @param <U> Type of the value, which is passed to update method of a Summary
+   * @param <S> Type of the UpdatableSummary&lt;U&gt;
+   * @param srcMem the WritableMemory of a Direct UpdatableSketch
+   * @param summaryFactory An instance of a SummaryFactory, which must produce summaries of the
+   * same fixed width as the ones in the given WritableMemory.
+   * @return an UpdatableSketch backed by the given WritableMemory
+   */
+  public static <U, S extends UpdatableSummary<U>> UpdatableSketch<U, S> writableWrap(
+      final WritableMemory srcMem, final SummaryFactory<S> summaryFactory) {
+    return new UpdatableSketch<>(srcMem, summaryFactory);
+  }
+
+  /**
+   * Returns the number of bytes a Direct UpdatableSketch needs in the worst case.
+   * @param nomEntries Nominal number of entries. Forced to the nearest power of 2 greater than
+   * or equal to the given value.
+   * @param summaryFactory An instance of a SummaryFactory, which must produce summaries that
+   * implement {@link FixedWidthSummary}.
+   * @return the maximum number of bytes of a Direct UpdatableSketch
+   */
+  public static int getMaxBytes(final int nomEntries, final SummaryFactory<?> summaryFactory) {
+    return getMaxBytes(nomEntries, getSummaryWidth(summaryFactory));
+  }
+
   /**
    * This is to create an instance of a sketch given a serialized form
    * @param srcMem Memory object with data of a serialized UpdatableSketch
@@ -85,7 +141,7 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
   }
 
   /**
-   * @return a deep copy of this sketch
+   * @return a deep copy of this sketch, which is on the heap even if this sketch is Direct
    */
   @Override
   public UpdatableSketch<U,S> copy() {
@@ -165,6 +221,15 @@ public class UpdatableSketch<U, S extends UpdatableSummary<U>> extends QuickSele
     setEmpty(false);
     if (hash >= getThetaLong()) { return; }
     int index = findOrInsert(hash);
+    if (hasMemory()) {
+      final boolean isNew = index < 0;
+      if (isNew) { index = ~index; }
+      final S summary = loadScratchSummary(index, isNew);
+      summary.update(value);
+      insertSummary(index, summary); //writes the summary back to its slot
+      rebuildIfNeeded();
+      return;
+    }
     if (index < 0) {
       index = ~index;
       insertSummary(index, getSummaryFactory().newSummary());
@@ -21,6 +21,7 @@ package org.apache.datasketches.tuple;
 
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -95,6 +96,19 @@ public class UpdatableSketchBuilder<U, S extends UpdatableSummary<U>> {
         summaryFactory_);
   }
 
+  /**
+   * Returns a Direct UpdatableSketch with the current configuration of this Builder, which keeps
+   * its hash table and summaries in the given WritableMemory. The summaries produced by the
+   * SummaryFactory of this Builder must implement {@link FixedWidthSummary}.
+   * @param dstMem the destination WritableMemory, which should have at least
+   * {@link UpdatableSketch#getMaxBytes(int, SummaryFactory)} bytes.
+   * @return a Direct UpdatableSketch
+   */
+  public UpdatableSketch<U, S> build(final WritableMemory dstMem) {
+    return new UpdatableSketch<>(nomEntries_, resizeFactor_.lg(), samplingProbability_,
+        summaryFactory_, dstMem);
+  }
+
   /**
    * Resets the Nominal Entries, Resize Factor and Sampling Probability to their default values.
    * The assignment of <i>U</i> and <i>S</i> remain the same.
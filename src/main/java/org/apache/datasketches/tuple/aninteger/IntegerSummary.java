@@ -21,7 +21,9 @@ package org.apache.datasketches.tuple.aninteger;
 
 import org.apache.datasketches.common.ByteArrayUtil;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.tuple.DeserializeResult;
+import org.apache.datasketches.tuple.FixedWidthSummary;
 import org.apache.datasketches.tuple.UpdatableSummary;
 
 /**
@@ -30,7 +32,7 @@ import org.apache.datasketches.tuple.UpdatableSummary;
  * the mode.
  * Supported modes: Sum, Min, Max, AlwaysOne, Increment. The default mode is Sum.
  */
-public class IntegerSummary implements UpdatableSummary<Integer> {
+public class IntegerSummary implements UpdatableSummary<Integer>, FixedWidthSummary {
   private int value_;
   private final Mode mode_;
 
@@ -127,6 +129,24 @@ public class IntegerSummary implements UpdatableSummary<Integer> {
     return value_;
   }
 
+  // only the value is kept in a Direct slot, the mode comes from the SummaryFactory
+  private static final int FIXED_WIDTH_BYTES = Integer.BYTES;
+
+  @Override
+  public int getFixedWidthBytes() {
+    return FIXED_WIDTH_BYTES;
+  }
+
+  @Override
+  public void writeTo(final WritableMemory mem, final long offsetBytes) {
+    mem.putInt(offsetBytes, value_);
+  }
+
+  @Override
+  public void readFrom(final Memory mem, final long offsetBytes) {
+    value_ = mem.getInt(offsetBytes);
+  }
+
   private static final int SERIALIZED_SIZE_BYTES = 5;
   private static final int VALUE_INDEX = 0;
   private static final int MODE_BYTE_INDEX = 4;
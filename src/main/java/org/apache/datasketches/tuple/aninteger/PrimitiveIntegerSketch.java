@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.aninteger;
+
+import org.apache.datasketches.common.ByteArrayUtil;
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+import org.apache.datasketches.tuple.PrimitiveQuickSelectSketch;
+import org.apache.datasketches.tuple.Util;
+import org.apache.datasketches.tuple.aninteger.IntegerSummary.Mode;
+
+/**
+ * A QuickSelect tuple sketch of type Integer that keeps its values in a primitive int[] parallel
+ * to the hash table, instead of in a IntegerSummary object per entry.
+ *
+ * <p>It estimates the same quantities as the {@link IntegerSketch} with the same mode, but it uses
+ * several times less memory per entry and updates existing entries in place. Unions and
+ * intersections with other sketches of this type are also performed in place, combining the values
+ * in tight loops with the given mode.</p>
+ *
+ * <p>The serialized form is the same as that of a CompactSketch&lt;IntegerSummary&gt;, so it can be
+ * read with {@link org.apache.datasketches.tuple.Sketches#heapifySketch} and a
+ * {@link IntegerSummaryDeserializer} for use with the generic tuple set operations.</p>
+ */
+public final class PrimitiveIntegerSketch extends PrimitiveQuickSelectSketch {
+  private static final int DEFAULT_LG_RESIZE_FACTOR = ResizeFactor.X8.lg();
+  private static final int SUMMARY_BYTES = Integer.BYTES + Byte.BYTES; // value and mode
+
+  private final Mode mode_;
+  private final int initialValue_; // the value of a new IntegerSummary with the mode
+  private int[] values_;
+
+  /**
+   * Constructs this sketch with given <i>lgK</i>.
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * <a href="{@docRoot}/resources/dictionary.html#nomEntries">See Nominal Entries</a>
+   * @param mode The IntegerSummary mode used to combine the values of the same key
+   */
+  public PrimitiveIntegerSketch(final int lgK, final Mode mode) {
+    this(lgK, DEFAULT_LG_RESIZE_FACTOR, 1f, mode);
+  }
+
+  /**
+   * Creates this sketch with the following parameters:
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3:
+   * <pre>
+   * 0 - no resizing (max size allocated),
+   * 1 - double internal hash table each time it reaches a threshold
+   * 2 - grow four times
+   * 3 - grow eight times (default)
+   * </pre>
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param mode The IntegerSummary mode used to combine the values of the same key
+   */
+  public PrimitiveIntegerSketch(final int lgK, final int lgResizeFactor,
+      final float samplingProbability, final Mode mode) {
+    super(lgK, lgResizeFactor, samplingProbability);
+    mode_ = mode;
+    initialValue_ = new IntegerSummary(mode).getValue();
+    values_ = new int[getCurrentCapacity()];
+  }
+
+  private PrimitiveIntegerSketch(final PrimitiveIntegerSketch sketch) {
+    super(sketch);
+    mode_ = sketch.mode_;
+    initialValue_ = sketch.initialValue_;
+    values_ = sketch.values_.clone();
+  }
+
+  /**
+   * @return a deep copy of this sketch
+   */
+  public PrimitiveIntegerSketch copy() {
+    return new PrimitiveIntegerSketch(this);
+  }
+
+  /**
+   * Updates this sketch with a long key and int value.
+   * @param key The given long key
+   * @param value The given int value
+   */
+  public void update(final long key, final int value) {
+    update(new long[] {key}, value);
+  }
+
+  /**
+   * Updates this sketch with a double key and int value.
+   * @param key The given double key
+   * @param value The given int value
+   */
+  public void update(final double key, final int value) {
+    update(Util.doubleToLongArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a String key and int value.
+   * @param key The given String key
+   * @param value The given int value
+   */
+  public void update(final String key, final int value) {
+    update(Util.stringToByteArray(key), value);
+  }
+
+  /**
+   * Updates this sketch with a byte[] key and int value.
+   * @param key The given byte[] key
+   * @param value The given int value
+   */
+  public void update(final byte[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a int[] key and int value.
+   * @param key The given int[] key
+   * @param value The given int value
+   */
+  public void update(final int[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+  }
+
+  /**
+   * Updates this sketch with a long[] key and int value.
+   * @param key The given long[] key
+   * @param value The given int value
+   */
+  public void update(final long[] key, final int value) {
+    if ((key == null) || (key.length == 0)) { return; }
+    insertOrIgnore(MurmurHash3.hash(key, ThetaUtil.DEFAULT_UPDATE_SEED)[0] >>> 1, value);
+  }
+
+  /**
+   * Performs a union of the given sketch into this one, combining the values of the keys present
+   * in both sketches with the mode of this sketch. Nulls and empty sketches are ignored.
+   * @param other the given sketch
+   */
+  public void union(final PrimitiveIntegerSketch other) {
+    union(other, mode_);
+  }
+
+  /**
+   * Performs a union of the given sketch into this one. Nulls and empty sketches are ignored.
+   * @param other the given sketch
+   * @param unionMode the mode used to combine the values of the keys present in both sketches,
+   * as in {@link IntegerSummarySetOperations}
+   */
+  public void union(final PrimitiveIntegerSketch other, final Mode unionMode) {
+    if (!startUnion(other)) { return; }
+    final int initialValue = new IntegerSummary(unionMode).getValue();
+    final long[] otherHashes = other.getHashTable();
+    final int[] otherValues = other.values_;
+    for (int i = 0; i < otherHashes.length; i++) {
+      final int index = searchOrInsert(otherHashes[i]);
+      if (index == NOT_RETAINED) { continue; }
+      if (index < 0) {
+        values_[~index] = otherValues[i];
+        rebuildIfNeeded();
+      } else {
+        values_[index] =
+            combine(unionMode, combine(unionMode, initialValue, values_[index]), otherValues[i]);
+      }
+    }
+  }
+
+  /**
+   * Intersects this sketch with the given one, combining the values of the keys present in both
+   * sketches with the mode of this sketch.
+   * @param other the given sketch, which must not be null
+   */
+  public void intersect(final PrimitiveIntegerSketch other) {
+    intersect(other, mode_);
+  }
+
+  /**
+   * Intersects this sketch with the given one.
+   * @param other the given sketch, which must not be null
+   * @param intersectionMode the mode used to combine the values of the keys present in both
+   * sketches, as in {@link IntegerSummarySetOperations}
+   */
+  public void intersect(final PrimitiveIntegerSketch other, final Mode intersectionMode) {
+    if (!startIntersection(other)) { return; }
+    final int initialValue = new IntegerSummary(intersectionMode).getValue();
+    final long[] hashTable = getHashTable();
+    final long thetaLong = getThetaLong();
+    final boolean[] retain = new boolean[hashTable.length];
+    for (int i = 0; i < hashTable.length; i++) {
+      final long hash = hashTable[i];
+      if ((hash == 0) || (hash >= thetaLong)) { continue; }
+      final int index = other.indexOf(hash);
+      if (index >= 0) {
+        values_[i] = combine(intersectionMode, combine(intersectionMode, initialValue, values_[i]),
+            other.values_[index]);
+        retain[i] = true;
+      }
+    }
+    retainEntries(retain);
+  }
+
+  @Override
+  public Mode getMode() {
+    return mode_;
+  }
+
+  /**
+   * Returns an iterator over the entries of this sketch
+   * @return an iterator over the entries of this sketch
+   */
+  public PrimitiveIntegerSketchIterator iterator() {
+    return new PrimitiveIntegerSketchIterator(getHashTable(), values_);
+  }
+
+  // non-public methods below
+
+  @Override
+  protected void moveValues(final int newLength, final int[] newIndexes) {
+    final int[] oldValues = values_;
+    values_ = new int[newLength];
+    if (newIndexes == null) { return; }
+    for (int i = 0; i < newIndexes.length; i++) {
+      if (newIndexes[i] >= 0) { values_[newIndexes[i]] = oldValues[i]; }
+    }
+  }
+
+  @Override
+  protected int getSummaryBytes() {
+    return SUMMARY_BYTES;
+  }
+
+  @Override
+  protected int putSummary(final byte[] bytes, final int offset, final int index) {
+    ByteArrayUtil.putIntLE(bytes, offset, values_[index]);
+    bytes[offset + Integer.BYTES] = (byte) mode_.ordinal();
+    return offset + SUMMARY_BYTES;
+  }
+
+  // the same as IntegerSummary.update()
+  private static int combine(final Mode mode, final int current, final int value) {
+    switch (mode) {
+      case Sum:
+        return current + value;
+      case Min:
+        return (value < current) ? value : current;
+      case Max:
+        return (value > current) ? value : current;
+      default: // AlwaysOne
+        return 1;
+    }
+  }
+
+  private void insertOrIgnore(final long hash, final int value) {
+    final int index = searchOrInsert(hash);
+    if (index == NOT_RETAINED) { return; }
+    if (index < 0) {
+      values_[~index] = combine(mode_, initialValue_, value);
+      rebuildIfNeeded();
+    } else {
+      values_[index] = combine(mode_, values_[index], value);
+    }
+  }
+
+}
@@ -28,7 +28,9 @@ import java.io.PrintStream;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.testng.annotations.Test;
 
@@ -218,6 +220,60 @@ public class CpcSketchTest {
     assertEquals(size26, (int) ((0.6 * (1 << 26)) + 40));
   }
 
+  @Test
+  public void checkDirectUpdates() {
+    for (int lgK = 4; lgK <= 12; lgK += 4) {
+      final int k = 1 << lgK;
+      final WritableMemory wmem = WritableMemory.allocate(CpcSketch.getMaxUpdatableSerializationBytes(lgK));
+      final CpcSketch heapSk = new CpcSketch(lgK);
+      CpcSketch directSk = new CpcSketch(lgK, ThetaUtil.DEFAULT_UPDATE_SEED, wmem);
+      assertTrue(directSk.hasMemory());
+      assertTrue(directSk.isEmpty());
+      long n = 0;
+      for (long target = 1; target <= (64L * k); target *= 2) { //passes through all flavors
+        while (n < target) { heapSk.update(n); directSk.update(n); n++; }
+        assertTrue(specialEquals(heapSk, directSk, false, false));
+        assertEquals(directSk.getEstimate(), heapSk.getEstimate());
+        assertEquals(directSk.toByteArray(), heapSk.toByteArray());
+        assertTrue(directSk.validate());
+        directSk = CpcSketch.writableWrap(wmem); //resume from the image alone
+        assertTrue(specialEquals(heapSk, directSk, false, false));
+      }
+      assertEquals(directSk.getFlavor(), Flavor.SLIDING);
+      assertTrue(specialEquals(heapSk, CpcSketch.heapify(wmem), false, false));
+      assertTrue(specialEquals(heapSk, CpcSketch.heapify(directSk.toByteArray()), false, false));
+      directSk.reset();
+      assertTrue(CpcSketch.writableWrap(wmem).isEmpty());
+    }
+  }
+
+  @Test
+  public void checkDirectExceptions() {
+    final int lgK = 10;
+    try {
+      new CpcSketch(lgK, 1, WritableMemory.allocate(CpcSketch.getMaxUpdatableSerializationBytes(lgK) - 1));
+      fail();
+    } catch (SketchesArgumentException e) {}
+    final WritableMemory wmem = WritableMemory.allocate(CpcSketch.getMaxUpdatableSerializationBytes(lgK));
+    new CpcSketch(lgK, 1, wmem).update(1);
+    try {
+      CpcSketch.writableWrap(wmem, 2); //wrong seed
+      fail();
+    } catch (SketchesArgumentException e) {}
+    try {
+      CpcSketch.writableWrap(WritableMemory.writableWrap(new CpcSketch(lgK).toByteArray()));
+      fail();
+    } catch (SketchesArgumentException e) {}
+    //the table of surprising values of a Direct sketch cannot grow past its fixed capacity
+    final CpcSketch sk = new CpcSketch(4, 1, WritableMemory.allocate(CpcSketch.getMaxUpdatableSerializationBytes(4)));
+    try {
+      for (int row = 0; row < 16; row++) {
+        for (int col = 8; col < 64; col++) { sk.rowColUpdate((row << 6) | col); }
+      }
+      fail();
+    } catch (SketchesStateException e) {}
+  }
+
   /**
    * @param s the string to print
    */
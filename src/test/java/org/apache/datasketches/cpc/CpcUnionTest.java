@@ -27,6 +27,8 @@ import org.testng.annotations.Test;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
  * @author Lee Rhodes
@@ -85,4 +87,40 @@ public class CpcUnionTest {
     union.update(sk4);
   }
 
+  @Test
+  public void checkDirectUnion() {
+    final long seed = ThetaUtil.DEFAULT_UPDATE_SEED;
+    final int lgK = 11;
+    final WritableMemory wmem = WritableMemory.allocate(CpcUnion.getMaxSerializationBytes(lgK));
+    final CpcUnion heapUnion = new CpcUnion(lgK, seed);
+    CpcUnion directUnion = new CpcUnion(lgK, seed, wmem);
+    assertTrue(directUnion.hasMemory());
+    //sources of decreasing lgK and increasing flavor, so every merge case and both reductions run
+    final int[] lgKs = { 11, 11, 10, 10, 9, 9 };
+    final long[] ns = { 20, 100, 200, 3000, 20000, 100 };
+    long u = 0;
+    for (int i = 0; i < lgKs.length; i++) {
+      final CpcSketch heapSk = new CpcSketch(lgKs[i], seed);
+      final CpcSketch directSk = new CpcSketch(lgKs[i], seed,
+          WritableMemory.allocate(CpcSketch.getMaxUpdatableSerializationBytes(lgKs[i])));
+      for (long j = 0; j < ns[i]; j++) { heapSk.update(u); directSk.update(u); u++; }
+      heapUnion.update(heapSk);
+      directUnion.update(directSk);
+      assertEquals(directUnion.getLgK(), heapUnion.getLgK());
+      assertEquals(CpcUnion.getBitMatrix(directUnion), CpcUnion.getBitMatrix(heapUnion));
+      assertEquals(directUnion.getResult().toByteArray(), heapUnion.getResult().toByteArray());
+      directUnion = CpcUnion.writableWrap(wmem, seed); //resume from the image alone
+      assertEquals(directUnion.getNumCoupons(), heapUnion.getNumCoupons());
+    }
+    assertEquals(directUnion.getLgK(), 9);
+    try {
+      CpcUnion.writableWrap(wmem, 1); //wrong seed
+      fail();
+    } catch (SketchesArgumentException e) {}
+    try {
+      new CpcUnion(lgK, seed, WritableMemory.allocate(CpcUnion.getMaxSerializationBytes(lgK) - 1));
+      fail();
+    } catch (SketchesArgumentException e) {}
+  }
+
 }
@@ -24,8 +24,12 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.testng.annotations.Test;
 
 public class BloomFilterTest {
@@ -334,4 +338,356 @@ public class BloomFilterTest {
     bf.intersect(bfLongs);
     assertEquals(bfLongs.getBitsUsed(), numBitsSet);
   }
+
+  @Test
+  public void directFilterTest() {
+    final long numBits = 8192;
+    final int numHashes = 4;
+    final long seed = 12345L;
+    final WritableMemory wmem = WritableMemory.allocate((int) BloomFilter.getSerializedSizeBytes(numBits));
+    final BloomFilter dbf = BloomFilterBuilder.initializeBySize(numBits, numHashes, seed, wmem);
+    final BloomFilter hbf = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    assertTrue(dbf.isEmpty());
+    assertTrue(dbf.hasMemory());
+    assertFalse(dbf.isReadOnly());
+    assertTrue(dbf.isSameResource(wmem));
+    assertFalse(hbf.hasMemory());
+    assertFalse(hbf.isSameResource(wmem));
+    assertEquals(dbf.getCapacity(), numBits);
+    assertEquals(dbf.getNumHashes(), numHashes);
+    assertEquals(dbf.getSeed(), seed);
+
+    final int n = 1000;
+    for (int i = 0; i < n; ++i) {
+      assertEquals(dbf.queryAndUpdate(i), hbf.queryAndUpdate(i));
+      dbf.update("s" + i);
+      hbf.update("s" + i);
+    }
+    assertFalse(dbf.isEmpty());
+    assertEquals(dbf.getBitsUsed(), hbf.getBitsUsed());
+    assertEquals(dbf.toByteArray(), hbf.toByteArray());
+
+    // the Memory holds a valid image that can be wrapped or heapified in place
+    final BloomFilter roBF = BloomFilter.wrap(wmem);
+    assertTrue(roBF.isReadOnly());
+    assertEquals(roBF.getBitsUsed(), hbf.getBitsUsed());
+    assertEquals(BloomFilter.heapify(wmem).getBitsUsed(), hbf.getBitsUsed());
+    for (int i = 0; i < 2 * n; ++i) {
+      assertEquals(roBF.query(i), hbf.query(i));
+    }
+    assertThrows(SketchesReadOnlyException.class, () -> roBF.update(1L));
+    assertThrows(SketchesReadOnlyException.class, () -> roBF.reset());
+
+    // updates through the writable filter are visible to the read-only one
+    assertFalse(roBF.query(-1L));
+    dbf.update(-1L);
+    assertTrue(roBF.query(-1L));
+
+    // a heap filter can merge with a direct one in either direction
+    final BloomFilter other = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    for (int i = n; i < 2 * n; ++i) { other.update(i); }
+    dbf.union(other);
+    hbf.union(other);
+    hbf.update(-1L);
+    assertEquals(dbf.getBitsUsed(), hbf.getBitsUsed());
+    other.intersect(dbf);
+    assertEquals(other.getBitsUsed(), BloomFilter.heapify(Memory.wrap(other.toByteArray())).getBitsUsed());
+
+    dbf.reset();
+    assertTrue(dbf.isEmpty());
+    assertTrue(roBF.isEmpty());
+  }
+
+  @Test
+  public void writableWrapTest() {
+    final long numBits = 4096;
+    final BloomFilter bf = BloomFilterBuilder.createBySize(numBits, 3);
+    for (int i = 0; i < 500; ++i) { bf.update(i); }
+
+    final WritableMemory wmem = WritableMemory.writableWrap(bf.toByteArray());
+    final BloomFilter wbf = BloomFilter.writableWrap(wmem);
+    assertEquals(wbf.getBitsUsed(), bf.getBitsUsed());
+    assertEquals(wbf.getSeed(), bf.getSeed());
+    for (int i = 500; i < 1000; ++i) {
+      bf.update(i);
+      wbf.update(i);
+    }
+    assertEquals(BloomFilter.heapify(wmem).getBitsUsed(), bf.getBitsUsed());
+
+    // an empty image does not hold the bits
+    final BloomFilter empty = BloomFilterBuilder.createBySize(numBits, 3);
+    final WritableMemory emptyMem = WritableMemory.writableWrap(empty.toByteArray());
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.writableWrap(emptyMem));
+    final BloomFilter roEmpty = BloomFilter.wrap(emptyMem);
+    assertTrue(roEmpty.isEmpty());
+    assertFalse(roEmpty.query(1L));
+    assertEquals(roEmpty.getCapacity(), numBits);
+
+    assertThrows(SketchesReadOnlyException.class, () -> BloomFilter.writableWrap((WritableMemory) Memory.wrap(bf.toByteArray())));
+  }
+
+  @Test
+  public void initializeByAccuracyTest() {
+    final long maxItems = 10_000;
+    final double fpp = 0.01;
+    final long numBits = BloomFilterBuilder.suggestNumFilterBits(maxItems, fpp);
+    final WritableMemory wmem = WritableMemory.allocate((int) BloomFilter.getSerializedSizeBytes(numBits));
+    final BloomFilter bf = BloomFilterBuilder.initializeByAccuracy(maxItems, fpp, 1L, wmem);
+    assertEquals(bf.getNumHashes(), BloomFilterBuilder.suggestNumHashes(maxItems, numBits));
+    assertTrue(bf.getCapacity() >= numBits);
+
+    assertThrows(SketchesArgumentException.class,
+        () -> BloomFilterBuilder.initializeBySize(numBits * 2, 3, 1L, wmem));
+    assertThrows(SketchesArgumentException.class,
+        () -> BloomFilterBuilder.initializeBySize(numBits, 3, 1L, WritableMemory.allocate(8)));
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.getSerializedSizeBytes(0));
+  }
+
+  @Test
+  public void batchQueryTest() {
+    final long numBits = 16384;
+    final int numHashes = 5;
+    final long seed = 789L;
+    final BloomFilter bf = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    final BloomFilter ref = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+
+    // includes repeated items within a batch, which must see their own earlier updates
+    final long[] items = new long[1000];
+    for (int i = 0; i < items.length; ++i) { items[i] = i % 700; }
+    final boolean[] results = new boolean[items.length];
+    bf.queryAndUpdate(items, results);
+    for (int i = 0; i < items.length; ++i) {
+      assertEquals(results[i], ref.queryAndUpdate(items[i]));
+    }
+    assertEquals(bf.getBitsUsed(), ref.getBitsUsed());
+
+    final long[] probes = new long[3000];
+    for (int i = 0; i < probes.length; ++i) { probes[i] = i - 1000; }
+    final boolean[] found = new boolean[probes.length + 1];
+    found[probes.length] = true; // untouched beyond the items
+    bf.query(probes, found);
+    int numFound = 0;
+    for (int i = 0; i < probes.length; ++i) {
+      assertEquals(found[i], ref.query(probes[i]));
+      if (found[i]) { ++numFound; }
+    }
+    assertTrue(numFound >= 700);
+    assertTrue(found[probes.length]);
+
+    bf.query(new long[0], new boolean[0]);
+    assertThrows(SketchesArgumentException.class, () -> bf.query(probes, new boolean[10]));
+    assertThrows(SketchesArgumentException.class, () -> bf.queryAndUpdate(null, results));
+  }
+
+  @Test
+  public void blockedFilterTest() {
+    final long numBits = 10_000;
+    final int numHashes = 6;
+    final BloomFilter bf = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, 42L);
+    assertTrue(bf.isBlocked());
+    assertEquals(bf.getCapacity(), 10_240); // rounded up to a multiple of 512
+    assertTrue(bf.isEmpty());
+
+    final int n = 1000;
+    final long[] items = new long[n];
+    for (int i = 0; i < n; ++i) { items[i] = i; }
+    bf.update(items); // a single long[] item
+    for (int i = 0; i < n; ++i) { bf.update(i); }
+    for (int i = 0; i < n; ++i) {
+      assertTrue(bf.query(i));
+    }
+    final boolean[] results = new boolean[n];
+    bf.query(items, results);
+    for (int i = 0; i < n; ++i) { assertTrue(results[i]); }
+
+    // every item sets all its bits in one 512-bit block
+    final BloomFilter single = BloomFilterBuilder.createBlockedBySize(numBits, numHashes, 42L);
+    single.update(12345L);
+    final long[] longs = single.toLongArray(); // the bits start after 4 longs
+    int numBlocksUsed = 0;
+    for (int b = 0; b < single.getCapacity() / 512; ++b) {
+      boolean used = false;
+      for (int j = 0; j < 8; ++j) { used |= longs[4 + 8 * b + j] != 0; }
+      if (used) { ++numBlocksUsed; }
+    }
+    assertEquals(numBlocksUsed, 1);
+
+    // false positive rate stays in the expected range
+    int numFalsePositives = 0;
+    for (int i = n; i < 11 * n; ++i) {
+      if (bf.query(i)) { ++numFalsePositives; }
+    }
+    assertTrue(numFalsePositives < n);
+
+    // serialization keeps the layout
+    final BloomFilter fromBytes = BloomFilter.heapify(Memory.wrap(bf.toByteArray()));
+    assertTrue(fromBytes.isBlocked());
+    assertEquals(fromBytes.getBitsUsed(), bf.getBitsUsed());
+    assertTrue(fromBytes.query(7));
+    final BloomFilter wrapped = BloomFilter.wrap(Memory.wrap(bf.toLongArray()));
+    assertTrue(wrapped.isBlocked());
+    assertTrue(wrapped.query(7));
+
+    // blocked and standard filters are not compatible
+    final BloomFilter standard = BloomFilterBuilder.createBySize(bf.getCapacity(), numHashes, 42L);
+    assertFalse(bf.isCompatible(standard));
+    assertThrows(SketchesArgumentException.class, () -> bf.union(standard));
+    final BloomFilter other = BloomFilterBuilder.createBlockedByAccuracy(1000, 0.01, 42L);
+    assertTrue(other.isBlocked());
+    assertEquals(other.getCapacity() % 512, 0);
+
+    // a blocked flag on a size that is not a whole number of blocks is rejected
+    final BloomFilter odd = BloomFilterBuilder.createBySize(640, 3, 42L);
+    odd.update(1L);
+    final byte[] bytes = odd.toByteArray();
+    bytes[3] |= 8;
+    assertThrows(SketchesArgumentException.class, () -> BloomFilter.heapify(Memory.wrap(bytes)));
+  }
+
+  @Test
+  public void concurrentFilterTest() throws InterruptedException {
+    final long numBits = 1 << 20;
+    final int numHashes = 4;
+    final long seed = 2024L;
+    final BloomFilter bf = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, seed);
+    assertTrue(bf.isConcurrent());
+    final WritableMemory wmem = WritableMemory.allocate((int) BloomFilter.getSerializedSizeBytes(numBits));
+    BloomFilterBuilder.initializeBySize(numBits, numHashes, seed, wmem);
+    final BloomFilter dbf = BloomFilter.concurrentWrap(wmem);
+    assertTrue(dbf.isConcurrent());
+    assertTrue(dbf.isSameResource(wmem));
+
+    final int numThreads = 4;
+    final int perThread = 20_000;
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; ++t) {
+      final long base = (long) t * perThread / 2; // half of each range overlaps the next thread's
+      threads[t] = new Thread(() -> {
+        final long[] items = new long[perThread];
+        for (int i = 0; i < perThread; ++i) { items[i] = base + i; }
+        final boolean[] results = new boolean[perThread];
+        bf.queryAndUpdate(items, results);
+        for (final long item : items) { dbf.update(item); }
+      });
+      threads[t].start();
+    }
+    for (final Thread thread : threads) { thread.join(); }
+
+    // the concurrent filters match a filter updated serially
+    final BloomFilter ref = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    final long numItems = (long) (numThreads + 1) * perThread / 2;
+    for (long i = 0; i < numItems; ++i) {
+      ref.queryAndUpdate(i); // keeps an exact count in the serialized image
+      assertTrue(bf.query(i));
+      assertTrue(dbf.query(i));
+    }
+    assertEquals(bf.getBitsUsed(), ref.getBitsUsed());
+    assertEquals(dbf.getBitsUsed(), ref.getBitsUsed());
+    assertEquals(bf.toByteArray(), ref.toByteArray());
+    assertEquals(dbf.toByteArray(), ref.toByteArray());
+    assertEquals(BloomFilter.wrap(wmem).getBitsUsed(), ref.getBitsUsed());
+
+    assertFalse(ref.isConcurrent());
+    assertThrows(SketchesReadOnlyException.class,
+        () -> BloomFilter.concurrentWrap((WritableMemory) Memory.wrap(ref.toByteArray())));
+    final BloomFilter other = BloomFilterBuilder.createConcurrentByAccuracy(1000, 0.01, seed);
+    assertTrue(other.isConcurrent());
+    assertTrue(other.isEmpty());
+  }
+
+  @Test
+  public void concurrentSerializationTest() throws InterruptedException {
+    final long numBits = 1024;
+    final int numHashes = 3;
+    final long seed = 515L;
+    final WritableMemory wmem = WritableMemory.allocate((int) BloomFilter.getSerializedSizeBytes(numBits));
+
+    // The race is at the transition from empty to non-empty, so serialize fresh filters
+    // while another thread sets their first bits.
+    for (int round = 0; round < 2_000; ++round) {
+      final BloomFilter bf;
+      if ((round & 1) == 0) {
+        bf = BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, seed);
+      } else {
+        BloomFilterBuilder.initializeBySize(numBits, numHashes, seed, wmem);
+        bf = BloomFilter.concurrentWrap(wmem);
+      }
+      assertTrue(bf.isEmpty());
+      final long item = round;
+      final Thread updater = new Thread(() -> bf.update(item));
+      updater.start();
+
+      // every image taken while the filter changes must be self-consistent
+      boolean running = true;
+      while (running) {
+        running = updater.isAlive();
+        final BloomFilter fromBytes = BloomFilter.heapify(Memory.wrap(bf.toByteArray()));
+        final BloomFilter fromLongs = BloomFilter.heapify(Memory.wrap(bf.toLongArray()));
+        assertEquals(fromBytes.isEmpty(), fromBytes.getBitsUsed() == 0);
+        assertEquals(fromLongs.isEmpty(), fromLongs.getBitsUsed() == 0);
+        assertTrue(fromLongs.getBitsUsed() >= fromBytes.getBitsUsed());
+      }
+      updater.join();
+
+      final BloomFilter ref = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+      ref.queryAndUpdate(item);
+      assertEquals(bf.toByteArray(), ref.toByteArray());
+    }
+  }
+
+  @Test
+  public void parallelSetOperationsTest() {
+    final ForkJoinPool pool = ForkJoinPool.commonPool();
+    final long numBits = 1L << 23; // above the parallel threshold
+    final int numHashes = 3;
+    final long seed = 77L;
+    final BloomFilter a = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    final BloomFilter b = BloomFilterBuilder.createBySize(numBits, numHashes, seed);
+    for (int i = 0; i < 200_000; ++i) {
+      a.update(i);
+      b.update(i + 100_000);
+    }
+    final byte[] aBytes = a.toByteArray();
+
+    // union and intersection match the serial results for each kind of target
+    final BloomFilter serialUnion = BloomFilter.heapify(Memory.wrap(aBytes));
+    serialUnion.union(b);
+    final BloomFilter serialIntersection = BloomFilter.heapify(Memory.wrap(aBytes));
+    serialIntersection.intersect(b);
+
+    final BloomFilter[] targets = {
+        BloomFilter.heapify(Memory.wrap(aBytes)),
+        BloomFilter.writableWrap(WritableMemory.writableWrap(aBytes.clone())),
+        BloomFilterBuilder.createConcurrentBySize(numBits, numHashes, seed)
+    };
+    targets[2].union(a);
+    for (final BloomFilter target : targets) {
+      final WritableMemory copy = WritableMemory.allocate((int) target.getSerializedSizeBytes());
+      copy.putByteArray(0, target.toByteArray(), 0, (int) target.getSerializedSizeBytes());
+      target.union(b, pool);
+      assertEquals(target.getBitsUsed(), serialUnion.getBitsUsed());
+      assertEquals(target.toByteArray(), serialUnion.toByteArray());
+
+      final BloomFilter other = BloomFilter.heapify(copy);
+      other.intersect(b, pool);
+      assertEquals(other.getBitsUsed(), serialIntersection.getBitsUsed());
+      assertEquals(other.toByteArray(), serialIntersection.toByteArray());
+    }
+
+    // small filters are merged serially
+    final BloomFilter small = BloomFilterBuilder.createBySize(1024, numHashes, seed);
+    final BloomFilter smallOther = BloomFilterBuilder.createBySize(1024, numHashes, seed);
+    smallOther.update(1L);
+    small.union(smallOther, pool);
+    assertTrue(small.query(1L));
+    small.intersect(smallOther, pool);
+    assertEquals(small.getBitsUsed(), smallOther.getBitsUsed());
+
+    small.union(null, pool);
+    assertThrows(SketchesArgumentException.class, () -> a.union(small, pool));
+    assertThrows(SketchesArgumentException.class, () -> a.intersect(small, pool));
+    final BloomFilter readOnly = BloomFilter.wrap(Memory.wrap(aBytes));
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.union(b, pool));
+    assertThrows(SketchesReadOnlyException.class, () -> readOnly.intersect(b, pool));
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class ConcurrentBitArrayTest {
+
+  @Test
+  public void createConcurrentBitArrayTest() {
+    final BitArray ba = new ConcurrentHeapBitArray(119);
+    assertEquals(ba.getCapacity(), 128); // nearest multiple of 64
+    assertEquals(ba.getArrayLength(), 2);
+    assertTrue(ba.isEmpty());
+    assertTrue(ba.isConcurrent());
+    assertFalse(ba.hasMemory());
+    assertThrows(SketchesArgumentException.class, () -> new ConcurrentHeapBitArray(0));
+    assertThrows(SketchesArgumentException.class, () -> new ConcurrentHeapBitArray(BitArray.MAX_BITS + 1));
+  }
+
+  @Test
+  public void heapMatchesSerialTest() {
+    checkMatchesSerial(new ConcurrentHeapBitArray(1024));
+  }
+
+  @Test
+  public void directMatchesSerialTest() {
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArray.getRequiredBytes(16));
+    DirectBitArray.initialize(1024, wmem).getAndSetBit(3);
+    final BitArray ba = ConcurrentDirectBitArray.concurrentWrap(wmem, false);
+    assertEquals(ba.getNumBitsSet(), 1); // counted at wrap time
+    ba.reset();
+    checkMatchesSerial(ba);
+
+    // the stored count is stale once bits are set, so other wrappers recount
+    ba.getAndSetBit(7);
+    final BitArray other = BitArray.wrap(wmem, false);
+    assertTrue(other.isDirty());
+    assertEquals(other.getNumBitsSet(), ba.getNumBitsSet());
+    assertThrows(SketchesArgumentException.class, () -> ConcurrentDirectBitArray.concurrentWrap(wmem, true));
+  }
+
+  private static void checkMatchesSerial(final BitArray ba) {
+    final HeapBitArray ref = new HeapBitArray(1024);
+    for (int i = 0; i < 1024; i += 5) {
+      assertEquals(ba.getAndSetBit(i), ref.getAndSetBit(i));
+      assertEquals(ba.getAndSetBit(i / 2), ref.getAndSetBit(i / 2));
+    }
+    ba.setBit(1023);
+    ref.setBit(1023);
+    assertFalse(ba.isDirty()); // the count is always exact
+    assertEquals(ba.getNumBitsSet(), ref.getNumBitsSet());
+
+    final HeapBitArray other = new HeapBitArray(1024);
+    for (int i = 0; i < 1024; i += 3) { other.getAndSetBit(i); }
+    ba.union(other);
+    ref.union(other);
+    assertEquals(ba.getNumBitsSet(), ref.getNumBitsSet());
+    ba.intersect(other);
+    ref.intersect(other);
+    assertEquals(ba.getNumBitsSet(), ref.getNumBitsSet());
+    ba.invert();
+    ref.invert();
+    assertEquals(ba.getNumBitsSet(), ref.getNumBitsSet());
+    for (int i = 0; i < ba.getArrayLength(); ++i) {
+      assertEquals(ba.getLong(i), ref.getLong(i));
+    }
+
+    // serializes to the same image as the serial array
+    final WritableMemory wmem = WritableMemory.allocate((int) ba.getSerializedSizeBytes());
+    ba.writeToBuffer(wmem.asWritableBuffer());
+    final BitArray copy = BitArray.heapify(wmem.asBuffer(), false);
+    assertEquals(copy.getNumBitsSet(), ref.getNumBitsSet());
+    assertFalse(copy.isDirty());
+
+    assertThrows(SketchesArgumentException.class, () -> ba.union(new HeapBitArray(64)));
+    assertThrows(SketchesArgumentException.class, () -> ba.intersect(new HeapBitArray(64)));
+
+    ba.reset();
+    assertTrue(ba.isEmpty());
+    assertEquals(ba.getNumBitsSet(), 0);
+  }
+
+  @Test
+  public void concurrentUpdatesTest() throws InterruptedException {
+    final long numBits = 1 << 16;
+    final BitArray heapBA = new ConcurrentHeapBitArray(numBits);
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArray.getRequiredBytes((int) (numBits / 64)));
+    DirectBitArray.initialize(numBits, wmem);
+    final BitArray directBA = ConcurrentDirectBitArray.concurrentWrap(wmem, false);
+
+    // all threads set overlapping bits in the same longs
+    final int numThreads = 4;
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; ++t) {
+      final int offset = t;
+      threads[t] = new Thread(() -> {
+        for (long i = offset; i < numBits; i += 2) {
+          heapBA.getAndSetBit(i);
+          directBA.setBit(i);
+        }
+      });
+      threads[t].start();
+    }
+    for (final Thread thread : threads) { thread.join(); }
+
+    assertEquals(heapBA.getNumBitsSet(), numBits);
+    assertEquals(directBA.getNumBitsSet(), numBits);
+    for (int i = 0; i < heapBA.getArrayLength(); ++i) {
+      assertEquals(heapBA.getLong(i), -1L);
+      assertEquals(directBA.getLong(i), -1L);
+    }
+  }
+}
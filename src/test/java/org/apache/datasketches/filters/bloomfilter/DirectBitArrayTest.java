@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableBuffer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class DirectBitArrayTest {
+
+  @Test
+  public void initializeTest() {
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArray.getRequiredBytes(2));
+    final BitArray ba = DirectBitArray.initialize(119, wmem);
+    assertEquals(ba.getCapacity(), 128); // nearest multiple of 64
+    assertEquals(ba.getArrayLength(), 2);
+    assertEquals(ba.getNumBitsSet(), 0);
+    assertTrue(ba.isEmpty());
+    assertTrue(ba.hasMemory());
+    assertFalse(ba.isDirect());
+    assertFalse(ba.isReadOnly());
+    assertTrue(ba.isSameResource(wmem));
+  }
+
+  @Test
+  public void invalidInitializeTest() {
+    final WritableMemory wmem = WritableMemory.allocate(64);
+    assertThrows(SketchesArgumentException.class, () -> DirectBitArray.initialize(-64, wmem));
+    assertThrows(SketchesArgumentException.class, () -> DirectBitArray.initialize(1L + BitArray.MAX_BITS, wmem));
+    assertThrows(SketchesArgumentException.class, () -> DirectBitArray.initialize(512, wmem)); // too small
+  }
+
+  @Test
+  public void matchesHeapTest() {
+    final long numBits = 1024;
+    final HeapBitArray hba = new HeapBitArray(numBits);
+    final WritableMemory wmem = WritableMemory.allocate((int) DirectBitArray.getRequiredBytes(16));
+    final BitArray dba = DirectBitArray.initialize(numBits, wmem);
+
+    for (int i = 0; i < numBits; i += 7) {
+      assertEquals(dba.getAndSetBit(i), hba.getAndSetBit(i));
+      assertEquals(dba.getAndSetBit(i / 3), hba.getAndSetBit(i / 3));
+    }
+    assertEquals(dba.getNumBitsSet(), hba.getNumBitsSet());
+    for (int i = 0; i < dba.getArrayLength(); ++i) {
+      assertEquals(dba.getLong(i), hba.getLong(i));
+    }
+
+    // setBit() marks the count as dirty but it is still reported correctly
+    dba.setBit(1023);
+    hba.setBit(1023);
+    assertTrue(dba.isDirty());
+    assertEquals(dba.getNumBitsSet(), hba.getNumBitsSet());
+    assertFalse(dba.isEmpty());
+
+    dba.invert();
+    hba.invert();
+    assertFalse(dba.isDirty());
+    assertEquals(dba.getNumBitsSet(), hba.getNumBitsSet());
+
+    dba.reset();
+    assertTrue(dba.isEmpty());
+    assertEquals(dba.getNumBitsSet(), 0);
+  }
+
+  @Test
+  public void unionAndIntersectionTest() {
+    final BitArray ba1 = DirectBitArray.initialize(64, WritableMemory.allocate((int) DirectBitArray.getRequiredBytes(1)));
+    final BitArray ba2 = new HeapBitArray(64);
+    final BitArray ba3 = DirectBitArray.initialize(64, WritableMemory.allocate((int) DirectBitArray.getRequiredBytes(1)));
+
+    final int n = 10;
+    for (int i = 0; i < n; ++i) {
+      ba1.getAndSetBit(i);
+      ba2.getAndSetBit(i + (n / 2));
+      ba3.getAndSetBit(2 * i);
+    }
+
+    ba1.intersect(ba2);
+    assertEquals(ba1.getNumBitsSet(), n / 2);
+
+    ba3.union(ba2);
+    assertEquals(ba3.getNumBitsSet(), 3 * n / 2);
+
+    // and a heap array can absorb a direct one
+    ba2.union(ba3);
+    assertEquals(ba2.getNumBitsSet(), 3 * n / 2);
+
+    final BitArray ba4 = new HeapBitArray(128);
+    assertThrows(SketchesArgumentException.class, () -> ba1.union(ba4));
+    assertThrows(SketchesArgumentException.class, () -> ba1.intersect(ba4));
+  }
+
+  @Test
+  public void wrapSerializedTest() {
+    final long n = 8192;
+    final HeapBitArray ba = new HeapBitArray(n);
+    for (int i = 0; i < n; i += 3) {
+      ba.getAndSetBit(i);
+    }
+    final WritableMemory wmem = WritableMemory.allocate((int) ba.getSerializedSizeBytes());
+    final WritableBuffer wbuf = wmem.asWritableBuffer();
+    ba.writeToBuffer(wbuf);
+
+    final BitArray roBA = BitArray.wrap(wmem, false);
+    assertTrue(roBA.isReadOnly());
+    assertEquals(roBA.getArrayLength(), ba.getArrayLength());
+    assertEquals(roBA.getNumBitsSet(), ba.getNumBitsSet());
+    assertTrue(roBA.getBit(3));
+    assertFalse(roBA.getBit(4));
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.setBit(4));
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.getAndSetBit(4));
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.reset());
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.invert());
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.union(ba));
+    assertThrows(SketchesReadOnlyException.class, () -> roBA.intersect(ba));
+
+    // changes through a writable wrap are visible to the read-only one
+    final BitArray wBA = BitArray.writableWrap(wmem, false);
+    assertFalse(wBA.getAndSetBit(4));
+    assertTrue(roBA.getBit(4));
+    assertEquals(roBA.getNumBitsSet(), ba.getNumBitsSet() + 1);
+
+    // and a direct array serializes to the same bytes as the heap one
+    final WritableMemory wmem2 = WritableMemory.allocate((int) wBA.getSerializedSizeBytes());
+    wBA.writeToBuffer(wmem2.asWritableBuffer());
+    final BitArray heapBA = BitArray.heapify(wmem2.asBuffer(), false);
+    assertEquals(heapBA.getNumBitsSet(), wBA.getNumBitsSet());
+    assertTrue(heapBA.getBit(4));
+  }
+
+  @Test
+  public void wrapEmptyTest() {
+    final HeapBitArray ba = new HeapBitArray(64);
+    final WritableMemory wmem = WritableMemory.allocate((int) ba.getSerializedSizeBytes());
+    ba.writeToBuffer(wmem.asWritableBuffer());
+
+    final BitArray roBA = BitArray.wrap(wmem, true);
+    assertTrue(roBA.isEmpty());
+    assertEquals(roBA.getArrayLength(), 1);
+    assertEquals(roBA.getNumBitsSet(), 0);
+    assertFalse(roBA.getBit(5));
+
+    final WritableMemory wmem2 = WritableMemory.allocate((int) roBA.getSerializedSizeBytes());
+    roBA.writeToBuffer(wmem2.asWritableBuffer());
+    assertTrue(BitArray.heapify(wmem2.asBuffer(), true).isEmpty());
+
+    // an empty image holds no bits so cannot be written to
+    assertThrows(SketchesArgumentException.class, () -> BitArray.writableWrap(wmem, true));
+  }
+
+  @Test
+  public void invalidWrapTest() {
+    final WritableMemory wmem = WritableMemory.allocate(32);
+    wmem.putInt(0, 4); // claims more data than the capacity holds
+    assertThrows(SketchesArgumentException.class, () -> BitArray.wrap(wmem, false));
+    assertThrows(SketchesArgumentException.class, () -> BitArray.writableWrap(wmem, false));
+    wmem.putInt(0, 0);
+    assertThrows(SketchesArgumentException.class, () -> BitArray.wrap((Memory) wmem, false));
+  }
+}
@@ -28,11 +28,11 @@ import org.apache.datasketches.memory.WritableBuffer;
 import org.apache.datasketches.memory.WritableMemory;
 import org.testng.annotations.Test;
 
-public class BitArrayTest {
+public class HeapBitArrayTest {
 
   @Test
   public void createBitArrayTest() {
-    final BitArray ba = new BitArray(119);
+    final BitArray ba = new HeapBitArray(119);
     assertEquals(ba.getCapacity(), 128); // nearest multiple of 64
     assertEquals(ba.getArrayLength(), 2);
     assertEquals(ba.getNumBitsSet(), 0);
@@ -41,17 +41,17 @@ public class BitArrayTest {
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void createNegativeSizeBitArrayTest() {
-    new BitArray(-64);
+    new HeapBitArray(-64);
   }
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void createTooLargeBitArrayTest() {
-    new BitArray(1L + (long) Integer.MAX_VALUE * Long.SIZE);
+    new HeapBitArray(1L + (long) Integer.MAX_VALUE * Long.SIZE);
   }
 
   @Test
   public void basicOperationTest() {
-    final BitArray ba = new BitArray(128);
+    final BitArray ba = new HeapBitArray(128);
     assertEquals(ba.getAndSetBit(1), false);
     assertEquals(ba.getAndSetBit(2), false);
     for (int i = 4; i < 64; i <<= 1) {
@@ -74,7 +74,7 @@ public class BitArrayTest {
   @Test
   public void inversionTest() {
     final int numBits = 1024;
-    final BitArray ba = new BitArray(numBits);
+    final BitArray ba = new HeapBitArray(numBits);
     for (int i = 0; i < numBits; i += numBits / 8) {
       ba.getAndSetBit(i);
     }
@@ -89,21 +89,21 @@ public class BitArrayTest {
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void invalidUnionTest() {
-    final BitArray ba = new BitArray(128);
-    ba.union(new BitArray(64));
+    final BitArray ba = new HeapBitArray(128);
+    ba.union(new HeapBitArray(64));
   }
 
   @Test(expectedExceptions = SketchesArgumentException.class)
   public void invalidIntersectionTest() {
-    final BitArray ba = new BitArray(128);
-    ba.intersect(new BitArray(64));
+    final BitArray ba = new HeapBitArray(128);
+    ba.intersect(new HeapBitArray(64));
   }
 
   @Test
   public void validUnionAndIntersectionTest() {
-    final BitArray ba1 = new BitArray(64);
-    final BitArray ba2 = new BitArray(64);
-    final BitArray ba3 = new BitArray(64);
+    final BitArray ba1 = new HeapBitArray(64);
+    final BitArray ba2 = new HeapBitArray(64);
+    final BitArray ba3 = new HeapBitArray(64);
     
     final int n = 10;
     for (int i = 0; i < n; ++i) {
@@ -124,7 +124,7 @@ public class BitArrayTest {
 
   @Test
   public void serializeEmptyTest() {
-    final BitArray ba = new BitArray(64);
+    final BitArray ba = new HeapBitArray(64);
     final WritableBuffer wbuf = WritableMemory.allocate((int) ba.getSerializedSizeBytes()).asWritableBuffer();
     ba.writeToBuffer(wbuf);
     wbuf.resetPosition();
@@ -138,7 +138,7 @@ public class BitArrayTest {
   @Test
   public void serializeNonEmptyTest() {
     final long n = 8192;
-    final BitArray ba = new BitArray(n);
+    final BitArray ba = new HeapBitArray(n);
     for (int i = 0; i < n; i += 3)
       ba.getAndSetBit(i);
     final WritableBuffer wbuf = WritableMemory.allocate((int) ba.getSerializedSizeBytes()).asWritableBuffer();
@@ -38,6 +38,7 @@ import org.testng.annotations.Test;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.Util;
 import org.apache.datasketches.frequencies.LongsSketch.Row;
 
@@ -582,6 +583,94 @@ public class LongsSketchTest {
     println("");
   }
 
+  @Test
+  public void checkDirectMatchesHeap() {
+    final int maxMapSize = 64;
+    final WritableMemory wmem = WritableMemory.allocate((int) LongsSketch.getUpdatableStorageBytes(maxMapSize));
+    final LongsSketch dfls = LongsSketch.newDirectInstance(maxMapSize, wmem);
+    final LongsSketch hfls = new LongsSketch(maxMapSize);
+    assertTrue(dfls.hasMemory());
+    assertFalse(hfls.hasMemory());
+    assertTrue(dfls.isEmpty());
+    for (int i = 0; i < 10_000; i++) {
+      final long item = randomGeometricDist(0.01);
+      dfls.update(item, 1 + (i % 3));
+      hfls.update(item, 1 + (i % 3));
+    }
+    assertTrue(dfls.getMaximumError() > 0); //purged in place
+    assertEquals(dfls.getStreamLength(), hfls.getStreamLength());
+    assertEquals(dfls.getMaximumError(), hfls.getMaximumError());
+    assertEquals(dfls.getNumActiveItems(), hfls.getNumActiveItems());
+    assertEquals(dfls.toByteArray(), hfls.toByteArray());
+
+    //heapify the updatable image
+    final LongsSketch fls2 = LongsSketch.getInstance(wmem);
+    assertFalse(fls2.hasMemory());
+    assertEquals(fls2.getStreamLength(), hfls.getStreamLength());
+    assertEquals(fls2.getMaximumError(), hfls.getMaximumError());
+    assertEquals(fls2.getNumActiveItems(), hfls.getNumActiveItems());
+    for (Row row : hfls.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES)) {
+      assertEquals(fls2.getEstimate(row.getItem()), row.getEstimate());
+    }
+
+    //reopen and continue updating in place
+    final LongsSketch dfls2 = LongsSketch.writableWrap(wmem);
+    dfls2.update(7L, 1000);
+    hfls.update(7L, 1000);
+    assertEquals(LongsSketch.writableWrap(wmem).toByteArray(), hfls.toByteArray());
+  }
+
+  @Test
+  public void checkDirectMergeAndReset() {
+    final int maxMapSize = 32;
+    final WritableMemory wmem = WritableMemory.allocate((int) LongsSketch.getUpdatableStorageBytes(maxMapSize));
+    final LongsSketch dfls = LongsSketch.newDirectInstance(maxMapSize, wmem);
+    final LongsSketch hfls = new LongsSketch(maxMapSize);
+    final LongsSketch other = new LongsSketch(maxMapSize);
+    for (long i = 0; i < 100; i++) {
+      dfls.update(i % 10);
+      hfls.update(i % 10);
+      other.update(i % 20, 2);
+    }
+    dfls.merge(other);
+    hfls.merge(other);
+    assertEquals(dfls.toByteArray(), hfls.toByteArray());
+    assertEquals(LongsSketch.writableWrap(wmem).getStreamLength(), 300);
+
+    dfls.reset();
+    assertTrue(dfls.isEmpty());
+    assertEquals(dfls.getStreamLength(), 0);
+    assertEquals(dfls.getCurrentMapCapacity(), (int) ((1 << LG_MIN_MAP_SIZE) * 0.75));
+    final LongsSketch wrapped = LongsSketch.writableWrap(wmem);
+    assertTrue(wrapped.isEmpty());
+    assertEquals(wrapped.getStreamLength(), 0);
+    dfls.update(1L);
+    assertEquals(dfls.getEstimate(1L), 1);
+  }
+
+  @Test
+  public void checkDirectErrors() {
+    final int maxMapSize = 16;
+    final int bytes = (int) LongsSketch.getUpdatableStorageBytes(maxMapSize);
+    assertEquals(bytes, 32 + (18 * 16));
+    try {
+      LongsSketch.newDirectInstance(maxMapSize, WritableMemory.allocate(bytes - 1));
+      fail();
+    } catch (SketchesArgumentException e) { } //expected
+    final LongsSketch fls = new LongsSketch(maxMapSize);
+    fls.update(1L);
+    try {
+      LongsSketch.writableWrap(WritableMemory.writableWrap(fls.toByteArray()));
+      fail();
+    } catch (SketchesArgumentException e) { } //expected, not an updatable image
+    final byte[] arr = new byte[bytes];
+    LongsSketch.newDirectInstance(maxMapSize, WritableMemory.writableWrap(arr));
+    try {
+      LongsSketch.writableWrap((WritableMemory) Memory.wrap(arr));
+      fail();
+    } catch (SketchesReadOnlyException e) { } //expected
+  }
+
   private static void printRows(LongsSketch fls, ErrorType eType) {
     Row[] rows = fls.getFrequentItems(eType);
     String s1 = eType.toString();
@@ -365,6 +365,21 @@ public class MurmurHash3Test {
     Assert.assertEquals(result1[1], h2);
   }
 
+  @Test
+  public void checkHashIntoOutputArray() {
+    final long[] out = new long[2];
+    final byte[] bytes = new byte[19];
+    for (int i = 0; i < 100; i++) {
+      final long key = (i * 0x9E3779B97F4A7C15L);
+      Assert.assertSame(hash(key, i, out), out);
+      Assert.assertEquals(out, hash(key, i));
+      Assert.assertEquals(out, hash(new long[] { key }, i));
+      bytes[i % bytes.length] = (byte) i;
+      Assert.assertSame(hash(bytes, 1, 17, i, out), out);
+      Assert.assertEquals(out, hash(bytes, 1, 17, i));
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
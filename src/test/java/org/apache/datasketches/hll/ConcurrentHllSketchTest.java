@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.apache.datasketches.hll.TgtHllType.HLL_4;
+import static org.apache.datasketches.hll.TgtHllType.HLL_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class ConcurrentHllSketchTest {
+
+  @Test
+  public void checkSingleWriterMatchesHllSketch() {
+    final int[] lgKs = { 4, 8, 12 };
+    final int[] counts = { 0, 1, 100, 10_000, 200_000 };
+    for (final int lgK : lgKs) {
+      for (final int n : counts) {
+        final ConcurrentHllSketch shared = new ConcurrentHllSketch(lgK);
+        final ConcurrentHllBuffer local = shared.newLocalBuffer();
+        final HllSketch sk = new HllSketch(lgK, HLL_8);
+        for (int i = 0; i < n; i++) {
+          local.update(i);
+          sk.update(i);
+        }
+        local.flush();
+        assertEquals(shared.isEmpty(), n == 0);
+        checkSameRegisters(shared.copyAs(HLL_8), sk);
+        final double est = shared.getEstimate();
+        assertEquals(local.getEstimate(), est);
+        assertEquals(shared.getCompositeEstimate(), est);
+        assertEquals(shared.copyAs(HLL_8).getCompositeEstimate(), est, est * 1e-12);
+        assertEquals(shared.copyAs(HLL_4).getCompositeEstimate(), est, est * 1e-12);
+        if (sk.getCurMode() == CurMode.HLL) { assertEquals(sk.getCompositeEstimate(), est, est * 1e-12); }
+        else { assertEquals(sk.getCompositeEstimate(), est, est * 0.05); }
+        assertTrue(shared.getLowerBound(2) <= shared.getEstimate());
+        assertTrue(shared.getUpperBound(2) >= shared.getEstimate());
+      }
+    }
+  }
+
+  @Test
+  public void checkMultipleWriters() throws InterruptedException {
+    final int lgK = 12;
+    final int numThreads = 4;
+    final int perThread = 100_000;
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(lgK);
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int base = t * perThread;
+      threads[t] = new Thread(() -> {
+        final ConcurrentHllBuffer local = shared.newLocalBuffer();
+        for (int i = 0; i < perThread; i++) { local.update(base + i); }
+        local.flush();
+      });
+      threads[t].start();
+    }
+    //the estimate is readable during ingestion
+    assertTrue(shared.getEstimate() >= 0);
+    for (final Thread thread : threads) { thread.join(); }
+
+    final HllSketch sk = new HllSketch(lgK, HLL_8);
+    for (int i = 0; i < (numThreads * perThread); i++) { sk.update(i); }
+    checkSameRegisters(shared.copyAs(HLL_8), sk);
+    assertEquals(shared.getEstimate(), sk.getCompositeEstimate(), sk.getCompositeEstimate() * 1e-12);
+  }
+
+  @Test
+  public void checkBoundedStaleness() {
+    final double maxError = 0.01;
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(14, 1 << 16, maxError);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    for (int i = 0; i < 1_000_000; i++) {
+      local.update(i);
+      if ((i % 10_000) == 0) { assertTrue(shared.getEstimate() <= ((i + 1) * 1.1)); }
+    }
+    final double before = shared.getEstimate();
+    local.flush();
+    final double after = shared.getEstimate();
+    assertTrue(((after - before) / after) <= (2 * maxError));
+  }
+
+  @Test
+  public void checkEagerPropagation() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(10, 100, 0.0);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    local.update(1L);
+    assertFalse(shared.isEmpty());
+    assertEquals(shared.getEstimate(), 1.0, 0.01);
+  }
+
+  @Test
+  public void checkSharedUpdateAndReset() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(10);
+    final HllSketch sk = new HllSketch(10, HLL_8);
+    for (int i = 0; i < 5000; i++) { shared.update(i); sk.update(i); }
+    final long[] items = new long[5000];
+    for (int i = 0; i < items.length; i++) { items[i] = 5000 + i; sk.update(items[i]); }
+    shared.updateBatch(items, 0, items.length);
+    checkSameRegisters(shared.copyAs(HLL_8), sk);
+
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    shared.reset();
+    assertTrue(shared.isEmpty());
+    assertTrue(local.isEmpty());
+    assertEquals(shared.getEstimate(), 0.0);
+    local.update(1L); //propagated eagerly while the sketch is small
+    assertFalse(shared.isEmpty());
+
+    //items discarded by a local reset are never propagated
+    final ConcurrentHllSketch shared2 = new ConcurrentHllSketch(10, 1000, 0.5);
+    for (int i = 0; i < 100; i++) { shared2.update(i); }
+    final ConcurrentHllBuffer local2 = shared2.newLocalBuffer();
+    final double est = shared2.getEstimate();
+    for (int i = 100; i < 110; i++) { local2.update(i); }
+    local2.reset();
+    local2.flush();
+    assertEquals(shared2.getEstimate(), est);
+  }
+
+  @Test
+  public void checkResetDuringUpdates() throws InterruptedException {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(8, 16, 0.0);
+    final HllSketch sk = new HllSketch(8, HLL_8);
+    final int n = 2000;
+    for (int i = 0; i < n; i++) { sk.update(i); }
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicInteger[] passes = { new AtomicInteger(), new AtomicInteger() };
+    final Thread[] threads = new Thread[2];
+    for (int t = 0; t < threads.length; t++) {
+      final BaseHllSketch target = (t == 0) ? shared : shared.newLocalBuffer();
+      final AtomicInteger count = passes[t];
+      threads[t] = new Thread(() -> {
+        while (!stop.get()) {
+          for (int i = 0; i < n; i++) { target.update(i); }
+          count.incrementAndGet();
+        }
+      });
+      threads[t].start();
+    }
+    try {
+      for (int round = 0; round < 50; round++) {
+        shared.reset();
+        //once each writer has completed a pass started after the reset, nothing may be missing
+        for (final AtomicInteger count : passes) {
+          final int target = count.get() + 2;
+          while (count.get() < target) { Thread.yield(); }
+        }
+        checkSameRegisters(shared.copyAs(HLL_8), sk);
+      }
+    } finally {
+      stop.set(true);
+      for (final Thread thread : threads) { thread.join(); }
+    }
+  }
+
+  @Test
+  public void checkSerialization() {
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(10);
+    final ConcurrentHllBuffer local = shared.newLocalBuffer();
+    for (int i = 0; i < 10_000; i++) { local.update(i); }
+    local.flush();
+    final HllSketch sk = HllSketch.heapify(shared.toCompactByteArray());
+    assertEquals(sk.getEstimate(), shared.getEstimate(), shared.getEstimate() * 1e-12);
+    assertEquals(shared.toUpdatableByteArray().length, shared.getUpdatableSerializationBytes());
+    assertEquals(shared.toCompactByteArray().length, shared.getCompactSerializationBytes());
+    assertEquals(local.getCompactSerializationBytes(), shared.getCompactSerializationBytes());
+    assertEquals(local.getTgtHllType(), HLL_8);
+    assertEquals(local.getLgConfigK(), 10);
+    assertEquals(local.getSharedSketch(), shared);
+    assertFalse(local.isCompact() || local.isMemory() || local.isOffHeap() || local.isSameResource(null));
+    assertTrue(local.isOutOfOrder());
+    println(local.toString(true, false, false, false));
+    try { local.toCompactByteArray(); fail(); } catch (UnsupportedOperationException e) { }
+    try { local.toUpdatableByteArray(); fail(); } catch (UnsupportedOperationException e) { }
+  }
+
+  @Test
+  public void checkArguments() {
+    try { new ConcurrentHllSketch(3); fail(); } catch (SketchesArgumentException e) { }
+    try { new ConcurrentHllSketch(10, 0, 0.01); fail(); } catch (SketchesArgumentException e) { }
+    try { new ConcurrentHllSketch(10, 10, -0.1); fail(); } catch (SketchesArgumentException e) { }
+    try { new ConcurrentHllSketch(10, 10, 1.0); fail(); } catch (SketchesArgumentException e) { }
+    try { new ConcurrentHllSketch(10, 10, Double.NaN); fail(); } catch (SketchesArgumentException e) { }
+    final ConcurrentHllSketch shared = new ConcurrentHllSketch(10, 10, 0.5);
+    assertEquals(shared.getMaxLocalBufferSize(), 10);
+    assertEquals(shared.getMaxConcurrencyError(), 0.5);
+  }
+
+  private static void checkSameRegisters(final HllSketch actual, final HllSketch expected) {
+    final int k = 1 << expected.getLgConfigK();
+    final int[] expectedArr = new int[k];
+    final PairIterator itr = expected.iterator();
+    while (itr.nextValid()) {
+      final int slot = itr.getKey() & (k - 1);
+      expectedArr[slot] = Math.max(expectedArr[slot], itr.getValue());
+    }
+    final int[] actualArr = new int[k];
+    final PairIterator itr2 = actual.iterator();
+    while (itr2.nextAll()) { actualArr[itr2.getSlot()] = itr2.getValue(); }
+    assertEquals(actualArr, expectedArr);
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
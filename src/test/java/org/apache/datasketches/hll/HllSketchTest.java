@@ -437,6 +437,64 @@ public class HllSketchTest {
     sk2 = HllSketch.heapify(Memory.wrap(arr));
   }
 
+  @Test
+  public void checkUpdateBatch() {
+    //exercises LIST, SET and HLL modes, including promotions within a batch
+    final int[] counts = { 0, 5, 100, 5000 };
+    for (final TgtHllType tgtHllType : TgtHllType.values()) {
+      for (final int n : counts) {
+        runCheckUpdateBatch(10, tgtHllType, n, false);
+        runCheckUpdateBatch(10, tgtHllType, n, true);
+      }
+    }
+  }
+
+  private static void runCheckUpdateBatch(int lgK, TgtHllType tgtHllType, int n, boolean direct) {
+    final int bytes = getMaxUpdatableSerializationBytes(lgK, tgtHllType);
+    final HllSketch sk1 = direct
+        ? new HllSketch(lgK, tgtHllType, WritableMemory.allocate(bytes)) : new HllSketch(lgK, tgtHllType);
+    final HllSketch sk2 = direct
+        ? new HllSketch(lgK, tgtHllType, WritableMemory.allocate(bytes)) : new HllSketch(lgK, tgtHllType);
+    final HllSketch sk3 = new HllSketch(lgK, tgtHllType);
+    final HllSketch sk4 = new HllSketch(lgK, tgtHllType);
+    final long[] longs = new long[n + 2];
+    final int[] ints = new int[n + 2];
+    final byte[][] byteArrs = new byte[n + 3][];
+    for (int i = 0; i < n; i++) {
+      longs[i + 1] = i;
+      ints[i + 1] = i;
+      byteArrs[i + 1] = new byte[] { (byte) i, (byte) (i >>> 8) };
+      sk1.update(i);
+      sk4.update(byteArrs[i + 1]);
+    }
+    byteArrs[n + 1] = new byte[0]; //ignored
+    sk2.updateBatch(longs, 1, n);
+    sk3.updateBatch(ints, 1, n);
+    assertEquals(sk2.toUpdatableByteArray(), sk1.toUpdatableByteArray());
+    assertEquals(sk3.toUpdatableByteArray(), sk1.copyAs(tgtHllType).toUpdatableByteArray());
+    final HllSketch sk5 = new HllSketch(lgK, tgtHllType);
+    sk5.updateBatch(byteArrs, 0, n + 3);
+    assertEquals(sk5.toUpdatableByteArray(), sk4.toUpdatableByteArray());
+    assertEquals(sk2.getEstimate(), sk1.getEstimate());
+
+    final Union union1 = new Union(lgK);
+    final Union union2 = new Union(lgK);
+    for (int i = 0; i < n; i++) { union1.update(i); }
+    union2.updateBatch(longs, 1, n);
+    assertEquals(union2.getEstimate(), union1.getEstimate());
+  }
+
+  @Test
+  public void checkUpdateBatchBounds() {
+    final HllSketch sk = new HllSketch(10);
+    try {
+      sk.updateBatch(new long[4], 2, 3);
+      fail();
+    } catch (SketchesArgumentException e) { } //expected
+    sk.updateBatch(new long[4], 4, 0);
+    assertTrue(sk.isEmpty());
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
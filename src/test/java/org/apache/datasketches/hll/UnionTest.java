@@ -28,6 +28,8 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
@@ -503,6 +505,38 @@ public class UnionTest {
     return est / (1.0 + re);
   }
 
+  @Test
+  public void checkParallelMerge() {
+    final ForkJoinPool pool = ForkJoinPool.commonPool();
+    final int lgMaxK = 16;
+    final int n = 1 << 18;
+    final int[] srcLgKs = {12, 16, 17};
+    for (final int srcLgK : srcLgKs) {
+      for (final TgtHllType srcType : new TgtHllType[] {HLL_8, HLL_4}) {
+        for (int mem = 0; mem < 4; mem++) {
+          final boolean srcIsMem = (mem & 1) != 0;
+          final boolean gdtIsMem = (mem & 2) != 0;
+          final Union serial = new Union(lgMaxK);
+          final Union parallel = gdtIsMem
+              ? new Union(lgMaxK, WritableMemory.allocate(Union.getMaxSerializationBytes(lgMaxK)))
+              : new Union(lgMaxK);
+          for (int s = 0; s < 3; s++) {
+            final HllSketch sk = new HllSketch(srcLgK, srcType);
+            for (int i = 0; i < n; i++) { sk.update((s * n / 2) + i); }
+            final HllSketch src = srcIsMem
+                ? HllSketch.writableWrap(WritableMemory.writableWrap(sk.toUpdatableByteArray()))
+                : sk;
+            serial.update(sk);
+            parallel.update(src, pool);
+          }
+          assertEquals(parallel.getEstimate(), serial.getEstimate());
+          assertEquals(parallel.getResult(HLL_8).toCompactByteArray(),
+              serial.getResult(HLL_8).toCompactByteArray());
+        }
+      }
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
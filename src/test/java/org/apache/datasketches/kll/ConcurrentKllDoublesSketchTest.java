@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.quantilescommon.DoublesSortedView;
+import org.testng.annotations.Test;
+
+public class ConcurrentKllDoublesSketchTest {
+
+  @Test
+  public void checkSingleWriterMatchesKllSketch() {
+    final int[] counts = { 1, 100, 1000, 100_000 };
+    for (final int n : counts) {
+      final ConcurrentKllDoublesSketch shared = new ConcurrentKllDoublesSketch(200, 100);
+      final ConcurrentKllDoublesBuffer local = shared.newLocalBuffer();
+      final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance(200);
+      KllSketch.random.setSeed(1);
+      for (int i = 0; i < n; i++) { local.update(i); }
+      local.flush();
+      KllSketch.random.setSeed(1);
+      for (int i = 0; i < n; i++) { sk.update(i); }
+      assertEquals(shared.getN(), n);
+      assertEquals(shared.copy().toByteArray(), sk.toByteArray());
+      final DoublesSortedView expected = sk.getSortedView();
+      final KllDoublesSketchSortedView actual = shared.getSortedView();
+      assertEquals(actual.getQuantiles(), expected.getQuantiles());
+      assertEquals(actual.getCumulativeWeights(), expected.getCumulativeWeights());
+      assertEquals(actual.getN(), n);
+      assertEquals(actual.getMinItem(), 0.0);
+      assertEquals(actual.getMaxItem(), n - 1.0);
+      assertEquals(shared.getQuantile(0.5), sk.getQuantile(0.5));
+      assertEquals(shared.getQuantile(0.5, EXCLUSIVE), sk.getQuantile(0.5, EXCLUSIVE));
+      assertEquals(shared.getRank(n / 2.0), sk.getRank(n / 2.0));
+      assertEquals(shared.getRank(n / 2.0, EXCLUSIVE), sk.getRank(n / 2.0, EXCLUSIVE));
+      final double[] ranks = { 0, 0.25, 0.5, 1.0 };
+      assertEquals(shared.getQuantiles(ranks, EXCLUSIVE), sk.getQuantiles(ranks, EXCLUSIVE));
+    }
+  }
+
+  @Test
+  public void checkMultipleWritersAndReader() throws InterruptedException {
+    final int numThreads = 4;
+    final int perThread = 200_000;
+    final ConcurrentKllDoublesSketch shared = new ConcurrentKllDoublesSketch();
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int base = t * perThread;
+      threads[t] = new Thread(() -> {
+        final ConcurrentKllDoublesBuffer local = shared.newLocalBuffer();
+        for (int i = 0; i < perThread; i++) { local.update(base + i); }
+        local.flush();
+      });
+      threads[t].start();
+    }
+    final AtomicBoolean done = new AtomicBoolean(false);
+    final AtomicReference<Throwable> readerError = new AtomicReference<>();
+    final Thread reader = new Thread(() -> {
+      long lastN = 0;
+      try {
+        while (!done.get()) {
+          if (shared.isEmpty()) { continue; }
+          final KllDoublesSketchSortedView view = shared.getSortedView();
+          final long[] cumWeights = view.getCumulativeWeights();
+          assertEquals(cumWeights[cumWeights.length - 1], view.getN());
+          assertTrue(view.getN() >= lastN);
+          lastN = view.getN();
+        }
+      } catch (final Throwable e) {
+        readerError.set(e);
+      }
+    });
+    reader.start();
+    for (final Thread thread : threads) { thread.join(); }
+    done.set(true);
+    reader.join();
+    assertEquals(readerError.get(), null);
+
+    final long n = (long) numThreads * perThread;
+    assertEquals(shared.getN(), n);
+    final KllDoublesSketchSortedView view = shared.getSortedView();
+    assertEquals(view.getMinItem(), 0.0);
+    assertEquals(view.getMaxItem(), n - 1.0);
+    final double rankError = KllSketch.getNormalizedRankError(shared.getK(), false);
+    assertEquals(shared.getQuantile(0.5) / n, 0.5, 2 * rankError);
+  }
+
+  @Test
+  public void checkSnapshotIsCachedAndImmutable() {
+    final ConcurrentKllDoublesSketch shared = new ConcurrentKllDoublesSketch(20, 10);
+    final ConcurrentKllDoublesBuffer local = shared.newLocalBuffer();
+    for (int i = 0; i < 1000; i++) { local.update(i); }
+    final KllDoublesSketchSortedView view1 = shared.getSortedView();
+    assertSame(shared.getSortedView(), view1);
+    final double[] quantiles = view1.getQuantiles();
+
+    local.update(new double[] { 2000, Double.NaN, 2001 }, 0, 3);
+    assertEquals(local.getNumBufferedItems(), 2);
+    assertSame(shared.getSortedView(), view1); //buffered items are not visible
+    local.flush();
+    assertEquals(local.getNumBufferedItems(), 0);
+    final KllDoublesSketchSortedView view2 = shared.getSortedView();
+    assertNotSame(view2, view1);
+    assertEquals(view1.getN(), 1000);
+    assertEquals(view1.getQuantiles(), quantiles);
+    assertEquals(view2.getN(), 1002);
+    assertEquals(view2.getMaxItem(), 2001.0);
+
+    shared.update(Double.NaN);
+    assertSame(shared.getSortedView(), view2);
+    shared.update(-1.0);
+    assertEquals(shared.getSortedView().getMinItem(), -1.0);
+  }
+
+  @Test
+  public void checkMergeResetAndExceptions() {
+    try { new ConcurrentKllDoublesSketch(200, 0); fail(); } catch (SketchesArgumentException e) { }
+    try { new ConcurrentKllDoublesSketch(1); fail(); } catch (SketchesArgumentException e) { }
+    final ConcurrentKllDoublesSketch shared = new ConcurrentKllDoublesSketch(50);
+    assertEquals(shared.getK(), 50);
+    assertEquals(shared.getMaxLocalBufferSize(), ConcurrentKllDoublesSketch.DEFAULT_MAX_LOCAL_BUFFER_SIZE);
+    assertTrue(shared.isEmpty());
+    try { shared.getSortedView(); fail(); } catch (SketchesArgumentException e) { }
+    try { shared.getQuantile(0.5); fail(); } catch (SketchesArgumentException e) { }
+
+    final KllDoublesSketch other = KllDoublesSketch.newHeapInstance(50);
+    shared.merge(other);
+    assertTrue(shared.isEmpty());
+    for (int i = 0; i < 100; i++) { other.update(i); }
+    shared.merge(other);
+    assertEquals(shared.getN(), 100);
+    assertEquals(shared.getSortedView().getMaxItem(), 99.0);
+
+    final ConcurrentKllDoublesBuffer local = shared.newLocalBuffer();
+    assertSame(local.getSharedSketch(), shared);
+    local.update(1000);
+    local.reset();
+    local.flush();
+    assertEquals(shared.getN(), 100);
+    try { local.update(new double[2], 1, 2); fail(); } catch (SketchesArgumentException e) { }
+
+    shared.reset();
+    assertTrue(shared.isEmpty());
+    try { shared.getSortedView(); fail(); } catch (SketchesArgumentException e) { }
+    assertFalse(shared.toString().isEmpty());
+    println(shared.toString());
+  }
+
+  @Test
+  public void printlnTest() {
+    println("PRINTING: " + this.getClass().getName());
+  }
+
+  /**
+   * @param s value to print
+   */
+  static void println(final String s) {
+    //System.out.println(s); //disable here
+  }
+
+}
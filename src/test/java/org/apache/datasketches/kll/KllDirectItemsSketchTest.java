@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.kll;
+
+import static org.apache.datasketches.kll.KllPreambleUtil.DATA_START_ADR;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Comparator;
+
+import org.apache.datasketches.common.ArrayOfLongsSerDe;
+import org.apache.datasketches.common.ArrayOfStringsSerDe;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.DefaultMemoryRequestServer;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.MemoryRequestServer;
+import org.apache.datasketches.memory.WritableMemory;
+import org.testng.annotations.Test;
+
+public class KllDirectItemsSketchTest {
+  private static final ArrayOfLongsSerDe serDe = new ArrayOfLongsSerDe();
+  private static final MemoryRequestServer memReqSvr = new DefaultMemoryRequestServer();
+
+  @Test
+  public void checkUpdateAndGrow() {
+    final int k = 20;
+    final int n = 10_000;
+    final WritableMemory wmem = WritableMemory.allocate(initialBytes(k));
+    final KllItemsSketch<Long> sk = KllItemsSketch.newDirectInstance(k, wmem, memReqSvr,
+        Comparator.naturalOrder(), serDe);
+    assertTrue(sk instanceof KllDirectItemsSketch);
+    assertTrue(sk.isEmpty());
+    assertTrue(sk.isMemoryUpdatableFormat());
+    assertFalse(sk.isReadOnly());
+    for (long i = 1; i <= n; i++) { sk.update(i); }
+    assertEquals(sk.getN(), n);
+    assertEquals(sk.getMinItem(), Long.valueOf(1));
+    assertEquals(sk.getMaxItem(), Long.valueOf(n));
+    assertTrue(sk.isEstimationMode());
+    assertFalse(sk.isSameResource(wmem)); //the memory has grown
+    final double eps = sk.getNormalizedRankError(false);
+    for (long i = 1000; i <= n; i += 1000) {
+      assertEquals(sk.getRank(i, INCLUSIVE), (double)i / n, eps);
+    }
+    checkAgainstHeapify(sk);
+  }
+
+  @Test
+  public void checkMerge() {
+    final int k = 20;
+    final KllItemsSketch<Long> sk1 = KllItemsSketch.newDirectInstance(k,
+        WritableMemory.allocate(initialBytes(k)), memReqSvr, Comparator.naturalOrder(), serDe);
+    final KllItemsSketch<Long> sk2 = KllItemsSketch.newDirectInstance(k,
+        WritableMemory.allocate(initialBytes(k)), memReqSvr, Comparator.naturalOrder(), serDe);
+    final KllItemsSketch<Long> sk3 = KllItemsSketch.newHeapInstance(k, Comparator.naturalOrder(), serDe);
+    for (long i = 1; i <= 1000; i++) { sk1.update(i); }
+    for (long i = 1001; i <= 3000; i++) { sk2.update(i); }
+    for (long i = 3001; i <= 4000; i++) { sk3.update(i); }
+    sk1.merge(sk2);
+    sk1.merge(sk3);
+    assertEquals(sk1.getN(), 4000);
+    assertEquals(sk1.getMinItem(), Long.valueOf(1));
+    assertEquals(sk1.getMaxItem(), Long.valueOf(4000));
+    assertEquals(sk1.getRank(2000L, INCLUSIVE), 0.5, sk1.getNormalizedRankError(false));
+    checkAgainstHeapify(sk1);
+
+    final KllItemsSketch<Long> sk4 = KllItemsSketch.newHeapInstance(k, Comparator.naturalOrder(), serDe);
+    sk4.merge(sk1);
+    assertEquals(sk4.getN(), 4000);
+    assertEquals(sk4.getMaxItem(), Long.valueOf(4000));
+  }
+
+  @Test
+  public void checkWeightedUpdateAndReset() {
+    final int k = 20;
+    final KllItemsSketch<Long> sk = KllItemsSketch.newDirectInstance(k,
+        WritableMemory.allocate(initialBytes(k)), memReqSvr, Comparator.naturalOrder(), serDe);
+    sk.update(5L, 3);
+    sk.update(7L, 100);
+    assertEquals(sk.getN(), 103);
+    assertEquals(sk.getMinItem(), Long.valueOf(5));
+    assertEquals(sk.getMaxItem(), Long.valueOf(7));
+    sk.reset();
+    assertTrue(sk.isEmpty());
+    assertEquals(sk.getNumRetained(), 0);
+    sk.update(42L);
+    assertEquals(sk.getN(), 1);
+    assertEquals(sk.getMinItem(), Long.valueOf(42));
+    assertEquals(sk.getMaxItem(), Long.valueOf(42));
+    assertEquals(sk.getQuantile(0.5), Long.valueOf(42));
+    checkAgainstHeapify(sk);
+  }
+
+  @Test
+  public void checkWrapAndWritableWrap() {
+    final int k = 20;
+    final byte[] bytes = new byte[100_000];
+    final WritableMemory wmem = WritableMemory.writableWrap(bytes);
+    final KllItemsSketch<Long> sk = KllItemsSketch.newDirectInstance(k, wmem, memReqSvr,
+        Comparator.naturalOrder(), serDe);
+    for (long i = 1; i <= 500; i++) { sk.update(i); }
+
+    final KllItemsSketch<Long> sk2 = KllItemsSketch.writableWrap(wmem, memReqSvr,
+        Comparator.naturalOrder(), serDe);
+    assertTrue(sk2 instanceof KllDirectItemsSketch);
+    assertFalse(sk2.isReadOnly());
+    sk2.update(501L);
+    assertEquals(sk.getN(), 501);
+    assertEquals(sk.getMaxItem(), Long.valueOf(501));
+
+    final KllItemsSketch<Long> sk3 = KllItemsSketch.wrap(Memory.wrap(bytes), Comparator.naturalOrder(), serDe);
+    assertTrue(sk3.isReadOnly());
+    assertEquals(sk3.getN(), 501);
+    assertEquals(sk3.getQuantile(0.5), sk.getQuantile(0.5));
+    try { sk3.update(1L); fail(); } catch (SketchesArgumentException e) { }
+  }
+
+  @Test
+  public void checkVariableSizeSerDeRejected() {
+    final WritableMemory wmem = WritableMemory.allocate(10_000);
+    try {
+      KllItemsSketch.newDirectInstance(wmem, memReqSvr, Comparator.naturalOrder(), new ArrayOfStringsSerDe());
+      fail();
+    } catch (SketchesArgumentException e) { }
+  }
+
+  private static int initialBytes(final int k) {
+    return DATA_START_ADR + 2 * Integer.BYTES + (k + 2) * Long.BYTES;
+  }
+
+  private static void checkAgainstHeapify(final KllItemsSketch<Long> sk) {
+    final WritableMemory wmem = sk.getWritableMemory();
+    final KllItemsSketch<Long> heapSk = KllItemsSketch.heapify(wmem, Comparator.naturalOrder(), serDe);
+    assertEquals(heapSk.getN(), sk.getN());
+    assertEquals(heapSk.getNumRetained(), sk.getNumRetained());
+    assertEquals(heapSk.toByteArray(), sk.toByteArray());
+    final KllItemsSketch<Long> compactSk =
+        KllItemsSketch.wrap(Memory.wrap(sk.toByteArray()), Comparator.naturalOrder(), serDe);
+    assertEquals(compactSk.getMinItem(), sk.getMinItem());
+    assertEquals(compactSk.getMaxItem(), sk.getMaxItem());
+    assertEquals(compactSk.getQuantile(0.5), sk.getQuantile(0.5));
+  }
+
+}
@@ -608,6 +608,130 @@ public class KllDoublesSketchTest {
     try { sk.getSortedView(); fail(); } catch (SketchesArgumentException e) { }
   }
 
+  @Test
+  public void checkVectorUpdate() {
+    final int[] counts = { 0, 1, 20, 1000, 100_000 };
+    for (final int n : counts) {
+      runCheckVectorUpdate(n, false);
+      runCheckVectorUpdate(n, true);
+    }
+  }
+
+  private static void runCheckVectorUpdate(final int n, final boolean direct) {
+    final int k = 20;
+    final double[] items = new double[n + 2];
+    items[0] = -1; //outside the range
+    for (int i = 1; i <= n; i++) { items[i] = ((i % 7) == 0) ? Double.NaN : (n - i); }
+    final KllDoublesSketch sk1 = direct
+        ? KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+        : KllDoublesSketch.newHeapInstance(k);
+    final KllDoublesSketch sk2 = direct
+        ? KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+        : KllDoublesSketch.newHeapInstance(k);
+    KllSketch.random.setSeed(1);
+    for (int i = 1; i <= n; i++) { sk1.update(items[i]); }
+    KllSketch.random.setSeed(1);
+    sk2.update(items, 1, n);
+    assertEquals(sk2.getN(), sk1.getN());
+    assertEquals(sk2.getNumRetained(), sk1.getNumRetained());
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+    if (!sk1.isEmpty()) {
+      assertEquals(sk2.getMinItem(), sk1.getMinItem());
+      assertEquals(sk2.getMaxItem(), sk1.getMaxItem());
+      assertEquals(sk2.getQuantile(0.5), sk1.getQuantile(0.5));
+    }
+    //a second vector update continues from the current state
+    sk2.update(items, 0, 1);
+    assertEquals(sk2.getMinItem(), -1);
+    assertEquals(sk2.getN(), sk1.getN() + 1);
+  }
+
+  @Test
+  public void checkVectorUpdateExceptions() {
+    final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance(20);
+    try { sk.update(new double[4], 3, 2); fail(); } catch (SketchesArgumentException e) { }
+    sk.update(new double[] { Double.NaN }, 0, 1);
+    assertTrue(sk.isEmpty());
+    final KllDoublesSketch skRO = KllDoublesSketch.wrap(Memory.wrap(sk.toByteArray()));
+    try { skRO.update(new double[4], 0, 4); fail(); } catch (SketchesArgumentException e) { }
+  }
+
+  @Test
+  public void checkIncrementalSortedView() {
+    final WritableMemory wmem = WritableMemory.allocate(KllSketch.getMaxSerializedSizeBytes(20, 5000, DOUBLES_SKETCH, true));
+    final KllDoublesSketch[] sketches = {
+        KllDoublesSketch.newHeapInstance(20),
+        KllDoublesSketch.newDirectInstance(20, wmem, memReqSvr) };
+    for (final KllDoublesSketch sk : sketches) {
+      DoublesSortedView shared = null;
+      double[] sharedQuantiles = null;
+      for (int i = 0; i < 5000; i++) {
+        if ((i % 3) == 0) { sk.update(i % 97, 3); } else { sk.update(5000 - i); }
+        if ((i % 7) == 0 || i < 100) {
+          //queries interleaved with updates must match a view built from scratch
+          final KllDoublesSketchSortedView full = new KllDoublesSketchSortedView(sk);
+          assertEquals(sk.getRank(2500, INCLUSIVE), full.getRank(2500, INCLUSIVE));
+          assertEquals(sk.getRank(42, EXCLUSIVE), full.getRank(42, EXCLUSIVE));
+          assertEquals(sk.getQuantile(0.3, INCLUSIVE), full.getQuantile(0.3, INCLUSIVE));
+          assertEquals(sk.getQuantile(0.9, EXCLUSIVE), full.getQuantile(0.9, EXCLUSIVE));
+          assertEquals(sk.getCDF(new double[] {10, 1000, 4000}), full.getCDF(new double[] {10, 1000, 4000}, INCLUSIVE));
+        }
+        if (i == 1000) {
+          shared = sk.getSortedView();
+          sharedQuantiles = shared.getQuantiles();
+          assertEquals(shared.getCumulativeWeights()[sharedQuantiles.length - 1], sk.getN());
+        }
+      }
+      //a view given to the user is not changed by later updates
+      assertEquals(shared.getQuantiles(), sharedQuantiles);
+      final DoublesSortedView sv = sk.getSortedView();
+      final KllDoublesSketchSortedView full = new KllDoublesSketchSortedView(sk);
+      assertEquals(sv.getCumulativeWeights(), full.getCumulativeWeights());
+      assertEquals(sv.getQuantiles(), full.getQuantiles());
+      final DoublesSortedViewIterator itr = sv.iterator();
+      int count = 0;
+      while (itr.next()) { count++; }
+      assertEquals(count, full.getQuantiles().length);
+
+      //merge and reset rebuild the cached levels
+      final KllDoublesSketch other = KllDoublesSketch.newHeapInstance(20);
+      for (int i = 0; i < 3000; i++) { other.update(-i); }
+      sk.getQuantile(0.5);
+      sk.merge(other);
+      assertEquals(sk.getQuantile(0.1), new KllDoublesSketchSortedView(sk).getQuantile(0.1, INCLUSIVE));
+      assertEquals(sk.getQuantile(0.5), new KllDoublesSketchSortedView(sk).getQuantile(0.5, INCLUSIVE));
+      sk.reset();
+      sk.update(1);
+      assertEquals(sk.getRank(1), 1.0);
+    }
+  }
+
+  @Test
+  public void checkVectorUpdateNaNsOnFullLevelZero() {
+    final int k = 8;
+    final double[] items = new double[k + 2];
+    for (int i = 0; i < k; i++) { items[i] = i; }
+    items[k] = Double.NaN;
+    items[k + 1] = Double.NaN;
+    for (final boolean direct : new boolean[] { false, true }) {
+      final KllDoublesSketch sk1 = direct
+          ? KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+          : KllDoublesSketch.newHeapInstance(k);
+      final KllDoublesSketch sk2 = direct
+          ? KllDoublesSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+          : KllDoublesSketch.newHeapInstance(k);
+      for (int i = 0; i < k; i++) { sk1.update(items[i]); }
+      sk1.update(Double.NaN);
+      sk2.update(items, 0, k);
+      sk2.update(items, k, 2); //a NaN-only range on a full level 0 does not compact
+      assertEquals(sk2.getNumRetained(), k);
+      assertEquals(sk2.toByteArray(), sk1.toByteArray());
+      final KllDoublesSketch sk3 = KllDoublesSketch.newHeapInstance(k);
+      sk3.update(items, 0, k + 2); //trailing NaNs after level 0 fills up
+      assertEquals(sk3.toByteArray(), sk1.toByteArray());
+    }
+  }
+
   private final static boolean enablePrinting = false;
 
   /**
@@ -608,6 +608,80 @@ public class KllFloatsSketchTest {
     try { sk.getSortedView(); fail(); } catch (SketchesArgumentException e) { }
   }
 
+  @Test
+  public void checkVectorUpdate() {
+    final int[] counts = { 0, 1, 20, 1000, 100_000 };
+    for (final int n : counts) {
+      runCheckVectorUpdate(n, false);
+      runCheckVectorUpdate(n, true);
+    }
+  }
+
+  private static void runCheckVectorUpdate(final int n, final boolean direct) {
+    final int k = 20;
+    final float[] items = new float[n + 2];
+    items[0] = -1f; //outside the range
+    for (int i = 1; i <= n; i++) { items[i] = ((i % 7) == 0) ? Float.NaN : (n - i); }
+    final KllFloatsSketch sk1 = direct
+        ? KllFloatsSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+        : KllFloatsSketch.newHeapInstance(k);
+    final KllFloatsSketch sk2 = direct
+        ? KllFloatsSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+        : KllFloatsSketch.newHeapInstance(k);
+    KllSketch.random.setSeed(1);
+    for (int i = 1; i <= n; i++) { sk1.update(items[i]); }
+    KllSketch.random.setSeed(1);
+    sk2.update(items, 1, n);
+    assertEquals(sk2.getN(), sk1.getN());
+    assertEquals(sk2.getNumRetained(), sk1.getNumRetained());
+    assertEquals(sk2.toByteArray(), sk1.toByteArray());
+    if (!sk1.isEmpty()) {
+      assertEquals(sk2.getMinItem(), sk1.getMinItem());
+      assertEquals(sk2.getMaxItem(), sk1.getMaxItem());
+      assertEquals(sk2.getQuantile(0.5), sk1.getQuantile(0.5));
+    }
+    //a second vector update continues from the current state
+    sk2.update(items, 0, 1);
+    assertEquals(sk2.getMinItem(), -1f);
+    assertEquals(sk2.getN(), sk1.getN() + 1);
+  }
+
+  @Test
+  public void checkVectorUpdateExceptions() {
+    final KllFloatsSketch sk = KllFloatsSketch.newHeapInstance(20);
+    try { sk.update(new float[4], 3, 2); fail(); } catch (SketchesArgumentException e) { }
+    sk.update(new float[] { Float.NaN }, 0, 1);
+    assertTrue(sk.isEmpty());
+    final KllFloatsSketch skRO = KllFloatsSketch.wrap(Memory.wrap(sk.toByteArray()));
+    try { skRO.update(new float[4], 0, 4); fail(); } catch (SketchesArgumentException e) { }
+  }
+
+  @Test
+  public void checkVectorUpdateNaNsOnFullLevelZero() {
+    final int k = 8;
+    final float[] items = new float[k + 2];
+    for (int i = 0; i < k; i++) { items[i] = i; }
+    items[k] = Float.NaN;
+    items[k + 1] = Float.NaN;
+    for (final boolean direct : new boolean[] { false, true }) {
+      final KllFloatsSketch sk1 = direct
+          ? KllFloatsSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+          : KllFloatsSketch.newHeapInstance(k);
+      final KllFloatsSketch sk2 = direct
+          ? KllFloatsSketch.newDirectInstance(k, WritableMemory.allocate(1000), memReqSvr)
+          : KllFloatsSketch.newHeapInstance(k);
+      for (int i = 0; i < k; i++) { sk1.update(items[i]); }
+      sk1.update(Float.NaN);
+      sk2.update(items, 0, k);
+      sk2.update(items, k, 2); //a NaN-only range on a full level 0 does not compact
+      assertEquals(sk2.getNumRetained(), k);
+      assertEquals(sk2.toByteArray(), sk1.toByteArray());
+      final KllFloatsSketch sk3 = KllFloatsSketch.newHeapInstance(k);
+      sk3.update(items, 0, k + 2); //trailing NaNs after level 0 fills up
+      assertEquals(sk3.toByteArray(), sk1.toByteArray());
+    }
+  }
+
   private final static boolean enablePrinting = false;
 
   /**
@@ -25,6 +25,7 @@ import static org.apache.datasketches.quantilescommon.LongsAsOrderableStrings.di
 import static org.apache.datasketches.quantilescommon.LongsAsOrderableStrings.getString;
 
 import java.util.Comparator;
+import java.util.function.Consumer;
 
 import org.apache.datasketches.common.ArrayOfStringsSerDe;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -34,18 +35,39 @@ import org.apache.datasketches.kll.KllItemsSketch;
  * This is an simulated data set with a given N used for testing.
  * @author Lee Rhodes
  */
-public class KllItemsSketchFillRequestLongAsString implements SketchFillRequest<String, KllItemsSketch<String>> {
+public class KllItemsSketchFillRequestLongAsString implements SketchFillRequest<String, KllItemsSketch<String>>,
+    SketchScanRequest<String, KllItemsSketch<String>> {
   private int k;
   private int numDigits;
+  private long totalN;
+  int numScans = 0;
 
   public KllItemsSketchFillRequestLongAsString() {
     k = 1 << 10;
     numDigits = 3;
+    totalN = 999;
   }
 
   public KllItemsSketchFillRequestLongAsString(final int k, final long totalN) {
     this.k = k;
     this.numDigits = digits(totalN);
+    this.totalN = totalN;
+  }
+
+  @Override
+  public KllItemsSketch<String> newSketch() {
+    return KllItemsSketch.newHeapInstance(k, Comparator.naturalOrder(), new ArrayOfStringsSerDe());
+  }
+
+  @Override
+  public Comparator<String> getComparator() {
+    return Comparator.naturalOrder();
+  }
+
+  @Override
+  public void scan(final Consumer<String> consumer) {
+    numScans++;
+    for (long i = 1; i <= totalN; i++) { consumer.accept(getString(i, numDigits)); }
   }
 
   @Override
@@ -22,8 +22,13 @@ package org.apache.datasketches.partitions;
 import static org.apache.datasketches.partitions.BoundsRule.INCLUDE_BOTH;
 import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
 import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.kll.KllItemsSketch;
@@ -77,6 +82,107 @@ public class KllPartitionsTest {
     kllPartitioner(k, searchCrit, totalN, tgtPartitionSize, maxPartsPerSk);
   }
 
+  @Test
+  public void checkParallelMatchesSequential() {
+    final int k = 60_000; //the fills below the top level are exact, so both modes see the same sketches
+    final long totalN = 100_000L;
+    final long tgtPartitionSize = 1_000L;
+    final int maxPartsPerSk = 5;
+    for (final QuantileSearchCriteria searchCrit : new QuantileSearchCriteria[] { INCLUSIVE, EXCLUSIVE }) {
+      final KllItemsSketchFillRequestLongAsString fillReq = new KllItemsSketchFillRequestLongAsString(k, totalN);
+      final KllItemsSketch<String> sk = fillReq.getRange(1L, totalN, INCLUDE_BOTH);
+      final Partitioner<String, KllItemsSketch<String>> seqPartitioner =
+          new Partitioner<>(tgtPartitionSize, maxPartsPerSk, fillReq, searchCrit);
+      final List<PartitionBoundsRow<String>> seqList = seqPartitioner.partition(sk);
+      final Partitioner<String, KllItemsSketch<String>> parPartitioner =
+          new Partitioner<>(tgtPartitionSize, maxPartsPerSk, fillReq, searchCrit);
+      final ExecutorService pool = Executors.newFixedThreadPool(4);
+      final List<PartitionBoundsRow<String>> parList = parPartitioner.partitionParallel(sk, pool);
+      pool.shutdown();
+
+      assertEquals(parPartitioner.getNumLevels(), 3);
+      assertEquals(parList.size(), seqList.size());
+      long totalItems = 0;
+      for (int i = 0; i < seqList.size(); i++) {
+        final PartitionBoundsRow<String> seqRow = seqList.get(i);
+        final PartitionBoundsRow<String> parRow = parList.get(i);
+        assertEquals(parRow.levelPartId, seqRow.levelPartId);
+        assertEquals(parRow.part, seqRow.part);
+        assertEquals(parRow.lowerBound, seqRow.lowerBound);
+        assertEquals(parRow.upperBound, seqRow.upperBound);
+        assertEquals(parRow.rule, seqRow.rule);
+        assertEquals(parRow.approxNumDeltaItems, seqRow.approxNumDeltaItems);
+        totalItems += parRow.approxNumDeltaItems;
+      }
+      assertEquals(totalItems, totalN, totalN * 0.05);
+      final long[] levelTimes = parPartitioner.getLevelTimesNanos();
+      assertEquals(levelTimes.length, 3);
+      assertEquals(seqPartitioner.getLevelTimesNanos().length, 3);
+      for (final long t : levelTimes) { assertTrue(t > 0); }
+      assertEquals(parPartitioner.partitionParallel(sk).size(), 2 * seqList.size()); //appends, as partition does
+    }
+  }
+
+  @Test
+  public void checkParallelFillFailure() {
+    final KllItemsSketchFillRequestLongAsString fillReq = new KllItemsSketchFillRequestLongAsString(1 << 10, 10_000L);
+    final KllItemsSketch<String> sk = fillReq.getRange(1L, 10_000L, INCLUDE_BOTH);
+    final SketchFillRequest<String, KllItemsSketch<String>> badReq = (lower, upper, rule) -> {
+      throw new SketchesArgumentException("bad fill");
+    };
+    final Partitioner<String, KllItemsSketch<String>> partitioner = new Partitioner<>(100, 10, badReq);
+    try { partitioner.partitionParallel(sk); fail(); } catch (SketchesArgumentException e) { }
+    try { partitioner.partitionParallel(sk, null); fail(); } catch (NullPointerException e) { }
+  }
+
+  @Test
+  public void checkSinglePass() {
+    final int k = 1 << 10;
+    final long totalN = 100_000L;
+    final long tgtPartitionSize = 1_000L;
+    final int maxPartsPerSk = 10;
+    for (final QuantileSearchCriteria searchCrit : new QuantileSearchCriteria[] { INCLUSIVE, EXCLUSIVE }) {
+      final KllItemsSketchFillRequestLongAsString req = new KllItemsSketchFillRequestLongAsString(k, totalN);
+      final KllItemsSketch<String> sk = req.getRange(1L, totalN, INCLUDE_BOTH);
+      final Partitioner<String, KllItemsSketch<String>> partitioner =
+          new Partitioner<>(tgtPartitionSize, maxPartsPerSk, req, searchCrit);
+      final List<PartitionBoundsRow<String>> list = partitioner.partitionSinglePass(sk, req);
+      assertEquals(req.numScans, 1);
+      assertEquals(partitioner.getNumLevels(), 2);
+      assertEquals(partitioner.getLevelTimesNanos().length, 2);
+      assertEquals(list.size(), 100);
+      assertTrue(list.get(0).levelPartId.startsWith("1.1,2."));
+      //the rows cover every item exactly once, in order
+      long totalItems = 0;
+      long prevUpper = 0;
+      for (final PartitionBoundsRow<String> row : list) {
+        final long lower = Long.parseLong(row.lowerBound.trim());
+        final long upper = Long.parseLong(row.upperBound.trim());
+        assertTrue(lower >= prevUpper);
+        final long num;
+        switch (row.rule) {
+          case INCLUDE_BOTH: num = (upper - lower) + 1; break;
+          case INCLUDE_NEITHER: num = 0; break;
+          default: num = upper - lower;
+        }
+        assertEquals(num, tgtPartitionSize, tgtPartitionSize * 0.5);
+        totalItems += num;
+        prevUpper = upper;
+      }
+      assertEquals(totalItems, totalN);
+    }
+
+    //a single level needs no scan
+    final KllItemsSketchFillRequestLongAsString req = new KllItemsSketchFillRequestLongAsString(k, totalN);
+    final KllItemsSketch<String> sk = req.getRange(1L, totalN, INCLUDE_BOTH);
+    final Partitioner<String, KllItemsSketch<String>> partitioner = new Partitioner<>(20_000L, 10, req);
+    assertEquals(partitioner.partitionSinglePass(sk, req).size(), 5);
+    assertEquals(req.numScans, 0);
+    assertEquals(partitioner.getNumLevels(), 1);
+    try { partitioner.partitionSinglePass(sk, null); fail(); } catch (NullPointerException e) { }
+    try { partitioner.partitionSinglePass(req.newSketch(), req); fail(); } catch (SketchesArgumentException e) { }
+  }
+
   /**
    * Programmatic call to KLL Partitioner
    * @param k the size of the sketch.
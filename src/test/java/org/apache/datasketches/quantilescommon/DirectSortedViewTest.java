@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.LongsAsOrderableStrings.digits;
+import static org.apache.datasketches.quantilescommon.LongsAsOrderableStrings.getString;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Comparator;
+
+import org.apache.datasketches.common.ArrayOfStringsSerDe;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.kll.KllFloatsSketch;
+import org.apache.datasketches.kll.KllItemsSketch;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.quantiles.DoublesSketch;
+import org.apache.datasketches.quantiles.ItemsSketch;
+import org.apache.datasketches.quantiles.UpdateDoublesSketch;
+import org.apache.datasketches.req.ReqSketch;
+import org.testng.annotations.Test;
+
+public class DirectSortedViewTest {
+  private static final QuantileSearchCriteria[] CRITS = {INCLUSIVE, EXCLUSIVE};
+  private static final ArrayOfStringsSerDe serDe = new ArrayOfStringsSerDe();
+
+  @Test
+  public void checkDoublesViews() {
+    final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance(20);
+    final UpdateDoublesSketch classic = DoublesSketch.builder().setK(16).build();
+    for (int i = 0; i < 5000; i++) {
+      kll.update(i % 700);
+      classic.update(i % 700);
+    }
+    checkDoublesView(kll.getSortedView());
+    checkDoublesView(classic.getSortedView());
+  }
+
+  private static void checkDoublesView(final DoublesSortedView sv) {
+    final byte[] bytes = DirectDoublesSortedView.toByteArray(sv);
+    assertEquals(bytes.length, DirectDoublesSortedView.getSerializedSizeBytes(sv.getQuantiles().length));
+    final DirectDoublesSortedView dsv = DirectDoublesSortedView.wrap(Memory.wrap(bytes));
+    assertEquals(dsv.getN(), sv.getN());
+    assertEquals(dsv.getMinItem(), sv.getMinItem());
+    assertEquals(dsv.getMaxItem(), sv.getMaxItem());
+    assertEquals(dsv.getQuantiles(), sv.getQuantiles());
+    assertEquals(dsv.getCumulativeWeights(), sv.getCumulativeWeights());
+    final double[] splitPoints = {50, 100.5, 300, 650};
+    for (final QuantileSearchCriteria crit : CRITS) {
+      for (double v = -2; v <= 702; v += 0.5) { assertEquals(dsv.getRank(v, crit), sv.getRank(v, crit)); }
+      for (int i = 0; i <= 200; i++) { assertEquals(dsv.getQuantile(i / 200.0, crit), sv.getQuantile(i / 200.0, crit)); }
+      assertEquals(dsv.getCDF(splitPoints, crit), sv.getCDF(splitPoints, crit));
+      assertEquals(dsv.getPMF(splitPoints, crit), sv.getPMF(splitPoints, crit));
+    }
+    final DoublesSortedViewIterator itr = dsv.iterator();
+    int count = 0;
+    while (itr.next()) { count++; }
+    assertEquals(count, sv.getQuantiles().length);
+  }
+
+  @Test
+  public void checkFloatsViews() {
+    final KllFloatsSketch kll = KllFloatsSketch.newHeapInstance(20);
+    final ReqSketch req = ReqSketch.builder().setK(12).build();
+    for (int i = 0; i < 5000; i++) {
+      kll.update(i % 700);
+      req.update(i % 700);
+    }
+    checkFloatsView(kll.getSortedView());
+    checkFloatsView(req.getSortedView());
+    //odd number of quantiles puts the cumulative weights after padding
+    final KllFloatsSketch small = KllFloatsSketch.newHeapInstance(20);
+    for (int i = 0; i < 7; i++) { small.update(i); }
+    checkFloatsView(small.getSortedView());
+  }
+
+  private static void checkFloatsView(final FloatsSortedView sv) {
+    final byte[] bytes = DirectFloatsSortedView.toByteArray(sv);
+    assertEquals(bytes.length, DirectFloatsSortedView.getSerializedSizeBytes(sv.getQuantiles().length));
+    final DirectFloatsSortedView dsv = DirectFloatsSortedView.wrap(Memory.wrap(bytes));
+    assertEquals(dsv.getN(), sv.getN());
+    assertEquals(dsv.getMinItem(), sv.getMinItem());
+    assertEquals(dsv.getMaxItem(), sv.getMaxItem());
+    assertEquals(dsv.getQuantiles(), sv.getQuantiles());
+    assertEquals(dsv.getCumulativeWeights(), sv.getCumulativeWeights());
+    final float[] splitPoints = {2, 50, 100.5f, 300, 650};
+    for (final QuantileSearchCriteria crit : CRITS) {
+      for (float v = -2; v <= 702; v += 0.5f) { assertEquals(dsv.getRank(v, crit), sv.getRank(v, crit)); }
+      for (int i = 0; i <= 200; i++) { assertEquals(dsv.getQuantile(i / 200.0, crit), sv.getQuantile(i / 200.0, crit)); }
+      assertEquals(dsv.getCDF(splitPoints, crit), sv.getCDF(splitPoints, crit));
+      assertEquals(dsv.getPMF(splitPoints, crit), sv.getPMF(splitPoints, crit));
+    }
+  }
+
+  @Test
+  public void checkItemsViews() {
+    final int n = 5000;
+    final int numDigits = digits(n);
+    final KllItemsSketch<String> kll = KllItemsSketch.newHeapInstance(20, Comparator.naturalOrder(), serDe);
+    final ItemsSketch<String> classic = ItemsSketch.getInstance(String.class, 16, Comparator.naturalOrder());
+    for (long i = 1; i <= n; i++) {
+      kll.update(getString(i, numDigits));
+      classic.update(getString(i, numDigits));
+    }
+    checkItemsView(kll.getSortedView(), numDigits);
+    checkItemsView(classic.getSortedView(), numDigits);
+  }
+
+  private static void checkItemsView(final ItemsSketchSortedView<String> sv, final int numDigits) {
+    final byte[] bytes = DirectItemsSortedView.toByteArray(sv, serDe);
+    final DirectItemsSortedView<String> dsv =
+        DirectItemsSortedView.wrap(Memory.wrap(bytes), serDe, Comparator.naturalOrder());
+    assertEquals(dsv.getN(), sv.getN());
+    assertEquals(dsv.getMinItem(), sv.getMinItem());
+    assertEquals(dsv.getMaxItem(), sv.getMaxItem());
+    assertEquals(dsv.getQuantiles(), sv.getQuantiles());
+    assertEquals(dsv.getCumulativeWeights(), sv.getCumulativeWeights());
+    final String[] splitPoints = {getString(10, numDigits), getString(1000, numDigits), getString(4000, numDigits)};
+    for (final QuantileSearchCriteria crit : CRITS) {
+      for (long v = 0; v <= 5001; v += 7) {
+        final String q = getString(v, numDigits);
+        assertEquals(dsv.getRank(q, crit), sv.getRank(q, crit));
+      }
+      for (int i = 0; i <= 200; i++) { assertEquals(dsv.getQuantile(i / 200.0, crit), sv.getQuantile(i / 200.0, crit)); }
+      assertEquals(dsv.getCDF(splitPoints, crit), sv.getCDF(splitPoints, crit));
+      assertEquals(dsv.getPMF(splitPoints, crit), sv.getPMF(splitPoints, crit));
+      for (final int parts : new int[] {1, 2, 5, 10}) {
+        final GenericPartitionBoundaries<String> exp = sv.getPartitionBoundaries(parts, crit);
+        final GenericPartitionBoundaries<String> act = dsv.getPartitionBoundaries(parts, crit);
+        assertEquals(act.getBoundaries(), exp.getBoundaries());
+        assertEquals(act.getNaturalRanks(), exp.getNaturalRanks());
+        assertEquals(act.getNormalizedRanks(), exp.getNormalizedRanks());
+        assertEquals(act.getNumDeltaItems(), exp.getNumDeltaItems());
+      }
+    }
+    final GenericSortedViewIterator<String> itr = dsv.iterator();
+    int count = 0;
+    while (itr.next()) { count++; }
+    assertEquals(count, sv.getQuantiles().length);
+  }
+
+  @Test
+  public void checkEmptyAndErrors() {
+    final KllDoublesSketch kll = KllDoublesSketch.newHeapInstance(20);
+    kll.update(1);
+    final byte[] bytes = DirectDoublesSortedView.toByteArray(kll.getSortedView());
+    //a doubles image is not a floats image
+    try { DirectFloatsSortedView.wrap(Memory.wrap(bytes)); fail(); } catch (SketchesArgumentException e) { }
+    //too short for its quantiles
+    final byte[] truncated = new byte[bytes.length - 8];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    try { DirectDoublesSortedView.wrap(Memory.wrap(truncated)); fail(); } catch (SketchesArgumentException e) { }
+    try { DirectDoublesSortedView.wrap(Memory.wrap(new byte[8])); fail(); } catch (SketchesArgumentException e) { }
+    final DirectDoublesSortedView dsv = DirectDoublesSortedView.wrap(Memory.wrap(bytes));
+    try { dsv.getRank(Double.NaN, INCLUSIVE); fail(); } catch (SketchesArgumentException e) { }
+
+    final DirectDoublesSortedView empty = DirectDoublesSortedView.wrap(Memory.wrap(
+        DirectDoublesSortedView.toByteArray(new EmptyDoublesSortedView())));
+    assertTrue(empty.isEmpty());
+    try { empty.getRank(1, INCLUSIVE); fail(); } catch (SketchesArgumentException e) { }
+    try { empty.getQuantile(0.5, INCLUSIVE); fail(); } catch (SketchesArgumentException e) { }
+  }
+
+  //an empty DoublesSortedView, which the sketches do not produce
+  private static final class EmptyDoublesSortedView implements DoublesSortedView {
+    @Override public long[] getCumulativeWeights() { return new long[0]; }
+    @Override public long getN() { return 0; }
+    @Override public boolean isEmpty() { return true; }
+    @Override public double getMaxItem() { return Double.NaN; }
+    @Override public double getMinItem() { return Double.NaN; }
+    @Override public double getQuantile(final double rank, final QuantileSearchCriteria searchCrit) { return 0; }
+    @Override public double[] getQuantiles() { return new double[0]; }
+    @Override public double getRank(final double quantile, final QuantileSearchCriteria searchCrit) { return 0; }
+    @Override public DoublesSortedViewIterator iterator() { return null; }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.EXCLUSIVE;
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.kll.KllDoublesSketchSortedView;
+import org.apache.datasketches.kll.KllFloatsSketch;
+import org.apache.datasketches.kll.KllFloatsSketchSortedView;
+import org.apache.datasketches.quantiles.DoublesSketch;
+import org.apache.datasketches.quantiles.DoublesSketchSortedView;
+import org.apache.datasketches.quantiles.UpdateDoublesSketch;
+import org.apache.datasketches.req.ReqSketch;
+import org.apache.datasketches.req.ReqSketchSortedView;
+import org.testng.annotations.Test;
+
+public class EytzingerIndexTest {
+  private static final QuantileSearchCriteria[] CRITS = {INCLUSIVE, EXCLUSIVE};
+
+  @Test
+  public void countMatchesInequalitySearch() {
+    final Random rand = new Random(1);
+    for (int n = 1; n <= 70; n++) {
+      final double[] arr = new double[n + 5]; //longer than the indexed length
+      for (int i = 0; i < arr.length; i++) { arr[i] = rand.nextInt(20); }
+      Arrays.sort(arr, 0, n);
+      final EytzingerIndex index = new EytzingerIndex(arr, n);
+      assertEquals(index.getLength(), n);
+      for (double v = -1.5; v <= 21; v += 0.5) {
+        final int le = InequalitySearch.find(arr, 0, n - 1, v, InequalitySearch.LE);
+        final int lt = InequalitySearch.find(arr, 0, n - 1, v, InequalitySearch.LT);
+        assertEquals(index.count(v, true), le + 1);
+        assertEquals(index.count(v, false), lt + 1);
+      }
+    }
+  }
+
+  @Test
+  public void countFloatsAndLongs() {
+    final float[] floats = {1.5f, 2.5f, 2.5f, 3.5f};
+    final EytzingerIndex fIndex = new EytzingerIndex(floats, floats.length);
+    assertEquals(fIndex.count(2.5f, true), 3);
+    assertEquals(fIndex.count(2.5f, false), 1);
+    assertEquals(fIndex.count(0.1f, true), 0);
+    assertEquals(fIndex.count(9f, false), 4);
+    final long[] longs = {2, 4, 6, 8, 10};
+    final EytzingerIndex lIndex = new EytzingerIndex(longs, longs.length);
+    assertEquals(lIndex.count(6.0, false), 2);
+    assertEquals(lIndex.count(6.0, true), 3);
+    assertEquals(lIndex.count(6.5, false), 3);
+  }
+
+  @Test
+  public void checkExceptions() {
+    try { new EytzingerIndex(new double[0], 0); fail(); } catch (SketchesArgumentException e) { }
+    final EytzingerIndex index = new EytzingerIndex(new double[] {1, 2}, 2);
+    try { index.count(Double.NaN, true); fail(); } catch (SketchesArgumentException e) { }
+  }
+
+  @Test
+  public void checkMergeSearchCheaper() {
+    assertTrue(QuantilesUtil.isMergeSearchCheaper(new double[] {1, 2, 2, 3}, 4));
+    assertFalse(QuantilesUtil.isMergeSearchCheaper(new double[] {1, 3, 2, 4}, 4));
+    assertFalse(QuantilesUtil.isMergeSearchCheaper(new double[] {1, Double.NaN, 3, 4}, 4));
+    assertFalse(QuantilesUtil.isMergeSearchCheaper(new double[] {1, 2}, 1000));
+    assertTrue(QuantilesUtil.isMergeSearchCheaper(new float[] {1, 2, 2, 3}, 4));
+    assertFalse(QuantilesUtil.isMergeSearchCheaper(new float[] {2, 1, 3, 4}, 4));
+  }
+
+  @Test
+  public void kllDoublesSortedView() {
+    final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance(50);
+    for (int i = 0; i < 10000; i++) { sk.update(i % 1000); }
+    final double[] probes = doubleProbes();
+    final KllDoublesSketchSortedView sv = (KllDoublesSketchSortedView) sk.getSortedView();
+    final double[][] expRanks = new double[2][];
+    final double[][] expQuantiles = new double[2][];
+    for (int c = 0; c < 2; c++) {
+      expRanks[c] = new double[probes.length];
+      for (int i = 0; i < probes.length; i++) { expRanks[c][i] = sv.getRank(probes[i], CRITS[c]); }
+      expQuantiles[c] = new double[101];
+      for (int i = 0; i <= 100; i++) { expQuantiles[c][i] = sv.getQuantile(i / 100.0, CRITS[c]); }
+      assertEquals(sv.getRanks(probes, CRITS[c]), expRanks[c]);
+      assertEquals(sk.getRanks(probes, CRITS[c]), expRanks[c]);
+      assertEquals(sv.getRanks(reversed(probes), CRITS[c]), reversed(expRanks[c]));
+    }
+    final String[] nanOutcomes = nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Double.NaN, new double[] {1, Double.NaN});
+    sv.buildSearchIndex();
+    sv.buildSearchIndex();
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { assertEquals(sv.getRank(probes[i], CRITS[c]), expRanks[c][i]); }
+      for (int i = 0; i <= 100; i++) { assertEquals(sv.getQuantile(i / 100.0, CRITS[c]), expQuantiles[c][i]); }
+      assertEquals(sv.getRanks(reversed(probes), CRITS[c]), reversed(expRanks[c]));
+    }
+    assertEquals(nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Double.NaN, new double[] {1, Double.NaN}), nanOutcomes);
+  }
+
+  @Test
+  public void kllFloatsSortedView() {
+    final KllFloatsSketch sk = KllFloatsSketch.newHeapInstance(50);
+    for (int i = 0; i < 10000; i++) { sk.update(i % 1000); }
+    final float[] probes = floatProbes();
+    final KllFloatsSketchSortedView sv = (KllFloatsSketchSortedView) sk.getSortedView();
+    final double[][] expRanks = new double[2][probes.length];
+    final float[][] expQuantiles = new float[2][101];
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { expRanks[c][i] = sv.getRank(probes[i], CRITS[c]); }
+      for (int i = 0; i <= 100; i++) { expQuantiles[c][i] = sv.getQuantile(i / 100.0, CRITS[c]); }
+      assertEquals(sv.getRanks(probes, CRITS[c]), expRanks[c]);
+      assertEquals(sk.getRanks(probes, CRITS[c]), expRanks[c]);
+    }
+    final String[] nanOutcomes = nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Float.NaN, new float[] {1, Float.NaN});
+    sv.buildSearchIndex();
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { assertEquals(sv.getRank(probes[i], CRITS[c]), expRanks[c][i]); }
+      for (int i = 0; i <= 100; i++) { assertEquals(sv.getQuantile(i / 100.0, CRITS[c]), expQuantiles[c][i]); }
+    }
+    assertEquals(nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Float.NaN, new float[] {1, Float.NaN}), nanOutcomes);
+  }
+
+  @Test
+  public void classicDoublesSortedView() {
+    final UpdateDoublesSketch sk = DoublesSketch.builder().setK(32).build();
+    for (int i = 0; i < 10000; i++) { sk.update(i % 1000); }
+    final double[] probes = doubleProbes();
+    final DoublesSketchSortedView sv = (DoublesSketchSortedView) sk.getSortedView();
+    final double[][] expRanks = new double[2][probes.length];
+    final double[][] expQuantiles = new double[2][101];
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { expRanks[c][i] = sv.getRank(probes[i], CRITS[c]); }
+      for (int i = 0; i <= 100; i++) { expQuantiles[c][i] = sv.getQuantile(i / 100.0, CRITS[c]); }
+      assertEquals(sv.getRanks(probes, CRITS[c]), expRanks[c]);
+      assertEquals(sk.getRanks(probes, CRITS[c]), expRanks[c]);
+    }
+    final String[] nanOutcomes = nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Double.NaN, new double[] {1, Double.NaN});
+    sv.buildSearchIndex();
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { assertEquals(sv.getRank(probes[i], CRITS[c]), expRanks[c][i]); }
+      for (int i = 0; i <= 100; i++) { assertEquals(sv.getQuantile(i / 100.0, CRITS[c]), expQuantiles[c][i]); }
+    }
+    assertEquals(nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Double.NaN, new double[] {1, Double.NaN}), nanOutcomes);
+  }
+
+  @Test
+  public void reqSortedView() {
+    final ReqSketch sk = ReqSketch.builder().setK(12).build();
+    for (int i = 0; i < 10000; i++) { sk.update(i % 1000); }
+    final float[] probes = floatProbes();
+    final ReqSketchSortedView sv = (ReqSketchSortedView) sk.getSortedView();
+    final double[][] expRanks = new double[2][probes.length];
+    final float[][] expQuantiles = new float[2][101];
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { expRanks[c][i] = sv.getRank(probes[i], CRITS[c]); }
+      for (int i = 0; i <= 100; i++) { expQuantiles[c][i] = sv.getQuantile(i / 100.0, CRITS[c]); }
+      assertEquals(sv.getRanks(probes, CRITS[c]), expRanks[c]);
+      assertEquals(sk.getRanks(probes, CRITS[c]), expRanks[c]);
+    }
+    final String[] nanOutcomes = nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Float.NaN, new float[] {1, Float.NaN});
+    sv.buildSearchIndex();
+    for (int c = 0; c < 2; c++) {
+      for (int i = 0; i < probes.length; i++) { assertEquals(sv.getRank(probes[i], CRITS[c]), expRanks[c][i]); }
+      for (int i = 0; i <= 100; i++) { assertEquals(sv.getQuantile(i / 100.0, CRITS[c]), expQuantiles[c][i]); }
+    }
+    assertEquals(nanOutcomes(sv::getRank, sv::getRanks, sv::getQuantile, Float.NaN, new float[] {1, Float.NaN}), nanOutcomes);
+  }
+
+  //the outcomes of NaN queries, which must not change when the search index is attached
+  private static String[] nanOutcomes(final DoubleRankFn rank, final DoubleRanksFn ranks,
+      final QuantileFn quantile, final double nan, final double[] probes) {
+    final String[] out = new String[3 * CRITS.length];
+    for (int c = 0; c < CRITS.length; c++) {
+      final QuantileSearchCriteria crit = CRITS[c];
+      out[3 * c] = outcome(() -> rank.apply(nan, crit));
+      out[3 * c + 1] = outcome(() -> Arrays.toString(ranks.apply(probes, crit)));
+      out[3 * c + 2] = outcome(() -> quantile.apply(nan, crit));
+    }
+    return out;
+  }
+
+  private static String[] nanOutcomes(final FloatRankFn rank, final FloatRanksFn ranks,
+      final QuantileFn quantile, final float nan, final float[] probes) {
+    final String[] out = new String[3 * CRITS.length];
+    for (int c = 0; c < CRITS.length; c++) {
+      final QuantileSearchCriteria crit = CRITS[c];
+      out[3 * c] = outcome(() -> rank.apply(nan, crit));
+      out[3 * c + 1] = outcome(() -> Arrays.toString(ranks.apply(probes, crit)));
+      out[3 * c + 2] = outcome(() -> quantile.apply(nan, crit));
+    }
+    return out;
+  }
+
+  private static String outcome(final Callable<Object> query) {
+    try {
+      return String.valueOf(query.call());
+    } catch (final Exception e) {
+      return e.getClass().getName() + ": " + e.getMessage();
+    }
+  }
+
+  private interface DoubleRankFn { double apply(double quantile, QuantileSearchCriteria crit); }
+
+  private interface DoubleRanksFn { double[] apply(double[] quantiles, QuantileSearchCriteria crit); }
+
+  private interface FloatRankFn { double apply(float quantile, QuantileSearchCriteria crit); }
+
+  private interface FloatRanksFn { double[] apply(float[] quantiles, QuantileSearchCriteria crit); }
+
+  private interface QuantileFn { Object apply(double rank, QuantileSearchCriteria crit); }
+
+  //sorted probes below, within and above the range of the sketches, with duplicates
+  private static double[] doubleProbes() {
+    final double[] probes = new double[2100];
+    for (int i = 0; i < probes.length; i++) { probes[i] = ((i / 2) - 10) * 1.0; }
+    return probes;
+  }
+
+  private static float[] floatProbes() {
+    final float[] probes = new float[2100];
+    for (int i = 0; i < probes.length; i++) { probes[i] = ((i / 2) - 10) * 1.0f; }
+    return probes;
+  }
+
+  private static double[] reversed(final double[] arr) {
+    final int len = arr.length;
+    final double[] out = new double[len];
+    for (int i = 0; i < len; i++) { out[i] = arr[len - 1 - i]; }
+    return out;
+  }
+}
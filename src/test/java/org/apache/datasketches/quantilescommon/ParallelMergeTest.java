@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantilescommon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.kll.KllDoublesSketch;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.quantiles.DoublesSketch;
+import org.apache.datasketches.quantiles.DoublesUnion;
+import org.apache.datasketches.quantiles.UpdateDoublesSketch;
+import org.apache.datasketches.req.ReqSketch;
+import org.apache.datasketches.tdigest.TDigestDouble;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+public class ParallelMergeTest {
+  private static final int NUM_SKETCHES = 300;
+  private static final int N_PER_SKETCH = 1000;
+  private static final long TOTAL_N = (long) NUM_SKETCHES * N_PER_SKETCH;
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @AfterClass
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void checkKllDoubles() {
+    final List<KllDoublesSketch> sketches = new ArrayList<>();
+    final List<Memory> images = new ArrayList<>();
+    for (int j = 0; j < NUM_SKETCHES; j++) {
+      final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance(200);
+      for (int i = 0; i < N_PER_SKETCH; i++) { sk.update(value(i, j)); }
+      sketches.add(sk);
+      images.add(Memory.wrap(sk.toByteArray()));
+    }
+    final KllDoublesSketch sequential = KllDoublesSketch.newHeapInstance(200);
+    for (final KllDoublesSketch sk : sketches) { sequential.merge(sk); }
+
+    final KllDoublesSketch result = ParallelMerge.treeReduce(sketches,
+        () -> KllDoublesSketch.newHeapInstance(200), KllDoublesSketch::merge, KllDoublesSketch::merge, pool);
+    final KllDoublesSketch fromImages = ParallelMerge.treeReduce(images,
+        () -> KllDoublesSketch.newHeapInstance(200), (sk, mem) -> sk.merge(KllDoublesSketch.wrap(mem)),
+        KllDoublesSketch::merge, pool, 16);
+    for (final KllDoublesSketch sk : new KllDoublesSketch[] {result, fromImages}) {
+      assertEquals(sk.getN(), TOTAL_N);
+      assertEquals(sk.getMinItem(), sequential.getMinItem());
+      assertEquals(sk.getMaxItem(), sequential.getMaxItem());
+      assertEquals(sk.getNormalizedRankError(false), sequential.getNormalizedRankError(false));
+      checkRanks(sk::getRank, 3 * sk.getNormalizedRankError(false));
+    }
+  }
+
+  @Test
+  public void checkReq() {
+    final List<ReqSketch> sketches = new ArrayList<>();
+    for (int j = 0; j < NUM_SKETCHES; j++) {
+      final ReqSketch sk = ReqSketch.builder().setK(12).build();
+      for (int i = 0; i < N_PER_SKETCH; i++) { sk.update((float) value(i, j)); }
+      sketches.add(sk);
+    }
+    final ReqSketch result = ParallelMerge.treeReduce(sketches,
+        () -> ReqSketch.builder().setK(12).build(), ReqSketch::merge, ReqSketch::merge, pool);
+    assertEquals(result.getN(), TOTAL_N);
+    checkRanks(v -> result.getRank((float) v), 0.02);
+  }
+
+  @Test
+  public void checkClassicQuantiles() {
+    final List<UpdateDoublesSketch> sketches = new ArrayList<>();
+    for (int j = 0; j < NUM_SKETCHES; j++) {
+      final UpdateDoublesSketch sk = DoublesSketch.builder().setK(128).build();
+      for (int i = 0; i < N_PER_SKETCH; i++) { sk.update(value(i, j)); }
+      sketches.add(sk);
+    }
+    final DoublesUnion union = ParallelMerge.treeReduce(sketches,
+        () -> DoublesUnion.builder().setMaxK(128).build(), DoublesUnion::union,
+        (u1, u2) -> u1.union(u2.getResult()), pool);
+    final UpdateDoublesSketch result = union.getResult();
+    assertEquals(result.getN(), TOTAL_N);
+    assertEquals(result.getK(), 128);
+    checkRanks(result::getRank, 3 * result.getNormalizedRankError(false));
+  }
+
+  @Test
+  public void checkTDigest() {
+    final List<TDigestDouble> sketches = new ArrayList<>();
+    for (int j = 0; j < NUM_SKETCHES; j++) {
+      final TDigestDouble td = new TDigestDouble((short) 100);
+      for (int i = 0; i < N_PER_SKETCH; i++) { td.update(value(i, j)); }
+      sketches.add(td);
+    }
+    final TDigestDouble result = ParallelMerge.treeReduce(sketches,
+        () -> new TDigestDouble((short) 100), TDigestDouble::merge, TDigestDouble::merge, pool);
+    assertEquals(result.getTotalWeight(), TOTAL_N);
+    checkRanks(result::getRank, 0.01);
+  }
+
+  @Test
+  public void checkSequentialAndEdgeCases() {
+    final List<KllDoublesSketch> sketches = new ArrayList<>();
+    for (int j = 0; j < 10; j++) {
+      final KllDoublesSketch sk = KllDoublesSketch.newHeapInstance();
+      sk.update(j);
+      sketches.add(sk);
+      sketches.add(null);
+    }
+    KllDoublesSketch result = ParallelMerge.treeReduce(sketches,
+        KllDoublesSketch::newHeapInstance, KllDoublesSketch::merge, KllDoublesSketch::merge, null);
+    assertEquals(result.getN(), 10);
+    result = ParallelMerge.treeReduce(sketches,
+        KllDoublesSketch::newHeapInstance, KllDoublesSketch::merge, KllDoublesSketch::merge, pool, 1);
+    assertEquals(result.getN(), 10);
+    assertEquals(result.getMinItem(), 0.0);
+    assertEquals(result.getMaxItem(), 9.0);
+    result = ParallelMerge.treeReduce(Collections.<KllDoublesSketch>emptyList(),
+        KllDoublesSketch::newHeapInstance, KllDoublesSketch::merge, KllDoublesSketch::merge, pool);
+    assertTrue(result.isEmpty());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBadBatchSize() {
+    ParallelMerge.treeReduce(Collections.<KllDoublesSketch>emptyList(),
+        KllDoublesSketch::newHeapInstance, KllDoublesSketch::merge, KllDoublesSketch::merge, pool, 0);
+  }
+
+  //values 0 to TOTAL_N - 1 spread over all the sketches, so each sketch covers the whole range
+  private static double value(final int i, final int j) {
+    return ((long) i * NUM_SKETCHES) + j;
+  }
+
+  private static void checkRanks(final DoubleUnaryOperator rankOf, final double eps) {
+    for (final double rank : new double[] {0.25, 0.5, 0.75}) {
+      assertEquals(rankOf.applyAsDouble(rank * TOTAL_N), rank, eps);
+    }
+  }
+
+}
@@ -24,6 +24,7 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.TestUtil;
 import org.apache.datasketches.memory.Memory;
@@ -170,4 +171,66 @@ public class TDigestDoubleTest {
     assertEquals(td.getRank(n * 3 / 4), 0.75, 0.0001);
     assertEquals(td.getRank(n), 1);
   }
+
+  @Test
+  public void wrapNonEmpty() {
+    final TDigestDouble td1 = new TDigestDouble((short) 100);
+    for (int i = 0; i < 10000; i++) td1.update(i);
+    td1.update(5000); // duplicate to exercise equal means
+    final byte[] bytes = td1.toByteArray();
+    final TDigestDouble heap = TDigestDouble.heapify(Memory.wrap(bytes));
+    final TDigestDouble td2 = TDigestDouble.wrap(Memory.wrap(bytes));
+    assertTrue(td2.isReadOnly());
+    assertFalse(heap.isReadOnly());
+    assertEquals(td2.getK(), heap.getK());
+    assertEquals(td2.getTotalWeight(), heap.getTotalWeight());
+    assertFalse(td2.isEmpty());
+    assertEquals(td2.getMinValue(), heap.getMinValue());
+    assertEquals(td2.getMaxValue(), heap.getMaxValue());
+    for (double v = -1; v <= 10001; v += 7.5) {
+      assertEquals(td2.getRank(v), heap.getRank(v));
+    }
+    assertEquals(td2.getRank(0), heap.getRank(0));
+    assertEquals(td2.getRank(9999), heap.getRank(9999));
+    for (int i = 0; i <= 1000; i++) {
+      assertEquals(td2.getQuantile(i / 1000.0), heap.getQuantile(i / 1000.0));
+    }
+    assertEquals(td2.toByteArray(), bytes);
+    assertTrue(td2.toString(true).contains("Centroids:"));
+    assertThrows(SketchesReadOnlyException.class, () -> td2.update(1));
+    assertThrows(SketchesReadOnlyException.class, () -> td2.merge(heap));
+
+    // merging a wrapped TDigest into a heap one
+    final TDigestDouble td3 = new TDigestDouble((short) 100);
+    td3.merge(td2);
+    assertEquals(td3.getTotalWeight(), td2.getTotalWeight());
+    assertEquals(td3.getMinValue(), td2.getMinValue());
+    assertEquals(td3.getMaxValue(), td2.getMaxValue());
+
+    // the total weight is computed on first use by any query
+    assertEquals(TDigestDouble.wrap(Memory.wrap(bytes)).getQuantile(0.5), heap.getQuantile(0.5));
+    assertEquals(TDigestDouble.wrap(Memory.wrap(bytes)).getRank(5000), heap.getRank(5000));
+  }
+
+  @Test
+  public void wrapEmptyAndSingleValue() {
+    final TDigestDouble td1 = new TDigestDouble();
+    final TDigestDouble empty = TDigestDouble.wrap(Memory.wrap(td1.toByteArray()));
+    assertTrue(empty.isEmpty());
+    assertFalse(empty.isReadOnly());
+    td1.update(1.5);
+    final TDigestDouble single = TDigestDouble.wrap(Memory.wrap(td1.toByteArray()));
+    assertEquals(single.getTotalWeight(), 1);
+    assertEquals(single.getMinValue(), 1.5);
+    assertEquals(single.getMaxValue(), 1.5);
+    assertEquals(single.getQuantile(0.5), 1.5);
+  }
+
+  @Test
+  public void wrapReferenceImplementation() {
+    final byte[] bytes = TestUtil.getResourceBytes("tdigest_ref_k100_n10000_double.sk");
+    final TDigestDouble td = TDigestDouble.wrap(Memory.wrap(bytes));
+    assertEquals(td.getTotalWeight(), 10000);
+    assertEquals(td.getRank(5000), 0.5, 0.0001);
+  }
 }
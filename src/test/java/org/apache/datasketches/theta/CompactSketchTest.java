@@ -586,6 +586,76 @@ public class CompactSketchTest {
     }
   }
 
+  @Test
+  public void wrapV4StreamsEntries() {
+    for (int n : new int[] {2, 7, 8, 9, 100, 4103, 10000}) {
+      UpdateSketch sk = Sketches.updateSketchBuilder().build();
+      for (int i = 0; i < n; i++) { sk.update(i); }
+      CompactSketch cs1 = sk.compact();
+      CompactSketch cs2 = CompactSketch.wrap(Memory.wrap(cs1.toByteArrayCompressed()));
+      assertTrue(cs2 instanceof DirectCompactCompressedSketch);
+      assertTrue(cs2.hasMemory());
+      assertTrue(cs2.isOrdered());
+      assertFalse(cs2.isEmpty());
+      assertEquals(cs2.getRetainedEntries(), cs1.getRetainedEntries());
+      assertEquals(cs2.getThetaLong(), cs1.getThetaLong());
+      assertEquals(cs2.getEstimate(), cs1.getEstimate());
+      assertEquals(cs2.getCurrentBytes(), cs1.getCurrentBytes());
+      assertEquals(cs2.getCache(), cs1.getCache());
+      assertEquals(cs2.toByteArray(), cs1.toByteArray());
+      HashIterator it1 = cs1.iterator();
+      HashIterator it2 = cs2.iterator();
+      while (it1.next()) {
+        assertTrue(it2.next());
+        assertEquals(it2.get(), it1.get());
+      }
+      assertFalse(it2.next());
+      CompactSketch cs3 = cs2.compact(false, WritableMemory.allocate(cs2.getCompactBytes()));
+      assertEquals(cs3.getEstimate(), cs1.getEstimate());
+      assertEquals(cs2.compact().getCache(), cs1.getCache());
+      assertEquals(Sketch.wrap(Memory.wrap(cs1.toByteArrayCompressed())).getEstimate(), cs1.getEstimate());
+    }
+  }
+
+  @Test
+  public void setOperationsWithWrappedV4() {
+    UpdateSketch skA = Sketches.updateSketchBuilder().build();
+    UpdateSketch skB = Sketches.updateSketchBuilder().build();
+    for (int i = 0; i < 10000; i++) {
+      skA.update(i);
+      skB.update(i + 5000);
+    }
+    CompactSketch cskA = skA.compact();
+    CompactSketch cskB = skB.compact();
+    CompactSketch wrapA = CompactSketch.wrap(Memory.wrap(cskA.toByteArrayCompressed()));
+    CompactSketch wrapB = CompactSketch.wrap(Memory.wrap(cskB.toByteArrayCompressed()));
+
+    Union union1 = Sketches.setOperationBuilder().buildUnion();
+    union1.union(cskA);
+    union1.union(cskB);
+    Union union2 = Sketches.setOperationBuilder().buildUnion();
+    union2.union(wrapA);
+    union2.union(Memory.wrap(cskB.toByteArrayCompressed()));
+    assertEquals(union2.getResult().getCache(), union1.getResult().getCache());
+
+    Intersection inter1 = Sketches.setOperationBuilder().buildIntersection();
+    inter1.intersect(cskA);
+    inter1.intersect(cskB);
+    Intersection inter2 = Sketches.setOperationBuilder().buildIntersection();
+    inter2.intersect(wrapA);
+    inter2.intersect(wrapB);
+    assertEquals(inter2.getResult().getCache(), inter1.getResult().getCache());
+    assertEquals(inter2.getResult().getThetaLong(), inter1.getResult().getThetaLong());
+
+    AnotB aNotB = Sketches.setOperationBuilder().buildANotB();
+    CompactSketch expected = aNotB.aNotB(cskA, cskB);
+    CompactSketch result = aNotB.aNotB(wrapA, wrapB);
+    assertEquals(result.getCache(), expected.getCache());
+    aNotB.setA(wrapA);
+    aNotB.notB(wrapB);
+    assertEquals(aNotB.getResult(true).getCache(), expected.getCache());
+  }
+
   private static class State {
     String classType = null;
     int count = 0;
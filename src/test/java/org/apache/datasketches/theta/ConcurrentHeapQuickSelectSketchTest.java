@@ -28,9 +28,16 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.thetacommon.ThetaUtil;
@@ -654,6 +661,177 @@ public class ConcurrentHeapQuickSelectSketchTest {
     assertEquals(bldr.getMaxConcurrencyError(), 0.04);
     bldr.setMaxNumLocalThreads(4);
     assertEquals(bldr.getMaxNumLocalThreads(), 4);
+    assertEquals(bldr.getPropagationWaitStrategy(), ConcurrentWaitStrategy.SPIN_YIELD);
+    assertFalse(bldr.getLocalDoubleBuffering());
+    try {
+      bldr.setPropagationWaitStrategy(null);
+      fail();
+    } catch (SketchesArgumentException e) { }
+  }
+
+  @Test
+  public void checkWaitStrategiesAndDoubleBuffering() throws InterruptedException {
+    final int lgK = 10;
+    final int numThreads = 4;
+    final int perThread = 50 << lgK;
+    for (final ConcurrentWaitStrategy strategy : ConcurrentWaitStrategy.values()) {
+      for (final boolean doubleBuffering : new boolean[] { false, true }) {
+        final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setLogNominalEntries(lgK)
+            .setPropagationWaitStrategy(strategy).setLocalDoubleBuffering(doubleBuffering);
+        bldr.setMaxNumLocalThreads(numThreads);
+        assertEquals(bldr.getPropagationWaitStrategy(), strategy);
+        assertEquals(bldr.getLocalDoubleBuffering(), doubleBuffering);
+        assertTrue(bldr.toString().contains(strategy.toString()));
+        final UpdateSketch shared = bldr.buildShared();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+          final UpdateSketch local = bldr.buildLocal(shared);
+          final int base = t * perThread;
+          threads[t] = new Thread(() -> {
+            for (int i = 0; i < perThread; i++) { local.update(base + i); }
+          });
+          threads[t].start();
+        }
+        for (final Thread thread : threads) { thread.join(); }
+        ((ConcurrentPropagationControl) shared).awaitPropagation();
+        final double u = numThreads * perThread;
+        assertEquals(shared.getEstimate(), u, u * 0.1, strategy + " " + doubleBuffering);
+      }
+    }
+  }
+
+  @Test
+  public void checkParkedWaiterIsReleased() throws InterruptedException {
+    final ConcurrentPropagationFlag flag = new ConcurrentPropagationFlag();
+    flag.set(true);
+    final Thread waiter = new Thread(() -> ConcurrentWaitStrategy.PARK.await(flag));
+    waiter.start();
+    Thread.sleep(10);
+    flag.release();
+    waiter.join(10_000);
+    assertFalse(waiter.isAlive());
+    assertFalse(flag.get());
+    ConcurrentWaitStrategy.SPIN.await(flag); //returns immediately on a clear flag
+    ConcurrentWaitStrategy.SPIN_YIELD.await(flag);
+  }
+
+  @Test
+  public void checkInterruptedWaiterParksAgain() throws InterruptedException {
+    final ConcurrentPropagationFlag flag = new ConcurrentPropagationFlag();
+    flag.set(true);
+    final AtomicBoolean interruptedAfterWait = new AtomicBoolean();
+    final Thread waiter = new Thread(() -> {
+      flag.park();
+      interruptedAfterWait.set(Thread.currentThread().isInterrupted());
+    });
+    waiter.start();
+    waitUntilParked(waiter);
+    waiter.interrupt();
+    Thread.sleep(50);
+    for (int i = 0; i < 3; i++) { //parked again rather than spinning on the interrupt status
+      assertEquals(waiter.getState(), Thread.State.WAITING);
+      Thread.sleep(10);
+    }
+    flag.release();
+    waiter.join(10_000);
+    assertFalse(waiter.isAlive());
+    assertTrue(interruptedAfterWait.get());
+  }
+
+  private static void waitUntilParked(final Thread thread) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while ((thread.getState() != Thread.State.WAITING) && (System.nanoTime() < deadline)) {
+      Thread.sleep(1);
+    }
+    assertEquals(thread.getState(), Thread.State.WAITING);
+  }
+
+  @Test
+  public void checkInjectedPropagationExecutor() throws InterruptedException {
+    final int lgK = 9;
+    final int u = 100 << lgK;
+    final AtomicInteger numTasks = new AtomicInteger();
+    final ExecutorService pool = Executors.newFixedThreadPool(8);
+    final Executor executor = task -> { numTasks.incrementAndGet(); pool.execute(task); };
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setPropagationExecutor(executor);
+    assertEquals(bldr.getPropagationExecutor(), executor);
+    assertTrue(bldr.toString().contains("PropagationExecutor"));
+    bldr.setLogNominalEntries(lgK);
+    final UpdateSketch shared = bldr.buildShared();
+    final UpdateSketch local = bldr.buildLocal(shared);
+    final UpdateSketch sk = new UpdateSketchBuilder().setLogNominalEntries(lgK).build();
+    for (int i = 0; i < u; i++) {
+      local.update(i);
+      sk.update(i);
+    }
+    final ConcurrentPropagationControl control = (ConcurrentPropagationControl) shared;
+    control.awaitPropagation();
+    assertEquals(control.getPropagationQueueDepth(), 0);
+    assertTrue(control.getMaxPropagationQueueDepth() >= 1);
+    assertTrue(control.getNumCompletedPropagations() > 0);
+    assertTrue(numTasks.get() > 0);
+    assertTrue(numTasks.get() <= control.getNumCompletedPropagations());
+    assertEquals(shared.getEstimate(), u, u * 0.1);
+
+    control.close();
+    assertTrue(control.isClosed());
+    try {
+      for (int i = u; i < (2 * u); i++) { local.update(i); }
+      fail();
+    } catch (SketchesStateException e) { }
+    assertTrue(shared.getEstimate() > 0);
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void checkPropagationSerializedOnParallelExecutor() {
+    final ExecutorService pool = Executors.newFixedThreadPool(4);
+    final ConcurrentSerialExecutor serial = new ConcurrentSerialExecutor(pool);
+    final int n = 10_000;
+    final int[] order = new int[n];
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    for (int i = 0; i < n; i++) {
+      final int id = i;
+      serial.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        order[next.getAndIncrement()] = id;
+        running.decrementAndGet();
+      });
+    }
+    serial.awaitQuiescence();
+    assertEquals(maxRunning.get(), 1);
+    for (int i = 0; i < n; i++) { assertEquals(order[i], i); }
+    assertEquals(serial.getNumCompleted(), n);
+
+    //a rejecting executor falls back to running in the calling thread
+    pool.shutdown();
+    final AtomicInteger ran = new AtomicInteger();
+    serial.execute(ran::incrementAndGet);
+    assertEquals(ran.get(), 1);
+    assertEquals(serial.getQueueDepth(), 0);
+  }
+
+  @Test
+  public void checkDefaultPropagationServiceShutdown() throws InterruptedException {
+    final int lgK = 9;
+    final int u = 100 << lgK;
+    final UpdateSketchBuilder bldr = new UpdateSketchBuilder().setLogNominalEntries(lgK);
+    bldr.setNumPoolThreads(2);
+    final UpdateSketch shared = bldr.buildShared();
+    final UpdateSketch local = bldr.buildLocal(shared);
+    for (int i = 0; i < (u / 2); i++) { local.update(i); }
+    assertTrue(ConcurrentPropagationService.shutdown(10, TimeUnit.SECONDS));
+    assertEquals(ConcurrentPropagationService.getPoolSize(), 0);
+    //propagation continues in the calling thread
+    for (int i = u / 2; i < u; i++) { local.update(i); }
+    final ConcurrentPropagationControl control = (ConcurrentPropagationControl) shared;
+    control.awaitPropagation();
+    assertEquals(shared.getEstimate(), u, u * 0.1);
+    try { ConcurrentPropagationService.getExecutor(0); fail(); } catch (SketchesArgumentException e) { }
+    ConcurrentPropagationService.shutdown();
   }
 
   @Test(expectedExceptions = UnsupportedOperationException.class)
@@ -737,8 +915,6 @@ public class ConcurrentHeapQuickSelectSketchTest {
     }
     ConcurrentSharedThetaSketch csts = (ConcurrentSharedThetaSketch)shared;
     csts.awaitBgPropagationTermination();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().getId());
-    csts.initBgPropagationService();
   }
 
 }
@@ -25,6 +25,11 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.memory.WritableHandle;
@@ -114,6 +119,94 @@ public class UnionImplTest {
     assertEquals(union.getResult().getEstimate(), n, 0.0);
   }
 
+  @Test
+  public void checkUnionAllSameAsUnion() {
+    final int k = 1 << 10;
+    final List<Sketch> sketches = new ArrayList<>();
+    for (int j = 0; j < 40; j++) {
+      final UpdateSketch sk = Sketches.updateSketchBuilder().setNominalEntries(k).build();
+      for (int i = 0; i < (j * 300); i++) { sk.update((j * 100) + i); }
+      switch (j % 5) {
+        case 0: sketches.add(sk); break;
+        case 1: sketches.add(sk.compact(false, null)); break;
+        case 2: sketches.add(sk.compact(true, WritableMemory.allocate(sk.getCompactBytes()))); break;
+        case 3: sketches.add(CompactSketch.wrap(Memory.wrap(sk.compact().toByteArrayCompressed()))); break;
+        default: sketches.add(sk.compact());
+      }
+    }
+    sketches.add(null);
+    sketches.add(SingleItemSketch.create(-1L));
+    final UpdateSketch sampled = Sketches.updateSketchBuilder().setP(0.5F).build();
+    for (int i = 0; i < 100; i++) { sampled.update(i); }
+    sketches.add(sampled);
+
+    for (final int unionK : new int[] {k / 2, k, 4 * k}) {
+      final Union expected = Sketches.setOperationBuilder().setNominalEntries(unionK).buildUnion();
+      for (final Sketch sk : sketches) { expected.union(sk); }
+      final Union heapUnion = Sketches.setOperationBuilder().setNominalEntries(unionK).buildUnion();
+      heapUnion.update(-2L); //prior state
+      expected.update(-2L);
+      heapUnion.unionAll(sketches);
+      checkSameResult(heapUnion.getResult(), expected.getResult());
+
+      final WritableMemory wmem = WritableMemory.allocate(Sketches.getMaxUnionBytes(unionK));
+      final Union directUnion = Sketches.setOperationBuilder().setNominalEntries(unionK).buildUnion(wmem);
+      directUnion.update(-2L);
+      directUnion.unionAll(sketches);
+      checkSameResult(directUnion.getResult(), expected.getResult());
+      checkSameResult(Sketches.wrapUnion(wmem).getResult(), expected.getResult());
+
+      final Memory[] mems = new Memory[sketches.size()];
+      for (int i = 0; i < mems.length; i++) {
+        final Sketch sk = sketches.get(i);
+        mems[i] = sk == null ? null : Memory.wrap(
+            (i % 5) == 3 ? sk.compact().toByteArrayCompressed() : sk.toByteArray());
+      }
+      final Union memUnion = Sketches.setOperationBuilder().setNominalEntries(unionK).buildUnion();
+      memUnion.update(-2L);
+      memUnion.unionAll(mems);
+      checkSameResult(memUnion.getResult(), expected.getResult());
+    }
+  }
+
+  @Test
+  public void checkUnionAllEmpty() {
+    final Union union = Sketches.setOperationBuilder().buildUnion();
+    union.unionAll((Iterable<Sketch>) null);
+    union.unionAll((Memory[]) null);
+    union.unionAll(null, null);
+    union.unionAll(Arrays.asList(null, Sketches.updateSketchBuilder().build()));
+    union.unionAll(new Memory[] {null, Memory.wrap(Sketches.updateSketchBuilder().build().compact().toByteArray())});
+    assertTrue(union.getResult().isEmpty());
+  }
+
+  @Test
+  public void checkParallelUnionAll() {
+    final List<Sketch> sketches = new ArrayList<>();
+    for (int j = 0; j < 1000; j++) {
+      final UpdateSketch sk = Sketches.updateSketchBuilder().setNominalEntries(256).build();
+      for (int i = 0; i < 500; i++) { sk.update((j * 250) + i); }
+      sketches.add(sk.compact());
+    }
+    final Union expected = Sketches.setOperationBuilder().buildUnion();
+    for (final Sketch sk : sketches) { expected.union(sk); }
+    final Union union = Sketches.setOperationBuilder().buildUnion();
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      union.unionAll(sketches, pool);
+    } finally {
+      pool.shutdown();
+    }
+    checkSameResult(union.getResult(), expected.getResult());
+  }
+
+  private static void checkSameResult(final CompactSketch result, final CompactSketch expected) {
+    assertEquals(result.isEmpty(), expected.isEmpty());
+    assertEquals(result.getThetaLong(), expected.getThetaLong());
+    assertEquals(result.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(result.getCache(), expected.getCache());
+  }
+
   @Test
   public void checkFastWrap() {
     final int k = 16;
@@ -20,10 +20,15 @@
 package org.apache.datasketches.tuple.adouble;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
 
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
+import org.apache.datasketches.tuple.AnotB;
+import org.apache.datasketches.tuple.CompactSketch;
+import org.apache.datasketches.tuple.Intersection;
 import org.apache.datasketches.tuple.Sketch;
 import org.apache.datasketches.tuple.TupleSketchIterator;
 import org.apache.datasketches.tuple.Sketches;
@@ -414,4 +419,107 @@ public class AdoubleTest {
       (new DoubleSummaryFactory(mode)).setSamplingProbability(2f).build();
   }
 
+  @Test
+  public void directUpdatableSketch() {
+    final int nomEntries = 1024;
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(Mode.Max);
+    final WritableMemory wmem =
+        WritableMemory.allocate(UpdatableSketch.getMaxBytes(nomEntries, factory));
+    final UpdatableSketchBuilder<Double, DoubleSummary> bldr =
+        new UpdatableSketchBuilder<>(factory).setNominalEntries(nomEntries);
+    final UpdatableSketch<Double, DoubleSummary> heapSk = bldr.build();
+    final UpdatableSketch<Double, DoubleSummary> directSk = bldr.build(wmem);
+    Assert.assertTrue(directSk.hasMemory());
+    Assert.assertFalse(directSk.isDirect());
+    Assert.assertFalse(heapSk.hasMemory());
+    Assert.assertTrue(directSk.isEmpty());
+    for (int i = 0; i < 20 * nomEntries; i++) {
+      heapSk.update(i % (8 * nomEntries), (double) i);
+      directSk.update(i % (8 * nomEntries), (double) i);
+    }
+    Assert.assertTrue(directSk.isEstimationMode());
+    Assert.assertEquals(directSk.getThetaLong(), heapSk.getThetaLong());
+    Assert.assertEquals(directSk.getRetainedEntries(), heapSk.getRetainedEntries());
+    Assert.assertEquals(directSk.getCurrentCapacity(), heapSk.getCurrentCapacity());
+    Assert.assertEquals(directSk.getEstimate(), heapSk.getEstimate());
+    Assert.assertEquals(directSk.getCountLessThanThetaLong(directSk.getThetaLong() / 2),
+        heapSk.getCountLessThanThetaLong(heapSk.getThetaLong() / 2));
+    Assert.assertEquals(sumOfValues(directSk.compact()), sumOfValues(heapSk.compact()));
+    Assert.assertEquals(sumOfValues(directSk), sumOfValues(heapSk));
+    Assert.assertEquals(directSk.toByteArray(), heapSk.toByteArray());
+
+    // the heap copy and a wrap of the same memory see the same state
+    final UpdatableSketch<Double, DoubleSummary> copy = directSk.copy();
+    Assert.assertFalse(copy.hasMemory());
+    Assert.assertEquals(sumOfValues(copy), sumOfValues(heapSk));
+    final UpdatableSketch<Double, DoubleSummary> wrapped = UpdatableSketch.writableWrap(wmem, factory);
+    Assert.assertEquals(wrapped.getThetaLong(), heapSk.getThetaLong());
+    Assert.assertEquals(wrapped.getRetainedEntries(), heapSk.getRetainedEntries());
+    Assert.assertEquals(sumOfValues(wrapped), sumOfValues(heapSk));
+    wrapped.update(-1, 1.0);
+    heapSk.update(-1, 1.0);
+    wrapped.trim();
+    heapSk.trim();
+    Assert.assertEquals(wrapped.getRetainedEntries(), heapSk.getRetainedEntries());
+    Assert.assertEquals(sumOfValues(wrapped), sumOfValues(heapSk));
+
+    // set operations accept Direct sketches as inputs
+    final Intersection<DoubleSummary> inter = new Intersection<>(new DoubleSummarySetOperations(Mode.Max));
+    inter.intersect(wrapped);
+    inter.intersect(heapSk);
+    Assert.assertEquals(inter.getResult().getRetainedEntries(), heapSk.getRetainedEntries());
+    final CompactSketch<DoubleSummary> aNotB = AnotB.aNotB(heapSk, wrapped);
+    Assert.assertEquals(aNotB.getRetainedEntries(), 0);
+
+    wrapped.reset();
+    Assert.assertTrue(wrapped.isEmpty());
+    Assert.assertEquals(wrapped.getRetainedEntries(), 0);
+    Assert.assertTrue(UpdatableSketch.writableWrap(wmem, factory).isEmpty());
+  }
+
+  @Test
+  public void directUpdatableSketchSampling() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(mode);
+    final WritableMemory wmem = WritableMemory.allocate(UpdatableSketch.getMaxBytes(32, factory));
+    final UpdatableSketch<Double, DoubleSummary> sketch = new UpdatableSketchBuilder<>(factory)
+        .setNominalEntries(32).setResizeFactor(ResizeFactor.X1).setSamplingProbability(0.5f).build(wmem);
+    sketch.update(1, 1.0);
+    final UpdatableSketch<Double, DoubleSummary> wrapped = UpdatableSketch.writableWrap(wmem, factory);
+    Assert.assertFalse(wrapped.isEmpty());
+    Assert.assertEquals(wrapped.getSamplingProbability(), 0.5f);
+    Assert.assertEquals(wrapped.getResizeFactor(), ResizeFactor.X1);
+    Assert.assertEquals(wrapped.getNominalEntries(), 32);
+    Assert.assertEquals(wrapped.getThetaLong(), sketch.getThetaLong());
+  }
+
+  @Test
+  public void directUpdatableSketchExceptions() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(mode);
+    final UpdatableSketchBuilder<Double, DoubleSummary> bldr =
+        new UpdatableSketchBuilder<>(factory).setNominalEntries(1024);
+    try {
+      bldr.build(WritableMemory.allocate(64));
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    // a table that must grow beyond the given memory
+    final WritableMemory wmem = WritableMemory.allocate(UpdatableSketch.getMaxBytes(1024, factory) / 8);
+    final UpdatableSketch<Double, DoubleSummary> sketch = bldr.build(wmem);
+    try {
+      for (int i = 0; i < 2048; i++) { sketch.update(i, 1.0); }
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    // not a Direct tuple sketch image
+    try {
+      UpdatableSketch.writableWrap(WritableMemory.writableWrap(bldr.build().toByteArray()), factory);
+      fail();
+    } catch (final SketchesArgumentException e) { }
+  }
+
+  private static double sumOfValues(final Sketch<DoubleSummary> sketch) {
+    double sum = 0;
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { sum += it.getSummary().getValue(); }
+    return sum;
+  }
+
 }
@@ -22,9 +22,11 @@ package org.apache.datasketches.tuple.adouble;
 import static org.testng.Assert.fail;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.theta.UpdateSketch;
 import org.apache.datasketches.theta.UpdateSketchBuilder;
 import org.apache.datasketches.tuple.CompactSketch;
+import org.apache.datasketches.tuple.SummarySetOperations;
 import org.apache.datasketches.tuple.TupleSketchIterator;
 import org.apache.datasketches.tuple.Union;
 import org.apache.datasketches.tuple.UpdatableSketch;
@@ -170,4 +172,70 @@ public class AdoubleUnionTest {
     Assert.assertEquals(union.getResult().getEstimate(), 10.0);
   }
 
+  @Test
+  public void directUnion() {
+    final int nomEntries = 512;
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(mode);
+    final SummarySetOperations<DoubleSummary> setOps = new DoubleSummarySetOperations(mode, mode);
+    final WritableMemory wmem = WritableMemory.allocate(Union.getMaxBytes(nomEntries, factory));
+    final Union<DoubleSummary> directUnion = new Union<>(nomEntries, setOps, factory, wmem);
+    final Union<DoubleSummary> heapUnion = new Union<>(nomEntries, setOps);
+    Assert.assertTrue(directUnion.hasMemory());
+    Assert.assertFalse(heapUnion.hasMemory());
+    Assert.assertTrue(directUnion.getResult().isEmpty());
+
+    final UpdateSketch thetaSketch = new UpdateSketchBuilder().setNominalEntries(nomEntries).build();
+    for (int s = 0; s < 4; s++) {
+      final UpdatableSketch<Double, DoubleSummary> sketch =
+          new UpdatableSketchBuilder<>(factory).setNominalEntries(nomEntries).build();
+      for (int i = 0; i < 3 * nomEntries; i++) {
+        sketch.update((s * nomEntries) + i, 1.0);
+        thetaSketch.update(i);
+      }
+      directUnion.union(sketch);
+      heapUnion.union(sketch);
+    }
+    directUnion.union(thetaSketch, new DoubleSummary(mode).update(2.0));
+    heapUnion.union(thetaSketch, new DoubleSummary(mode).update(2.0));
+
+    final CompactSketch<DoubleSummary> heapResult = heapUnion.getResult();
+    CompactSketch<DoubleSummary> directResult = directUnion.getResult();
+    Assert.assertEquals(directResult.getThetaLong(), heapResult.getThetaLong());
+    Assert.assertEquals(directResult.getRetainedEntries(), heapResult.getRetainedEntries());
+    Assert.assertEquals(sumOfValues(directResult), sumOfValues(heapResult));
+
+    // a wrap of the same memory continues the union
+    final Union<DoubleSummary> wrapped = Union.writableWrap(wmem, setOps, factory);
+    directResult = wrapped.getResult();
+    Assert.assertEquals(directResult.getThetaLong(), heapResult.getThetaLong());
+    Assert.assertEquals(sumOfValues(directResult), sumOfValues(heapResult));
+    wrapped.union(heapResult);
+    heapUnion.union(heapResult);
+    Assert.assertEquals(sumOfValues(wrapped.getResult()), sumOfValues(heapUnion.getResult()));
+
+    wrapped.reset();
+    Assert.assertTrue(Union.writableWrap(wmem, setOps, factory).getResult().isEmpty());
+  }
+
+  @Test
+  public void directUnionExceptions() {
+    final DoubleSummaryFactory factory = new DoubleSummaryFactory(mode);
+    final SummarySetOperations<DoubleSummary> setOps = new DoubleSummarySetOperations(mode, mode);
+    try {
+      new Union<>(512, setOps, factory, WritableMemory.allocate(8));
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    try {
+      Union.writableWrap(WritableMemory.allocate(Union.getMaxBytes(512, factory)), setOps, factory);
+      fail();
+    } catch (final SketchesArgumentException e) { }
+  }
+
+  private static double sumOfValues(final CompactSketch<DoubleSummary> sketch) {
+    double sum = 0;
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { sum += it.getSummary().getValue(); }
+    return sum;
+  }
+
 }
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tuple.CompactSketch;
+import org.apache.datasketches.tuple.Intersection;
+import org.apache.datasketches.tuple.Sketch;
+import org.apache.datasketches.tuple.Sketches;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.Union;
+import org.apache.datasketches.tuple.adouble.DoubleSummary.Mode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrimitiveDoubleSketchTest {
+
+  @Test
+  public void emptySketch() {
+    final PrimitiveDoubleSketch sketch = new PrimitiveDoubleSketch(12, Mode.Sum);
+    Assert.assertTrue(sketch.isEmpty());
+    Assert.assertFalse(sketch.isEstimationMode());
+    Assert.assertEquals(sketch.getEstimate(), 0.0);
+    Assert.assertEquals(sketch.getRetainedEntries(), 0);
+    Assert.assertEquals(sketch.getTheta(), 1.0);
+    Assert.assertFalse(sketch.iterator().next());
+    final Sketch<DoubleSummary> heapified =
+        Sketches.heapifySketch(Memory.wrap(sketch.toByteArray()), new DoubleSummaryDeserializer());
+    Assert.assertTrue(heapified.isEmpty());
+  }
+
+  @Test
+  public void sameAsDoubleSketch() {
+    for (final Mode mode : Mode.values()) {
+      final DoubleSketch generic = new DoubleSketch(10, mode);
+      final PrimitiveDoubleSketch primitive = new PrimitiveDoubleSketch(10, mode);
+      for (int i = 0; i < 20000; i++) {
+        generic.update((long) (i % 5000), (double) i);
+        primitive.update((long) (i % 5000), (double) i);
+      }
+      Assert.assertTrue(primitive.isEstimationMode());
+      Assert.assertEquals(primitive.getEstimate(), generic.getEstimate());
+      Assert.assertEquals(primitive.getUpperBound(2), generic.getUpperBound(2));
+      Assert.assertEquals(primitive.getLowerBound(2), generic.getLowerBound(2));
+      Assert.assertEquals(primitive.getThetaLong(), generic.getThetaLong());
+      Assert.assertEquals(primitive.getRetainedEntries(), generic.getRetainedEntries());
+      Assert.assertEquals(toMap(primitive), toMap(generic));
+
+      generic.trim();
+      primitive.trim();
+      Assert.assertEquals(primitive.getRetainedEntries(), generic.getRetainedEntries());
+      Assert.assertEquals(toMap(primitive), toMap(generic));
+    }
+  }
+
+  @Test
+  public void serializeAsCompactSketch() {
+    final PrimitiveDoubleSketch sketch = new PrimitiveDoubleSketch(10, Mode.Max);
+    sketch.update("a", 1.0);
+    Sketch<DoubleSummary> heapified =
+        Sketches.heapifySketch(Memory.wrap(sketch.toByteArray()), new DoubleSummaryDeserializer());
+    Assert.assertEquals(heapified.getEstimate(), 1.0);
+    Assert.assertEquals(toMap(heapified), toMap(sketch));
+
+    for (int i = 0; i < 10000; i++) { sketch.update(i, i); }
+    heapified =
+        Sketches.heapifySketch(Memory.wrap(sketch.toByteArray()), new DoubleSummaryDeserializer());
+    Assert.assertTrue(heapified.isEstimationMode());
+    Assert.assertEquals(heapified.getEstimate(), sketch.getEstimate());
+    Assert.assertEquals(heapified.getThetaLong(), sketch.getThetaLong());
+    Assert.assertEquals(toMap(heapified), toMap(sketch));
+    final TupleSketchIterator<DoubleSummary> it = heapified.iterator();
+    while (it.next()) { // the mode was serialized with each value
+      final DoubleSummary summary = it.getSummary().copy();
+      final double value = summary.getValue();
+      summary.update(-1.0);
+      Assert.assertEquals(summary.getValue(), value);
+    }
+  }
+
+  @Test
+  public void unionSameAsGenericUnion() {
+    for (final Mode mode : Mode.values()) {
+      final PrimitiveDoubleSketch a = new PrimitiveDoubleSketch(12, mode);
+      final PrimitiveDoubleSketch b = new PrimitiveDoubleSketch(12, mode);
+      for (int i = 0; i < 2000; i++) {
+        a.update(i, i);
+        b.update(i + 1000, 2 * i);
+      }
+      final Union<DoubleSummary> union = new Union<>(new DoubleSummarySetOperations(mode, mode));
+      union.union(heapify(a));
+      union.union(heapify(b));
+      final CompactSketch<DoubleSummary> expected = union.getResult();
+
+      a.union(b);
+      a.union(null);
+      a.union(new PrimitiveDoubleSketch(12, mode));
+      Assert.assertEquals(a.getEstimate(), 3000.0);
+      Assert.assertEquals(a.getEstimate(), expected.getEstimate());
+      Assert.assertEquals(toMap(a), toMap(expected));
+    }
+  }
+
+  @Test
+  public void unionEstimationMode() {
+    final PrimitiveDoubleSketch a = new PrimitiveDoubleSketch(10, Mode.Sum);
+    final PrimitiveDoubleSketch b = new PrimitiveDoubleSketch(10, Mode.Sum);
+    for (int i = 0; i < 10000; i++) {
+      a.update(i, 1);
+      b.update(i + 5000, 1);
+    }
+    a.union(b);
+    a.trim();
+    Assert.assertEquals(a.getEstimate(), 15000, 15000 * 0.1);
+    Assert.assertTrue(a.getThetaLong() <= b.getThetaLong());
+    Assert.assertTrue(a.getRetainedEntries() <= 1024);
+    final PrimitiveDoubleSketchIterator it = a.iterator();
+    while (it.next()) {
+      Assert.assertTrue(it.getHash() < a.getThetaLong());
+      Assert.assertTrue((it.getValue() == 1.0) || (it.getValue() == 2.0));
+    }
+  }
+
+  @Test
+  public void intersectionSameAsGenericIntersection() {
+    for (final Mode mode : Mode.values()) {
+      final PrimitiveDoubleSketch a = new PrimitiveDoubleSketch(12, mode);
+      final PrimitiveDoubleSketch b = new PrimitiveDoubleSketch(12, mode);
+      for (int i = 0; i < 2000; i++) {
+        a.update(i, i);
+        b.update(i + 1000, 2 * i);
+      }
+      final Intersection<DoubleSummary> intersection =
+          new Intersection<>(new DoubleSummarySetOperations(mode, mode));
+      intersection.intersect(heapify(a));
+      intersection.intersect(heapify(b));
+      final CompactSketch<DoubleSummary> expected = intersection.getResult();
+
+      a.intersect(b);
+      Assert.assertEquals(a.getEstimate(), 1000.0);
+      Assert.assertEquals(a.getEstimate(), expected.getEstimate());
+      Assert.assertEquals(toMap(a), toMap(expected));
+    }
+  }
+
+  @Test
+  public void disjointIntersectionSameAsGenericIntersection() {
+    for (final int n : new int[] {100, 10000}) {
+      final PrimitiveDoubleSketch a = new PrimitiveDoubleSketch(10, Mode.Sum);
+      final PrimitiveDoubleSketch b = new PrimitiveDoubleSketch(10, Mode.Sum);
+      for (int i = 0; i < n; i++) {
+        a.update(i, 1.0);
+        b.update(i + n, 1.0);
+      }
+      final Intersection<DoubleSummary> intersection =
+          new Intersection<>(new DoubleSummarySetOperations(Mode.Sum, Mode.Sum));
+      intersection.intersect(heapify(a));
+      intersection.intersect(heapify(b));
+      final CompactSketch<DoubleSummary> expected = intersection.getResult();
+
+      a.intersect(b);
+      Assert.assertEquals(a.getRetainedEntries(), 0);
+      Assert.assertEquals(a.getRetainedEntries(), expected.getRetainedEntries());
+      Assert.assertEquals(a.getEstimate(), expected.getEstimate());
+      Assert.assertEquals(a.getThetaLong(), expected.getThetaLong());
+      // exact mode with no entries in common is empty, estimation mode keeps its theta
+      Assert.assertEquals(a.isEmpty(), n == 100);
+      Assert.assertEquals(heapify(a).isEmpty(), a.isEmpty());
+    }
+  }
+
+  @Test
+  public void intersectionWithEmpty() {
+    final PrimitiveDoubleSketch a = new PrimitiveDoubleSketch(12, Mode.Sum);
+    a.update(1, 1.0);
+    a.intersect(new PrimitiveDoubleSketch(12, Mode.Sum));
+    Assert.assertTrue(a.isEmpty());
+    Assert.assertEquals(a.getRetainedEntries(), 0);
+  }
+
+  @Test
+  public void copyAndReset() {
+    final PrimitiveDoubleSketch sketch = new PrimitiveDoubleSketch(12, Mode.Sum);
+    sketch.update(1, 1.0);
+    sketch.update(1, 2.0);
+    final PrimitiveDoubleSketch copy = sketch.copy();
+    sketch.reset();
+    Assert.assertTrue(sketch.isEmpty());
+    Assert.assertEquals(copy.getEstimate(), 1.0);
+    final PrimitiveDoubleSketchIterator it = copy.iterator();
+    Assert.assertTrue(it.next());
+    Assert.assertEquals(it.getValue(), 3.0);
+    Assert.assertFalse(it.next());
+    Assert.assertNotNull(copy.toString());
+  }
+
+  @Test
+  public void samplingProbability() {
+    final PrimitiveDoubleSketch sketch = new PrimitiveDoubleSketch(12, 3, 0.5f, Mode.Sum);
+    sketch.update(1, 1.0);
+    Assert.assertFalse(sketch.isEmpty());
+    Assert.assertTrue(sketch.isEstimationMode());
+    Assert.assertEquals(sketch.getTheta(), 0.5, 1e-6);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void invalidSamplingProbability() {
+    new PrimitiveDoubleSketch(12, 3, 2f, Mode.Sum);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void intersectNull() {
+    new PrimitiveDoubleSketch(12, Mode.Sum).intersect(null);
+  }
+
+  private static Sketch<DoubleSummary> heapify(final PrimitiveDoubleSketch sketch) {
+    return Sketches.heapifySketch(Memory.wrap(sketch.toByteArray()), new DoubleSummaryDeserializer());
+  }
+
+  private static Map<Long, Double> toMap(final PrimitiveDoubleSketch sketch) {
+    final Map<Long, Double> map = new HashMap<>();
+    final PrimitiveDoubleSketchIterator it = sketch.iterator();
+    while (it.next()) { map.put(it.getHash(), it.getValue()); }
+    return map;
+  }
+
+  private static Map<Long, Double> toMap(final Sketch<DoubleSummary> sketch) {
+    final Map<Long, Double> map = new HashMap<>();
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { map.put(it.getHash(), it.getSummary().getValue()); }
+    return map;
+  }
+
+}
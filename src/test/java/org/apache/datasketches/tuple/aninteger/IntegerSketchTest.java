@@ -20,11 +20,19 @@
 package org.apache.datasketches.tuple.aninteger;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.memory.WritableMemory;
 import org.apache.datasketches.tuple.AnotB;
 import org.apache.datasketches.tuple.CompactSketch;
 import org.apache.datasketches.tuple.Intersection;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.UpdatableSketch;
+import org.apache.datasketches.tuple.UpdatableSketchBuilder;
+import org.apache.datasketches.tuple.strings.ArrayOfStringsSummaryFactory;
 import org.testng.annotations.Test;
 
 /**
@@ -122,6 +130,41 @@ public class IntegerSketchTest {
     assertEquals(a1Sk1.getEstimate(), K / 2.0);
   }
 
+  @Test
+  public void directSketchTest() {
+    final int lgK = 10;
+    final IntegerSummaryFactory factory = new IntegerSummaryFactory(IntegerSummary.Mode.Sum);
+    final WritableMemory wmem = WritableMemory.allocate(UpdatableSketch.getMaxBytes(1 << lgK, factory));
+    final UpdatableSketch<Integer, IntegerSummary> directSk =
+        new UpdatableSketchBuilder<>(factory).setNominalEntries(1 << lgK).build(wmem);
+    final IntegerSketch heapSk = new IntegerSketch(lgK, IntegerSummary.Mode.Sum);
+    for (int i = 0; i < (4 << lgK); i++) {
+      directSk.update(i % (3 << lgK), 1);
+      heapSk.update(i % (3 << lgK), 1);
+    }
+    assertEquals(directSk.getEstimate(), heapSk.getEstimate());
+    assertEquals(sumOfValues(directSk.compact()), sumOfValues(heapSk.compact()));
+    final UpdatableSketch<Integer, IntegerSummary> wrapped = UpdatableSketch.writableWrap(wmem, factory);
+    assertEquals(sumOfValues(wrapped.compact()), sumOfValues(heapSk.compact()));
+  }
+
+  @Test
+  public void directSketchRequiresFixedWidthSummaries() {
+    try {
+      new UpdatableSketchBuilder<>(new ArrayOfStringsSummaryFactory()).build(WritableMemory.allocate(1 << 16));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      assertTrue(e.getMessage().contains("FixedWidthSummary"));
+    }
+  }
+
+  private static long sumOfValues(final CompactSketch<IntegerSummary> sketch) {
+    long sum = 0;
+    final TupleSketchIterator<IntegerSummary> it = sketch.iterator();
+    while (it.next()) { sum += it.getSummary().getValue(); }
+    return sum;
+  }
+
   /**
    * @param o object to print
    */